@@ -1,7 +1,35 @@
 import React from 'react';
 
-const Pagination = ({ data, onPageChange }) => {
-    if (!data || data.totalPages <= 1) return null;
+const Pagination = ({ data, onPageChange, onCursorChange }) => {
+    if (!data) return null;
+
+    // Cursor-mode responses carry no page number, only neighbouring cursors
+    if (data.currentPage < 0) {
+        if (!data.nextCursor && !data.prevCursor) return null;
+        return (
+            <div className="pagination-container">
+                <button
+                    className="pagination-btn"
+                    disabled={!data.prevCursor}
+                    onClick={() => onCursorChange(data.prevCursor)}
+                >
+                    Previous
+                </button>
+                {data.totalElements >= 0 && (
+                    <span className="pagination-info">{data.totalElements} total</span>
+                )}
+                <button
+                    className="pagination-btn"
+                    disabled={!data.nextCursor}
+                    onClick={() => onCursorChange(data.nextCursor)}
+                >
+                    Next
+                </button>
+            </div>
+        );
+    }
+
+    if (data.totalPages <= 1) return null;
 
     return (
         <div className="pagination-container">
@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { adHocTaskService } from '../services/adHocTaskService';
+import { liveEvents } from '../services/liveEvents';
 import { useAuth } from '../contexts/AuthContext';
 import Button from '../components/Button';
 import Modal from '../components/Modal';
@@ -61,6 +62,11 @@ const AdHocTaskList = () => {
     useEffect(() => {
         loadTasks();
         loadData();
+        // Ad-hoc tasks are the task changes without a case
+        const offTask = liveEvents.on('task', ({ caseId }) => caseId == null && loadTasks());
+        const offReady = liveEvents.on('ready', ({ reconnected }) => reconnected && loadTasks());
+        const offResync = liveEvents.on('resync', () => loadTasks());
+        return () => { offTask(); offReady(); offResync(); };
     }, []);
 
     const handleCreate = async () => {
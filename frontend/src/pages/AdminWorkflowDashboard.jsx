@@ -1,23 +1,38 @@
 import React, { useState, useEffect } from 'react';
 import Button from '../components/Button';
+import Pagination from '../components/Pagination';
 import { caseService } from '../services/caseService';
 import { useNotification } from '../contexts/NotificationContext';
 
+const StatList = ({ title, counts }) => (
+    <div>
+        <h4 style={{ margin: '0 0 0.5rem' }}>{title}</h4>
+        {Object.keys(counts).length === 0 ? <small>None</small> : Object.entries(counts).map(([name, count]) => (
+            <div key={name} style={{ display: 'flex', justifyContent: 'space-between', fontSize: '0.9rem' }}>
+                <span>{name}</span><strong>{count}</strong>
+            </div>
+        ))}
+    </div>
+);
+
 const AdminWorkflowDashboard = () => {
     const { notify } = useNotification();
     const [activeTab, setActiveTab] = useState('tasks');
     const [tasks, setTasks] = useState([]);
+    const [taskPage, setTaskPage] = useState(null);
     const [processes, setProcesses] = useState([]);
+    const [stats, setStats] = useState(null);
     const [loading, setLoading] = useState(false);
     const [error, setError] = useState(null);
 
-    const fetchData = async () => {
+    const fetchData = async (cursor = '') => {
         setLoading(true);
         setError(null);
         try {
             if (activeTab === 'tasks') {
-                const data = await caseService.getAdminTasks();
-                setTasks(data);
+                const data = await caseService.getAdminTasks(cursor);
+                setTaskPage(data);
+                setTasks(data.content);
             } else {
                 const data = await caseService.getAdminProcesses();
                 setProcesses(data);
@@ -29,15 +44,24 @@ const AdminWorkflowDashboard = () => {
         }
     };
 
+    const fetchStats = () => {
+        caseService.getCaseStats().then(setStats).catch(() => setStats(null));
+    };
+
     useEffect(() => {
         fetchData();
     }, [activeTab]);
 
+    useEffect(() => {
+        fetchStats();
+    }, []);
+
     const handleTerminate = async (id) => {
         if (!window.confirm('Are you sure you want to terminate this process? This action cannot be undone.')) return;
         try {
             await caseService.terminateProcess(id);
             fetchData();
+            fetchStats();
             notify('Process terminated successfully', 'success');
         } catch (err) {
             notify('Failed to terminate: ' + err.message, 'error');
@@ -49,6 +73,7 @@ const AdminWorkflowDashboard = () => {
         try {
             await caseService.deleteAllTasks();
             fetchData();
+            fetchStats();
             notify('All active tasks/processes deleted', 'success');
         } catch (err) {
             notify('Failed to delete all: ' + err.message, 'error');
@@ -62,6 +87,15 @@ const AdminWorkflowDashboard = () => {
                 <Button variant="danger" onClick={handleDeleteAll}>Delete ALL Processes</Button>
             </div>
 
+            {stats && (
+                <div style={{ display: 'grid', gridTemplateColumns: 'repeat(auto-fit, minmax(200px, 1fr))', gap: '1rem', marginBottom: '1.5rem' }}>
+                    <StatList title={`Cases by status (${stats.open} open)`} counts={stats.byStatus} />
+                    <StatList title="Waiting for a group" counts={stats.byCandidateGroup} />
+                    <StatList title="Assigned" counts={stats.byAssignee} />
+                    <StatList title="Age of open cases" counts={stats.byAge} />
+                </div>
+            )}
+
             <div className="tabs" style={{ marginBottom: '1rem', borderBottom: '1px solid var(--border-color)', display: 'flex', gap: '1rem' }}>
                 <button
                     className={`btn ${activeTab === 'tasks' ? '' : 'btn-secondary'}`}
@@ -109,6 +143,7 @@ const AdminWorkflowDashboard = () => {
                             </table>
                         )
                     )}
+                    {activeTab === 'tasks' && <Pagination data={taskPage} onCursorChange={fetchData} />}
 
                     {activeTab === 'processes' && (
                         processes.length === 0 ? <p>No running processes found.</p> : (
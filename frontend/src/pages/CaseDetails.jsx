@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { useParams, Link } from 'react-router-dom';
 import { caseService } from '../services/caseService';
+import { liveEvents } from '../services/liveEvents';
 import { useAuth } from '../contexts/AuthContext';
 import Button from '../components/Button';
 import Modal from '../components/Modal';
@@ -36,25 +37,15 @@ const CaseDetails = () => {
     const [selectedAssignee, setSelectedAssignee] = useState('');
     const [assigning, setAssigning] = useState(false);
 
-    const loadCaseData = async () => {
-        if (!kycCase) setLoading(true);
+    const loadCaseData = async (showLoading = !kycCase) => {
+        if (showLoading) setLoading(true);
         try {
-            const [caseData, commentsData, docsData, eventsData] = await Promise.all([
-                caseService.getCaseDetails(id),
-                caseService.getCaseComments(id),
-                caseService.getCaseDocuments(id),
-                caseService.getCaseEvents(id)
-            ]);
-            setKycCase(caseData);
-            setComments(commentsData);
-            setDocs(docsData);
-            setEvents(eventsData);
-
-            // Fetch related cases after getting case details
-            if (caseData.clientID) {
-                const related = await caseService.getCasesByClient(caseData.clientID);
-                setRelatedCases(related.filter(c => c.caseID !== parseInt(id)));
-            }
+            const workspace = await caseService.getCaseWorkspace(id);
+            setKycCase(workspace.kycCase);
+            setComments(workspace.comments);
+            setDocs(workspace.documents);
+            setEvents(workspace.events);
+            setRelatedCases(workspace.relatedCases);
         } catch (err) {
             setError(err.message);
         } finally {
@@ -64,6 +55,14 @@ const CaseDetails = () => {
 
     useEffect(() => {
         loadCaseData();
+        // Reload when this case gets an event or its task moves on
+        const unwatch = liveEvents.watchCase(id);
+        const forThisCase = (caseId) => String(caseId) === String(id);
+        const offEvent = liveEvents.on('case-event', ({ caseID }) => forThisCase(caseID) && loadCaseData(false));
+        const offTask = liveEvents.on('task', ({ caseId }) => forThisCase(caseId) && loadCaseData(false));
+        const offReady = liveEvents.on('ready', ({ reconnected }) => reconnected && loadCaseData(false));
+        const offResync = liveEvents.on('resync', () => loadCaseData(false));
+        return () => { unwatch(); offEvent(); offTask(); offReady(); offResync(); };
     }, [id]);
 
     const handleTransition = async (action) => {
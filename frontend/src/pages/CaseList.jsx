@@ -3,16 +3,19 @@ import { Link } from 'react-router-dom';
 import { caseService } from '../services/caseService';
 import Pagination from '../components/Pagination';
 
+const STATUSES = ['KYC_ANALYST', 'KYC_REVIEWER', 'AFC_REVIEWER', 'ACO_REVIEWER', 'APPROVED'];
+
 const CaseList = () => {
     const [cases, setCases] = useState([]);
     const [data, setData] = useState(null);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
+    const [filters, setFilters] = useState({ status: '', assignedTo: '', clientID: '', createdFrom: '', createdTo: '' });
 
-    const loadCases = async (page = 0) => {
+    const loadCases = async (cursor = '', activeFilters = filters) => {
         setLoading(true);
         try {
-            const result = await caseService.getCases(page);
+            const result = await caseService.getCases(cursor, activeFilters);
             setCases(result.content);
             setData(result);
             setError(null);
@@ -27,10 +30,48 @@ const CaseList = () => {
         loadCases();
     }, []);
 
+    // Any filter change starts again from the first page
+    const updateFilter = (name, value) => {
+        const next = { ...filters, [name]: value };
+        setFilters(next);
+        loadCases('', next);
+    };
+
     return (
         <div className="glass-section">
             <h2 style={{ marginBottom: '1.5rem' }}>Case Management</h2>
 
+            <div style={{ display: 'flex', gap: '0.75rem', flexWrap: 'wrap', marginBottom: '1rem' }}>
+                <select value={filters.status} onChange={e => updateFilter('status', e.target.value)}>
+                    <option value="">All statuses</option>
+                    {STATUSES.map(status => <option key={status} value={status}>{status}</option>)}
+                </select>
+                <input
+                    type="text"
+                    placeholder="Assigned to"
+                    value={filters.assignedTo}
+                    onChange={e => updateFilter('assignedTo', e.target.value)}
+                />
+                <input
+                    type="number"
+                    placeholder="Client ID"
+                    value={filters.clientID}
+                    onChange={e => updateFilter('clientID', e.target.value)}
+                />
+                <input
+                    type="date"
+                    title="Created from"
+                    value={filters.createdFrom}
+                    onChange={e => updateFilter('createdFrom', e.target.value)}
+                />
+                <input
+                    type="date"
+                    title="Created to"
+                    value={filters.createdTo}
+                    onChange={e => updateFilter('createdTo', e.target.value)}
+                />
+            </div>
+
             {loading && !cases.length ? (
                 <p className="loading">Loading cases...</p>
             ) : error ? (
@@ -63,7 +104,7 @@ const CaseList = () => {
                             ))}
                         </tbody>
                     </table>
-                    <Pagination data={data} onPageChange={loadCases} />
+                    <Pagination data={data} onCursorChange={cursor => loadCases(cursor)} />
                 </>
             )}
         </div>
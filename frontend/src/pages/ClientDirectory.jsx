@@ -12,10 +12,10 @@ const ClientDirectory = () => {
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
 
-    const loadClients = async (page = 0, searchQuery = '') => {
+    const loadClients = async (cursor = '', searchQuery = '') => {
         setLoading(true);
         try {
-            const result = await clientService.getClients(page, searchQuery);
+            const result = await clientService.getClientsByCursor(cursor, searchQuery);
             setClients(result.content);
             setData(result);
             setError(null);
@@ -28,28 +28,14 @@ const ClientDirectory = () => {
 
     useEffect(() => {
         const timeout = setTimeout(() => {
-            loadClients(0, query);
+            loadClients('', query);
         }, 300);
         return () => clearTimeout(timeout);
     }, [query]);
 
     const handleExport = async () => {
         try {
-            const data = await clientService.exportClients();
-            if (!data || data.length === 0) {
-                notify('No data to export', 'warning');
-                return;
-            }
-
-            const headers = Object.keys(data[0]).join(',');
-            const rows = data.map(obj =>
-                Object.values(obj).map(val =>
-                    typeof val === 'string' ? `"${val.replace(/"/g, '""')}"` : val
-                ).join(',')
-            );
-            const csvContent = [headers, ...rows].join('\n');
-
-            const blob = new Blob([csvContent], { type: 'text/csv;charset=utf-8;' });
+            const blob = await clientService.exportClients();
             const url = URL.createObjectURL(blob);
             const link = document.createElement('a');
             link.setAttribute('href', url);
@@ -110,7 +96,7 @@ const ClientDirectory = () => {
                             ))}
                         </tbody>
                     </table>
-                    <Pagination data={data} onPageChange={(p) => loadClients(p, query)} />
+                    <Pagination data={data} onCursorChange={(c) => loadClients(c, query)} />
                 </>
             )}
         </div>
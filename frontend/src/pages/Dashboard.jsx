@@ -1,8 +1,9 @@
-import React from 'react';
+import React, { useState, useEffect } from 'react';
 import { Link } from 'react-router-dom';
 import { useAuth } from '../contexts/AuthContext';
+import { caseService } from '../services/caseService';
 
-const DashboardCard = ({ to, id, title, description, color, permission }) => {
+const DashboardCard = ({ to, id, title, description, color, permission, stat }) => {
     const { hasPermission } = useAuth();
 
     if (permission && !hasPermission(permission)) return null;
@@ -11,11 +12,23 @@ const DashboardCard = ({ to, id, title, description, color, permission }) => {
         <Link to={to} id={id} className="glass-section dashboard-card" style={{ textDecoration: 'none', transition: 'transform 0.2s' }}>
             <h3 style={{ marginTop: 0, color }}>{title}</h3>
             <p style={{ color: 'var(--text-secondary)', fontSize: '0.9rem' }}>{description}</p>
+            {stat && <p style={{ marginBottom: 0, fontWeight: 'bold' }}>{stat}</p>}
         </Link>
     );
 };
 
 const Dashboard = () => {
+    const { user, hasPermission } = useAuth();
+    const [caseStats, setCaseStats] = useState(null);
+    const canManageCases = hasPermission('MANAGE_CASES');
+
+    useEffect(() => {
+        if (!canManageCases) return;
+        caseService.getCaseStats().then(setCaseStats).catch(() => setCaseStats(null));
+    }, [canManageCases]);
+
+    const myOpenCases = caseStats && user ? (caseStats.byAssignee[user.username] || 0) : 0;
+
     return (
         <div className="dashboard-grid" style={{ display: 'grid', gridTemplateColumns: 'repeat(auto-fit, minmax(260px, 1fr))', gap: '1.5rem' }}>
             <DashboardCard
@@ -57,6 +70,7 @@ const Dashboard = () => {
                 description="Manage KYC lifecycles, approvals, and document verification."
                 color="#a1c4fd"
                 permission="MANAGE_CASES"
+                stat={caseStats && `${caseStats.open} open, ${myOpenCases} assigned to you`}
             />
             <DashboardCard
                 to="/admin/questionnaire"
@@ -6,17 +6,17 @@ const MaterialChanges = () => {
     const [data, setData] = useState(null);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
-    const [page, setPage] = useState(0);
 
-    const loadChanges = async (p = 0) => {
+    // Keyset pages: an empty cursor is the first (newest) page
+    const loadChanges = async (cursor = '') => {
         setLoading(true);
         try {
-            const response = await fetch(`/api/clients/changes?page=${p}`);
+            const params = new URLSearchParams({ cursor, includeTotal: 'true' });
+            const response = await fetch(`/api/clients/changes?${params.toString()}`);
             if (!response.ok) throw new Error('Failed to fetch changes');
             const result = await response.json();
             setChanges(result.content);
             setData(result);
-            setPage(p);
         } catch (err) {
             setError(err.message);
         } finally {
@@ -66,7 +66,7 @@ const MaterialChanges = () => {
                             ))}
                         </tbody>
                     </table>
-                    <Pagination data={data} onPageChange={loadChanges} />
+                    <Pagination data={data} onCursorChange={loadChanges} />
                 </>
             )}
         </div>
@@ -1,22 +1,34 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { caseService } from '../services/caseService';
+import { liveEvents } from '../services/liveEvents';
+import Pagination from '../components/Pagination';
 
 const TaskInbox = () => {
     const [tasks, setTasks] = useState([]);
+    const [data, setData] = useState(null);
+    // Live refreshes reload the page being viewed
+    const cursorRef = useRef('');
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
     const navigate = useNavigate();
 
     useEffect(() => {
         loadTasks();
+        // Refresh in place when a task changes instead of polling
+        const offTask = liveEvents.on('task', () => loadTasks(false));
+        const offReady = liveEvents.on('ready', ({ reconnected }) => reconnected && loadTasks(false));
+        const offResync = liveEvents.on('resync', () => loadTasks(false));
+        return () => { offTask(); offReady(); offResync(); };
     }, []);
 
-    const loadTasks = async () => {
-        setLoading(true);
+    const loadTasks = async (showLoading = true, cursor = cursorRef.current) => {
+        if (showLoading) setLoading(true);
         try {
-            const data = await caseService.getUserTasks();
-            setTasks(data);
+            const result = await caseService.getUserTasks(cursor);
+            cursorRef.current = cursor;
+            setData(result);
+            setTasks(result.content);
             setError(null);
         } catch (err) {
             setError(err.message);
@@ -78,6 +90,7 @@ const TaskInbox = () => {
                     </tbody>
                 </table>
             )}
+            <Pagination data={data} onCursorChange={(cursor) => loadTasks(true, cursor)} />
         </div>
     );
 };
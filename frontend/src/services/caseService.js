@@ -1,22 +1,27 @@
 const API_BASE_URL = '/api/cases';
 
 export const caseService = {
-    getCases: async (page = 0) => {
-        const response = await fetch(`${API_BASE_URL}`);
+    // Keyset pages; an empty cursor is the first (newest) page. Filters: status,
+    // assignedTo, clientID, createdFrom, createdTo (yyyy-mm-dd, inclusive)
+    getCases: async (cursor = '', filters = {}) => {
+        const params = new URLSearchParams({ cursor, includeTotal: 'true' });
+        Object.entries(filters).forEach(([key, value]) => {
+            if (value !== undefined && value !== null && value !== '') params.append(key, value);
+        });
+        const response = await fetch(`${API_BASE_URL}?${params.toString()}`);
         if (response.status === 401) {
             window.location.href = '/login?message=Session expired';
             throw new Error('Session expired');
         }
         if (!response.ok) throw new Error('Failed to fetch cases');
-        const data = await response.json();
-        // Backend returns a plain list, wrap it to match expected pagination structure
-        return {
-            content: data,
-            totalPages: 1,
-            totalElements: data.length,
-            size: data.length,
-            number: 0
-        };
+        return response.json();
+    },
+
+    // Case counts by status, assignee, candidate group and age
+    getCaseStats: async () => {
+        const response = await fetch(`${API_BASE_URL}/stats`);
+        if (!response.ok) throw new Error('Failed to fetch case statistics');
+        return response.json();
     },
 
     getCasesByClient: async (clientID) => {
@@ -31,6 +36,14 @@ export const caseService = {
         return response.json();
     },
 
+    // Case, client, comments, documents, events, questionnaire, risk history and
+    // the client's other cases in one request
+    getCaseWorkspace: async (id) => {
+        const response = await fetch(`${API_BASE_URL}/${id}/workspace`);
+        if (!response.ok) throw new Error('Failed to fetch case details');
+        return response.json();
+    },
+
     getCaseComments: async (id) => {
         const response = await fetch(`${API_BASE_URL}/${id}/comments`);
         if (!response.ok) throw new Error('Failed to fetch case comments');
@@ -86,8 +99,9 @@ export const caseService = {
         if (!response.ok) throw new Error('Failed to upload document');
     },
 
-    getUserTasks: async () => {
-        const response = await fetch(`${API_BASE_URL}/tasks`);
+    getUserTasks: async (cursor = '') => {
+        const params = new URLSearchParams({ cursor });
+        const response = await fetch(`${API_BASE_URL}/tasks?${params.toString()}`);
         if (!response.ok) throw new Error('Failed to fetch tasks');
         return response.json();
     },
@@ -114,8 +128,9 @@ export const caseService = {
     },
 
     // Admin Workflow
-    getAdminTasks: async () => {
-        const response = await fetch('/api/cases/admin/tasks');
+    getAdminTasks: async (cursor = '') => {
+        const params = new URLSearchParams({ cursor });
+        const response = await fetch(`/api/cases/admin/tasks?${params.toString()}`);
         if (!response.ok) throw new Error('Failed to fetch admin tasks');
         return response.json();
     },
@@ -10,21 +10,42 @@ export const clientService = {
         return response.json();
     },
 
+    // Keyset pagination: pass '' for the first page, then nextCursor/prevCursor from the response.
+    // The directory grid only needs top-level columns, so rows come back as flat summaries.
+    getClientsByCursor: async (cursor = '', query = '') => {
+        const params = new URLSearchParams({ cursor, includeTotal: 'true', view: 'summary' });
+        if (query) params.append('query', query);
+        const url = query
+            ? `${API_BASE_URL}/search?${params.toString()}`
+            : `${API_BASE_URL}?${params.toString()}`;
+        const response = await fetch(url);
+        if (!response.ok) throw new Error('Failed to fetch clients');
+        return response.json();
+    },
+
     getClientDetails: async (id) => {
         const response = await fetch(`${API_BASE_URL}/${id}`);
         if (!response.ok) throw new Error('Failed to fetch client details');
         return response.json();
     },
 
-    exportClients: async (startDate, endDate) => {
-        let url = `${API_BASE_URL}/changes/export`;
-        const params = new URLSearchParams();
+    // Returns the export file as a Blob; 'excel' is CSV that Excel opens as UTF-8
+    exportClients: async (startDate, endDate, format = 'excel') => {
+        const params = new URLSearchParams({ format });
         if (startDate) params.append('startDate', startDate);
         if (endDate) params.append('endDate', endDate);
-        if (params.toString()) url += `?${params.toString()}`;
 
-        const response = await fetch(url);
+        const response = await fetch(`${API_BASE_URL}/changes/export?${params.toString()}`);
         if (!response.ok) throw new Error('Failed to export clients');
+        return response.blob();
+    },
+
+    getChangeStats: async (startDate, endDate, byDay = false) => {
+        const params = new URLSearchParams({ byDay });
+        if (startDate) params.append('startDate', startDate);
+        if (endDate) params.append('endDate', endDate);
+        const response = await fetch(`${API_BASE_URL}/changes/stats?${params.toString()}`);
+        if (!response.ok) throw new Error('Failed to fetch change statistics');
         return response.json();
     },
 
@@ -41,5 +62,11 @@ export const clientService = {
         const response = await fetch(`${API_BASE_URL}/related-parties/${partyId}`);
         if (!response.ok) throw new Error('Failed to fetch related party details');
         return response.json();
+    },
+
+    getClientNetwork: async (id, depth = 2) => {
+        const response = await fetch(`${API_BASE_URL}/${id}/network?depth=${depth}`);
+        if (!response.ok) throw new Error('Failed to fetch client network');
+        return response.json();
     }
 };
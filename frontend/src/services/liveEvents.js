@@ -0,0 +1,79 @@
+// One server-sent event stream per tab, shared by every page instead of each page
+// polling. Pages listen for event names ('case-event', 'task', 'ready', 'resync')
+// and say which cases they are watching; a change to the watched cases reopens the
+// stream, resuming after the last case event seen. 'ready' arrives on every
+// connection, with reconnected set when task changes may have been missed.
+const STREAM_URL = '/api/events/stream';
+const EVENT_NAMES = ['case-event', 'task', 'ready', 'resync'];
+
+const listeners = new Set();
+const watched = new Map(); // caseId -> number of pages watching it
+let source = null;
+let openKey = null;
+let lastEventId = '';
+let pending = null;
+
+const dispatch = (name, data) => {
+    listeners.forEach(listener => {
+        if (listener.name === name) listener.handler(data);
+    });
+};
+
+const open = () => {
+    pending = null;
+    const caseIds = [...watched.keys()].sort((a, b) => a - b);
+    const key = listeners.size === 0 ? null : caseIds.join(',');
+    if (key === openKey) return;
+    if (source) source.close();
+    source = null;
+    openKey = key;
+    if (key === null) return;
+
+    const params = new URLSearchParams();
+    caseIds.forEach(caseId => params.append('caseId', caseId));
+    if (lastEventId) params.append('lastEventId', lastEventId);
+    source = new EventSource(`${STREAM_URL}?${params.toString()}`);
+    // A second 'ready' on the same EventSource means the browser reconnected it
+    // after an error, and task changes in between were not replayed
+    let connected = false;
+    EVENT_NAMES.forEach(name => source.addEventListener(name, event => {
+        if (event.lastEventId) lastEventId = event.lastEventId;
+        const data = event.data ? JSON.parse(event.data) : {};
+        if (name === 'ready') {
+            dispatch(name, { ...data, reconnected: connected });
+            connected = true;
+        } else {
+            dispatch(name, data);
+        }
+    }));
+};
+
+// Coalesces the subscribe/unsubscribe calls of a page change into one reopen
+const scheduleOpen = () => {
+    if (!pending) pending = setTimeout(open, 0);
+};
+
+export const liveEvents = {
+    // Returns a function that removes the handler
+    on: (name, handler) => {
+        const listener = { name, handler };
+        listeners.add(listener);
+        scheduleOpen();
+        return () => {
+            listeners.delete(listener);
+            scheduleOpen();
+        };
+    },
+
+    // Returns a function that stops watching
+    watchCase: (caseId) => {
+        const id = Number(caseId);
+        watched.set(id, (watched.get(id) || 0) + 1);
+        scheduleOpen();
+        return () => {
+            const count = watched.get(id) - 1;
+            if (count > 0) watched.set(id, count); else watched.delete(id);
+            scheduleOpen();
+        };
+    }
+};
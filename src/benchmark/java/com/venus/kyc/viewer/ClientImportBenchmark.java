@@ -0,0 +1,105 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venus.kyc.viewer.network.OwnershipGraph;
+import com.venus.kyc.viewer.search.ClientNameIndex;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// Bulk import throughput against an in-memory H2 database with the application
+// schema. Each generated client has an address, an identifier and an account;
+// every tenth has a related party with an address. Not a unit test; run it with
+//   ./mvnw -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+//       -Dexec.mainClass=com.venus.kyc.viewer.ClientImportBenchmark [-Dexec.args="1000000 1000"]
+public class ClientImportBenchmark {
+
+	public static void main(String[] args) {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:import-bench;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema.sql'");
+		JdbcClient jdbcClient = JdbcClient.create(dataSource);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		// COMMIT: there is no scheduler here to drain an ASYNC queue
+		MaterialChangeCapture changeCapture = new MaterialChangeCapture(jdbcTemplate, transactionManager,
+				new MaterialChangeRollups(jdbcTemplate), MaterialChangeCapture.Durability.COMMIT, 10000, 500);
+		ClientImportService service = new ClientImportService(jdbcTemplate, jdbcClient, transactionManager,
+				new ObjectMapper(), new ClientNameIndex(jdbcClient, 0.75), new OwnershipGraph(jdbcClient, 5000),
+				new CountCache(60), changeCapture, chunkSize);
+
+		ClientImportService.Report report = service.importClients("bench", ClientImportService.Format.NDJSON,
+				new GeneratedNdjson(clients));
+		System.out.printf("%,d clients, chunk %d: %,d rows in %.1f s = %,.0f rows/s (%,.0f clients/s)%n",
+				report.recordsImported(), chunkSize, report.rowsImported(), report.elapsedMillis() / 1000.0,
+				report.rowsPerSecond(), report.recordsImported() / (report.elapsedMillis() / 1000.0));
+		System.out.printf("Clients in table: %,d%n",
+				jdbcClient.sql("SELECT COUNT(*) FROM Clients").query(Long.class).single());
+	}
+
+	// Produces the NDJSON lazily so the input never has to fit in memory
+	private static final class GeneratedNdjson extends InputStream {
+
+		private final int clients;
+		private int next;
+		private byte[] line = new byte[0];
+		private int position;
+
+		GeneratedNdjson(int clients) {
+			this.clients = clients;
+		}
+
+		@Override
+		public int read() {
+			if (!fill()) {
+				return -1;
+			}
+			return line[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			int n = Math.min(length, line.length - position);
+			System.arraycopy(line, position, buffer, offset, n);
+			position += n;
+			return n;
+		}
+
+		private boolean fill() {
+			if (position < line.length) {
+				return true;
+			}
+			if (next >= clients) {
+				return false;
+			}
+			int i = next++;
+			String party = i % 10 == 0
+					? "{\"relationType\":\"POA\",\"firstName\":\"Rep" + i + "\",\"lastName\":\"Weber\","
+							+ "\"addresses\":[{\"addressType\":\"HOME\",\"addressLine1\":\"Hauptstrasse " + i
+							+ "\",\"city\":\"Bern\",\"zip\":\"3000\",\"country\":\"CH\"}]}"
+					: "";
+			String json = "{\"firstName\":\"Client" + i + "\",\"lastName\":\"Meier\",\"citizenship1\":\"CH\","
+					+ "\"onboardingDate\":\"2024-01-15\",\"status\":\"ACTIVE\",\"dateOfBirth\":\"1980-05-01\","
+					+ "\"addresses\":[{\"addressType\":\"HOME\",\"addressLine1\":\"Bahnhofstrasse " + i
+					+ "\",\"city\":\"Zurich\",\"zip\":\"8001\",\"country\":\"CH\"}],"
+					+ "\"identifiers\":[{\"identifierType\":\"PASSPORT\",\"identifierValue\":\"X" + i + "\"}],"
+					+ "\"accounts\":[{\"accountNumber\":\"CH" + i + "\",\"accountStatus\":\"OPEN\"}],"
+					+ "\"relatedParties\":[" + party + "]}\n";
+			line = json.getBytes(StandardCharsets.UTF_8);
+			position = 0;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Masked serialization of a page of fully loaded clients: copying each record with
+// its collections nulled out before writing (how the controller used to mask)
+// against writing the original with includeSensitive=false. Reports throughput and
+// bytes allocated per client. Not a unit test; run it with
+//   ./mvnw -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+//       -Dexec.mainClass=com.venus.kyc.viewer.ClientMaskingBenchmark [-Dexec.args="1000 5"]
+public class ClientMaskingBenchmark {
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	public static void main(String[] args) throws IOException {
+		int pageSize = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		List<Client> page = new ArrayList<>();
+		for (long id = 1; id <= pageSize; id++) {
+			page.add(client(id));
+		}
+
+		for (int round = 0; round < 2; round++) {
+			// First round is warm-up
+			boolean report = round == 1;
+			run("copy then write", page, seconds, report, (json, client) -> ClientJsonWriter.write(json, masked(client)));
+			run("write masked", page, seconds, report, (json, client) -> ClientJsonWriter.write(json, client, false));
+			run("write full", page, seconds, report, (json, client) -> ClientJsonWriter.write(json, client, true));
+		}
+	}
+
+	private static void run(String name, List<Client> page, int seconds, boolean report, Writer writer)
+			throws IOException {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+		long clients = 0;
+		long started = System.nanoTime();
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		while (System.nanoTime() < deadline) {
+			try (JsonGenerator json = JSON.createGenerator(OutputStream.nullOutputStream(), JsonEncoding.UTF8)) {
+				json.writeStartArray();
+				for (Client client : page) {
+					writer.write(json, client);
+				}
+				json.writeEndArray();
+			}
+			clients += page.size();
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		double elapsed = (System.nanoTime() - started) / 1e9;
+		if (report) {
+			System.out.printf("%-16s %,12.0f clients/s %,8.1f bytes/client%n", name, clients / elapsed,
+					(double) allocated / clients);
+		}
+	}
+
+	// The old ClientController.maskSensitiveData
+	private static Client masked(Client client) {
+		return new Client(client.clientID(), client.titlePrefix(), client.firstName(), client.middleName(),
+				client.lastName(), client.titleSuffix(), client.citizenship1(), client.citizenship2(),
+				client.onboardingDate(), client.status(), client.nameAtBirth(), client.nickName(), client.gender(),
+				client.dateOfBirth(), client.language(), client.occupation(), client.countryOfTax(),
+				client.sourceOfFundsCountry(), client.fatcaStatus(), client.crsStatus(), null, null, null, null, null);
+	}
+
+	private static Client client(long id) {
+		LocalDate onboarded = LocalDate.of(2020, 1, 1).plusDays(id % 1000);
+		List<Address> addresses = List.of(new Address(id, "RESIDENTIAL", "Bahnhofstrasse " + id, null, "Zurich",
+				"8001", "CH", String.valueOf(id), null));
+		List<Identifier> identifiers = List.of(new Identifier(id, "PASSPORT", "X" + id, "CH", "N" + id));
+		List<RelatedParty> parties = List.of(new RelatedParty(id, id, "UBO", null, "Party", null, "Owner" + id,
+				null, "CH", null, onboarded, "ACTIVE", null, null, "F", LocalDate.of(1970, 1, 1), "DE", null,
+				"CH", "CH", "NON_US", "REPORTABLE", addresses, identifiers));
+		return new Client(id, "Mr", "First" + id, null, "Last" + id, null, "CH", "DE", onboarded, "ACTIVE", null,
+				null, "M", LocalDate.of(1980, 1, 1).plusDays(id % 5000), "EN", "Engineer", "CH", "CH", "NON_US",
+				"REPORTABLE", addresses, identifiers, parties,
+				List.of(new Account(id, "ACC" + id, "OPEN")),
+				List.of(new Portfolio(id, id, "ACC" + id, "Balanced", onboarded, null, "ACTIVE")));
+	}
+
+	private interface Writer {
+		void write(JsonGenerator json, Client client) throws IOException;
+	}
+}
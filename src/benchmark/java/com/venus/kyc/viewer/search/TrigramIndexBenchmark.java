@@ -0,0 +1,126 @@
+package com.venus.kyc.viewer.search;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+// Compares the trigram index with the LIKE path used by
+// ClientRepository.searchByNamePaginated (COUNT query plus page query) on an
+// in-memory H2 Clients table. Not a unit test; run it from the IDE or with
+//   ./mvnw -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+//       -Dexec.mainClass=com.venus.kyc.viewer.search.TrigramIndexBenchmark [-Dexec.args=1000000]
+public class TrigramIndexBenchmark {
+
+	private static final String[] FIRST = { "Anna", "Bernd", "Carla", "Dieter", "Eva", "Frank", "Greta", "Hans",
+			"Ilse", "Jens", "Karl", "Lena", "Max", "Nina", "Otto", "Paula", "Ralf", "Sabine", "Tobias", "Ute" };
+	private static final String[] LAST = { "Meier", "Mayer", "Schmidt", "Schneider", "Fischer", "Weber", "Wagner",
+			"Becker", "Schulz", "Hoffmann", "Koch", "Richter", "Klein", "Wolf", "Neumann", "Zimmermann" };
+	private static final String[] QUERIES = { "meier", "schmi", "ann", "zimmermann4", "ilse12", "nomatch" };
+
+	private static final int WARMUP = 20;
+	private static final int RUNS = 50;
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:trigram-bench;DB_CLOSE_DELAY=-1")) {
+			populate(connection, clients);
+
+			long start = System.nanoTime();
+			TrigramIndex index = new TrigramIndex();
+			try (Statement statement = connection.createStatement();
+					ResultSet rs = statement.executeQuery(
+							"SELECT ClientID, FirstName, MiddleName, LastName FROM Clients ORDER BY ClientID")) {
+				while (rs.next()) {
+					for (int column = 2; column <= 4; column++) {
+						index.add(rs.getLong(1), rs.getString(column), ClientNameIndex.CLIENT_NAME_WEIGHT);
+					}
+				}
+			}
+			System.out.printf("%,d clients, index built in %d ms%n%n", clients, (System.nanoTime() - start) / 1_000_000);
+			System.out.printf("%-14s %10s %14s %14s%n", "query", "matches", "LIKE (ms)", "trigram (ms)");
+
+			for (String query : QUERIES) {
+				long likeMatches = 0;
+				for (int i = 0; i < WARMUP; i++) {
+					likeMatches = likeSearch(connection, query);
+					index.search(query);
+				}
+				long likeNanos = 0;
+				for (int i = 0; i < 5; i++) {
+					long t = System.nanoTime();
+					likeSearch(connection, query);
+					likeNanos += System.nanoTime() - t;
+				}
+				long indexNanos = 0;
+				long[] hits = null;
+				for (int i = 0; i < RUNS; i++) {
+					long t = System.nanoTime();
+					hits = index.search(query);
+					indexNanos += System.nanoTime() - t;
+				}
+				System.out.printf("%-14s %10d %14.3f %14.3f%n", query, hits.length, likeNanos / 5 / 1e6,
+						indexNanos / (double) RUNS / 1e6);
+				if (likeMatches != hits.length) {
+					System.out.println("  note: LIKE is case-sensitive on H2, matched " + likeMatches);
+				}
+			}
+		}
+	}
+
+	// Same statements the repository issues for page 0 of size 10
+	private static long likeSearch(Connection connection, String query) throws SQLException {
+		String like = "%" + query + "%";
+		long count;
+		try (PreparedStatement ps = connection.prepareStatement(
+				"SELECT COUNT(*) FROM Clients WHERE FirstName LIKE ? OR MiddleName LIKE ? OR LastName LIKE ?")) {
+			ps.setString(1, like);
+			ps.setString(2, like);
+			ps.setString(3, like);
+			try (ResultSet rs = ps.executeQuery()) {
+				rs.next();
+				count = rs.getLong(1);
+			}
+		}
+		try (PreparedStatement ps = connection.prepareStatement(
+				"SELECT * FROM Clients WHERE FirstName LIKE ? OR MiddleName LIKE ? OR LastName LIKE ? LIMIT 10 OFFSET 0")) {
+			ps.setString(1, like);
+			ps.setString(2, like);
+			ps.setString(3, like);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					rs.getLong(1);
+				}
+			}
+		}
+		return count;
+	}
+
+	private static void populate(Connection connection, int clients) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE Clients (ClientID BIGINT PRIMARY KEY, FirstName VARCHAR(100) NOT NULL, "
+					+ "MiddleName VARCHAR(50), LastName VARCHAR(100))");
+		}
+		Random random = new Random(42);
+		connection.setAutoCommit(false);
+		try (PreparedStatement ps = connection.prepareStatement(
+				"INSERT INTO Clients (ClientID, FirstName, MiddleName, LastName) VALUES (?, ?, ?, ?)")) {
+			for (int id = 1; id <= clients; id++) {
+				ps.setLong(1, id);
+				ps.setString(2, FIRST[random.nextInt(FIRST.length)]);
+				ps.setString(3, random.nextInt(4) == 0 ? FIRST[random.nextInt(FIRST.length)] : null);
+				ps.setString(4, LAST[random.nextInt(LAST.length)] + random.nextInt(1000));
+				ps.addBatch();
+				if (id % 10_000 == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+		connection.commit();
+		connection.setAutoCommit(true);
+	}
+}
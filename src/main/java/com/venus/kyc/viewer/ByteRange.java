@@ -0,0 +1,54 @@
+package com.venus.kyc.viewer;
+
+// One byte range of a Range request header, both ends inclusive
+record ByteRange(long start, long end) {
+
+    long length() {
+        return end - start + 1;
+    }
+
+    // The range clipped to the content, or null when the whole content should be
+    // sent: no header, one that doesn't parse, or several ranges, which are answered
+    // in full rather than as multipart. Throws IllegalArgumentException when none of
+    // the range lies within the content (416).
+    static ByteRange parse(String header, long contentLength) {
+        if (header == null || !header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        long first = digits(spec.substring(0, dash).trim());
+        long last = digits(spec.substring(dash + 1).trim());
+        if (first == -1) {
+            // bytes=-N, the final N bytes
+            if (last < 0) {
+                return null;
+            }
+            if (last == 0 || contentLength == 0) {
+                throw new IllegalArgumentException("Unsatisfiable range: " + header);
+            }
+            return new ByteRange(Math.max(0, contentLength - last), contentLength - 1);
+        }
+        if (first < 0 || last < -1 || (last >= 0 && last < first)) {
+            return null;
+        }
+        if (first >= contentLength) {
+            throw new IllegalArgumentException("Unsatisfiable range: " + header);
+        }
+        return new ByteRange(first, last == -1 ? contentLength - 1 : Math.min(last, contentLength - 1));
+    }
+
+    // -1 for an empty string, -2 for anything but a plain decimal number
+    private static long digits(String value) {
+        if (value.isEmpty()) {
+            return -1;
+        }
+        if (value.length() > 18 || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -2;
+        }
+        return Long.parseLong(value);
+    }
+}
@@ -5,7 +5,7 @@ import java.time.LocalDateTime;
 public record Case(
         Long caseID,
         Long clientID,
-        String clientName, // Joined from Clients
+        String clientName, // Copied from Clients when the case is created
         LocalDateTime createdDate,
         String reason,
         String assignedTo,
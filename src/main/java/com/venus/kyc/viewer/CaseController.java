@@ -3,6 +3,7 @@ package com.venus.kyc.viewer;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -13,27 +14,81 @@ import java.util.Map;
 @RequestMapping("/api/cases")
 public class CaseController {
 
+    private static final String DOCUMENT_CACHE_CONTROL = "private, max-age=31536000, immutable";
+
     private final CaseRepository caseRepository;
     private final UserRepository userRepository;
     private final CaseService caseService;
     private final EventService eventService;
+    private final EntityVersions entityVersions;
+    private final CaseWorkspaceService caseWorkspaceService;
+    private final CaseDocumentService caseDocumentService;
+    private final CaseStatistics caseStatistics;
+    private final TaskInboxRepository taskInboxRepository;
 
     public CaseController(CaseRepository caseRepository, UserRepository userRepository, CaseService caseService,
-            EventService eventService) {
+            EventService eventService, EntityVersions entityVersions, CaseWorkspaceService caseWorkspaceService,
+            CaseDocumentService caseDocumentService, CaseStatistics caseStatistics,
+            TaskInboxRepository taskInboxRepository) {
         this.caseRepository = caseRepository;
         this.userRepository = userRepository;
         this.caseService = caseService;
         this.eventService = eventService;
+        this.entityVersions = entityVersions;
+        this.caseWorkspaceService = caseWorkspaceService;
+        this.caseDocumentService = caseDocumentService;
+        this.caseStatistics = caseStatistics;
+        this.taskInboxRepository = taskInboxRepository;
     }
 
+    // Keyset pages of the case list, newest first; pass back nextCursor/prevCursor to
+    // move between pages. Filters combine with AND, and both dates are inclusive.
     @GetMapping
-    public List<Case> getCases() {
-        return caseRepository.findAll();
+    public PaginatedResponse<Case> getCases(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String assignedTo,
+            @RequestParam(required = false) Long clientID,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate createdFrom,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate createdTo,
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CaseRepository.Filter filter = new CaseRepository.Filter(blankToNull(status), blankToNull(assignedTo),
+                clientID, createdFrom, createdTo);
+        try {
+            return caseRepository.findPage(filter, cursor, size, !"ASC".equalsIgnoreCase(sortDir), includeTotal);
+        } catch (IllegalArgumentException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Dashboard counts, kept up to date as cases change rather than counted per request
+    @GetMapping("/stats")
+    public CaseStatistics.Stats getStats() {
+        return caseStatistics.stats();
     }
 
     @GetMapping("/{id}")
-    public Case getCase(@PathVariable Long id) {
-        return caseRepository.findById(id).orElseThrow();
+    public ResponseEntity<Case> getCase(@PathVariable Long id, WebRequest request) {
+        return conditionalGet(id, "case", request, () -> caseRepository.findById(id).orElse(null));
+    }
+
+    // The case details page in one round trip; Server-Timing has each section's time
+    @GetMapping("/{id}/workspace")
+    public ResponseEntity<CaseWorkspace> getWorkspace(@PathVariable Long id,
+            org.springframework.security.core.Authentication authentication) {
+        try {
+            return caseWorkspaceService.load(id, ClientView.canViewSensitiveData(authentication))
+                    .map(loaded -> ResponseEntity.ok()
+                            .header("Server-Timing", loaded.serverTiming())
+                            .body(loaded.workspace()))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (java.util.concurrent.TimeoutException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE, "Case workspace timed out");
+        }
     }
 
     @GetMapping("/client/{clientID}")
@@ -42,13 +97,13 @@ public class CaseController {
     }
 
     @GetMapping("/{id}/comments")
-    public List<CaseComment> getComments(@PathVariable Long id) {
-        return caseRepository.findCommentsByCaseId(id);
+    public ResponseEntity<List<CaseComment>> getComments(@PathVariable Long id, WebRequest request) {
+        return conditionalGet(id, "case-comments", request, () -> caseRepository.findCommentsByCaseId(id));
     }
 
     @GetMapping("/{id}/documents")
-    public List<CaseDocument> getDocuments(@PathVariable Long id) {
-        return caseRepository.findDocumentsByCaseId(id);
+    public ResponseEntity<List<CaseDocument>> getDocuments(@PathVariable Long id, WebRequest request) {
+        return conditionalGet(id, "case-documents", request, () -> caseRepository.findDocumentsByCaseId(id));
     }
 
     @PostMapping("/migrate")
@@ -66,15 +121,18 @@ public class CaseController {
     }
 
     // New Endpoint for Workflow Tasks
+    // Keyset pages of the caller's inbox, newest first, read from TaskInbox
     @GetMapping("/tasks")
-    public List<Map<String, Object>> getMyTasks(org.springframework.security.core.Authentication authentication) {
+    public PaginatedResponse<TaskInboxEntry> getMyTasks(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            org.springframework.security.core.Authentication authentication) {
         User user = userRepository.findByUsername(authentication.getName()).orElseThrow();
         // Determine groups based on Role.
         // Simple mapping: ROLE_KYC_ANALYST -> KYC_ANALYST group
         // Assuming role string matches BPMN candidate group or we map it.
         // Role in DB: KYC_ANALYST, etc.
         List<String> groups = List.of(user.role());
-        return caseService.getUserTasks(user.username(), groups);
+        return taskPage(TaskInboxRepository.Filter.inboxOf(user.username(), groups), cursor, size);
     }
 
     @DeleteMapping("/tasks")
@@ -86,9 +144,14 @@ public class CaseController {
     // Admin Endpoints
 
     @GetMapping("/admin/tasks")
-    public List<Map<String, Object>> getAllTasks(org.springframework.security.core.Authentication authentication) {
+    public PaginatedResponse<TaskInboxEntry> getAllTasks(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String assignee,
+            @RequestParam(required = false) String candidateGroup,
+            org.springframework.security.core.Authentication authentication) {
         // In real app, check for ADMIN role
-        return caseService.getAllTasks();
+        return taskPage(TaskInboxRepository.Filter.all(blankToNull(assignee), blankToNull(candidateGroup)), cursor,
+                size);
     }
 
     @GetMapping("/admin/processes")
@@ -126,18 +189,8 @@ public class CaseController {
             groups = List.of(user.role());
         }
 
-        List<Map<String, Object>> tasks = caseService.getUserTasks(authentication.getName(), groups);
-
-        // Filter for this case
-        String taskId = tasks.stream()
-                .filter(t -> {
-                    Object cId = t.get("caseId");
-                    boolean match = cId != null && String.valueOf(id).equals(String.valueOf(cId));
-                    return match;
-                })
-                .map(t -> (String) t.get("taskId"))
-                .findFirst()
-                .orElse(null);
+        // The case's task in the user's inbox, found by one indexed TaskInbox lookup
+        String taskId = taskInboxRepository.findTaskIdForCase(id, authentication.getName(), groups).orElse(null);
 
         if (taskId == null) {
             // Fallback or error if no task found for this user on this case
@@ -184,14 +237,17 @@ public class CaseController {
             @RequestParam("category") String category,
             @RequestParam("comment") String comment,
             org.springframework.security.core.Authentication authentication) throws IOException {
-        caseRepository.addDocument(
-                id,
-                file.getOriginalFilename(),
-                category,
-                file.getContentType(),
-                authentication.getName(),
-                comment,
-                file.getBytes());
+        // The multipart file is already spooled to disk; stream it on to the store
+        try (java.io.InputStream content = file.getInputStream()) {
+            caseDocumentService.upload(
+                    id,
+                    file.getOriginalFilename(),
+                    category,
+                    file.getContentType(),
+                    authentication.getName(),
+                    comment,
+                    content);
+        }
         return ResponseEntity.ok().build();
     }
 
@@ -217,17 +273,87 @@ public class CaseController {
         return ResponseEntity.ok(caseId);
     }
 
+    // Content is addressed by its digest and never changes, so the digest is the
+    // ETag and browsers may keep it for a year. Serves a single Range; If-Range
+    // with a different tag gets the whole document.
     @GetMapping("/documents/{docId}")
-    public ResponseEntity<byte[]> downloadDocument(@PathVariable Long docId) {
-        CaseDocument doc = caseRepository.findDocumentById(docId).orElseThrow();
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(doc.mimeType()))
-                .header("Content-Disposition", "attachment; filename=\"" + doc.documentName() + "\"")
-                .body(doc.data());
+    public ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody> downloadDocument(
+            @PathVariable Long docId,
+            @RequestHeader(value = org.springframework.http.HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = org.springframework.http.HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest request) throws IOException {
+        CaseDocument doc = caseDocumentService.findDocument(docId).orElse(null);
+        if (doc == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"" + doc.contentHash() + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(org.springframework.http.HttpHeaders.CACHE_CONTROL, DOCUMENT_CACHE_CONTROL)
+                    .build();
+        }
+
+        long length = doc.contentLength();
+        ByteRange byteRange;
+        try {
+            byteRange = ifRange == null || ifRange.equals(etag) ? ByteRange.parse(range, length) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(org.springframework.http.HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .build();
+        }
+        long start = byteRange == null ? 0 : byteRange.start();
+        long count = byteRange == null ? length : byteRange.length();
+
+        ResponseEntity.BodyBuilder response = (byteRange == null ? ResponseEntity.ok()
+                : ResponseEntity.status(org.springframework.http.HttpStatus.PARTIAL_CONTENT)
+                        .header(org.springframework.http.HttpHeaders.CONTENT_RANGE,
+                                "bytes " + byteRange.start() + "-" + byteRange.end() + "/" + length))
+                .contentType(documentType(doc.mimeType()))
+                .contentLength(count)
+                .eTag(etag)
+                .header(org.springframework.http.HttpHeaders.CACHE_CONTROL, DOCUMENT_CACHE_CONTROL)
+                .header(org.springframework.http.HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
+                        org.springframework.http.ContentDisposition.attachment()
+                                .filename(doc.documentName(), java.nio.charset.StandardCharsets.UTF_8)
+                                .build()
+                                .toString());
+        return response.body(out -> caseDocumentService.transferTo(doc, start, count, out));
     }
 
     @GetMapping("/{id}/events")
-    public List<CaseEvent> getCaseEvents(@PathVariable Long id) {
-        return eventService.getEventsForCase(id);
+    public ResponseEntity<List<CaseEvent>> getCaseEvents(@PathVariable Long id, WebRequest request) {
+        return conditionalGet(id, "case-events", request, () -> eventService.getEventsForCase(id));
+    }
+
+    private static MediaType documentType(String mimeType) {
+        try {
+            return mimeType == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(mimeType);
+        } catch (org.springframework.http.InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private PaginatedResponse<TaskInboxEntry> taskPage(TaskInboxRepository.Filter filter, String cursor, int size) {
+        try {
+            return taskInboxRepository.findPage(filter, cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    // Case reads and their comments, documents and events all share the case version
+    private <T> ResponseEntity<T> conditionalGet(Long caseId, String resource, WebRequest request,
+            java.util.function.Supplier<T> body) {
+        return entityVersions.caseVersion(caseId)
+                .map(version -> ConditionalGet.respond(request, ConditionalGet.etag(resource, caseId, version), body))
+                .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -8,6 +8,7 @@ public record CaseDocument(
                 String mimeType,
                 String uploadedBy,
                 String comment,
-                byte[] data,
+                String contentHash,
+                Long contentLength,
                 java.time.LocalDateTime uploadDate) {
 }
@@ -0,0 +1,80 @@
+package com.venus.kyc.viewer;
+
+import com.venus.kyc.viewer.documents.DocumentStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.Optional;
+
+// Case document content goes to the DocumentStore, streamed and hashed on the way
+// in; CaseDocuments keeps the metadata and the digest. Documents from before the
+// store still have their bytes in the Data BLOB and are moved out the first time
+// they are downloaded.
+@Service
+public class CaseDocumentService {
+
+    private final CaseRepository caseRepository;
+    private final DocumentStore documentStore;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CaseDocumentService(CaseRepository caseRepository, DocumentStore documentStore, JdbcTemplate jdbcTemplate) {
+        this.caseRepository = caseRepository;
+        this.documentStore = documentStore;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void upload(Long caseId, String name, String category, String mimeType, String uploadedBy, String comment,
+            InputStream content) throws IOException {
+        DocumentStore.Stored stored = documentStore.store(content);
+        caseRepository.addDocument(caseId, name, category, mimeType, uploadedBy, comment, stored.contentHash(),
+                stored.contentLength());
+    }
+
+    // The document with its content in the store, or empty if there is no such
+    // document or its content is missing
+    public Optional<CaseDocument> findDocument(Long documentId) throws IOException {
+        Optional<CaseDocument> found = caseRepository.findDocumentById(documentId);
+        if (found.isEmpty()) {
+            return found;
+        }
+        CaseDocument doc = found.get();
+        if (doc.contentHash() == null) {
+            doc = moveLegacyContent(doc);
+        }
+        return doc != null && documentStore.contains(doc.contentHash()) ? Optional.of(doc) : Optional.empty();
+    }
+
+    public void transferTo(CaseDocument doc, long position, long count, OutputStream out) throws IOException {
+        documentStore.transferTo(doc.contentHash(), position, count, Channels.newChannel(out));
+    }
+
+    private CaseDocument moveLegacyContent(CaseDocument doc) throws IOException {
+        DocumentStore.Stored stored;
+        try {
+            stored = jdbcTemplate.query("SELECT Data FROM CaseDocuments WHERE DocumentID = ?", rs -> {
+                if (!rs.next()) {
+                    return null;
+                }
+                try (InputStream data = rs.getBinaryStream(1)) {
+                    return documentStore.store(data != null ? data : InputStream.nullInputStream());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, doc.documentID());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (stored == null) {
+            return null;
+        }
+        caseRepository.moveDocumentContent(doc.caseID(), doc.documentID(), stored.contentHash(),
+                stored.contentLength());
+        return new CaseDocument(doc.documentID(), doc.caseID(), doc.documentName(), doc.category(), doc.mimeType(),
+                doc.uploadedBy(), doc.comment(), stored.contentHash(), stored.contentLength(), doc.uploadDate());
+    }
+}
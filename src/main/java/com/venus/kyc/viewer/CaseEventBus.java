@@ -0,0 +1,274 @@
+package com.venus.kyc.viewer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Writes CaseEvents and tells the CaseEventListeners about them.
+//
+// ASYNC (the default) puts the event on a lock-free ring buffer, once the caller's
+// transaction commits, and returns. A single writer thread drains whatever has
+// accumulated, inserts it as one JDBC batch in its own transaction and then calls
+// the listeners, so the more events arrive at once the larger the batches get. A
+// producer that finds the ring full waits for the writer rather than dropping the
+// event. SYNC inserts the row in the caller's transaction (or a new one), for when
+// the event must commit or roll back with the caller's write; its listeners are
+// called after that commit.
+//
+// A batch that fails is retried one event at a time so a bad row only loses
+// itself, and each event lost that way is logged. The writer runs between the
+// context's lifecycle start and stop, in a phase that stops after the web server,
+// and stopping writes whatever is still queued; until it starts and once it has
+// stopped, publishers write their events themselves. Like the other in-memory
+// components the queue is per node and lost if the process dies.
+@Component
+public class CaseEventBus implements SmartLifecycle, DisposableBean {
+
+    public enum Durability {
+        ASYNC, SYNC
+    }
+
+    // publishLatencyMicros runs from publish to the row being written; for ASYNC
+    // events that is time spent queued plus the batch insert
+    public record Stats(String durability, int queueDepth, int queueCapacity, long published, long written,
+            long batches, long failedEvents, long producerWaits, long listenerErrors, String lastError,
+            Histogram.Snapshot publishLatencyMicros, Histogram.Snapshot batchSize) {
+    }
+
+    private record Pending(CaseEvent event, long publishedAtNanos) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CaseEventBus.class);
+
+    private final CaseEventRepository repository;
+    private final List<CaseEventListener> listeners;
+    private final TransactionTemplate callerTransaction;
+    private final TransactionTemplate newTransaction;
+    private final Durability durability;
+    private final int batchSize;
+    private final long idleWaitNanos;
+    private final RingBuffer<Pending> ring;
+    private volatile Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerIdle;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong producerWaits = new AtomicLong();
+    private final AtomicLong listenerErrors = new AtomicLong();
+    private final Histogram publishLatency = new Histogram();
+    private final Histogram batchSizes = new Histogram();
+    private volatile String lastError;
+
+    public CaseEventBus(CaseEventRepository repository, List<CaseEventListener> listeners,
+            PlatformTransactionManager transactionManager,
+            @Value("${kyc.case-events.durability:ASYNC}") Durability durability,
+            @Value("${kyc.case-events.ring-size:8192}") int ringSize,
+            @Value("${kyc.case-events.batch-size:500}") int batchSize,
+            @Value("${kyc.case-events.idle-wait-ms:5}") long idleWaitMillis) {
+        this.repository = repository;
+        this.listeners = List.copyOf(listeners);
+        this.callerTransaction = new TransactionTemplate(transactionManager);
+        // The writer, and producers called after a commit, must not join a finished transaction
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.idleWaitNanos = TimeUnit.MILLISECONDS.toNanos(idleWaitMillis);
+        this.ring = new RingBuffer<>(ringSize);
+    }
+
+    public void publish(Long caseId, String type, String description, String source) {
+        publish(caseId, type, description, source, durability);
+    }
+
+    public void publish(Long caseId, String type, String description, String source, Durability durability) {
+        long publishedAt = System.nanoTime();
+        published.incrementAndGet();
+        if (durability == Durability.SYNC) {
+            CaseEvent saved = callerTransaction.execute(status -> repository.addEvent(caseId, type, description, source));
+            written.incrementAndGet();
+            publishLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - publishedAt));
+            afterCommit(() -> notifyListeners(saved));
+            return;
+        }
+        // Dated now rather than when the writer gets to it
+        Pending pending = new Pending(new CaseEvent(null, caseId, type, description, LocalDateTime.now(), source),
+                publishedAt);
+        afterCommit(() -> enqueue(pending));
+    }
+
+    @Override
+    public void start() {
+        Thread thread = new Thread(this::writeLoop, "case-event-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        running = true;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = writer;
+        running = false;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!thread.isAlive()) {
+            writer = null;
+            // This thread is the only consumer now; pick up anything published
+            // while the writer was finishing
+            List<Pending> late = new ArrayList<>();
+            ring.drainTo(late, Integer.MAX_VALUE);
+            if (!late.isEmpty()) {
+                write(late);
+            }
+        }
+    }
+
+    // Also stops the writer when a context that failed to start is torn down
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Below the web server's phases: started before it takes requests, stopped after
+    // it has finished them
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    public Stats stats() {
+        return new Stats(durability.name(), ring.size(), ring.capacity(), published.get(), written.get(),
+                batches.get(), failedEvents.get(), producerWaits.get(), listenerErrors.get(), lastError,
+                publishLatency.snapshot(), batchSizes.snapshot());
+    }
+
+    // Nothing is written or announced for a transaction that rolls back
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        while (!running || !ring.offer(pending)) {
+            if (!running) {
+                // Shutting down; the writer may already be gone
+                write(List.of(pending));
+                return;
+            }
+            producerWaits.incrementAndGet();
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            ring.drainTo(batch, batchSize);
+            if (!batch.isEmpty()) {
+                write(batch);
+                continue;
+            }
+            if (!running) {
+                return;
+            }
+            // A producer that sees the flag unparks us; the timeout covers the race
+            // where it checked just before we set it
+            writerIdle = true;
+            if (ring.size() == 0) {
+                LockSupport.parkNanos(idleWaitNanos);
+            }
+            writerIdle = false;
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<CaseEvent> events = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            events.add(pending.event());
+        }
+        List<CaseEvent> saved;
+        try {
+            saved = newTransaction.execute(status -> repository.addEvents(events));
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            if (batch.size() > 1) {
+                for (Pending pending : batch) {
+                    write(List.of(pending));
+                }
+            } else {
+                failedEvents.incrementAndGet();
+                CaseEvent event = batch.get(0).event();
+                log.error("Dropped case event for case {}: {} '{}' from {} at {}", event.caseID(), event.eventType(),
+                        event.eventDescription(), event.eventSource(), event.eventDate(), e);
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        written.addAndGet(saved.size());
+        batches.incrementAndGet();
+        batchSizes.record(saved.size());
+        for (Pending pending : batch) {
+            publishLatency.record(TimeUnit.NANOSECONDS.toMicros(now - pending.publishedAtNanos()));
+        }
+        for (CaseEvent event : saved) {
+            notifyListeners(event);
+        }
+    }
+
+    // A failing listener doesn't stop the others, or the writer
+    private void notifyListeners(CaseEvent event) {
+        for (CaseEventListener listener : listeners) {
+            try {
+                listener.caseEventLogged(event);
+            } catch (RuntimeException e) {
+                listenerErrors.incrementAndGet();
+                lastError = e.getMessage();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.venus.kyc.viewer;
+
+// Told about every case event once it is committed, by CaseEventBus. Called from
+// the bus's writer thread for queued events, so implementations hand off anything
+// slow.
+public interface CaseEventListener {
+
+    void caseEventLogged(CaseEvent event);
+}
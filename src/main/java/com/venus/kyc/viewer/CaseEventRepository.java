@@ -1,26 +1,135 @@
 package com.venus.kyc.viewer;
 
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Repository
 public class CaseEventRepository {
 
+    private static final String INSERT = "INSERT INTO CaseEvents (CaseID, EventType, EventDescription, EventDate, EventSource) VALUES (?, ?, ?, ?, ?)";
+
     private final JdbcClient jdbcClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityVersions entityVersions;
+    // Cleared once the driver returns fewer keys than rows for a batch, as mssql-jdbc does
+    private volatile boolean batchKeys = true;
 
-    public CaseEventRepository(JdbcClient jdbcClient) {
+    public CaseEventRepository(JdbcClient jdbcClient, JdbcTemplate jdbcTemplate, EntityVersions entityVersions) {
         this.jdbcClient = jdbcClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityVersions = entityVersions;
     }
 
-    public void addEvent(Long caseId, String type, String description, String source) {
-        jdbcClient.sql("INSERT INTO CaseEvents (CaseID, EventType, EventDescription, EventSource) VALUES (?, ?, ?, ?)")
-                .param(caseId)
-                .param(type)
-                .param(description)
-                .param(source)
-                .update();
+    // The event as stored; EventDate is set here rather than defaulted so the
+    // returned record matches the row
+    public CaseEvent addEvent(Long caseId, String type, String description, String source) {
+        CaseEvent saved = insert(new CaseEvent(null, caseId, type, description, LocalDateTime.now(), source));
+        entityVersions.bumpCase(caseId);
+        return saved;
+    }
+
+    // One JDBC batch for the rows and one update for the versions of the cases they
+    // belong to. Every returned event has its id: the first batch a driver returns
+    // no keys for throws, so the caller's transaction rolls it back, and from then on
+    // the rows are inserted one at a time in the caller's transaction.
+    public List<CaseEvent> addEvents(List<CaseEvent> events) {
+        if (!batchKeys) {
+            List<CaseEvent> saved = new ArrayList<>(events.size());
+            for (CaseEvent event : events) {
+                saved.add(insert(event));
+            }
+            entityVersions.bumpCases(caseIds(events));
+            return saved;
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[] { "EventID" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CaseEvent event = events.get(i);
+                        ps.setLong(1, event.caseID());
+                        ps.setString(2, event.eventType());
+                        ps.setString(3, event.eventDescription());
+                        ps.setTimestamp(4, Timestamp.valueOf(event.eventDate()));
+                        ps.setString(5, event.eventSource());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return events.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<CaseEvent> saved = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Object key = keys.size() == events.size() ? keys.get(i).get("EventID") : null;
+            if (!(key instanceof Number)) {
+                batchKeys = false;
+                throw new DataRetrievalFailureException(
+                        "Driver returned " + keys.size() + " generated keys for " + events.size() + " batched events");
+            }
+            CaseEvent event = events.get(i);
+            saved.add(new CaseEvent(((Number) key).longValue(), event.caseID(), event.eventType(),
+                    event.eventDescription(), event.eventDate(), event.eventSource()));
+        }
+        entityVersions.bumpCases(caseIds(events));
+        return saved;
+    }
+
+    private CaseEvent insert(CaseEvent event) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcClient.sql(INSERT)
+                .param(event.caseID())
+                .param(event.eventType())
+                .param(event.eventDescription())
+                .param(event.eventDate())
+                .param(event.eventSource())
+                .update(keyHolder, "EventID");
+        return new CaseEvent(keyHolder.getKey().longValue(), event.caseID(), event.eventType(),
+                event.eventDescription(), event.eventDate(), event.eventSource());
+    }
+
+    private static Set<Long> caseIds(List<CaseEvent> events) {
+        Set<Long> caseIds = new LinkedHashSet<>();
+        for (CaseEvent event : events) {
+            caseIds.add(event.caseID());
+        }
+        return caseIds;
+    }
+
+    // Events after afterId up to throughId for the given cases, oldest first, for
+    // resuming an event stream
+    public List<CaseEvent> findEventsAfter(long afterId, long throughId, Collection<Long> caseIds, int limit) {
+        return jdbcClient.sql("SELECT * FROM CaseEvents WHERE EventID > :afterId AND EventID <= :throughId AND CaseID IN (:caseIds) ORDER BY EventID LIMIT :limit")
+                .param("afterId", afterId)
+                .param("throughId", throughId)
+                .param("caseIds", caseIds)
+                .param("limit", limit)
+                .query(CaseEvent.class)
+                .list();
+    }
+
+    public long latestEventId() {
+        return jdbcClient.sql("SELECT COALESCE(MAX(EventID), 0) FROM CaseEvents")
+                .query(Long.class)
+                .single();
     }
 
     public List<CaseEvent> findEventsByCaseId(Long caseId) {
@@ -0,0 +1,92 @@
+package com.venus.kyc.viewer;
+
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+// Links cases started before Cases.ProcessInstanceID existed to their running
+// process, found through the old caseId process variable, and gives those processes
+// the CaseID as business key. Finished processes have no tasks left to look up, so
+// only running ones are linked.
+//
+// Every process the application starts now has a business key, so only kycProcess
+// instances without one are read, in keyset pages on the execution id with a
+// transaction per page. Instances with no caseId belong to no case and are keyed
+// NO_CASE, so after one pass nothing is left unkeyed and the check at startup is a
+// single EXISTS that finds nothing. Runs before the CommandLineRunners, so
+// MigrationRunner finds the old processes by business key when it replaces them.
+@Component
+public class CaseProcessLinkBackfill {
+
+    private static final int PAGE_SIZE = 500;
+    private static final String NO_CASE = "none";
+    private static final String UNKEYED_PROCESSES = "FROM ACT_RU_EXECUTION WHERE PARENT_ID_ IS NULL AND BUSINESS_KEY_ IS NULL"
+            + " AND PROC_DEF_ID_ IN (SELECT ID_ FROM ACT_RE_PROCDEF WHERE KEY_ = 'kycProcess')";
+
+    private final RuntimeService runtimeService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public CaseProcessLinkBackfill(RuntimeService runtimeService, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${kyc.case-process-link.backfill-on-startup:true}") boolean enabled) {
+        this.runtimeService = runtimeService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void backfill() {
+        if (!enabled || jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN EXISTS (SELECT 1 " + UNKEYED_PROCESSES + ") THEN 1 ELSE 0 END", Integer.class) == 0) {
+            return;
+        }
+        String after = "";
+        while (true) {
+            List<String> ids = jdbcTemplate.queryForList(
+                    "SELECT ID_ " + UNKEYED_PROCESSES + " AND ID_ > ? ORDER BY ID_ LIMIT " + PAGE_SIZE,
+                    String.class, after);
+            if (ids.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> link(ids));
+            after = ids.get(ids.size() - 1);
+            if (ids.size() < PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private void link(List<String> processInstanceIds) {
+        List<ProcessInstance> instances = runtimeService.createProcessInstanceQuery()
+                .processInstanceIds(new LinkedHashSet<>(processInstanceIds))
+                .processDefinitionKey("kycProcess")
+                .includeProcessVariables()
+                .list();
+        List<Object[]> links = new ArrayList<>();
+        for (ProcessInstance instance : instances) {
+            Long caseId = TaskInboxListener.toLong(instance.getProcessVariables().get("caseId"));
+            if (caseId == null) {
+                runtimeService.updateBusinessKey(instance.getId(), NO_CASE);
+                continue;
+            }
+            runtimeService.updateBusinessKey(instance.getId(), String.valueOf(caseId));
+            links.add(new Object[] { instance.getId(), caseId });
+        }
+        // A case keeps the first process linked to it
+        jdbcTemplate.batchUpdate(
+                "UPDATE Cases SET ProcessInstanceID = ? WHERE CaseID = ? AND ProcessInstanceID IS NULL", links);
+    }
+}
@@ -3,51 +3,143 @@ package com.venus.kyc.viewer;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public class CaseRepository {
 
+    // Case list filters; null fields don't filter. Both dates are inclusive.
+    public record Filter(String status, String assignedTo, Long clientID, LocalDate createdFrom,
+            LocalDate createdTo) {
+    }
+
+    // ClientName is copied from Clients when the case is created, so no read joins
+    private static final String CASE_COLUMNS = "c.CaseID, c.ClientID, c.ClientName, c.CreatedDate, c.Reason, c.AssignedTo, c.Status";
+    // Never the Data BLOB; content is read through the DocumentStore
+    private static final String DOCUMENT_COLUMNS = "DocumentID, CaseID, DocumentName, Category, MimeType, UploadedBy, Comment, ContentHash, ContentLength, UploadDate";
+
     private final JdbcClient jdbcClient;
+    private final EntityVersions entityVersions;
+    private final CountCache countCache;
+    private final CaseStatistics caseStatistics;
 
-    public CaseRepository(JdbcClient jdbcClient) {
+    public CaseRepository(JdbcClient jdbcClient, EntityVersions entityVersions, CountCache countCache,
+            CaseStatistics caseStatistics) {
         this.jdbcClient = jdbcClient;
+        this.entityVersions = entityVersions;
+        this.countCache = countCache;
+        this.caseStatistics = caseStatistics;
     }
 
-    public List<Case> findAll() {
-        return jdbcClient.sql("""
-                SELECT c.CaseID, c.ClientID, cl.FirstName || ' ' || cl.LastName as clientName,
-                       c.CreatedDate, c.Reason, c.AssignedTo, c.Status
-                FROM Cases c
-                JOIN Clients cl ON c.ClientID = cl.ClientID
-                """)
-                .query(Case.class)
-                .list();
+    // Keyset page of the case list, newest first unless ascending. CaseIDs are handed
+    // out in creation order, so CaseID alone is the seek key, and each filter column
+    // has a (column, CaseID) index that serves a filtered page as one range scan.
+    public PaginatedResponse<Case> findPage(Filter filter, String token, int size, boolean descending,
+            boolean includeTotal) {
+        String order = descending ? "caseID:desc" : "caseID:asc";
+        SeekCursor cursor = SeekCursor.decode(token, order);
+        boolean backward = cursor != null && cursor.backward();
+        boolean downwards = descending != backward;
+
+        String sql = "SELECT " + CASE_COLUMNS + " FROM Cases c WHERE 1=1" + where(filter);
+        if (cursor != null) {
+            sql += " AND c.CaseID " + (downwards ? "<" : ">") + " :seekId";
+        }
+        sql += " ORDER BY c.CaseID " + (downwards ? "DESC" : "ASC") + " LIMIT :limit";
+
+        var query = jdbcClient.sql(sql).param("limit", size + 1);
+        bind(query, filter);
+        if (cursor != null) {
+            query.param("seekId", cursor.id());
+        }
+        List<Case> cases = new ArrayList<>(query.query(Case.class).list());
+        boolean more = cases.size() > size;
+        if (more) {
+            cases.remove(cases.size() - 1);
+        }
+        if (backward) {
+            Collections.reverse(cases);
+        }
+
+        String next = null;
+        String prev = null;
+        if (!cases.isEmpty()) {
+            if (backward || more) {
+                next = new SeekCursor(order, "", cases.get(cases.size() - 1).caseID(), false).encode();
+            }
+            if (backward ? more : cursor != null) {
+                prev = new SeekCursor(order, "", cases.get(0).caseID(), true).encode();
+            }
+        }
+        long totalElements = includeTotal ? countCases(filter) : -1;
+        return PaginatedResponse.ofCursor(cases, size, totalElements, next, prev);
+    }
+
+    // Cached per filter; case statuses move, so a total can be off by what changed
+    // within the TTL
+    public long countCases(Filter filter) {
+        String key = "cases:count:" + filter.status() + ":" + filter.assignedTo() + ":" + filter.clientID() + ":"
+                + filter.createdFrom() + ":" + filter.createdTo();
+        return countCache.get(key, () -> {
+            var query = jdbcClient.sql("SELECT COUNT(*) FROM Cases c WHERE 1=1" + where(filter));
+            bind(query, filter);
+            return query.query(Long.class).single();
+        });
+    }
+
+    private static String where(Filter filter) {
+        String sql = "";
+        if (filter.status() != null) {
+            sql += " AND c.Status = :status";
+        }
+        if (filter.assignedTo() != null) {
+            sql += " AND c.AssignedTo = :assignedTo";
+        }
+        if (filter.clientID() != null) {
+            sql += " AND c.ClientID = :clientID";
+        }
+        if (filter.createdFrom() != null) {
+            sql += " AND c.CreatedDate >= :createdFrom";
+        }
+        if (filter.createdTo() != null) {
+            sql += " AND c.CreatedDate < :createdBefore";
+        }
+        return sql;
+    }
+
+    private static void bind(JdbcClient.StatementSpec query, Filter filter) {
+        if (filter.status() != null) {
+            query.param("status", filter.status());
+        }
+        if (filter.assignedTo() != null) {
+            query.param("assignedTo", filter.assignedTo());
+        }
+        if (filter.clientID() != null) {
+            query.param("clientID", filter.clientID());
+        }
+        if (filter.createdFrom() != null) {
+            query.param("createdFrom", Timestamp.valueOf(filter.createdFrom().atStartOfDay()));
+        }
+        if (filter.createdTo() != null) {
+            query.param("createdBefore", Timestamp.valueOf(filter.createdTo().plusDays(1).atStartOfDay()));
+        }
     }
 
     public List<Case> findByClientId(Long clientID) {
-        return jdbcClient.sql("""
-                SELECT c.CaseID, c.ClientID, cl.FirstName || ' ' || cl.LastName as clientName,
-                       c.CreatedDate, c.Reason, c.AssignedTo, c.Status
-                FROM Cases c
-                JOIN Clients cl ON c.ClientID = cl.ClientID
-                WHERE c.ClientID = :clientID
-                ORDER BY c.CreatedDate DESC
-                """)
+        return jdbcClient.sql("SELECT " + CASE_COLUMNS + " FROM Cases c WHERE c.ClientID = :clientID ORDER BY c.CreatedDate DESC")
                 .param("clientID", clientID)
                 .query(Case.class)
                 .list();
     }
 
     public Optional<Case> findById(Long id) {
-        return jdbcClient.sql("""
-                SELECT c.CaseID, c.ClientID, cl.FirstName || ' ' || cl.LastName as clientName,
-                       c.CreatedDate, c.Reason, c.AssignedTo, c.Status
-                FROM Cases c
-                JOIN Clients cl ON c.ClientID = cl.ClientID
-                WHERE c.CaseID = :id
-                """)
+        return jdbcClient.sql("SELECT " + CASE_COLUMNS + " FROM Cases c WHERE c.CaseID = :id")
                 .param("id", id)
                 .query(Case.class)
                 .optional();
@@ -62,19 +154,31 @@ public class CaseRepository {
 
     public List<CaseDocument> findDocumentsByCaseId(Long caseId) {
         return jdbcClient.sql(
-                "SELECT DocumentID, CaseID, DocumentName, Category, MimeType, UploadedBy, Comment, NULL as Data, UploadDate FROM CaseDocuments WHERE CaseID = :caseId")
+                "SELECT " + DOCUMENT_COLUMNS + " FROM CaseDocuments WHERE CaseID = :caseId")
                 .param("caseId", caseId)
                 .query(CaseDocument.class)
                 .list();
     }
 
+    // A null status keeps the current one
     public void updateStatus(Long id, String status, String assignedTo) {
-        jdbcClient
-                .sql("UPDATE Cases SET Status = COALESCE(:status, Status), AssignedTo = :assignedTo WHERE CaseID = :id")
-                .param("status", status)
-                .param("assignedTo", assignedTo)
-                .param("id", id)
-                .update();
+        caseStatistics.track(() -> {
+            Optional<Case> before = findById(id);
+            int updated = jdbcClient
+                    .sql("UPDATE Cases SET Status = COALESCE(:status, Status), AssignedTo = :assignedTo, Version = Version + 1 WHERE CaseID = :id")
+                    .param("status", status)
+                    .param("assignedTo", assignedTo)
+                    .param("id", id)
+                    .update();
+            if (updated == 0 || before.isEmpty()) {
+                return null;
+            }
+            Case kycCase = before.get();
+            LocalDate createdDay = kycCase.createdDate() != null ? kycCase.createdDate().toLocalDate() : LocalDate.now();
+            return new CaseStatistics.Change(
+                    new CaseStatistics.State(kycCase.status(), kycCase.assignedTo(), createdDay),
+                    new CaseStatistics.State(status != null ? status : kycCase.status(), assignedTo, createdDay));
+        });
     }
 
     public void addComment(Long caseId, String userId, String text, String role) {
@@ -85,38 +189,93 @@ public class CaseRepository {
                 .param("text", text)
                 .param("role", role)
                 .update();
+        entityVersions.bumpCase(caseId);
     }
 
     public void addDocument(Long caseId, String name, String category, String mimeType, String uploadedBy,
-            String comment, byte[] data) {
+            String comment, String contentHash, long contentLength) {
         jdbcClient.sql(
-                "INSERT INTO CaseDocuments (CaseID, DocumentName, Category, MimeType, UploadedBy, Comment, Data) VALUES (:caseId, :name, :category, :mimeType, :uploadedBy, :comment, :data)")
+                "INSERT INTO CaseDocuments (CaseID, DocumentName, Category, MimeType, UploadedBy, Comment, ContentHash, ContentLength) VALUES (:caseId, :name, :category, :mimeType, :uploadedBy, :comment, :contentHash, :contentLength)")
                 .param("caseId", caseId)
                 .param("name", name)
                 .param("category", category)
                 .param("mimeType", mimeType)
                 .param("uploadedBy", uploadedBy)
                 .param("comment", comment)
-                .param("data", data)
+                .param("contentHash", contentHash)
+                .param("contentLength", contentLength)
+                .update();
+        entityVersions.bumpCase(caseId);
+    }
+
+    // Points a document uploaded before the DocumentStore at its stored copy and drops
+    // the BLOB. A no-op if another request moved it first.
+    public void moveDocumentContent(Long caseId, Long documentId, String contentHash, long contentLength) {
+        int updated = jdbcClient.sql(
+                "UPDATE CaseDocuments SET ContentHash = :contentHash, ContentLength = :contentLength, Data = NULL WHERE DocumentID = :id AND ContentHash IS NULL")
+                .param("contentHash", contentHash)
+                .param("contentLength", contentLength)
+                .param("id", documentId)
                 .update();
+        if (updated > 0) {
+            entityVersions.bumpCase(caseId);
+        }
     }
 
     public Long create(Long clientID, String reason, String status, String assignedTo) {
         org.springframework.jdbc.support.KeyHolder keyHolder = new org.springframework.jdbc.support.GeneratedKeyHolder();
-        jdbcClient.sql("""
-                INSERT INTO Cases (ClientID, Reason, Status, AssignedTo)
-                VALUES (:clientID, :reason, :status, :assignedTo)
-                """)
-                .param("clientID", clientID)
-                .param("reason", reason)
-                .param("status", status)
-                .param("assignedTo", assignedTo)
-                .update(keyHolder, "CaseID");
+        caseStatistics.track(() -> {
+            jdbcClient.sql("""
+                    INSERT INTO Cases (ClientID, ClientName, Reason, Status, AssignedTo)
+                    VALUES (:clientID, (SELECT FirstName || ' ' || LastName FROM Clients WHERE ClientID = :clientID),
+                            :reason, :status, :assignedTo)
+                    """)
+                    .param("clientID", clientID)
+                    .param("reason", reason)
+                    .param("status", status)
+                    .param("assignedTo", assignedTo)
+                    .update(keyHolder, "CaseID");
+            return new CaseStatistics.Change(null, new CaseStatistics.State(status, assignedTo, LocalDate.now()));
+        });
         return keyHolder.getKey().longValue();
     }
 
+    public void linkProcess(Long caseId, String processInstanceId) {
+        jdbcClient.sql("UPDATE Cases SET ProcessInstanceID = :processInstanceId WHERE CaseID = :caseId")
+                .param("processInstanceId", processInstanceId)
+                .param("caseId", caseId)
+                .update();
+    }
+
+    public Optional<String> findProcessInstanceId(Long caseId) {
+        return jdbcClient.sql("SELECT ProcessInstanceID FROM Cases WHERE CaseID = :caseId AND ProcessInstanceID IS NOT NULL")
+                .param("caseId", caseId)
+                .query(String.class)
+                .optional();
+    }
+
+    public record ProcessLink(String processInstanceID, Long caseID, Long clientID) {
+    }
+
+    public List<ProcessLink> findProcessLinks(Collection<String> processInstanceIds) {
+        if (processInstanceIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcClient.sql("SELECT ProcessInstanceID, CaseID, ClientID FROM Cases WHERE ProcessInstanceID IN (:ids)")
+                .param("ids", processInstanceIds)
+                .query(ProcessLink.class)
+                .list();
+    }
+
+    public Optional<Long> findIdByProcessInstanceId(String processInstanceId) {
+        return jdbcClient.sql("SELECT CaseID FROM Cases WHERE ProcessInstanceID = :processInstanceId")
+                .param("processInstanceId", processInstanceId)
+                .query(Long.class)
+                .optional();
+    }
+
     public Optional<CaseDocument> findDocumentById(Long id) {
-        return jdbcClient.sql("SELECT * FROM CaseDocuments WHERE DocumentID = :id")
+        return jdbcClient.sql("SELECT " + DOCUMENT_COLUMNS + " FROM CaseDocuments WHERE DocumentID = :id")
                 .param("id", id)
                 .query(CaseDocument.class)
                 .optional();
@@ -6,6 +6,7 @@ import org.flowable.task.api.Task;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,13 +19,15 @@ public class CaseService {
     private final TaskService taskService;
     private final CaseRepository caseRepository;
     private final QuestionnaireRepository questionnaireRepository;
+    private final EventHub eventHub;
 
     public CaseService(RuntimeService runtimeService, TaskService taskService, CaseRepository caseRepository,
-            QuestionnaireRepository questionnaireRepository) {
+            QuestionnaireRepository questionnaireRepository, EventHub eventHub) {
         this.runtimeService = runtimeService;
         this.taskService = taskService;
         this.caseRepository = caseRepository;
         this.questionnaireRepository = questionnaireRepository;
+        this.eventHub = eventHub;
     }
 
     private void validateMandatoryQuestions(Long caseId) {
@@ -52,65 +55,28 @@ public class CaseService {
 
     @Transactional
     public Long createCase(Long clientID, String reason, String userId) {
+        // Create local Case record first so the process starts with its caseId; the
+        // first task's TaskInbox row is written as the process starts
+        Long caseId = caseRepository.create(clientID, reason, "KYC_ANALYST", null);
+
         // Start Flowable Process
         Map<String, Object> variables = new HashMap<>();
         variables.put("clientID", clientID);
         variables.put("initiator", userId);
+        variables.put("caseId", caseId);
 
-        var processInstance = runtimeService.startProcessInstanceByKey("kycProcess", variables);
-
-        // Create local Case record linked to process
-        // Note: Ideally we update CaseRepository to store processInstanceId
-        Long caseId = caseRepository.create(clientID, reason, "KYC_ANALYST", null);
-
-        // Update process with database ID for reference
-        runtimeService.setVariable(processInstance.getId(), "caseId", caseId);
+        // The business key links process to case inside Flowable, the column case to process
+        var processInstance = runtimeService.startProcessInstanceByKey("kycProcess", String.valueOf(caseId), variables);
+        caseRepository.linkProcess(caseId, processInstance.getId());
+        eventHub.taskChanged(null, caseId, "created", List.of(), List.of("KYC_ANALYST"));
 
         return caseId;
     }
 
-    public List<Map<String, Object>> getUserTasks(String userId, List<String> groups) {
-        List<Task> tasks = taskService.createTaskQuery()
-                .or()
-                .taskAssignee(userId)
-                .taskCandidateGroupIn(groups)
-                .endOr()
-                .includeProcessVariables()
-                .orderByTaskCreateTime().desc()
-                .list();
-
-        return tasks.stream().map(task -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("taskId", task.getId());
-            map.put("name", task.getName());
-            map.put("createTime", task.getCreateTime());
-            map.put("processInstanceId", task.getProcessInstanceId());
-            map.put("caseId", task.getProcessVariables().get("caseId"));
-            map.put("clientID", task.getProcessVariables().get("clientID"));
-            return map;
-        }).collect(Collectors.toList());
-    }
-
     @Transactional
     public void assignTask(Long caseId, String assignee, String initiator) {
-        // Find Process Instance IDs where variable "caseId" == caseId
-        // Since we can't easily query tasks by process variable value directly in
-        // standard API without extended query,
-        // we'll query Actice Process Instances first.
-        // Optimization: Use Native Query or Loop over tasks?
-        // Better: Loop over active tasks if volume is low, or assume 1:1.
-        // Let's use RuntimeService to find execution.
-
-        var executions = runtimeService.createProcessInstanceQuery()
-                .variableValueEquals("caseId", caseId)
-                .list();
-
-        if (executions.isEmpty()) {
-            // Case might be completed or invalid
-            throw new IllegalArgumentException("No active workflow found for Case ID " + caseId);
-        }
-
-        String processInstanceId = executions.get(0).getId();
+        String processInstanceId = caseRepository.findProcessInstanceId(caseId)
+                .orElseThrow(() -> new IllegalArgumentException("No active workflow found for Case ID " + caseId));
 
         // Find active task
         List<Task> tasks = taskService.createTaskQuery().processInstanceId(processInstanceId).active().list();
@@ -125,6 +91,7 @@ public class CaseService {
         // Assume single active task for this sequential workflow
         Task task = tasks.get(0);
 
+        String previousAssignee = task.getAssignee();
         if (assignee != null && !assignee.isEmpty()) {
             taskService.claim(task.getId(), assignee);
             caseRepository.updateStatus(caseId, null, assignee); // Keep status, update assignee
@@ -132,6 +99,9 @@ public class CaseService {
             taskService.unclaim(task.getId());
             caseRepository.updateStatus(caseId, null, null); // Clear assignee
         }
+        eventHub.taskChanged(task.getId(), caseId, assignee != null && !assignee.isEmpty() ? "assigned" : "unassigned",
+                Arrays.asList(assignee, previousAssignee),
+                List.of(statusFor(task.getTaskDefinitionKey())));
     }
 
     @Transactional
@@ -143,22 +113,13 @@ public class CaseService {
         }
 
         String processInstanceId = task.getProcessInstanceId();
-        // Check if variable exists, otherwise handle gracefully or fetch from History
-        // if needed
-        Object caseIdObj = runtimeService.getVariable(processInstanceId, "caseId");
-        if (caseIdObj == null) {
-            // Fallback or error
+        if (processInstanceId == null) {
             return;
         }
-        Long caseId;
-        if (caseIdObj instanceof Number) {
-            caseId = ((Number) caseIdObj).longValue();
-        } else {
-            try {
-                caseId = Long.parseLong(caseIdObj.toString());
-            } catch (NumberFormatException e) {
-                return;
-            }
+        Long caseId = caseRepository.findIdByProcessInstanceId(processInstanceId).orElse(null);
+        if (caseId == null) {
+            // Not a case's process
+            return;
         }
 
         // VALIDATION: If Analyst Approval, check questionnaire
@@ -178,16 +139,24 @@ public class CaseService {
         if (!nextTasks.isEmpty()) {
             Task nextTask = nextTasks.get(0);
             String taskDefKey = nextTask.getTaskDefinitionKey();
-            nextStatus = switch (taskDefKey) {
-                case "kycAnalystTask" -> "KYC_ANALYST";
-                case "kycReviewerTask" -> "KYC_REVIEWER";
-                case "afcReviewerTask" -> "AFC_REVIEWER";
-                case "acoReviewerTask" -> "ACO_REVIEWER";
-                default -> "UNKNOWN";
-            };
+            nextStatus = statusFor(taskDefKey);
         }
 
         caseRepository.updateStatus(caseId, nextStatus, nextAssignee);
+        // The next step's group sees a new task in its inbox
+        eventHub.taskChanged(taskId, caseId, "completed", List.of(userId),
+                nextTasks.isEmpty() ? List.of() : List.of(nextStatus));
+    }
+
+    // Each step's status doubles as the candidate group of its task
+    private static String statusFor(String taskDefinitionKey) {
+        return switch (taskDefinitionKey) {
+            case "kycAnalystTask" -> "KYC_ANALYST";
+            case "kycReviewerTask" -> "KYC_REVIEWER";
+            case "afcReviewerTask" -> "AFC_REVIEWER";
+            case "acoReviewerTask" -> "ACO_REVIEWER";
+            default -> "UNKNOWN";
+        };
     }
 
     @Transactional
@@ -203,7 +172,7 @@ public class CaseService {
 
         // Cleanup existing processes to ensure clean state for demo cases
         List<org.flowable.engine.runtime.ProcessInstance> existing = runtimeService.createProcessInstanceQuery()
-                .variableValueEquals("caseId", caseId).list();
+                .processInstanceBusinessKey(String.valueOf(caseId)).list();
         for (var p : existing) {
             runtimeService.deleteProcessInstance(p.getId(), "Re-migration for state sync");
         }
@@ -219,11 +188,13 @@ public class CaseService {
 
         var builder = runtimeService.createProcessInstanceBuilder()
                 .processDefinitionKey("kycProcess")
+                .businessKey(String.valueOf(caseId))
                 .variable("clientID", clientId)
                 .variable("initiator", userId)
                 .variable("caseId", caseId);
 
         org.flowable.engine.runtime.ProcessInstance processInstance = builder.start();
+        caseRepository.linkProcess(caseId, processInstance.getId());
 
         if (activityId != null) {
             // Move token from default start (Analyst) to target activity
@@ -239,8 +210,6 @@ public class CaseService {
             }
         }
 
-        runtimeService.setVariable(processInstance.getId(), "caseId", caseId);
-
         // Sync assignment
         if (assignedTo != null && !assignedTo.isEmpty()) {
             // Find the active task we just started
@@ -260,25 +229,6 @@ public class CaseService {
         }
     }
 
-    public List<Map<String, Object>> getAllTasks() {
-        List<Task> tasks = taskService.createTaskQuery()
-                .includeProcessVariables()
-                .orderByTaskCreateTime().desc()
-                .list();
-
-        return tasks.stream().map(task -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("taskId", task.getId());
-            map.put("name", task.getName());
-            map.put("assignee", task.getAssignee());
-            map.put("createTime", task.getCreateTime());
-            map.put("processInstanceId", task.getProcessInstanceId());
-            map.put("caseId", task.getProcessVariables().get("caseId"));
-            map.put("clientID", task.getProcessVariables().get("clientID"));
-            return map;
-        }).collect(Collectors.toList());
-    }
-
     public List<Map<String, Object>> getAllProcessInstances() {
         List<org.flowable.engine.runtime.ProcessInstance> instances = runtimeService.createProcessInstanceQuery()
                 .includeProcessVariables()
@@ -0,0 +1,253 @@
+package com.venus.kyc.viewer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Case counts for the dashboards: by status, and for open cases by assignee, by the
+// candidate group whose queue an unclaimed case waits in (its status) and by age.
+// CaseRepository reports every write to Cases through track(), and the counters
+// move once that write commits, so reading them costs the number of statuses,
+// users and creation days rather than a scan of Cases.
+//
+// Open cases are counted per creation day and bucketed by age when read, so cases
+// age without any write. Every few minutes the counters are rebuilt from one GROUP
+// BY over Cases, which repairs anything counted wrong (writes from other nodes, or
+// two writes to one case racing on its old state).
+// Writers never wait on the rebuild: each tracked write is counted as started and,
+// once committed and counted or rolled back, as finished. The rebuild runs its query
+// without a lock and swaps its result in only if no write was in flight or started
+// meanwhile, so no commit is counted twice or missed; otherwise it tries again a
+// few times and then leaves it to the next run. Under steady load that can go on
+// indefinitely, so after a few skipped runs in a row the next one swaps in its last
+// attempt regardless, as the first load does. Writes racing that attempt may be
+// miscounted until a later run finds a quiet moment.
+@Component
+public class CaseStatistics {
+
+    public record State(String status, String assignedTo, LocalDate createdDay) {
+    }
+
+    // before is null for a new case
+    public record Change(State before, State after) {
+    }
+
+    // lastCorrection is how far the counters were off at the last reconciliation;
+    // skippedRuns counts reconciliations given up because writes kept racing them
+    public record Stats(long total, long open, Map<String, Long> byStatus, Map<String, Long> byAssignee,
+            Map<String, Long> byCandidateGroup, Map<String, Long> byAge, LocalDateTime reconciledAt,
+            long lastCorrection, long skippedRuns) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CaseStatistics.class);
+
+    private static final Set<String> CLOSED_STATUSES = Set.of("APPROVED");
+    private static final int RECONCILE_ATTEMPTS = 5;
+    private static final long RECONCILE_RETRY_MS = 100;
+    static final int MAX_SKIPPED_RUNS = 3;
+
+    private static final class Counters {
+        final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> byAssignee = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> byCandidateGroup = new ConcurrentHashMap<>();
+        final Map<LocalDate, LongAdder> openByCreatedDay = new ConcurrentHashMap<>();
+
+        void add(State state, long count) {
+            increment(byStatus, state.status(), count);
+            if (CLOSED_STATUSES.contains(state.status())) {
+                return;
+            }
+            if (state.assignedTo() != null && !state.assignedTo().isEmpty()) {
+                increment(byAssignee, state.assignedTo(), count);
+            } else {
+                increment(byCandidateGroup, state.status(), count);
+            }
+            increment(openByCreatedDay, state.createdDay(), count);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesFinished = new AtomicLong();
+    // Held only to count a change or swap the counters, never across a query or commit
+    private final Object swap = new Object();
+    private volatile Counters counters = new Counters();
+    private volatile LocalDateTime reconciledAt;
+    private volatile long lastCorrection;
+    private final AtomicLong skippedRuns = new AtomicLong();
+    // Guarded by the reconcile monitor
+    private int skippedInARow;
+
+    public CaseStatistics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Runs a write to Cases; write returns what it changed, or null for nothing
+    public void track(Supplier<Change> write) {
+        writesStarted.incrementAndGet();
+        boolean finish = true;
+        try {
+            Change change = write.get();
+            if (change == null) {
+                return;
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        apply(change);
+                    }
+
+                    // Runs after afterCommit, so the change is counted by then
+                    @Override
+                    public void afterCompletion(int status) {
+                        writesFinished.incrementAndGet();
+                    }
+                });
+                finish = false;
+            } else {
+                apply(change);
+            }
+        } finally {
+            if (finish) {
+                writesFinished.incrementAndGet();
+            }
+        }
+    }
+
+    // The first load takes its last attempt even if writes raced it; the counters are
+    // empty until then and the next run repairs any miscount
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile(true);
+    }
+
+    @Scheduled(fixedDelayString = "${kyc.case-stats.reconcile-ms:300000}", initialDelayString = "${kyc.case-stats.reconcile-ms:300000}")
+    public void reconcile() {
+        reconcile(false);
+    }
+
+    private synchronized void reconcile(boolean force) {
+        boolean takeLast = force || skippedInARow >= MAX_SKIPPED_RUNS;
+        for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+            long started = writesStarted.get();
+            boolean last = attempt == RECONCILE_ATTEMPTS;
+            if (writesFinished.get() == started || (takeLast && last)) {
+                Counters rebuilt = new Counters();
+                jdbcTemplate.query("SELECT Status, AssignedTo, CAST(CreatedDate AS DATE), COUNT(*) FROM Cases GROUP BY Status, AssignedTo, CAST(CreatedDate AS DATE)",
+                        rs -> {
+                            LocalDate createdDay = rs.getDate(3) != null ? rs.getDate(3).toLocalDate() : LocalDate.now();
+                            rebuilt.add(new State(rs.getString(1), rs.getString(2), createdDay), rs.getLong(4));
+                        });
+                synchronized (swap) {
+                    // Every write the query could have seen is counted, and no other
+                    if ((writesStarted.get() == started && writesFinished.get() == started) || (takeLast && last)) {
+                        Counters previous = counters;
+                        lastCorrection = reconciledAt == null ? 0 : difference(previous.byStatus, rebuilt.byStatus)
+                                + difference(previous.byAssignee, rebuilt.byAssignee)
+                                + difference(previous.byCandidateGroup, rebuilt.byCandidateGroup);
+                        counters = rebuilt;
+                        reconciledAt = LocalDateTime.now();
+                        skippedInARow = 0;
+                        return;
+                    }
+                }
+            }
+            if (!last) {
+                try {
+                    Thread.sleep(RECONCILE_RETRY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        skippedInARow++;
+        skippedRuns.incrementAndGet();
+        log.warn("Case statistics not reconciled: writes kept racing the rebuild ({} runs in a row)", skippedInARow);
+    }
+
+    public Stats stats() {
+        Counters current = counters;
+        Map<String, Long> byStatus = snapshot(current.byStatus);
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+        long open = total - CLOSED_STATUSES.stream().mapToLong(status -> byStatus.getOrDefault(status, 0L)).sum();
+        return new Stats(total, open, byStatus, snapshot(current.byAssignee), snapshot(current.byCandidateGroup),
+                byAge(current.openByCreatedDay), reconciledAt, lastCorrection, skippedRuns.get());
+    }
+
+    private void apply(Change change) {
+        synchronized (swap) {
+            Counters current = counters;
+            if (change.before() != null) {
+                current.add(change.before(), -1);
+            }
+            if (change.after() != null) {
+                current.add(change.after(), 1);
+            }
+        }
+    }
+
+    private static Map<String, Long> byAge(Map<LocalDate, LongAdder> openByCreatedDay) {
+        LocalDate today = LocalDate.now();
+        Map<String, Long> byAge = new LinkedHashMap<>();
+        byAge.put("under 1 day", 0L);
+        byAge.put("1-7 days", 0L);
+        byAge.put("7-30 days", 0L);
+        byAge.put("over 30 days", 0L);
+        openByCreatedDay.forEach((day, count) -> {
+            long age = today.toEpochDay() - day.toEpochDay();
+            String bucket = age < 1 ? "under 1 day" : age < 7 ? "1-7 days" : age < 30 ? "7-30 days" : "over 30 days";
+            byAge.merge(bucket, count.sum(), Long::sum);
+        });
+        return byAge;
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counts) {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((key, count) -> {
+            long value = count.sum();
+            if (value != 0) {
+                snapshot.put(key, value);
+            }
+        });
+        return snapshot;
+    }
+
+    private static long difference(Map<String, LongAdder> previous, Map<String, LongAdder> rebuilt) {
+        long difference = 0;
+        for (Map.Entry<String, LongAdder> entry : previous.entrySet()) {
+            LongAdder actual = rebuilt.get(entry.getKey());
+            difference += Math.abs(entry.getValue().sum() - (actual == null ? 0 : actual.sum()));
+        }
+        for (Map.Entry<String, LongAdder> entry : rebuilt.entrySet()) {
+            if (!previous.containsKey(entry.getKey())) {
+                difference += entry.getValue().sum();
+            }
+        }
+        return difference;
+    }
+
+    private static <K> void increment(Map<K, LongAdder> counts, K key, long count) {
+        if (key != null) {
+            counts.computeIfAbsent(key, k -> new LongAdder()).add(count);
+        }
+    }
+}
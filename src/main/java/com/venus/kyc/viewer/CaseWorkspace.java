@@ -0,0 +1,19 @@
+package com.venus.kyc.viewer;
+
+import com.venus.kyc.viewer.risk.RiskAssessment;
+
+import java.util.List;
+
+// Everything the case details page shows, read in one request. The client is masked
+// like GET /api/clients/{id} when the caller may not see sensitive data, and
+// relatedCases are the client's other cases.
+public record CaseWorkspace(
+        Case kycCase,
+        Client client,
+        List<CaseComment> comments,
+        List<CaseDocument> documents,
+        List<CaseEvent> events,
+        List<CaseQuestionnaireResponse> questionnaireResponses,
+        List<RiskAssessment> riskHistory,
+        List<Case> relatedCases) {
+}
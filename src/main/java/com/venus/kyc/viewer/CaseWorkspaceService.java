@@ -0,0 +1,183 @@
+package com.venus.kyc.viewer;
+
+import com.venus.kyc.viewer.risk.RiskAssessment;
+import com.venus.kyc.viewer.risk.RiskAssessmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Reads the sections of a CaseWorkspace concurrently instead of the page making a
+// request per section. The case row is read on the calling thread, since the client
+// sections need its ClientID; the case's own sections are already running by then.
+//
+// Sub-fetches run on virtual threads on Java 21+, otherwise on a small daemon pool.
+// Either way at most kyc.workspace.max-concurrent-fetches run at once across all
+// requests, which keeps the workspace from taking the whole connection pool.
+@Service
+public class CaseWorkspaceService {
+
+    public record Loaded(CaseWorkspace workspace, String serverTiming) {
+    }
+
+    private final CaseRepository caseRepository;
+    private final CaseEventRepository caseEventRepository;
+    private final QuestionnaireRepository questionnaireRepository;
+    private final ClientRepository clientRepository;
+    private final RiskAssessmentRepository riskAssessmentRepository;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    public CaseWorkspaceService(CaseRepository caseRepository, CaseEventRepository caseEventRepository,
+            QuestionnaireRepository questionnaireRepository, ClientRepository clientRepository,
+            RiskAssessmentRepository riskAssessmentRepository,
+            @Value("${kyc.workspace.max-concurrent-fetches:8}") int maxConcurrentFetches,
+            @Value("${kyc.workspace.timeout-ms:10000}") long timeoutMillis) {
+        this.caseRepository = caseRepository;
+        this.caseEventRepository = caseEventRepository;
+        this.questionnaireRepository = questionnaireRepository;
+        this.clientRepository = clientRepository;
+        this.riskAssessmentRepository = riskAssessmentRepository;
+        this.permits = new Semaphore(maxConcurrentFetches);
+        this.executor = VirtualThreads.executor("case-workspace", maxConcurrentFetches);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    // Empty when the case doesn't exist. Times out as a whole after
+    // kyc.workspace.timeout-ms, cancelling whatever is still running.
+    public Optional<Loaded> load(Long caseId, boolean includeSensitive) throws TimeoutException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        List<Future<?>> started = new ArrayList<>();
+        try {
+            Future<List<CaseComment>> comments = submit(started, timings, "comments",
+                    () -> caseRepository.findCommentsByCaseId(caseId));
+            Future<List<CaseDocument>> documents = submit(started, timings, "documents",
+                    () -> caseRepository.findDocumentsByCaseId(caseId));
+            Future<List<CaseEvent>> events = submit(started, timings, "events",
+                    () -> caseEventRepository.findEventsByCaseId(caseId));
+            Future<List<CaseQuestionnaireResponse>> questionnaire = submit(started, timings, "questionnaire",
+                    () -> questionnaireRepository.getResponsesForCase(caseId));
+
+            Optional<Case> found = timed(timings, "case", () -> caseRepository.findById(caseId));
+            if (found.isEmpty()) {
+                cancel(started);
+                return Optional.empty();
+            }
+            Case kycCase = found.get();
+            Long clientId = kycCase.clientID();
+            Future<Client> client = submit(started, timings, "client",
+                    () -> clientRepository.findById(clientId)
+                            .map(c -> includeSensitive ? c : masked(c))
+                            .orElse(null));
+            Future<List<RiskAssessment>> riskHistory = submit(started, timings, "risk",
+                    () -> riskAssessmentRepository.findAssessmentsByRecordId(String.valueOf(clientId)));
+            Future<List<Case>> relatedCases = submit(started, timings, "related",
+                    () -> caseRepository.findByClientId(clientId).stream()
+                            .filter(c -> !c.caseID().equals(caseId))
+                            .toList());
+
+            CaseWorkspace workspace = new CaseWorkspace(kycCase, await(client, deadline), await(comments, deadline),
+                    await(documents, deadline), await(events, deadline), await(questionnaire, deadline),
+                    await(riskHistory, deadline), await(relatedCases, deadline));
+            timings.put("total", System.nanoTime() - start);
+            return Optional.of(new Loaded(workspace, serverTiming(timings)));
+        } catch (RuntimeException | TimeoutException e) {
+            cancel(started);
+            throw e;
+        } catch (InterruptedException e) {
+            cancel(started);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted loading case workspace " + caseId, e);
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> submit(List<Future<?>> started, Map<String, Long> timings, String section,
+            Supplier<T> fetch) {
+        Future<T> future = executor.submit(() -> {
+            permits.acquire();
+            try {
+                return timed(timings, section, fetch);
+            } finally {
+                permits.release();
+            }
+        });
+        started.add(future);
+        return future;
+    }
+
+    private static <T> T timed(Map<String, Long> timings, String section, Supplier<T> fetch) {
+        long start = System.nanoTime();
+        try {
+            return fetch.get();
+        } finally {
+            timings.put(section, System.nanoTime() - start);
+        }
+    }
+
+    private static <T> T await(Future<T> future, long deadline) throws TimeoutException, InterruptedException {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void cancel(List<Future<?>> started) {
+        for (Future<?> future : started) {
+            future.cancel(true);
+        }
+    }
+
+    // Server-Timing header value, one entry per section in milliseconds, in the
+    // order the page lays them out
+    private static String serverTiming(Map<String, Long> timings) {
+        List<String> entries = new ArrayList<>();
+        for (String section : List.of("case", "client", "comments", "documents", "events", "questionnaire", "risk",
+                "related", "total")) {
+            Long nanos = timings.get(section);
+            if (nanos != null) {
+                entries.add(String.format(Locale.ROOT, "%s;dur=%.1f", section, nanos / 1e6));
+            }
+        }
+        return String.join(", ", entries);
+    }
+
+    // What ClientJsonWriter writes for callers without VIEW_SENSITIVE_DATA. The
+    // workspace is serialized by Jackson, so the child collections are dropped here.
+    private static Client masked(Client client) {
+        return new Client(client.clientID(), client.titlePrefix(), client.firstName(), client.middleName(),
+                client.lastName(), client.titleSuffix(), client.citizenship1(), client.citizenship2(),
+                client.onboardingDate(), client.status(), client.nameAtBirth(), client.nickName(), client.gender(),
+                client.dateOfBirth(), client.language(), client.occupation(), client.countryOfTax(),
+                client.sourceOfFundsCountry(), client.fatcaStatus(), client.crsStatus(),
+                null, null, null, null, null);
+    }
+}
@@ -27,5 +27,5 @@ public record Client(
                 java.util.List<Identifier> identifiers,
                 java.util.List<RelatedParty> relatedParties,
                 java.util.List<Account> accounts,
-                java.util.List<Portfolio> portfolios) {
+                java.util.List<Portfolio> portfolios) implements ClientSortKey {
 }
@@ -0,0 +1,64 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.jdbc.core.DataClassRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Fills the child collections of a page of clients: one statement per child table
+// for the whole page (per InListFetcher.MAX_IN_LIST clients) instead of one per client.
+@Component
+public class ClientAggregateLoader {
+
+    private final InListFetcher fetcher;
+    private final RelatedPartyLoader relatedPartyLoader;
+
+    private final RowMapper<Address> addressMapper = new DataClassRowMapper<>(Address.class);
+    private final RowMapper<Identifier> identifierMapper = new DataClassRowMapper<>(Identifier.class);
+    private final RowMapper<Account> accountMapper = new DataClassRowMapper<>(Account.class);
+    private final RowMapper<Portfolio> portfolioMapper = new DataClassRowMapper<>(Portfolio.class);
+
+    public ClientAggregateLoader(InListFetcher fetcher, RelatedPartyLoader relatedPartyLoader) {
+        this.fetcher = fetcher;
+        this.relatedPartyLoader = relatedPartyLoader;
+    }
+
+    // Number of SQL statements issued by the aggregate loaders since startup.
+    public long statementCount() {
+        return fetcher.statementCount();
+    }
+
+    // Fills the child collections of the given clients in place.
+    public List<Client> loadChildren(List<Client> clients) {
+        if (clients.isEmpty()) {
+            return clients;
+        }
+        List<Long> clientIds = clients.stream().map(Client::clientID).distinct().toList();
+
+        Map<Long, List<Address>> addresses = fetcher.fetchGrouped(
+                "SELECT ClientID, AddressID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement FROM ClientAddresses WHERE ClientID IN (:ids) ORDER BY ClientID, AddressID",
+                clientIds, "ClientID", addressMapper);
+        Map<Long, List<Identifier>> identifiers = fetcher.fetchGrouped(
+                "SELECT ClientID, IdentifierID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber FROM ClientIdentifiers WHERE ClientID IN (:ids) ORDER BY ClientID, IdentifierID",
+                clientIds, "ClientID", identifierMapper);
+        Map<Long, List<Account>> accounts = fetcher.fetchGrouped(
+                "SELECT ClientID, AccountID, AccountNumber, AccountStatus FROM Accounts WHERE ClientID IN (:ids) ORDER BY ClientID, AccountID",
+                clientIds, "ClientID", accountMapper);
+        Map<Long, List<Portfolio>> portfolios = fetcher.fetchGrouped(
+                "SELECT PortfolioID, ClientID, AccountNumber, PortfolioText, OnboardingDate, OffboardingDate, Status FROM Portfolios WHERE ClientID IN (:ids) ORDER BY ClientID, PortfolioID",
+                clientIds, "ClientID", portfolioMapper);
+        Map<Long, List<RelatedParty>> relatedParties = relatedPartyLoader.loadByClientIds(clientIds);
+
+        for (Client client : clients) {
+            Long id = client.clientID();
+            client.addresses().addAll(addresses.getOrDefault(id, List.of()));
+            client.identifiers().addAll(identifiers.getOrDefault(id, List.of()));
+            client.relatedParties().addAll(relatedParties.getOrDefault(id, List.of()));
+            client.accounts().addAll(accounts.getOrDefault(id, List.of()));
+            client.portfolios().addAll(portfolios.getOrDefault(id, List.of()));
+        }
+        return clients;
+    }
+}
@@ -0,0 +1,208 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Read-through cache of client aggregates in front of ClientRepository.findById.
+// Entries are immutable copies, evicted least-recently-used beyond maxEntries and
+// after the TTL. Concurrent misses on the same client share a single load, so a
+// burst of screening/risk calls for one client costs one round of queries.
+@Component
+public class ClientCache {
+
+    public record Stats(long hits, long misses, long loads, long sharedLoads, long evictions, long invalidations,
+            int size) {
+    }
+
+    private record Entry(Client client, long expiresAt) {
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, CompletableFuture<Optional<Client>>> inFlight = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation; a load that started before an invalidation is
+    // returned to its callers but not cached, since it may predate the write.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong sharedLoads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ClientCache(@Value("${kyc.client-cache.max-entries:10000}") int maxEntries,
+            @Value("${kyc.client-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public Optional<Client> get(Long clientId, Function<Long, Optional<Client>> loader) {
+        Client cached = lookup(clientId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<Optional<Client>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<Client>> existing = inFlight.putIfAbsent(clientId, load);
+        if (existing != null) {
+            sharedLoads.incrementAndGet();
+            return join(existing);
+        }
+        try {
+            long startGeneration = generation.get();
+            loads.incrementAndGet();
+            Optional<Client> client = loader.apply(clientId).map(ClientCache::immutableCopy);
+            client.ifPresent(c -> store(clientId, c, startGeneration));
+            load.complete(client);
+            return client;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(clientId, load);
+        }
+    }
+
+    public void invalidate(Long clientId) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        synchronized (entries) {
+            entries.remove(clientId);
+        }
+        inFlight.remove(clientId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+        inFlight.clear();
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.get(), misses.get(), loads.get(), sharedLoads.get(), evictions.get(),
+                invalidations.get(), size);
+    }
+
+    private Client lookup(Long clientId) {
+        synchronized (entries) {
+            Entry entry = entries.get(clientId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(clientId);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry.client();
+        }
+    }
+
+    private void store(Long clientId, Client client, long startGeneration) {
+        synchronized (entries) {
+            if (generation.get() != startGeneration) {
+                return;
+            }
+            entries.put(clientId, new Entry(client, System.currentTimeMillis() + ttlMillis));
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static Optional<Client> join(CompletableFuture<Optional<Client>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Cached aggregates are shared between requests, so none of their lists may be
+    // modified after loading.
+    static Client immutableCopy(Client client) {
+        return new Client(
+                client.clientID(),
+                client.titlePrefix(),
+                client.firstName(),
+                client.middleName(),
+                client.lastName(),
+                client.titleSuffix(),
+                client.citizenship1(),
+                client.citizenship2(),
+                client.onboardingDate(),
+                client.status(),
+                client.nameAtBirth(),
+                client.nickName(),
+                client.gender(),
+                client.dateOfBirth(),
+                client.language(),
+                client.occupation(),
+                client.countryOfTax(),
+                client.sourceOfFundsCountry(),
+                client.fatcaStatus(),
+                client.crsStatus(),
+                List.copyOf(client.addresses()),
+                List.copyOf(client.identifiers()),
+                client.relatedParties().stream().map(ClientCache::immutableCopy).toList(),
+                List.copyOf(client.accounts()),
+                List.copyOf(client.portfolios()));
+    }
+
+    private static RelatedParty immutableCopy(RelatedParty party) {
+        return new RelatedParty(
+                party.relatedPartyID(),
+                party.clientID(),
+                party.relationType(),
+                party.titlePrefix(),
+                party.firstName(),
+                party.middleName(),
+                party.lastName(),
+                party.titleSuffix(),
+                party.citizenship1(),
+                party.citizenship2(),
+                party.onboardingDate(),
+                party.status(),
+                party.nameAtBirth(),
+                party.nickName(),
+                party.gender(),
+                party.dateOfBirth(),
+                party.language(),
+                party.occupation(),
+                party.countryOfTax(),
+                party.sourceOfFundsCountry(),
+                party.fatcaStatus(),
+                party.crsStatus(),
+                List.copyOf(party.addresses()),
+                List.copyOf(party.identifiers()));
+    }
+}
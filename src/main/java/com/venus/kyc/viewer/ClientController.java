@@ -8,18 +8,36 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/clients")
 public class ClientController {
 
+    private static final int MAX_STATS_DAYS = 366;
+
     private final ClientRepository clientRepository;
     private final MaterialChangeRepository materialChangeRepository;
+    private final ClientCache clientCache;
+    private final ClientExportService clientExportService;
+    private final ClientImportService clientImportService;
+    private final EntityVersions entityVersions;
+    private final MaterialChangeCapture changeCapture;
+    private final MaterialChangeExportService materialChangeExportService;
+    private final MaterialChangeRollups materialChangeRollups;
 
-    public ClientController(ClientRepository clientRepository, MaterialChangeRepository materialChangeRepository) {
+    public ClientController(ClientRepository clientRepository, MaterialChangeRepository materialChangeRepository,
+            ClientCache clientCache, ClientExportService clientExportService,
+            ClientImportService clientImportService, EntityVersions entityVersions,
+            MaterialChangeCapture changeCapture, MaterialChangeExportService materialChangeExportService,
+            MaterialChangeRollups materialChangeRollups) {
         this.clientRepository = clientRepository;
         this.materialChangeRepository = materialChangeRepository;
+        this.clientCache = clientCache;
+        this.clientExportService = clientExportService;
+        this.clientImportService = clientImportService;
+        this.entityVersions = entityVersions;
+        this.changeCapture = changeCapture;
+        this.materialChangeExportService = materialChangeExportService;
+        this.materialChangeRollups = materialChangeRollups;
     }
 
     @GetMapping("/changes")
@@ -29,40 +47,208 @@ public class ClientController {
             @org.springframework.web.bind.annotation.RequestParam(required = false) String startDate,
             @org.springframework.web.bind.annotation.RequestParam(required = false) String endDate,
             @org.springframework.web.bind.annotation.RequestParam(required = false, defaultValue = "changeDate") String sortBy,
-            @org.springframework.web.bind.annotation.RequestParam(required = false, defaultValue = "DESC") String sortDir) {
+            @org.springframework.web.bind.annotation.RequestParam(required = false, defaultValue = "DESC") String sortDir,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String cursor,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "false") boolean includeTotal) {
+        // As for clients, passing a cursor (empty for the first page) switches to keyset pagination
+        if (cursor != null) {
+            return withValidCursor(() -> materialChangeRepository.findAllByCursor(cursor, size, startDate, endDate,
+                    sortBy, sortDir, includeTotal));
+        }
         return materialChangeRepository.findAllPaginated(page, size, startDate, endDate, sortBy, sortDir);
     }
 
+    @GetMapping("/changes/capture/stats")
+    public MaterialChangeCapture.Stats getChangeCaptureStats() {
+        return changeCapture.stats();
+    }
+
+    // Answered from the in-memory rollups; both dates inclusive, default the last 30 days
+    @GetMapping("/changes/stats")
+    public MaterialChangeRollups.Stats getMaterialChangeStats(
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String startDate,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String endDate,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "false") boolean byDay) {
+        java.time.LocalDate end = parseDate("endDate", endDate);
+        if (end == null) {
+            end = java.time.LocalDate.now();
+        }
+        java.time.LocalDate start = parseDate("startDate", startDate);
+        if (start == null) {
+            start = end.minusDays(29);
+        }
+        if (start.isAfter(end)) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "startDate must not be after endDate");
+        }
+        if (byDay && start.plusDays(MAX_STATS_DAYS).isBefore(end)) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST,
+                    "byDay is limited to " + MAX_STATS_DAYS + " days");
+        }
+        return materialChangeRollups.stats(start, end, byDay);
+    }
+
+    // Streamed from a forward-only cursor; gzip-compressed when the client accepts it
     @GetMapping("/changes/export")
-    public List<MaterialChange> exportMaterialChanges(
+    public ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody> exportMaterialChanges(
             @org.springframework.web.bind.annotation.RequestParam(required = false) String startDate,
-            @org.springframework.web.bind.annotation.RequestParam(required = false) String endDate) {
-        return materialChangeRepository.findAllForExport(startDate, endDate);
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String endDate,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "json") String format,
+            @org.springframework.web.bind.annotation.RequestHeader(value = org.springframework.http.HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MaterialChangeExportService.Format exportFormat = switch (format) {
+            case "json" -> MaterialChangeExportService.Format.JSON;
+            case "ndjson" -> MaterialChangeExportService.Format.NDJSON;
+            case "csv" -> MaterialChangeExportService.Format.CSV;
+            case "excel" -> MaterialChangeExportService.Format.EXCEL;
+            default -> throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        };
+        java.time.LocalDate start = parseDate("startDate", startDate);
+        java.time.LocalDate end = parseDate("endDate", endDate);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(java.util.Locale.ROOT).contains("gzip");
+
+        String extension = switch (exportFormat) {
+            case JSON -> "json";
+            case NDJSON -> "ndjson";
+            case CSV, EXCEL -> "csv";
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(switch (exportFormat) {
+                    case JSON -> org.springframework.http.MediaType.APPLICATION_JSON;
+                    case NDJSON -> org.springframework.http.MediaType.parseMediaType("application/x-ndjson");
+                    case CSV, EXCEL -> org.springframework.http.MediaType.parseMediaType("text/csv;charset=UTF-8");
+                })
+                .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"material_changes." + extension + "\"")
+                .header(org.springframework.http.HttpHeaders.VARY, org.springframework.http.HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(out -> materialChangeExportService.export(exportFormat, start, end, out));
+        }
+        return response
+                .header(org.springframework.http.HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    java.util.zip.GZIPOutputStream compressed = new java.util.zip.GZIPOutputStream(out, 64 * 1024);
+                    materialChangeExportService.export(exportFormat, start, end, compressed);
+                    compressed.finish();
+                });
+    }
+
+    private static java.time.LocalDate parseDate(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return java.time.LocalDate.parse(value);
+        } catch (java.time.format.DateTimeParseException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, name + " must be yyyy-MM-dd");
+        }
     }
 
     @GetMapping
-    public PaginatedResponse<Client> getAllClients(
+    public ClientView<? extends PaginatedResponse<?>> getAllClients(
             @org.springframework.web.bind.annotation.RequestParam(defaultValue = "0") int page,
             @org.springframework.web.bind.annotation.RequestParam(defaultValue = "10") int size,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String cursor,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "clientID") String sortBy,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "false") boolean includeTotal,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "full") String view,
             org.springframework.security.core.Authentication authentication) {
-        PaginatedResponse<Client> response = clientRepository.findAllPaginated(page, size);
-        if (isAdmin(authentication)) {
-            return response;
+        // Summaries carry no child collections, so there is nothing to mask
+        if (isSummary(view)) {
+            return new ClientView<>(cursor != null
+                    ? withValidCursor(() -> clientRepository.findSummariesByCursor(cursor, size, sortBy, includeTotal))
+                    : clientRepository.findSummariesPaginated(page, size), true);
         }
-        List<Client> maskedContent = response.content().stream().map(this::maskSensitiveData).toList();
-        return new PaginatedResponse<>(maskedContent, response.currentPage(), response.pageSize(),
-                response.totalElements(), response.totalPages());
+        // Without sensitive data the child collections aren't loaded at all
+        boolean sensitive = ClientView.canViewSensitiveData(authentication);
+        // Passing a cursor (empty for the first page) switches to keyset pagination
+        return new ClientView<>(cursor != null
+                ? withValidCursor(
+                        () -> clientRepository.findAllByCursor(cursor, size, sortBy, includeTotal, sensitive))
+                : clientRepository.findAllPaginated(page, size, sensitive), sensitive);
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<Client> getClientById(@PathVariable Long id,
+    // Full extract streamed straight from the database; callers without sensitive
+    // data get the masked representation (no child collections).
+    @GetMapping("/export")
+    public ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody> exportClients(
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "ndjson") String format,
             org.springframework.security.core.Authentication authentication) {
-        return clientRepository.findById(id)
-                .map(client -> isAdmin(authentication) ? client : maskSensitiveData(client))
+        ClientExportService.Format exportFormat = switch (format) {
+            case "ndjson" -> ClientExportService.Format.NDJSON;
+            case "csv" -> ClientExportService.Format.CSV;
+            default -> throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        };
+        boolean includeChildren = ClientView.canViewSensitiveData(authentication);
+        return ResponseEntity.ok()
+                .contentType(exportFormat == ClientExportService.Format.CSV
+                        ? org.springframework.http.MediaType.parseMediaType("text/csv;charset=UTF-8")
+                        : org.springframework.http.MediaType.parseMediaType("application/x-ndjson"))
+                .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"clients." + format + "\"")
+                .body(out -> clientExportService.export(exportFormat, includeChildren, out));
+    }
+
+    // Bulk onboarding. The request body is the NDJSON or CSV file; re-posting the same
+    // file with the jobId of a failed import resumes after its last committed chunk.
+    @PostMapping("/import")
+    public ClientImportService.Report importClients(
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "ndjson") String format,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String jobId,
+            java.io.InputStream body,
+            org.springframework.security.core.Authentication authentication) {
+        requireAdmin(authentication);
+        ClientImportService.Format importFormat = switch (format) {
+            case "ndjson" -> ClientImportService.Format.NDJSON;
+            case "csv" -> ClientImportService.Format.CSV;
+            default -> throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "Unsupported import format: " + format);
+        };
+        String id = jobId != null ? jobId : java.util.UUID.randomUUID().toString();
+        try {
+            return clientImportService.importClients(id, importFormat, body);
+        } catch (IllegalArgumentException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ClientImportService.Report> getImportJob(@PathVariable String jobId,
+            org.springframework.security.core.Authentication authentication) {
+        requireAdmin(authentication);
+        return clientImportService.findJob(jobId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/cache/stats")
+    public ClientCache.Stats getClientCacheStats() {
+        return clientCache.stats();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ClientView<Client>> getClientById(@PathVariable Long id,
+            org.springframework.security.core.Authentication authentication,
+            org.springframework.web.context.request.WebRequest request) {
+        boolean sensitive = ClientView.canViewSensitiveData(authentication);
+        // The masked and full representations differ, so they get different tags. The
+        // cached aggregate is written masked as is rather than copied.
+        return entityVersions.clientVersion(id)
+                .map(version -> ConditionalGet.respond(request,
+                        ConditionalGet.etag(sensitive ? "client" : "client-masked", id, version),
+                        () -> clientRepository.findById(id)
+                                .map(client -> new ClientView<>(client, sensitive))
+                                .orElse(null)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/{id}/related-parties")
     public ResponseEntity<Void> addRelatedParty(@PathVariable Long id, @RequestBody RelatedParty rp) {
         clientRepository.saveRelatedParty(id, rp);
@@ -70,92 +256,77 @@ public class ClientController {
     }
 
     @GetMapping("/related-parties/{id}")
-    public ResponseEntity<RelatedParty> getRelatedPartyById(@PathVariable Long id,
+    public ResponseEntity<ClientView<RelatedParty>> getRelatedPartyById(@PathVariable Long id,
             org.springframework.security.core.Authentication authentication) {
         return clientRepository.findRelatedPartyById(id)
-                .map(party -> isAdmin(authentication) ? party : maskRelatedPartySensitiveData(party))
+                .map(party -> ClientView.of(party, authentication))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
-    public PaginatedResponse<Client> searchClients(
+    public ClientView<? extends PaginatedResponse<?>> searchClients(
             @org.springframework.web.bind.annotation.RequestParam String query,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "substring") String mode,
             @org.springframework.web.bind.annotation.RequestParam(defaultValue = "0") int page,
             @org.springframework.web.bind.annotation.RequestParam(defaultValue = "10") int size,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String cursor,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "clientID") String sortBy,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "false") boolean includeTotal,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "full") String view,
             org.springframework.security.core.Authentication authentication) {
-        PaginatedResponse<Client> response = clientRepository.searchByNamePaginated(query, page, size);
-        if (isAdmin(authentication)) {
-            return response;
+        boolean sensitive = ClientView.canViewSensitiveData(authentication);
+        if ("fuzzy".equals(mode)) {
+            // Fuzzy results are ranked by score and paged by number, full view only
+            if (cursor != null || isSummary(view) || !"clientID".equals(sortBy)) {
+                throw new org.springframework.web.server.ResponseStatusException(
+                        org.springframework.http.HttpStatus.BAD_REQUEST,
+                        "mode=fuzzy supports page and size only, not cursor, sortBy or view=summary");
+            }
+            return new ClientView<>(clientRepository.fuzzySearchByName(query, page, size, sensitive)
+                    .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
+                            org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE, "Name index is still building")),
+                    sensitive);
+        }
+        if (isSummary(view)) {
+            return new ClientView<>(cursor != null
+                    ? withValidCursor(() -> clientRepository.searchSummariesByNameCursor(query, cursor, size, sortBy,
+                            includeTotal))
+                    : clientRepository.searchSummariesByNamePaginated(query, page, size), true);
+        }
+        return new ClientView<>(cursor != null
+                ? withValidCursor(() -> clientRepository.searchByNameCursor(query, cursor, size, sortBy,
+                        includeTotal, sensitive))
+                : clientRepository.searchByNamePaginated(query, page, size, sensitive), sensitive);
+    }
+
+    private boolean isSummary(String view) {
+        return switch (view) {
+            case "summary" -> true;
+            case "full" -> false;
+            default -> throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "Unknown view: " + view);
+        };
+    }
+
+    private <T> T withValidCursor(java.util.function.Supplier<T> query) {
+        try {
+            return query.get();
+        } catch (IllegalArgumentException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private void requireAdmin(org.springframework.security.core.Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.FORBIDDEN);
         }
-        List<Client> maskedContent = response.content().stream().map(this::maskSensitiveData).toList();
-        return new PaginatedResponse<>(maskedContent, response.currentPage(), response.pageSize(),
-                response.totalElements(), response.totalPages());
     }
 
     private boolean isAdmin(org.springframework.security.core.Authentication authentication) {
         return authentication.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
     }
-
-    private Client maskSensitiveData(Client client) {
-        // Return a new Client record with null addresses, identifiers, and related
-        // parties
-        return new Client(
-                client.clientID(),
-                client.titlePrefix(),
-                client.firstName(),
-                client.middleName(),
-                client.lastName(),
-                client.titleSuffix(),
-                client.citizenship1(),
-                client.citizenship2(),
-                client.onboardingDate(),
-                client.status(),
-                client.nameAtBirth(),
-                client.nickName(),
-                client.gender(),
-                client.dateOfBirth(),
-                client.language(),
-                client.occupation(),
-                client.countryOfTax(),
-                client.sourceOfFundsCountry(),
-                client.fatcaStatus(),
-                client.crsStatus(),
-                null, // Masked addresses
-                null, // Masked identifiers
-                null, // Masked related parties
-                null, // Masked accounts
-                null // Masked portfolios
-        );
-    }
-
-    private RelatedParty maskRelatedPartySensitiveData(RelatedParty party) {
-        return new RelatedParty(
-                party.relatedPartyID(),
-                party.clientID(),
-                party.relationType(),
-                party.titlePrefix(),
-                party.firstName(),
-                party.middleName(),
-                party.lastName(),
-                party.titleSuffix(),
-                party.citizenship1(),
-                party.citizenship2(),
-                party.onboardingDate(),
-                party.status(),
-                party.nameAtBirth(),
-                party.nickName(),
-                party.gender(),
-                party.dateOfBirth(),
-                party.language(),
-                party.occupation(),
-                party.countryOfTax(),
-                party.sourceOfFundsCountry(),
-                party.fatcaStatus(),
-                party.crsStatus(),
-                null, // Masked addresses
-                null // Masked identifiers
-        );
-    }
 }
@@ -0,0 +1,148 @@
+package com.venus.kyc.viewer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Streams clients from RFC 4180 CSV with a header row naming the columns of
+// ClientCsvWriter.HEADER, in any order. ClientID and unknown columns are ignored;
+// empty fields are null. Quoted fields may span lines.
+final class ClientCsvReader {
+
+    private final BufferedReader in;
+    private Map<String, Integer> columns;
+
+    ClientCsvReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    // The next client, or null at end of input
+    Client next() throws IOException {
+        if (columns == null) {
+            List<String> header = readRecord();
+            if (header == null) {
+                return null;
+            }
+            columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i);
+                if (i == 0 && name.startsWith("\uFEFF")) {
+                    // Byte order mark written by Excel
+                    name = name.substring(1);
+                }
+                columns.put(name.trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : List.of("firstname", "onboardingdate", "status")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException("CSV header is missing column " + required);
+                }
+            }
+        }
+        List<String> record = readRecord();
+        if (record == null) {
+            return null;
+        }
+        return new Client(
+                null,
+                field(record, "titleprefix"),
+                field(record, "firstname"),
+                field(record, "middlename"),
+                field(record, "lastname"),
+                field(record, "titlesuffix"),
+                field(record, "citizenship1"),
+                field(record, "citizenship2"),
+                date(record, "onboardingdate"),
+                field(record, "status"),
+                field(record, "nameatbirth"),
+                field(record, "nickname"),
+                field(record, "gender"),
+                date(record, "dateofbirth"),
+                field(record, "language"),
+                field(record, "occupation"),
+                field(record, "countryoftax"),
+                field(record, "sourceoffundscountry"),
+                field(record, "fatcastatus"),
+                field(record, "crsstatus"),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>());
+    }
+
+    private String field(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private LocalDate date(List<String> record, String column) {
+        String value = field(record, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " is not an ISO date: " + value);
+        }
+    }
+
+    // One record's fields, skipping blank lines; null at end of input
+    private List<String> readRecord() throws IOException {
+        while (true) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                read = true;
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            in.reset();
+                        }
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("unterminated quoted field");
+            }
+            fields.add(field.toString());
+            if (fields.size() > 1 || !fields.get(0).isEmpty()) {
+                return fields;
+            }
+        }
+    }
+}
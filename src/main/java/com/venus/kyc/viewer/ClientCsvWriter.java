@@ -0,0 +1,68 @@
+package com.venus.kyc.viewer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// RFC 4180 rows of the top-level client columns. Child collections don't fit a
+// flat row; use NDJSON when they are needed.
+final class ClientCsvWriter {
+
+    static final String HEADER = "ClientID,TitlePrefix,FirstName,MiddleName,LastName,TitleSuffix,Citizenship1,"
+            + "Citizenship2,OnboardingDate,Status,NameAtBirth,NickName,Gender,DateOfBirth,Language,Occupation,"
+            + "CountryOfTax,SourceOfFundsCountry,FATCAStatus,CRSStatus";
+
+    private ClientCsvWriter() {
+    }
+
+    static void writeHeader(Writer out) throws IOException {
+        out.write(HEADER);
+        out.write("\r\n");
+    }
+
+    static void write(Writer out, Client client) throws IOException {
+        out.write(String.valueOf(client.clientID()));
+        Object[] values = {
+                client.titlePrefix(),
+                client.firstName(),
+                client.middleName(),
+                client.lastName(),
+                client.titleSuffix(),
+                client.citizenship1(),
+                client.citizenship2(),
+                client.onboardingDate(),
+                client.status(),
+                client.nameAtBirth(),
+                client.nickName(),
+                client.gender(),
+                client.dateOfBirth(),
+                client.language(),
+                client.occupation(),
+                client.countryOfTax(),
+                client.sourceOfFundsCountry(),
+                client.fatcaStatus(),
+                client.crsStatus()
+        };
+        for (Object value : values) {
+            out.write(',');
+            if (value != null) {
+                writeField(out, value.toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    static void writeField(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
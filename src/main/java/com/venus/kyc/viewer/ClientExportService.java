@@ -0,0 +1,247 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.DataClassRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Full client-base extract. Clients and each child table are read through their own
+// forward-only result set, all sorted by ClientID, and merged one client at a time,
+// so memory use is bounded by the fetch size rather than by the table size.
+@Service
+public class ClientExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    // mssql-jdbc's SQLServerResultSet.TYPE_SS_SERVER_CURSOR_FORWARD_ONLY. The default
+    // direct mode buffers a whole result set as soon as a second statement runs on the
+    // connection; a server cursor honours the fetch size with several cursors open.
+    private static final int SQL_SERVER_FORWARD_ONLY_CURSOR = 2004;
+
+    private static final String CLIENTS_SQL = "SELECT ClientID, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus FROM Clients ORDER BY ClientID";
+    private static final String ADDRESSES_SQL = "SELECT ClientID, AddressID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement FROM ClientAddresses ORDER BY ClientID, AddressID";
+    private static final String IDENTIFIERS_SQL = "SELECT ClientID, IdentifierID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber FROM ClientIdentifiers ORDER BY ClientID, IdentifierID";
+    private static final String ACCOUNTS_SQL = "SELECT ClientID, AccountID, AccountNumber, AccountStatus FROM Accounts ORDER BY ClientID, AccountID";
+    private static final String PORTFOLIOS_SQL = "SELECT PortfolioID, ClientID, AccountNumber, PortfolioText, OnboardingDate, OffboardingDate, Status FROM Portfolios ORDER BY ClientID, PortfolioID";
+    private static final String RELATED_PARTIES_SQL = "SELECT RelatedPartyID, ClientID, RelationType, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus FROM RelatedParties ORDER BY ClientID, RelatedPartyID";
+    private static final String PARTY_ADDRESSES_SQL = "SELECT rp.ClientID, a.RelatedPartyID, a.AddressID, a.AddressType, a.AddressLine1, a.AddressLine2, a.City, a.Zip, a.Country, a.AddressNumber, a.AddressSupplement FROM RelatedPartyAddresses a JOIN RelatedParties rp ON rp.RelatedPartyID = a.RelatedPartyID ORDER BY rp.ClientID, a.RelatedPartyID, a.AddressID";
+    private static final String PARTY_IDENTIFIERS_SQL = "SELECT rp.ClientID, i.RelatedPartyID, i.IdentifierID, i.IdentifierType, i.IdentifierValue, i.IssuingAuthority, i.IdentifierNumber FROM RelatedPartyIdentifiers i JOIN RelatedParties rp ON rp.RelatedPartyID = i.RelatedPartyID ORDER BY rp.ClientID, i.RelatedPartyID, i.IdentifierID";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final RowMapper<Address> addressMapper = new DataClassRowMapper<>(Address.class);
+    private final RowMapper<Identifier> identifierMapper = new DataClassRowMapper<>(Identifier.class);
+    private final RowMapper<Account> accountMapper = new DataClassRowMapper<>(Account.class);
+    private final RowMapper<Portfolio> portfolioMapper = new DataClassRowMapper<>(Portfolio.class);
+
+    public ClientExportService(JdbcTemplate jdbcTemplate, @Value("${kyc.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    // Writes every client to out and returns the number written. Without children
+    // the child tables aren't read at all and child collections are written as null,
+    // matching the masked REST representation.
+    public long export(Format format, boolean includeChildren, OutputStream out) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return export(connection, format, includeChildren && format == Format.NDJSON, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long export(Connection connection, Format format, boolean includeChildren, OutputStream out)
+            throws SQLException, IOException {
+        int resultSetType = forwardOnlyResultSetType(connection);
+        List<SortedCursor<?>> cursors = new ArrayList<>();
+        try {
+            RowMapper<Client> clientMapper = includeChildren
+                    ? ClientRowMappers::client
+                    : ClientRowMappers::clientWithoutChildren;
+            SortedCursor<Client> clients = open(cursors, connection, resultSetType, CLIENTS_SQL, null, clientMapper);
+            ChildCursors children = includeChildren
+                    ? new ChildCursors(
+                            open(cursors, connection, resultSetType, ADDRESSES_SQL, null, addressMapper),
+                            open(cursors, connection, resultSetType, IDENTIFIERS_SQL, null, identifierMapper),
+                            open(cursors, connection, resultSetType, ACCOUNTS_SQL, null, accountMapper),
+                            open(cursors, connection, resultSetType, PORTFOLIOS_SQL, null, portfolioMapper),
+                            open(cursors, connection, resultSetType, RELATED_PARTIES_SQL, null,
+                                    ClientRowMappers::relatedParty),
+                            open(cursors, connection, resultSetType, PARTY_ADDRESSES_SQL, "RelatedPartyID",
+                                    addressMapper),
+                            open(cursors, connection, resultSetType, PARTY_IDENTIFIERS_SQL, "RelatedPartyID",
+                                    identifierMapper))
+                    : null;
+
+            return format == Format.CSV
+                    ? writeCsv(clients, out)
+                    : writeNdjson(clients, children, out);
+        } finally {
+            for (SortedCursor<?> cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    static int forwardOnlyResultSetType(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().startsWith("Microsoft SQL Server")
+                ? SQL_SERVER_FORWARD_ONLY_CURSOR
+                : ResultSet.TYPE_FORWARD_ONLY;
+    }
+
+    private long writeNdjson(SortedCursor<Client> clients, ChildCursors children, OutputStream out)
+            throws SQLException, IOException {
+        long count = 0;
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.setRootValueSeparator(new SerializedString("\n"));
+            Client client;
+            while ((client = clients.next()) != null) {
+                ClientJsonWriter.write(json, children != null ? children.fill(client) : client, children != null);
+                count++;
+            }
+            if (count > 0) {
+                json.writeRaw('\n');
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(SortedCursor<Client> clients, OutputStream out) throws SQLException, IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        ClientCsvWriter.writeHeader(writer);
+        Client client;
+        while ((client = clients.next()) != null) {
+            ClientCsvWriter.write(writer, client);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private <T> SortedCursor<T> open(List<SortedCursor<?>> cursors, Connection connection, int resultSetType,
+            String sql, String partyColumn, RowMapper<T> mapper) throws SQLException {
+        SortedCursor<T> cursor = new SortedCursor<>(connection, sql, resultSetType, fetchSize, partyColumn, mapper);
+        cursors.add(cursor);
+        return cursor;
+    }
+
+    private record ChildCursors(
+            SortedCursor<Address> addresses,
+            SortedCursor<Identifier> identifiers,
+            SortedCursor<Account> accounts,
+            SortedCursor<Portfolio> portfolios,
+            SortedCursor<RelatedParty> relatedParties,
+            SortedCursor<Address> partyAddresses,
+            SortedCursor<Identifier> partyIdentifiers) {
+
+        // Clients are visited in ClientID order, and parties in (ClientID, RelatedPartyID)
+        // order, which is the order every child cursor is sorted in.
+        Client fill(Client client) throws SQLException {
+            long id = client.clientID();
+            client.addresses().addAll(addresses.take(id, 0));
+            client.identifiers().addAll(identifiers.take(id, 0));
+            client.accounts().addAll(accounts.take(id, 0));
+            client.portfolios().addAll(portfolios.take(id, 0));
+            for (RelatedParty party : relatedParties.take(id, 0)) {
+                party.addresses().addAll(partyAddresses.take(id, party.relatedPartyID()));
+                party.identifiers().addAll(partyIdentifiers.take(id, party.relatedPartyID()));
+                client.relatedParties().add(party);
+            }
+            return client;
+        }
+    }
+
+    // A forward-only result set sorted by (ClientID[, party column]) that is consumed
+    // in step with the client cursor.
+    private static final class SortedCursor<T> {
+
+        private final PreparedStatement statement;
+        private final ResultSet rs;
+        private final String partyColumn;
+        private final RowMapper<T> mapper;
+        private boolean hasRow;
+        private long clientKey;
+        private long partyKey;
+        private int rowNum;
+
+        SortedCursor(Connection connection, String sql, int resultSetType, int fetchSize, String partyColumn,
+                RowMapper<T> mapper) throws SQLException {
+            this.statement = connection.prepareStatement(sql, resultSetType, ResultSet.CONCUR_READ_ONLY);
+            this.partyColumn = partyColumn;
+            this.mapper = mapper;
+            try {
+                statement.setFetchSize(fetchSize);
+                this.rs = statement.executeQuery();
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+            advance();
+        }
+
+        T next() throws SQLException {
+            if (!hasRow) {
+                return null;
+            }
+            T row = mapper.mapRow(rs, ++rowNum);
+            advance();
+            return row;
+        }
+
+        // Rows keyed (clientId, partyId). Rows sorting before the key belong to parents
+        // the other cursors don't see, e.g. inserted after they were opened, and are skipped.
+        List<T> take(long clientId, long partyId) throws SQLException {
+            while (hasRow && (clientKey < clientId || (clientKey == clientId && partyKey < partyId))) {
+                advance();
+            }
+            List<T> rows = new ArrayList<>();
+            while (hasRow && clientKey == clientId && partyKey == partyId) {
+                rows.add(mapper.mapRow(rs, ++rowNum));
+                advance();
+            }
+            return rows;
+        }
+
+        private void advance() throws SQLException {
+            hasRow = rs.next();
+            if (hasRow) {
+                clientKey = rs.getLong("ClientID");
+                partyKey = partyColumn != null ? rs.getLong(partyColumn) : 0;
+            }
+        }
+
+        void close() throws SQLException {
+            try {
+                rs.close();
+            } finally {
+                statement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venus.kyc.viewer.network.OwnershipGraph;
+import com.venus.kyc.viewer.search.ClientNameIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bulk client onboarding. Input is parsed as a stream and written in chunks, each
+// chunk in its own transaction using JDBC batch inserts; generated client and
+// related-party keys are mapped onto the child rows of the same chunk. The job's
+// checkpoint commits with each chunk, so re-running a failed job with the same
+// jobId and input resumes after the last committed record.
+@Service
+public class ClientImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public record Report(String jobId, String status, long recordsSkipped, long recordsImported, long rowsImported,
+            long elapsedMillis, double rowsPerSecond) {
+    }
+
+    private record JobState(String format, String status, long recordsCommitted) {
+    }
+
+    private record Child<T>(long parentId, T row) {
+    }
+
+    private record ChunkResult(long rows, long[] clientIds, List<Child<RelatedParty>> parties, long[] partyIds) {
+    }
+
+    private interface RecordSource {
+        Client next() throws IOException;
+    }
+
+    private interface Binder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    // Thrown inside a chunk transaction when the driver doesn't return one generated
+    // key per batched row; the chunk rolls back and is retried row by row.
+    private static class BatchKeysUnavailableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ClientImportService.class);
+
+    private static final String INSERT_CLIENT = "INSERT INTO Clients (TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ADDRESS = "INSERT INTO ClientAddresses (ClientID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IDENTIFIER = "INSERT INTO ClientIdentifiers (ClientID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ACCOUNT = "INSERT INTO Accounts (ClientID, AccountNumber, AccountStatus) VALUES (?, ?, ?)";
+    private static final String INSERT_PORTFOLIO = "INSERT INTO Portfolios (ClientID, AccountNumber, PortfolioText, OnboardingDate, OffboardingDate, Status) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RELATED_PARTY = "INSERT INTO RelatedParties (ClientID, RelationType, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PARTY_ADDRESS = "INSERT INTO RelatedPartyAddresses (RelatedPartyID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PARTY_IDENTIFIER = "INSERT INTO RelatedPartyIdentifiers (RelatedPartyID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int PROGRESS_EVERY_CHUNKS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcClient jdbcClient;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ClientNameIndex nameIndex;
+    private final OwnershipGraph ownershipGraph;
+    private final CountCache countCache;
+    private final MaterialChangeCapture changeCapture;
+    private final int chunkSize;
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    // Whether the driver returns generated keys for batches; null until a chunk tells
+    private volatile Boolean batchKeys;
+
+    public ClientImportService(JdbcTemplate jdbcTemplate, JdbcClient jdbcClient,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper, ClientNameIndex nameIndex,
+            OwnershipGraph ownershipGraph, CountCache countCache, MaterialChangeCapture changeCapture,
+            @Value("${kyc.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcClient = jdbcClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.nameIndex = nameIndex;
+        this.ownershipGraph = ownershipGraph;
+        this.countCache = countCache;
+        this.changeCapture = changeCapture;
+        this.chunkSize = chunkSize;
+    }
+
+    public Report importClients(String jobId, Format format, InputStream in) {
+        if (!runningJobs.add(jobId)) {
+            throw new IllegalStateException("Import " + jobId + " is already running");
+        }
+        try {
+            return run(jobId, format, in);
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    public Optional<Report> findJob(String jobId) {
+        return jdbcClient.sql(
+                "SELECT JobID, Status, RecordsCommitted, RowsCommitted FROM ClientImportJobs WHERE JobID = :jobId")
+                .param("jobId", jobId)
+                .query((rs, rowNum) -> new Report(rs.getString("JobID"), rs.getString("Status"), 0,
+                        rs.getLong("RecordsCommitted"), rs.getLong("RowsCommitted"), 0, 0))
+                .optional();
+    }
+
+    private Report run(String jobId, Format format, InputStream in) {
+        Optional<JobState> existing = jdbcClient.sql(
+                "SELECT Format, Status, RecordsCommitted FROM ClientImportJobs WHERE JobID = :jobId")
+                .param("jobId", jobId)
+                .query((rs, rowNum) -> new JobState(rs.getString("Format"), rs.getString("Status"),
+                        rs.getLong("RecordsCommitted")))
+                .optional();
+        if (existing.isPresent() && !existing.get().format().equals(format.name())) {
+            throw new IllegalArgumentException("Import " + jobId + " was started as " + existing.get().format());
+        }
+        if (existing.isPresent() && existing.get().status().equals("COMPLETED")) {
+            return new Report(jobId, "COMPLETED", existing.get().recordsCommitted(), 0, 0, 0, 0);
+        }
+        long skip = existing.map(JobState::recordsCommitted).orElse(0L);
+        if (existing.isPresent()) {
+            jdbcClient.sql("UPDATE ClientImportJobs SET Status = 'RUNNING', Error = NULL, UpdatedAt = CURRENT_TIMESTAMP WHERE JobID = :jobId")
+                    .param("jobId", jobId)
+                    .update();
+        } else {
+            jdbcClient.sql("INSERT INTO ClientImportJobs (JobID, Format, Status) VALUES (:jobId, :format, 'RUNNING')")
+                    .param("jobId", jobId)
+                    .param("format", format.name())
+                    .update();
+        }
+
+        long start = System.nanoTime();
+        long recordNumber = 0;
+        long imported = 0;
+        long rows = 0;
+        int chunks = 0;
+        try {
+            RecordSource source = open(format, in);
+            List<Client> chunk = new ArrayList<>(chunkSize);
+            while (true) {
+                Client client = next(source, recordNumber + 1);
+                if (client == null) {
+                    break;
+                }
+                recordNumber++;
+                if (recordNumber <= skip) {
+                    continue;
+                }
+                validate(client, recordNumber);
+                chunk.add(client);
+                if (chunk.size() == chunkSize) {
+                    rows += commitChunk(jobId, chunk, recordNumber);
+                    imported += chunk.size();
+                    chunk.clear();
+                    if (++chunks % PROGRESS_EVERY_CHUNKS == 0) {
+                        log.info("Import {}: {} records, {} rows/s", jobId, recordNumber,
+                                Math.round(rows / seconds(start)));
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                rows += commitChunk(jobId, chunk, recordNumber);
+                imported += chunk.size();
+            }
+        } catch (IOException e) {
+            fail(jobId, e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            fail(jobId, e);
+            throw e;
+        } finally {
+            if (imported > 0) {
+                countCache.invalidatePrefix("clients");
+            }
+        }
+
+        jdbcClient.sql("UPDATE ClientImportJobs SET Status = 'COMPLETED', UpdatedAt = CURRENT_TIMESTAMP WHERE JobID = :jobId")
+                .param("jobId", jobId)
+                .update();
+        double seconds = seconds(start);
+        Report report = new Report(jobId, "COMPLETED", Math.min(skip, recordNumber), imported, rows,
+                (long) (seconds * 1000), seconds > 0 ? rows / seconds : 0);
+        log.info("Import {} completed: {} records ({} skipped), {} rows in {} ms, {} rows/s", jobId, imported,
+                report.recordsSkipped(), rows, report.elapsedMillis(), Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    private RecordSource open(Format format, InputStream in) throws IOException {
+        if (format == Format.CSV) {
+            ClientCsvReader reader = new ClientCsvReader(
+                    new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            return reader::next;
+        }
+        MappingIterator<JsonNode> lines = objectMapper.readerFor(JsonNode.class).readValues(in);
+        return () -> lines.hasNextValue() ? ClientJsonReader.read(lines.nextValue()) : null;
+    }
+
+    private static Client next(RecordSource source, long recordNumber) throws IOException {
+        try {
+            return source.next();
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Record " + recordNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Columns the database would reject, reported with the record number instead
+    private static void validate(Client client, long recordNumber) {
+        if (client.firstName() == null || client.onboardingDate() == null || client.status() == null) {
+            throw new IllegalArgumentException(
+                    "Record " + recordNumber + ": firstName, onboardingDate and status are required");
+        }
+        for (RelatedParty party : client.relatedParties()) {
+            if (party.firstName() == null) {
+                throw new IllegalArgumentException(
+                        "Record " + recordNumber + ": related party firstName is required");
+            }
+        }
+    }
+
+    private long commitChunk(String jobId, List<Client> chunk, long recordsCommitted) {
+        while (true) {
+            boolean useBatchKeys = !Boolean.FALSE.equals(batchKeys);
+            ChunkResult result;
+            try {
+                result = transactionTemplate.execute(status -> {
+                    ChunkResult written = jdbcTemplate.execute(
+                            (ConnectionCallback<ChunkResult>) connection -> writeChunk(connection, chunk, useBatchKeys));
+                    jdbcClient.sql("UPDATE ClientImportJobs SET RecordsCommitted = :records, RowsCommitted = RowsCommitted + :rows, UpdatedAt = CURRENT_TIMESTAMP WHERE JobID = :jobId")
+                            .param("records", recordsCommitted)
+                            .param("rows", written.rows())
+                            .param("jobId", jobId)
+                            .update();
+                    // Commits, or with ASYNC is queued, with the chunk's rows
+                    changeCapture.captureImported(chunk, written.clientIds(), written.partyIds());
+                    return written;
+                });
+            } catch (BatchKeysUnavailableException e) {
+                batchKeys = false;
+                continue;
+            }
+            batchKeys = useBatchKeys;
+
+            for (int i = 0; i < chunk.size(); i++) {
+                Client client = chunk.get(i);
+                long clientId = result.clientIds()[i];
+                nameIndex.indexClient(clientId, client.firstName(), client.middleName(), client.lastName());
+                ownershipGraph.addClient(clientId);
+                for (Identifier identifier : client.identifiers()) {
+                    ownershipGraph.addClientIdentifier(clientId, identifier.identifierType(),
+                            identifier.identifierValue());
+                }
+            }
+            for (int i = 0; i < result.parties().size(); i++) {
+                long clientId = result.parties().get(i).parentId();
+                long partyId = result.partyIds()[i];
+                RelatedParty party = result.parties().get(i).row();
+                nameIndex.indexRelatedParty(clientId, party.firstName(), party.middleName(), party.lastName());
+                ownershipGraph.addRelatedParty(clientId, partyId);
+                for (Identifier identifier : party.identifiers()) {
+                    ownershipGraph.addRelatedPartyIdentifier(partyId, identifier.identifierType(),
+                            identifier.identifierValue());
+                }
+            }
+            return result.rows();
+        }
+    }
+
+    private ChunkResult writeChunk(Connection connection, List<Client> chunk, boolean batch) throws SQLException {
+        long[] clientIds = insertReturningKeys(connection, INSERT_CLIENT, chunk, ClientImportService::bindClient,
+                batch);
+
+        List<Child<Address>> addresses = new ArrayList<>();
+        List<Child<Identifier>> identifiers = new ArrayList<>();
+        List<Child<Account>> accounts = new ArrayList<>();
+        List<Child<Portfolio>> portfolios = new ArrayList<>();
+        List<Child<RelatedParty>> parties = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Client client = chunk.get(i);
+            long clientId = clientIds[i];
+            client.addresses().forEach(a -> addresses.add(new Child<>(clientId, a)));
+            client.identifiers().forEach(id -> identifiers.add(new Child<>(clientId, id)));
+            client.accounts().forEach(a -> accounts.add(new Child<>(clientId, a)));
+            client.portfolios().forEach(p -> portfolios.add(new Child<>(clientId, p)));
+            client.relatedParties().forEach(p -> parties.add(new Child<>(clientId, p)));
+        }
+        insertBatch(connection, INSERT_ADDRESS, addresses, ClientImportService::bindAddress);
+        insertBatch(connection, INSERT_IDENTIFIER, identifiers, ClientImportService::bindIdentifier);
+        insertBatch(connection, INSERT_ACCOUNT, accounts, (ps, a) -> {
+            ps.setLong(1, a.parentId());
+            ps.setString(2, a.row().accountNumber());
+            ps.setString(3, a.row().accountStatus());
+        });
+        insertBatch(connection, INSERT_PORTFOLIO, portfolios, (ps, p) -> {
+            ps.setLong(1, p.parentId());
+            ps.setString(2, p.row().accountNumber());
+            ps.setString(3, p.row().portfolioText());
+            setDate(ps, 4, p.row().onboardingDate());
+            setDate(ps, 5, p.row().offboardingDate());
+            ps.setString(6, p.row().status());
+        });
+
+        long[] partyIds = insertReturningKeys(connection, INSERT_RELATED_PARTY, parties,
+                ClientImportService::bindRelatedParty, batch);
+        List<Child<Address>> partyAddresses = new ArrayList<>();
+        List<Child<Identifier>> partyIdentifiers = new ArrayList<>();
+        for (int i = 0; i < parties.size(); i++) {
+            long partyId = partyIds[i];
+            parties.get(i).row().addresses().forEach(a -> partyAddresses.add(new Child<>(partyId, a)));
+            parties.get(i).row().identifiers().forEach(id -> partyIdentifiers.add(new Child<>(partyId, id)));
+        }
+        insertBatch(connection, INSERT_PARTY_ADDRESS, partyAddresses, ClientImportService::bindAddress);
+        insertBatch(connection, INSERT_PARTY_IDENTIFIER, partyIdentifiers, ClientImportService::bindIdentifier);
+
+        long rows = chunk.size() + addresses.size() + identifiers.size() + accounts.size() + portfolios.size()
+                + parties.size() + partyAddresses.size() + partyIdentifiers.size();
+        return new ChunkResult(rows, clientIds, parties, partyIds);
+    }
+
+    private static <T> long[] insertReturningKeys(Connection connection, String sql, List<T> rows, Binder<T> binder,
+            boolean batch) throws SQLException {
+        long[] keys = new long[rows.size()];
+        if (rows.isEmpty()) {
+            return keys;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            if (batch) {
+                for (T row : rows) {
+                    binder.bind(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                int read;
+                try {
+                    read = readKeys(ps, keys, 0);
+                } catch (SQLException e) {
+                    throw new BatchKeysUnavailableException();
+                }
+                if (read != rows.size()) {
+                    throw new BatchKeysUnavailableException();
+                }
+            } else {
+                for (int i = 0; i < rows.size(); i++) {
+                    binder.bind(ps, rows.get(i));
+                    ps.executeUpdate();
+                    if (readKeys(ps, keys, i) != 1) {
+                        throw new IllegalStateException("Driver returned no generated key for: " + sql);
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static int readKeys(PreparedStatement ps, long[] keys, int offset) throws SQLException {
+        int read = 0;
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            while (offset + read < keys.length && rs.next()) {
+                keys[offset + read++] = rs.getLong(1);
+            }
+        }
+        return read;
+    }
+
+    private static <T> void insertBatch(Connection connection, String sql, List<T> rows, Binder<T> binder)
+            throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (T row : rows) {
+                binder.bind(ps, row);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void bindClient(PreparedStatement ps, Client c) throws SQLException {
+        ps.setString(1, c.titlePrefix());
+        ps.setString(2, c.firstName());
+        ps.setString(3, c.middleName());
+        ps.setString(4, c.lastName());
+        ps.setString(5, c.titleSuffix());
+        ps.setString(6, c.citizenship1());
+        ps.setString(7, c.citizenship2());
+        setDate(ps, 8, c.onboardingDate());
+        ps.setString(9, c.status());
+        ps.setString(10, c.nameAtBirth());
+        ps.setString(11, c.nickName());
+        ps.setString(12, c.gender());
+        setDate(ps, 13, c.dateOfBirth());
+        ps.setString(14, c.language());
+        ps.setString(15, c.occupation());
+        ps.setString(16, c.countryOfTax());
+        ps.setString(17, c.sourceOfFundsCountry());
+        ps.setString(18, c.fatcaStatus());
+        ps.setString(19, c.crsStatus());
+    }
+
+    private static void bindRelatedParty(PreparedStatement ps, Child<RelatedParty> child) throws SQLException {
+        RelatedParty p = child.row();
+        ps.setLong(1, child.parentId());
+        ps.setString(2, p.relationType());
+        ps.setString(3, p.titlePrefix());
+        ps.setString(4, p.firstName());
+        ps.setString(5, p.middleName());
+        ps.setString(6, p.lastName());
+        ps.setString(7, p.titleSuffix());
+        ps.setString(8, p.citizenship1());
+        ps.setString(9, p.citizenship2());
+        setDate(ps, 10, p.onboardingDate());
+        ps.setString(11, p.status());
+        ps.setString(12, p.nameAtBirth());
+        ps.setString(13, p.nickName());
+        ps.setString(14, p.gender());
+        setDate(ps, 15, p.dateOfBirth());
+        ps.setString(16, p.language());
+        ps.setString(17, p.occupation());
+        ps.setString(18, p.countryOfTax());
+        ps.setString(19, p.sourceOfFundsCountry());
+        ps.setString(20, p.fatcaStatus());
+        ps.setString(21, p.crsStatus());
+    }
+
+    private static void bindAddress(PreparedStatement ps, Child<Address> child) throws SQLException {
+        Address a = child.row();
+        ps.setLong(1, child.parentId());
+        ps.setString(2, a.addressType());
+        ps.setString(3, a.addressLine1());
+        ps.setString(4, a.addressLine2());
+        ps.setString(5, a.city());
+        ps.setString(6, a.zip());
+        ps.setString(7, a.country());
+        ps.setString(8, a.addressNumber());
+        ps.setString(9, a.addressSupplement());
+    }
+
+    private static void bindIdentifier(PreparedStatement ps, Child<Identifier> child) throws SQLException {
+        Identifier i = child.row();
+        ps.setLong(1, child.parentId());
+        ps.setString(2, i.identifierType());
+        ps.setString(3, i.identifierValue());
+        ps.setString(4, i.issuingAuthority());
+        ps.setString(5, i.identifierNumber());
+    }
+
+    private static void setDate(PreparedStatement ps, int index, LocalDate date) throws SQLException {
+        ps.setDate(index, date != null ? Date.valueOf(date) : null);
+    }
+
+    private void fail(String jobId, Exception e) {
+        String message = String.valueOf(e.getMessage());
+        jdbcClient.sql("UPDATE ClientImportJobs SET Status = 'FAILED', Error = :error, UpdatedAt = CURRENT_TIMESTAMP WHERE JobID = :jobId")
+                .param("error", message.length() > 1000 ? message.substring(0, 1000) : message)
+                .param("jobId", jobId)
+                .update();
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+}
@@ -0,0 +1,142 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads the client aggregate shape written by ClientJsonWriter. IDs in the input
+// are ignored (the database assigns new ones); missing child arrays are empty.
+final class ClientJsonReader {
+
+    private ClientJsonReader() {
+    }
+
+    static Client read(JsonNode node) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        List<RelatedParty> relatedParties = new ArrayList<>();
+        for (JsonNode party : node.path("relatedParties")) {
+            relatedParties.add(readRelatedParty(party));
+        }
+        List<Account> accounts = new ArrayList<>();
+        for (JsonNode account : node.path("accounts")) {
+            accounts.add(new Account(null, text(account, "accountNumber"), text(account, "accountStatus")));
+        }
+        List<Portfolio> portfolios = new ArrayList<>();
+        for (JsonNode portfolio : node.path("portfolios")) {
+            portfolios.add(new Portfolio(
+                    null,
+                    null,
+                    text(portfolio, "accountNumber"),
+                    text(portfolio, "portfolioText"),
+                    date(portfolio, "onboardingDate"),
+                    date(portfolio, "offboardingDate"),
+                    text(portfolio, "status")));
+        }
+        return new Client(
+                null,
+                text(node, "titlePrefix"),
+                text(node, "firstName"),
+                text(node, "middleName"),
+                text(node, "lastName"),
+                text(node, "titleSuffix"),
+                text(node, "citizenship1"),
+                text(node, "citizenship2"),
+                date(node, "onboardingDate"),
+                text(node, "status"),
+                text(node, "nameAtBirth"),
+                text(node, "nickName"),
+                text(node, "gender"),
+                date(node, "dateOfBirth"),
+                text(node, "language"),
+                text(node, "occupation"),
+                text(node, "countryOfTax"),
+                text(node, "sourceOfFundsCountry"),
+                text(node, "fatcaStatus"),
+                text(node, "crsStatus"),
+                readAddresses(node.path("addresses")),
+                readIdentifiers(node.path("identifiers")),
+                relatedParties,
+                accounts,
+                portfolios);
+    }
+
+    private static RelatedParty readRelatedParty(JsonNode node) {
+        return new RelatedParty(
+                null,
+                null,
+                text(node, "relationType"),
+                text(node, "titlePrefix"),
+                text(node, "firstName"),
+                text(node, "middleName"),
+                text(node, "lastName"),
+                text(node, "titleSuffix"),
+                text(node, "citizenship1"),
+                text(node, "citizenship2"),
+                date(node, "onboardingDate"),
+                text(node, "status"),
+                text(node, "nameAtBirth"),
+                text(node, "nickName"),
+                text(node, "gender"),
+                date(node, "dateOfBirth"),
+                text(node, "language"),
+                text(node, "occupation"),
+                text(node, "countryOfTax"),
+                text(node, "sourceOfFundsCountry"),
+                text(node, "fatcaStatus"),
+                text(node, "crsStatus"),
+                readAddresses(node.path("addresses")),
+                readIdentifiers(node.path("identifiers")));
+    }
+
+    private static List<Address> readAddresses(JsonNode array) {
+        List<Address> addresses = new ArrayList<>();
+        for (JsonNode address : array) {
+            addresses.add(new Address(
+                    null,
+                    text(address, "addressType"),
+                    text(address, "addressLine1"),
+                    text(address, "addressLine2"),
+                    text(address, "city"),
+                    text(address, "zip"),
+                    text(address, "country"),
+                    text(address, "addressNumber"),
+                    text(address, "addressSupplement")));
+        }
+        return addresses;
+    }
+
+    private static List<Identifier> readIdentifiers(JsonNode array) {
+        List<Identifier> identifiers = new ArrayList<>();
+        for (JsonNode identifier : array) {
+            identifiers.add(new Identifier(
+                    null,
+                    text(identifier, "identifierType"),
+                    text(identifier, "identifierValue"),
+                    text(identifier, "issuingAuthority"),
+                    text(identifier, "identifierNumber")));
+        }
+        return identifiers;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static LocalDate date(JsonNode node, String field) {
+        String value = text(node, field);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(field + " is not an ISO date: " + value);
+        }
+    }
+}
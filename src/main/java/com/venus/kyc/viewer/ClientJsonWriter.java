@@ -0,0 +1,188 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+// Writes a client aggregate field by field with the same property names Jackson
+// derives from the records, so exports and REST reads share one representation
+// without building an object tree per client. Dates are ISO strings. Without
+// sensitive data the child collections are written as null, which is how callers
+// lacking VIEW_SENSITIVE_DATA have always seen them.
+final class ClientJsonWriter {
+
+    private ClientJsonWriter() {
+    }
+
+    static void write(JsonGenerator json, Client client) throws IOException {
+        write(json, client, true);
+    }
+
+    static void write(JsonGenerator json, Client client, boolean includeSensitive) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("clientID", client.clientID());
+        json.writeStringField("titlePrefix", client.titlePrefix());
+        json.writeStringField("firstName", client.firstName());
+        json.writeStringField("middleName", client.middleName());
+        json.writeStringField("lastName", client.lastName());
+        json.writeStringField("titleSuffix", client.titleSuffix());
+        json.writeStringField("citizenship1", client.citizenship1());
+        json.writeStringField("citizenship2", client.citizenship2());
+        writeDate(json, "onboardingDate", client.onboardingDate());
+        json.writeStringField("status", client.status());
+        json.writeStringField("nameAtBirth", client.nameAtBirth());
+        json.writeStringField("nickName", client.nickName());
+        json.writeStringField("gender", client.gender());
+        writeDate(json, "dateOfBirth", client.dateOfBirth());
+        json.writeStringField("language", client.language());
+        json.writeStringField("occupation", client.occupation());
+        json.writeStringField("countryOfTax", client.countryOfTax());
+        json.writeStringField("sourceOfFundsCountry", client.sourceOfFundsCountry());
+        json.writeStringField("fatcaStatus", client.fatcaStatus());
+        json.writeStringField("crsStatus", client.crsStatus());
+        if (!includeSensitive) {
+            json.writeNullField("addresses");
+            json.writeNullField("identifiers");
+            json.writeNullField("relatedParties");
+            json.writeNullField("accounts");
+            json.writeNullField("portfolios");
+            json.writeEndObject();
+            return;
+        }
+        writeAddresses(json, client.addresses());
+        writeIdentifiers(json, client.identifiers());
+
+        json.writeFieldName("relatedParties");
+        if (client.relatedParties() == null) {
+            json.writeNull();
+        } else {
+            json.writeStartArray();
+            for (RelatedParty party : client.relatedParties()) {
+                writeRelatedParty(json, party, true);
+            }
+            json.writeEndArray();
+        }
+
+        json.writeFieldName("accounts");
+        if (client.accounts() == null) {
+            json.writeNull();
+        } else {
+            json.writeStartArray();
+            for (Account account : client.accounts()) {
+                json.writeStartObject();
+                json.writeNumberField("accountID", account.accountID());
+                json.writeStringField("accountNumber", account.accountNumber());
+                json.writeStringField("accountStatus", account.accountStatus());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+
+        json.writeFieldName("portfolios");
+        if (client.portfolios() == null) {
+            json.writeNull();
+        } else {
+            json.writeStartArray();
+            for (Portfolio portfolio : client.portfolios()) {
+                json.writeStartObject();
+                json.writeNumberField("portfolioID", portfolio.portfolioID());
+                json.writeNumberField("clientID", portfolio.clientID());
+                json.writeStringField("accountNumber", portfolio.accountNumber());
+                json.writeStringField("portfolioText", portfolio.portfolioText());
+                writeDate(json, "onboardingDate", portfolio.onboardingDate());
+                writeDate(json, "offboardingDate", portfolio.offboardingDate());
+                json.writeStringField("status", portfolio.status());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    static void writeRelatedParty(JsonGenerator json, RelatedParty party, boolean includeSensitive)
+            throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("relatedPartyID", party.relatedPartyID());
+        json.writeNumberField("clientID", party.clientID());
+        json.writeStringField("relationType", party.relationType());
+        json.writeStringField("titlePrefix", party.titlePrefix());
+        json.writeStringField("firstName", party.firstName());
+        json.writeStringField("middleName", party.middleName());
+        json.writeStringField("lastName", party.lastName());
+        json.writeStringField("titleSuffix", party.titleSuffix());
+        json.writeStringField("citizenship1", party.citizenship1());
+        json.writeStringField("citizenship2", party.citizenship2());
+        writeDate(json, "onboardingDate", party.onboardingDate());
+        json.writeStringField("status", party.status());
+        json.writeStringField("nameAtBirth", party.nameAtBirth());
+        json.writeStringField("nickName", party.nickName());
+        json.writeStringField("gender", party.gender());
+        writeDate(json, "dateOfBirth", party.dateOfBirth());
+        json.writeStringField("language", party.language());
+        json.writeStringField("occupation", party.occupation());
+        json.writeStringField("countryOfTax", party.countryOfTax());
+        json.writeStringField("sourceOfFundsCountry", party.sourceOfFundsCountry());
+        json.writeStringField("fatcaStatus", party.fatcaStatus());
+        json.writeStringField("crsStatus", party.crsStatus());
+        if (includeSensitive) {
+            writeAddresses(json, party.addresses());
+            writeIdentifiers(json, party.identifiers());
+        } else {
+            json.writeNullField("addresses");
+            json.writeNullField("identifiers");
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeAddresses(JsonGenerator json, List<Address> addresses) throws IOException {
+        json.writeFieldName("addresses");
+        if (addresses == null) {
+            json.writeNull();
+            return;
+        }
+        json.writeStartArray();
+        for (Address address : addresses) {
+            json.writeStartObject();
+            json.writeNumberField("addressID", address.addressID());
+            json.writeStringField("addressType", address.addressType());
+            json.writeStringField("addressLine1", address.addressLine1());
+            json.writeStringField("addressLine2", address.addressLine2());
+            json.writeStringField("city", address.city());
+            json.writeStringField("zip", address.zip());
+            json.writeStringField("country", address.country());
+            json.writeStringField("addressNumber", address.addressNumber());
+            json.writeStringField("addressSupplement", address.addressSupplement());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeIdentifiers(JsonGenerator json, List<Identifier> identifiers) throws IOException {
+        json.writeFieldName("identifiers");
+        if (identifiers == null) {
+            json.writeNull();
+            return;
+        }
+        json.writeStartArray();
+        for (Identifier identifier : identifiers) {
+            json.writeStartObject();
+            json.writeNumberField("identifierID", identifier.identifierID());
+            json.writeStringField("identifierType", identifier.identifierType());
+            json.writeStringField("identifierValue", identifier.identifierValue());
+            json.writeStringField("issuingAuthority", identifier.issuingAuthority());
+            json.writeStringField("identifierNumber", identifier.identifierNumber());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeDate(JsonGenerator json, String field, LocalDate date) throws IOException {
+        if (date == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeStringField(field, date.toString());
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.venus.kyc.viewer;
+
+public record ClientMatch(
+        Client client,
+        double score) {
+}
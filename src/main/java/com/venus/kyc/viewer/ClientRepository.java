@@ -1,208 +1,151 @@
 package com.venus.kyc.viewer;
 
+import com.venus.kyc.viewer.network.OwnershipGraph;
+import com.venus.kyc.viewer.search.ClientNameIndex;
+import com.venus.kyc.viewer.search.PhoneticIndex;
+import org.springframework.jdbc.core.DataClassRowMapper;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class ClientRepository {
 
+        private static final String CLIENT_COLUMNS = "ClientID, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus";
+
+        private static final String SUMMARY_COLUMNS = "ClientID, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, OnboardingDate, Status";
+
+        // The SQL side of name search, for when ClientNameIndex can't answer: the same
+        // set the trigram index returns, i.e. a case-insensitive substring of the
+        // client's or any of its related parties' names. Bound through likePattern.
+        private static final String NAME_FILTER = "(LOWER(FirstName) LIKE :query ESCAPE '\\' OR LOWER(MiddleName) LIKE :query ESCAPE '\\' OR LOWER(LastName) LIKE :query ESCAPE '\\'"
+                        + " OR EXISTS (SELECT 1 FROM RelatedParties rp WHERE rp.ClientID = Clients.ClientID AND (LOWER(rp.FirstName) LIKE :query ESCAPE '\\' OR LOWER(rp.MiddleName) LIKE :query ESCAPE '\\' OR LOWER(rp.LastName) LIKE :query ESCAPE '\\')))";
+
+        // Orderings available in cursor mode. Each column is NOT NULL and has a
+        // (column, ClientID) index in schema.sql so a seek is a single index range scan.
+        private static final Map<String, String> SEEK_COLUMNS = Map.of(
+                        "clientID", "ClientID",
+                        "firstName", "FirstName",
+                        "onboardingDate", "OnboardingDate");
+
+        // What a page selects and how its rows are completed: full clients load their
+        // child collections afterwards; masked clients (callers without sensitive data,
+        // who never see the children) and summaries are finished after the one SELECT.
+        private record Projection<T extends ClientSortKey>(String columns, RowMapper<T> mapper,
+                        Consumer<List<T>> complete) {
+        }
+
         private final JdbcClient jdbcClient;
+        private final ClientAggregateLoader aggregateLoader;
+        private final RelatedPartyLoader relatedPartyLoader;
+        private final CountCache countCache;
+        private final ClientCache clientCache;
+        private final ClientNameIndex nameIndex;
+        private final OwnershipGraph ownershipGraph;
+        private final EntityVersions entityVersions;
+        private final MaterialChangeCapture changeCapture;
+        private final Projection<Client> full;
+        private final Projection<Client> masked;
+        private final Projection<ClientSummary> summary;
 
-        public ClientRepository(JdbcClient jdbcClient) {
+        public ClientRepository(JdbcClient jdbcClient, ClientAggregateLoader aggregateLoader,
+                        RelatedPartyLoader relatedPartyLoader, CountCache countCache, ClientCache clientCache,
+                        ClientNameIndex nameIndex, OwnershipGraph ownershipGraph, EntityVersions entityVersions,
+                        MaterialChangeCapture changeCapture) {
                 this.jdbcClient = jdbcClient;
+                this.aggregateLoader = aggregateLoader;
+                this.relatedPartyLoader = relatedPartyLoader;
+                this.countCache = countCache;
+                this.clientCache = clientCache;
+                this.nameIndex = nameIndex;
+                this.ownershipGraph = ownershipGraph;
+                this.entityVersions = entityVersions;
+                this.changeCapture = changeCapture;
+                this.full = new Projection<>(CLIENT_COLUMNS, ClientRowMappers::client, aggregateLoader::loadChildren);
+                this.masked = new Projection<>(CLIENT_COLUMNS, ClientRowMappers::clientWithoutChildren, clients -> {
+                });
+                this.summary = new Projection<>(SUMMARY_COLUMNS, new DataClassRowMapper<>(ClientSummary.class),
+                                summaries -> {
+                                });
         }
 
         public List<Client> findAll() {
-                return findAllPaginated(0, Integer.MAX_VALUE).content();
+                return findAllPaginated(full, 0, Integer.MAX_VALUE).content();
         }
 
         public long countClients() {
-                return jdbcClient.sql("SELECT COUNT(*) FROM Clients")
+                return countCache.get("clients", () -> jdbcClient.sql("SELECT COUNT(*) FROM Clients")
                                 .query(Long.class)
-                                .single();
+                                .single());
         }
 
-        public PaginatedResponse<Client> findAllPaginated(int page, int size) {
+        public PaginatedResponse<Client> findAllPaginated(int page, int size, boolean includeSensitive) {
+                return findAllPaginated(clientProjection(includeSensitive), page, size);
+        }
+
+        public PaginatedResponse<ClientSummary> findSummariesPaginated(int page, int size) {
+                return findAllPaginated(summary, page, size);
+        }
+
+        private <T extends ClientSortKey> PaginatedResponse<T> findAllPaginated(Projection<T> projection, int page,
+                        int size) {
                 long totalElements = countClients();
                 int totalPages = (int) Math.ceil((double) totalElements / size);
 
-                List<Client> clients = jdbcClient.sql(
-                                "SELECT ClientID, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus FROM Clients LIMIT :limit OFFSET :offset")
+                List<T> clients = jdbcClient.sql(
+                                "SELECT " + projection.columns() + " FROM Clients LIMIT :limit OFFSET :offset")
                                 .param("limit", size)
                                 .param("offset", page * size)
-                                .query((rs, rowNum) -> new Client(
-                                                rs.getLong("ClientID"),
-                                                rs.getString("TitlePrefix"),
-                                                rs.getString("FirstName"),
-                                                rs.getString("MiddleName"),
-                                                rs.getString("LastName"),
-                                                rs.getString("TitleSuffix"),
-                                                rs.getString("Citizenship1"),
-                                                rs.getString("Citizenship2"),
-                                                rs.getDate("OnboardingDate").toLocalDate(),
-                                                rs.getString("Status"),
-                                                rs.getString("NameAtBirth"),
-                                                rs.getString("NickName"),
-                                                rs.getString("Gender"),
-                                                rs.getDate("DateOfBirth") != null
-                                                                ? rs.getDate("DateOfBirth").toLocalDate()
-                                                                : null,
-                                                rs.getString("Language"),
-                                                rs.getString("Occupation"),
-                                                rs.getString("CountryOfTax"),
-                                                rs.getString("SourceOfFundsCountry"),
-                                                rs.getString("FATCAStatus"),
-                                                rs.getString("CRSStatus"),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>()))
+                                .query(projection.mapper())
                                 .list();
 
-                for (Client client : clients) {
-                        client.addresses().addAll(fetchAddresses(client.clientID()));
-                        client.identifiers().addAll(fetchIdentifiers(client.clientID()));
-                        client.relatedParties().addAll(fetchRelatedParties(client.clientID()));
-                        client.accounts().addAll(fetchAccounts(client.clientID()));
-                        client.portfolios().addAll(fetchPortfolios(client.clientID()));
-                }
+                projection.complete().accept(clients);
 
                 return new PaginatedResponse<>(clients, page, size, totalElements, totalPages);
         }
 
-        public Optional<Client> findById(Long id) {
-                Optional<Client> clientOpt = jdbcClient.sql(
-                                "SELECT ClientID, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus FROM Clients WHERE ClientID = :id")
-                                .param("id", id)
-                                .query((rs, rowNum) -> new Client(
-                                                rs.getLong("ClientID"),
-                                                rs.getString("TitlePrefix"),
-                                                rs.getString("FirstName"),
-                                                rs.getString("MiddleName"),
-                                                rs.getString("LastName"),
-                                                rs.getString("TitleSuffix"),
-                                                rs.getString("Citizenship1"),
-                                                rs.getString("Citizenship2"),
-                                                rs.getDate("OnboardingDate").toLocalDate(),
-                                                rs.getString("Status"),
-                                                rs.getString("NameAtBirth"),
-                                                rs.getString("NickName"),
-                                                rs.getString("Gender"),
-                                                rs.getDate("DateOfBirth") != null
-                                                                ? rs.getDate("DateOfBirth").toLocalDate()
-                                                                : null,
-                                                rs.getString("Language"),
-                                                rs.getString("Occupation"),
-                                                rs.getString("CountryOfTax"),
-                                                rs.getString("SourceOfFundsCountry"),
-                                                rs.getString("FATCAStatus"),
-                                                rs.getString("CRSStatus"),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>()))
-                                .optional();
-
-                if (clientOpt.isPresent()) {
-                        Client client = clientOpt.get();
-                        client.addresses().addAll(fetchAddresses(id));
-                        client.identifiers().addAll(fetchIdentifiers(id));
-                        client.relatedParties().addAll(fetchRelatedParties(id));
-                        client.accounts().addAll(fetchAccounts(id));
-                        client.portfolios().addAll(fetchPortfolios(id));
-                }
-
-                return clientOpt;
-        }
-
-        private List<Address> fetchAddresses(Long id) {
-                return jdbcClient.sql(
-                                "SELECT AddressID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement FROM ClientAddresses WHERE ClientID = :id")
-                                .param("id", id)
-                                .query(Address.class)
-                                .list();
+        public PaginatedResponse<Client> findAllByCursor(String cursor, int size, String sortBy, boolean includeTotal,
+                        boolean includeSensitive) {
+                return seekPage(clientProjection(includeSensitive), "1=1", Map.of(), cursor, size, sortBy,
+                                includeTotal ? countClients() : -1);
         }
 
-        private List<Account> fetchAccounts(Long id) {
-                return jdbcClient.sql(
-                                "SELECT AccountID, AccountNumber, AccountStatus FROM Accounts WHERE ClientID = :id")
-                                .param("id", id)
-                                .query(Account.class)
-                                .list();
+        public PaginatedResponse<ClientSummary> findSummariesByCursor(String cursor, int size, String sortBy,
+                        boolean includeTotal) {
+                return seekPage(summary, "1=1", Map.of(), cursor, size, sortBy, includeTotal ? countClients() : -1);
         }
 
-        private List<Portfolio> fetchPortfolios(Long id) {
-                return jdbcClient.sql(
-                                "SELECT PortfolioID, ClientID, AccountNumber, PortfolioText, OnboardingDate, OffboardingDate, Status FROM Portfolios WHERE ClientID = :id")
-                                .param("id", id)
-                                .query(Portfolio.class)
-                                .list();
+        // Served from ClientCache; the returned aggregate is shared and unmodifiable.
+        public Optional<Client> findById(Long id) {
+                return clientCache.get(id, this::loadById);
         }
 
-        private List<Identifier> fetchIdentifiers(Long id) {
-                return jdbcClient.sql(
-                                "SELECT IdentifierID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber FROM ClientIdentifiers WHERE ClientID = :id")
+        private Optional<Client> loadById(Long id) {
+                Optional<Client> clientOpt = jdbcClient.sql(
+                                "SELECT " + CLIENT_COLUMNS + " FROM Clients WHERE ClientID = :id")
                                 .param("id", id)
-                                .query(Identifier.class)
-                                .list();
-        }
+                                .query(ClientRowMappers::client)
+                                .optional();
 
-        private List<RelatedParty> fetchRelatedParties(Long clientID) {
-                List<RelatedParty> parties = jdbcClient.sql(
-                                "SELECT RelatedPartyID, ClientID, RelationType, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus FROM RelatedParties WHERE ClientID = :id")
-                                .param("id", clientID)
-                                .query((rs, rowNum) -> new RelatedParty(
-                                                rs.getLong("RelatedPartyID"),
-                                                rs.getLong("ClientID"),
-                                                rs.getString("RelationType"),
-                                                rs.getString("TitlePrefix"),
-                                                rs.getString("FirstName"),
-                                                rs.getString("MiddleName"),
-                                                rs.getString("LastName"),
-                                                rs.getString("TitleSuffix"),
-                                                rs.getString("Citizenship1"),
-                                                rs.getString("Citizenship2"),
-                                                rs.getDate("OnboardingDate") != null
-                                                                ? rs.getDate("OnboardingDate").toLocalDate()
-                                                                : null,
-                                                rs.getString("Status"),
-                                                rs.getString("NameAtBirth"),
-                                                rs.getString("NickName"),
-                                                rs.getString("Gender"),
-                                                rs.getDate("DateOfBirth") != null
-                                                                ? rs.getDate("DateOfBirth").toLocalDate()
-                                                                : null,
-                                                rs.getString("Language"),
-                                                rs.getString("Occupation"),
-                                                rs.getString("CountryOfTax"),
-                                                rs.getString("SourceOfFundsCountry"),
-                                                rs.getString("FATCAStatus"),
-                                                rs.getString("CRSStatus"),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>()))
-                                .list();
+                clientOpt.ifPresent(client -> aggregateLoader.loadChildren(List.of(client)));
 
-                for (RelatedParty party : parties) {
-                        party.addresses().addAll(jdbcClient.sql(
-                                        "SELECT AddressID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement FROM RelatedPartyAddresses WHERE RelatedPartyID = :id")
-                                        .param("id", party.relatedPartyID())
-                                        .query(Address.class)
-                                        .list());
-                        party.identifiers().addAll(jdbcClient.sql(
-                                        "SELECT IdentifierID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber FROM RelatedPartyIdentifiers WHERE RelatedPartyID = :id")
-                                        .param("id", party.relatedPartyID())
-                                        .query(Identifier.class)
-                                        .list());
-                }
-                return parties;
+                return clientOpt;
         }
 
         public void saveRelatedParty(Long clientID, RelatedParty rp) {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
                 jdbcClient.sql(
                                 "INSERT INTO RelatedParties (ClientID, RelationType, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus) VALUES (:clientID, :relationType, :titlePrefix, :firstName, :middleName, :lastName, :titleSuffix, :citizenship1, :citizenship2, :onboardingDate, :status, :nameAtBirth, :nickName, :gender, :dateOfBirth, :language, :occupation, :countryOfTax, :sourceOfFundsCountry, :fatcaStatus, :crsStatus)")
                                 .param("clientID", clientID)
@@ -226,121 +169,259 @@ public class ClientRepository {
                                 .param("sourceOfFundsCountry", rp.sourceOfFundsCountry())
                                 .param("fatcaStatus", rp.fatcaStatus())
                                 .param("crsStatus", rp.crsStatus())
-                                .update();
+                                .update(keyHolder, "RelatedPartyID");
+
+                clientCache.invalidate(clientID);
+                // After the invalidation, so no ETag carrying the new version is ever
+                // sent with an aggregate still cached from before this write
+                entityVersions.bumpClient(clientID);
+                long relatedPartyID = keyHolder.getKey().longValue();
+                ownershipGraph.addRelatedParty(clientID, relatedPartyID);
+                nameIndex.indexRelatedParty(clientID, rp.firstName(), rp.middleName(), rp.lastName());
+                countCache.invalidatePrefix("clients:search:");
+                // Only the RelatedParties row is written; addresses and identifiers in
+                // the request are not, so they are left out of the change record too
+                changeCapture.captureRelatedParty(clientID, null, new RelatedParty(relatedPartyID, clientID,
+                                rp.relationType(), rp.titlePrefix(), rp.firstName(), rp.middleName(), rp.lastName(),
+                                rp.titleSuffix(), rp.citizenship1(), rp.citizenship2(), rp.onboardingDate(),
+                                rp.status(), rp.nameAtBirth(), rp.nickName(), rp.gender(), rp.dateOfBirth(),
+                                rp.language(), rp.occupation(), rp.countryOfTax(), rp.sourceOfFundsCountry(),
+                                rp.fatcaStatus(), rp.crsStatus(), null, null));
         }
 
         public Optional<RelatedParty> findRelatedPartyById(Long id) {
-                Optional<RelatedParty> partyOpt = jdbcClient.sql(
-                                "SELECT RelatedPartyID, ClientID, RelationType, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus FROM RelatedParties WHERE RelatedPartyID = :id")
-                                .param("id", id)
-                                .query((rs, rowNum) -> new RelatedParty(
-                                                rs.getLong("RelatedPartyID"),
-                                                rs.getLong("ClientID"),
-                                                rs.getString("RelationType"),
-                                                rs.getString("TitlePrefix"),
-                                                rs.getString("FirstName"),
-                                                rs.getString("MiddleName"),
-                                                rs.getString("LastName"),
-                                                rs.getString("TitleSuffix"),
-                                                rs.getString("Citizenship1"),
-                                                rs.getString("Citizenship2"),
-                                                rs.getDate("OnboardingDate") != null
-                                                                ? rs.getDate("OnboardingDate").toLocalDate()
-                                                                : null,
-                                                rs.getString("Status"),
-                                                rs.getString("NameAtBirth"),
-                                                rs.getString("NickName"),
-                                                rs.getString("Gender"),
-                                                rs.getDate("DateOfBirth") != null
-                                                                ? rs.getDate("DateOfBirth").toLocalDate()
-                                                                : null,
-                                                rs.getString("Language"),
-                                                rs.getString("Occupation"),
-                                                rs.getString("CountryOfTax"),
-                                                rs.getString("SourceOfFundsCountry"),
-                                                rs.getString("FATCAStatus"),
-                                                rs.getString("CRSStatus"),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>()))
-                                .optional();
-
-                if (partyOpt.isPresent()) {
-                        RelatedParty party = partyOpt.get();
-                        party.addresses().addAll(jdbcClient.sql(
-                                        "SELECT AddressID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement FROM RelatedPartyAddresses WHERE RelatedPartyID = :id")
-                                        .param("id", id)
-                                        .query(Address.class)
-                                        .list());
-                        party.identifiers().addAll(jdbcClient.sql(
-                                        "SELECT IdentifierID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber FROM RelatedPartyIdentifiers WHERE RelatedPartyID = :id")
-                                        .param("id", id)
-                                        .query(Identifier.class)
-                                        .list());
-                }
-                return partyOpt;
+                return relatedPartyLoader.loadByIds(List.of(id)).stream().findFirst();
         }
 
         public List<Client> searchByName(String query) {
-                return searchByNamePaginated(query, 0, Integer.MAX_VALUE).content();
+                return searchByNamePaginated(full, query, 0, Integer.MAX_VALUE).content();
         }
 
         public long countSearchClients(String query) {
-                String likeQuery = "%" + query + "%";
-                return jdbcClient.sql(
-                                "SELECT COUNT(*) FROM Clients WHERE FirstName LIKE :query OR MiddleName LIKE :query OR LastName LIKE :query")
+                String likeQuery = likePattern(query);
+                return countCache.get("clients:search:" + likeQuery, () -> jdbcClient.sql(
+                                "SELECT COUNT(*) FROM Clients WHERE " + NAME_FILTER)
                                 .param("query", likeQuery)
                                 .query(Long.class)
-                                .single();
+                                .single());
+        }
+
+        public PaginatedResponse<Client> searchByNamePaginated(String query, int page, int size,
+                        boolean includeSensitive) {
+                return searchByNamePaginated(clientProjection(includeSensitive), query, page, size);
         }
 
-        public PaginatedResponse<Client> searchByNamePaginated(String query, int page, int size) {
-                String likeQuery = "%" + query + "%";
+        public PaginatedResponse<ClientSummary> searchSummariesByNamePaginated(String query, int page, int size) {
+                return searchByNamePaginated(summary, query, page, size);
+        }
+
+        private <T extends ClientSortKey> PaginatedResponse<T> searchByNamePaginated(Projection<T> projection,
+                        String query, int page, int size) {
+                long[] ranked = nameIndex.search(query);
+                if (ranked != null) {
+                        int from = (int) Math.min((long) page * size, ranked.length);
+                        int to = (int) Math.min((long) from + size, ranked.length);
+                        List<T> clients = findAllByIds(projection, Arrays.copyOfRange(ranked, from, to));
+                        return new PaginatedResponse<>(clients, page, size, ranked.length,
+                                        (int) Math.ceil((double) ranked.length / size));
+                }
+
+                // Queries shorter than a trigram (or before the index is built) go to SQL
+                String likeQuery = likePattern(query);
                 long totalElements = countSearchClients(query);
                 int totalPages = (int) Math.ceil((double) totalElements / size);
 
-                List<Client> clients = jdbcClient.sql(
-                                "SELECT ClientID, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus FROM Clients WHERE FirstName LIKE :query OR MiddleName LIKE :query OR LastName LIKE :query LIMIT :limit OFFSET :offset")
+                List<T> clients = jdbcClient.sql(
+                                "SELECT " + projection.columns() + " FROM Clients WHERE " + NAME_FILTER + " LIMIT :limit OFFSET :offset")
                                 .param("query", likeQuery)
                                 .param("limit", size)
                                 .param("offset", page * size)
-                                .query((rs, rowNum) -> new Client(
-                                                rs.getLong("ClientID"),
-                                                rs.getString("TitlePrefix"),
-                                                rs.getString("FirstName"),
-                                                rs.getString("MiddleName"),
-                                                rs.getString("LastName"),
-                                                rs.getString("TitleSuffix"),
-                                                rs.getString("Citizenship1"),
-                                                rs.getString("Citizenship2"),
-                                                rs.getDate("OnboardingDate").toLocalDate(),
-                                                rs.getString("Status"),
-                                                rs.getString("NameAtBirth"),
-                                                rs.getString("NickName"),
-                                                rs.getString("Gender"),
-                                                rs.getDate("DateOfBirth") != null
-                                                                ? rs.getDate("DateOfBirth").toLocalDate()
-                                                                : null,
-                                                rs.getString("Language"),
-                                                rs.getString("Occupation"),
-                                                rs.getString("CountryOfTax"),
-                                                rs.getString("SourceOfFundsCountry"),
-                                                rs.getString("FATCAStatus"),
-                                                rs.getString("CRSStatus"),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>(),
-                                                new java.util.ArrayList<>()))
+                                .query(projection.mapper())
                                 .list();
 
-                for (Client client : clients) {
-                        client.addresses().addAll(fetchAddresses(client.clientID()));
-                        client.identifiers().addAll(fetchIdentifiers(client.clientID()));
-                        client.relatedParties().addAll(fetchRelatedParties(client.clientID()));
-                        client.accounts().addAll(fetchAccounts(client.clientID()));
-                        client.portfolios().addAll(fetchPortfolios(client.clientID()));
-                }
+                projection.complete().accept(clients);
 
                 return new PaginatedResponse<>(clients, page, size, totalElements, totalPages);
         }
+
+        // Normalised as TrigramIndex does, with LIKE's wildcards taken literally
+        static String likePattern(String query) {
+                String normalized = query == null ? "" : query.strip().toLowerCase(Locale.ROOT);
+                return "%" + normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        }
+
+        // Phonetic/fuzzy search; empty when the name index hasn't been built yet.
+        public Optional<PaginatedResponse<ClientMatch>> fuzzySearchByName(String query, int page, int size,
+                        boolean includeSensitive) {
+                PhoneticIndex.Match match = nameIndex.fuzzySearch(query);
+                if (match == null) {
+                        return Optional.empty();
+                }
+                long[] ids = match.ids();
+                int from = (int) Math.min((long) page * size, ids.length);
+                int to = (int) Math.min((long) from + size, ids.length);
+                List<Client> clients = findAllByIds(clientProjection(includeSensitive), Arrays.copyOfRange(ids, from, to));
+                Map<Long, Double> scores = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                        scores.put(ids[i], match.scores()[i]);
+                }
+                List<ClientMatch> matches = clients.stream()
+                                .map(client -> new ClientMatch(client, scores.get(client.clientID())))
+                                .toList();
+                return Optional.of(new PaginatedResponse<>(matches, page, size, ids.length,
+                                (int) Math.ceil((double) ids.length / size)));
+        }
+
+        public PaginatedResponse<Client> searchByNameCursor(String query, String cursor, int size, String sortBy,
+                        boolean includeTotal, boolean includeSensitive) {
+                return searchByNameCursor(clientProjection(includeSensitive), query, cursor, size, sortBy, includeTotal);
+        }
+
+        public PaginatedResponse<ClientSummary> searchSummariesByNameCursor(String query, String cursor, int size,
+                        String sortBy, boolean includeTotal) {
+                return searchByNameCursor(summary, query, cursor, size, sortBy, includeTotal);
+        }
+
+        private <T extends ClientSortKey> PaginatedResponse<T> searchByNameCursor(Projection<T> projection,
+                        String query, String cursor, int size, String sortBy, boolean includeTotal) {
+                if (!SEEK_COLUMNS.containsKey(sortBy) || sortBy.equals("clientID")) {
+                        long[] matches = nameIndex.search(query);
+                        if (matches != null) {
+                                long[] byId = matches.clone();
+                                Arrays.sort(byId);
+                                return seekIds(projection, byId, cursor, size);
+                        }
+                }
+                return seekPage(projection, NAME_FILTER, Map.of("query", likePattern(query)), cursor, size, sortBy,
+                                includeTotal ? countSearchClients(query) : -1);
+        }
+
+        // Keyset page over (sort column, ClientID). Fetches one extra row to learn
+        // whether another page follows, so no COUNT is needed to navigate.
+        private <T extends ClientSortKey> PaginatedResponse<T> seekPage(Projection<T> projection, String filter,
+                        Map<String, ?> params, String token, int size, String sortBy, long totalElements) {
+                String sortKey = SEEK_COLUMNS.containsKey(sortBy) ? sortBy : "clientID";
+                String column = SEEK_COLUMNS.get(sortKey);
+                boolean byId = column.equals("ClientID");
+                SeekCursor cursor = SeekCursor.decode(token, sortKey);
+                boolean backward = cursor != null && cursor.backward();
+                String cmp = backward ? "<" : ">";
+                String dir = backward ? "DESC" : "ASC";
+
+                String sql = "SELECT " + projection.columns() + " FROM Clients WHERE " + filter;
+                if (cursor != null) {
+                        sql += byId
+                                        ? " AND ClientID " + cmp + " :seekId"
+                                        : " AND (" + column + " " + cmp + " :seekKey OR (" + column
+                                                        + " = :seekKey AND ClientID " + cmp + " :seekId))";
+                }
+                sql += byId ? " ORDER BY ClientID " + dir : " ORDER BY " + column + " " + dir + ", ClientID " + dir;
+                sql += " LIMIT :limit";
+
+                var statement = jdbcClient.sql(sql)
+                                .params(params)
+                                .param("limit", size + 1);
+                if (cursor != null) {
+                        statement.param("seekId", cursor.id());
+                        if (!byId) {
+                                statement.param("seekKey", column.equals("OnboardingDate")
+                                                ? java.sql.Date.valueOf(cursor.key())
+                                                : cursor.key());
+                        }
+                }
+
+                List<T> clients = new ArrayList<>(statement.query(projection.mapper()).list());
+                boolean more = clients.size() > size;
+                if (more) {
+                        clients.remove(clients.size() - 1);
+                }
+                if (backward) {
+                        Collections.reverse(clients);
+                }
+                projection.complete().accept(clients);
+
+                String next = null;
+                String prev = null;
+                if (!clients.isEmpty()) {
+                        // Walking back there is always a next page (the one we came from);
+                        // walking forward there is a previous page once we've left the first one.
+                        if (backward || more) {
+                                next = seekCursorAt(sortKey, clients.get(clients.size() - 1), false).encode();
+                        }
+                        if (backward ? more : cursor != null) {
+                                prev = seekCursorAt(sortKey, clients.get(0), true).encode();
+                        }
+                }
+                return PaginatedResponse.ofCursor(clients, size, totalElements, next, prev);
+        }
+
+        // Keyset page over an in-memory, ascending list of matching ClientIDs. The full
+        // match count is known, so the total is always filled in.
+        private <T extends ClientSortKey> PaginatedResponse<T> seekIds(Projection<T> projection, long[] ids,
+                        String token, int size) {
+                SeekCursor cursor = SeekCursor.decode(token, "clientID");
+                int from;
+                int to;
+                if (cursor == null) {
+                        from = 0;
+                        to = Math.min(size, ids.length);
+                } else if (cursor.backward()) {
+                        to = lowerBound(ids, cursor.id());
+                        from = Math.max(0, to - size);
+                } else {
+                        from = lowerBound(ids, cursor.id() + 1);
+                        to = Math.min(from + size, ids.length);
+                }
+                List<T> clients = findAllByIds(projection, Arrays.copyOfRange(ids, from, to));
+                String next = to < ids.length && to > from
+                                ? new SeekCursor("clientID", null, ids[to - 1], false).encode()
+                                : null;
+                String prev = from > 0 && to > from
+                                ? new SeekCursor("clientID", null, ids[from], true).encode()
+                                : null;
+                return PaginatedResponse.ofCursor(clients, size, ids.length, next, prev);
+        }
+
+        private static int lowerBound(long[] sorted, long id) {
+                int pos = Arrays.binarySearch(sorted, id);
+                return pos >= 0 ? pos : -pos - 1;
+        }
+
+        private Projection<Client> clientProjection(boolean includeSensitive) {
+                return includeSensitive ? full : masked;
+        }
+
+        // Loads the given ids in the projection, returned in the order given.
+        private <T extends ClientSortKey> List<T> findAllByIds(Projection<T> projection, long[] ids) {
+                Map<Long, T> byId = new HashMap<>();
+                for (int from = 0; from < ids.length; from += InListFetcher.MAX_IN_LIST) {
+                        int end = Math.min(from + InListFetcher.MAX_IN_LIST, ids.length);
+                        List<Long> chunk = Arrays.stream(ids, from, end)
+                                        .boxed()
+                                        .toList();
+                        jdbcClient.sql("SELECT " + projection.columns() + " FROM Clients WHERE ClientID IN (:ids)")
+                                        .param("ids", chunk)
+                                        .query(projection.mapper())
+                                        .list()
+                                        .forEach(client -> byId.put(client.clientID(), client));
+                }
+                List<T> clients = new ArrayList<>(ids.length);
+                for (long id : ids) {
+                        T client = byId.get(id);
+                        if (client != null) {
+                                clients.add(client);
+                        }
+                }
+                projection.complete().accept(clients);
+                return clients;
+        }
+
+        private SeekCursor seekCursorAt(String sortKey, ClientSortKey client, boolean backward) {
+                String key = switch (sortKey) {
+                        case "firstName" -> client.firstName();
+                        case "onboardingDate" -> client.onboardingDate().toString();
+                        default -> null;
+                };
+                return new SeekCursor(sortKey, key, client.clientID(), backward);
+        }
 }
@@ -0,0 +1,86 @@
+package com.venus.kyc.viewer;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+// Row mappers for the Clients and RelatedParties column lists, shared by the
+// repository, the aggregate loader and the exporter. Child collections start empty,
+// or null for clients read without sensitive data, whose children are never loaded.
+final class ClientRowMappers {
+
+    private ClientRowMappers() {
+    }
+
+    static Client client(ResultSet rs, int rowNum) throws SQLException {
+        return mapClient(rs, true);
+    }
+
+    static Client clientWithoutChildren(ResultSet rs, int rowNum) throws SQLException {
+        return mapClient(rs, false);
+    }
+
+    private static Client mapClient(ResultSet rs, boolean withChildren) throws SQLException {
+        return new Client(
+                rs.getLong("ClientID"),
+                rs.getString("TitlePrefix"),
+                rs.getString("FirstName"),
+                rs.getString("MiddleName"),
+                rs.getString("LastName"),
+                rs.getString("TitleSuffix"),
+                rs.getString("Citizenship1"),
+                rs.getString("Citizenship2"),
+                localDate(rs, "OnboardingDate"),
+                rs.getString("Status"),
+                rs.getString("NameAtBirth"),
+                rs.getString("NickName"),
+                rs.getString("Gender"),
+                localDate(rs, "DateOfBirth"),
+                rs.getString("Language"),
+                rs.getString("Occupation"),
+                rs.getString("CountryOfTax"),
+                rs.getString("SourceOfFundsCountry"),
+                rs.getString("FATCAStatus"),
+                rs.getString("CRSStatus"),
+                withChildren ? new ArrayList<>() : null,
+                withChildren ? new ArrayList<>() : null,
+                withChildren ? new ArrayList<>() : null,
+                withChildren ? new ArrayList<>() : null,
+                withChildren ? new ArrayList<>() : null);
+    }
+
+    static RelatedParty relatedParty(ResultSet rs, int rowNum) throws SQLException {
+        return new RelatedParty(
+                rs.getLong("RelatedPartyID"),
+                rs.getLong("ClientID"),
+                rs.getString("RelationType"),
+                rs.getString("TitlePrefix"),
+                rs.getString("FirstName"),
+                rs.getString("MiddleName"),
+                rs.getString("LastName"),
+                rs.getString("TitleSuffix"),
+                rs.getString("Citizenship1"),
+                rs.getString("Citizenship2"),
+                localDate(rs, "OnboardingDate"),
+                rs.getString("Status"),
+                rs.getString("NameAtBirth"),
+                rs.getString("NickName"),
+                rs.getString("Gender"),
+                localDate(rs, "DateOfBirth"),
+                rs.getString("Language"),
+                rs.getString("Occupation"),
+                rs.getString("CountryOfTax"),
+                rs.getString("SourceOfFundsCountry"),
+                rs.getString("FATCAStatus"),
+                rs.getString("CRSStatus"),
+                new ArrayList<>(),
+                new ArrayList<>());
+    }
+
+    static LocalDate localDate(ResultSet rs, String column) throws SQLException {
+        Date date = rs.getDate(column);
+        return date != null ? date.toLocalDate() : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.venus.kyc.viewer;
+
+import java.time.LocalDate;
+
+// Columns cursor pagination can order by, shared by full clients and summaries.
+interface ClientSortKey {
+
+    Long clientID();
+
+    String firstName();
+
+    LocalDate onboardingDate();
+}
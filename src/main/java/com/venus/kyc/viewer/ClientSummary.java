@@ -0,0 +1,15 @@
+package com.venus.kyc.viewer;
+
+import java.time.LocalDate;
+
+// Flat directory row: top-level columns only, no child collections.
+public record ClientSummary(
+                Long clientID,
+                String titlePrefix,
+                String firstName,
+                String middleName,
+                String lastName,
+                String titleSuffix,
+                LocalDate onboardingDate,
+                String status) implements ClientSortKey {
+}
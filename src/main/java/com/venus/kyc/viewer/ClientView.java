@@ -0,0 +1,24 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+// A client read response (Client, RelatedParty, ClientSummary, ClientMatch or a page
+// of them) together with whether the caller may see sensitive data. Written by
+// ClientViewHttpMessageConverter, which leaves the masked child collections out as
+// it streams instead of the records being copied first.
+public record ClientView<T>(T body, boolean includeSensitive) {
+
+    public static final String VIEW_SENSITIVE_DATA = "VIEW_SENSITIVE_DATA";
+
+    public static <T> ClientView<T> of(T body, Authentication authentication) {
+        return new ClientView<>(body, canViewSensitiveData(authentication));
+    }
+
+    // Admins always could; the permission lets other roles be granted the same
+    public static boolean canViewSensitiveData(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(a -> a.equals(VIEW_SENSITIVE_DATA) || a.equals("ROLE_ADMIN"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+// Writes ClientView responses with ClientJsonWriter. Picked up as a bean, so it is
+// consulted before the default Jackson converter; the output matches what Jackson
+// would produce for the same records.
+@Component
+public class ClientViewHttpMessageConverter extends AbstractHttpMessageConverter<ClientView<?>> {
+
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public ClientViewHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ClientView.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ClientView<?> readInternal(Class<? extends ClientView<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ClientView is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ClientView<?> view, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            write(json, view.body(), view.includeSensitive());
+        }
+    }
+
+    static void write(JsonGenerator json, Object value, boolean includeSensitive) throws IOException {
+        if (value instanceof Client client) {
+            ClientJsonWriter.write(json, client, includeSensitive);
+        } else if (value instanceof RelatedParty party) {
+            ClientJsonWriter.writeRelatedParty(json, party, includeSensitive);
+        } else if (value instanceof ClientSummary summary) {
+            writeSummary(json, summary);
+        } else if (value instanceof ClientMatch match) {
+            json.writeStartObject();
+            json.writeFieldName("client");
+            ClientJsonWriter.write(json, match.client(), includeSensitive);
+            json.writeNumberField("score", match.score());
+            json.writeEndObject();
+        } else if (value instanceof PaginatedResponse<?> page) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("content");
+            for (Object element : page.content()) {
+                write(json, element, includeSensitive);
+            }
+            json.writeEndArray();
+            json.writeNumberField("currentPage", page.currentPage());
+            json.writeNumberField("pageSize", page.pageSize());
+            json.writeNumberField("totalElements", page.totalElements());
+            json.writeNumberField("totalPages", page.totalPages());
+            json.writeStringField("nextCursor", page.nextCursor());
+            json.writeStringField("prevCursor", page.prevCursor());
+            json.writeEndObject();
+        } else {
+            throw new HttpMessageNotWritableException("Unsupported ClientView body: " + value.getClass().getName());
+        }
+    }
+
+    private static void writeSummary(JsonGenerator json, ClientSummary summary) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("clientID", summary.clientID());
+        json.writeStringField("titlePrefix", summary.titlePrefix());
+        json.writeStringField("firstName", summary.firstName());
+        json.writeStringField("middleName", summary.middleName());
+        json.writeStringField("lastName", summary.lastName());
+        json.writeStringField("titleSuffix", summary.titleSuffix());
+        if (summary.onboardingDate() == null) {
+            json.writeNullField("onboardingDate");
+        } else {
+            json.writeStringField("onboardingDate", summary.onboardingDate().toString());
+        }
+        json.writeStringField("status", summary.status());
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,37 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+// Strong ETags over EntityVersions. The version is read before the body is built,
+// so a write racing the read can only leave the ETag older than the body (one
+// extra full response later), never newer (a stale 304).
+final class ConditionalGet {
+
+    // Let the browser keep the response but revalidate it on every use; without an
+    // explicit header Spring Security sends no-store and nothing is ever revalidated.
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    static String etag(String aggregate, Long id, long version) {
+        return "\"" + aggregate + "-" + id + "-v" + version + "\"";
+    }
+
+    // 304 when If-None-Match matches etag; otherwise the body, or 404 if it's gone
+    static <T> ResponseEntity<T> respond(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+        }
+        T value = body.get();
+        if (value == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CACHE_CONTROL).body(value);
+    }
+}
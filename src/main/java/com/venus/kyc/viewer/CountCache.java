@@ -0,0 +1,45 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// Short-lived cache for COUNT(*) results so paging through a large table doesn't
+// repeat the count on every request. Counts are approximate for up to the TTL unless
+// the owning repository invalidates them on write.
+@Component
+public class CountCache {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private record Entry(long value, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public CountCache(@Value("${kyc.count-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public long get(String key, LongSupplier loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.value();
+        }
+        long value = loader.getAsLong();
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        entries.put(key, new Entry(value, now + ttlMillis));
+        return value;
+    }
+
+    public void invalidatePrefix(String prefix) {
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+}
@@ -0,0 +1,56 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+// Version counters of the client and case aggregates, stored in Clients.Version and
+// Cases.Version and bumped by every write to the aggregate or its children. Reads
+// use them as ETags: a primary-key lookup is enough to answer If-None-Match.
+@Repository
+public class EntityVersions {
+
+    private final JdbcClient jdbcClient;
+
+    public EntityVersions(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    // Empty when the client doesn't exist
+    public Optional<Long> clientVersion(Long clientId) {
+        return jdbcClient.sql("SELECT Version FROM Clients WHERE ClientID = :id")
+                .param("id", clientId)
+                .query(Long.class)
+                .optional();
+    }
+
+    public Optional<Long> caseVersion(Long caseId) {
+        return jdbcClient.sql("SELECT Version FROM Cases WHERE CaseID = :id")
+                .param("id", caseId)
+                .query(Long.class)
+                .optional();
+    }
+
+    public void bumpClient(Long clientId) {
+        jdbcClient.sql("UPDATE Clients SET Version = Version + 1 WHERE ClientID = :id")
+                .param("id", clientId)
+                .update();
+    }
+
+    public void bumpCase(Long caseId) {
+        jdbcClient.sql("UPDATE Cases SET Version = Version + 1 WHERE CaseID = :id")
+                .param("id", caseId)
+                .update();
+    }
+
+    public void bumpCases(Collection<Long> caseIds) {
+        if (caseIds.isEmpty()) {
+            return;
+        }
+        jdbcClient.sql("UPDATE Cases SET Version = Version + 1 WHERE CaseID IN (:ids)")
+                .param("ids", caseIds)
+                .update();
+    }
+}
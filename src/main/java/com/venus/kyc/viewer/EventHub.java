@@ -0,0 +1,262 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pushes case events and task changes to browsers over server-sent events, one
+// stream per browser instead of pages polling.
+//
+// A subscriber gets the case events of the cases it watches, and task changes that
+// name its user or role (admins get every task change). Case events carry their
+// CaseEvents.EventID as the SSE id, so a browser that reconnects with
+// Last-Event-ID is sent what it missed from the table; task changes carry no id
+// and aren't replayed, but every connection starts with a "ready" event, on which
+// pages reload their task lists. Delivery is at least once.
+//
+// Each subscriber has a bounded buffer drained by its own sender. A subscriber
+// that falls behind by a whole buffer is disconnected rather than slowing anyone
+// else down; it reconnects and catches up from the table. Events are published
+// once the transaction that produced them commits. Like the other in-memory
+// components this is per node.
+@Component
+public class EventHub implements CaseEventListener {
+
+    public static final String CASE_EVENT = "case-event";
+    public static final String TASK_CHANGED = "task";
+
+    public record TaskChange(String taskId, Long caseId, String change) {
+    }
+
+    public record Stats(int subscribers, long published, long delivered, long replayed, long resyncs,
+            long overflows, long failedSends) {
+    }
+
+    private record Event(Long id, String name, Long caseId, Set<String> users, Set<String> groups, Object data) {
+    }
+
+    // Queued like an event so it is written by the subscriber's sender
+    private static final Event HEARTBEAT = new Event(null, null, null, Set.of(), Set.of(), null);
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final String user;
+        final String role;
+        final Set<Long> caseIds;
+        final BlockingQueue<Event> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final Set<Long> replayed = new HashSet<>();
+        volatile boolean ready;
+
+        Subscriber(SseEmitter emitter, String user, String role, Set<Long> caseIds) {
+            this.emitter = emitter;
+            this.user = user;
+            this.role = role;
+            this.caseIds = caseIds;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        boolean wants(Event event) {
+            return event == HEARTBEAT
+                    || (event.caseId() != null && caseIds.contains(event.caseId()))
+                    || event.users().contains(user)
+                    || (role != null && (event.groups().contains(role)
+                            || ("ADMIN".equals(role) && TASK_CHANGED.equals(event.name()))));
+        }
+    }
+
+    private final CaseEventRepository caseEventRepository;
+    private final int bufferSize;
+    private final int replayLimit;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+
+    public EventHub(CaseEventRepository caseEventRepository,
+            @Value("${kyc.events.subscriber-buffer:256}") int bufferSize,
+            @Value("${kyc.events.replay-limit:500}") int replayLimit,
+            @Value("${kyc.events.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${kyc.events.sender-threads:16}") int senderThreads) {
+        this.caseEventRepository = caseEventRepository;
+        this.bufferSize = bufferSize;
+        this.replayLimit = replayLimit;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = VirtualThreads.executor("event-hub", senderThreads);
+    }
+
+    // Registers first so nothing published during the replay is missed; live events
+    // queue up and are sent after it, skipping any the replay already covered
+    public SseEmitter subscribe(String user, String role, Set<Long> caseIds, Long lastEventId) throws IOException {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, user, role, Set.copyOf(caseIds));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        try {
+            long head = caseEventRepository.latestEventId();
+            if (lastEventId != null && lastEventId < head && !caseIds.isEmpty()) {
+                List<CaseEvent> missed = caseEventRepository.findEventsAfter(lastEventId, head, caseIds, replayLimit + 1);
+                if (missed.size() > replayLimit) {
+                    // Too far behind to replay; the page reloads everything instead
+                    resyncs.incrementAndGet();
+                    emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                } else {
+                    for (CaseEvent event : missed) {
+                        emitter.send(SseEmitter.event().id(String.valueOf(event.eventID())).name(CASE_EVENT)
+                                .data(event, MediaType.APPLICATION_JSON));
+                        subscriber.replayed.add(event.eventID());
+                    }
+                    replayed.addAndGet(missed.size());
+                }
+            }
+            emitter.send(SseEmitter.event().id(String.valueOf(head)).name("ready").data("{}", MediaType.APPLICATION_JSON));
+        } catch (IOException | RuntimeException e) {
+            subscribers.remove(subscriber);
+            throw e;
+        }
+        subscriber.ready = true;
+        schedule(subscriber);
+        return emitter;
+    }
+
+    // CaseEventBus calls this once the event is committed
+    @Override
+    public void caseEventLogged(CaseEvent event) {
+        dispatch(new Event(event.eventID(), CASE_EVENT, event.caseID(), Set.of(), Set.of(), event));
+    }
+
+    // users and groups are who should hear about it; the case's watchers always do
+    public void taskChanged(String taskId, Long caseId, String change, Collection<String> users,
+            Collection<String> groups) {
+        publish(new Event(null, TASK_CHANGED, caseId, nonNull(users), nonNull(groups),
+                new TaskChange(taskId, caseId, change)));
+    }
+
+    @Scheduled(fixedDelayString = "${kyc.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        dispatch(HEARTBEAT);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    public Stats stats() {
+        return new Stats(subscribers.size(), published.get(), delivered.get(), replayed.get(), resyncs.get(),
+                overflows.get(), failedSends.get());
+    }
+
+    private void publish(Event event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(Event event) {
+        if (event != HEARTBEAT) {
+            published.incrementAndGet();
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.wants(event)) {
+                continue;
+            }
+            if (subscriber.queue.offer(event)) {
+                schedule(subscriber);
+            } else {
+                overflows.incrementAndGet();
+                subscribers.remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.ready && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            do {
+                for (Event event = subscriber.queue.poll(); event != null; event = subscriber.queue.poll()) {
+                    send(subscriber, event);
+                }
+                subscriber.draining.set(false);
+                // Something offered after the last poll but before the flag cleared
+            } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            // The browser went away; its emitter callbacks may not have run yet
+            failedSends.incrementAndGet();
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void send(Subscriber subscriber, Event event) throws IOException {
+        if (event == HEARTBEAT) {
+            subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+            return;
+        }
+        if (event.id() != null && subscriber.replayed.contains(event.id())) {
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name())
+                .data(event.data(), MediaType.APPLICATION_JSON);
+        if (event.id() != null) {
+            builder.id(String.valueOf(event.id()));
+        }
+        subscriber.emitter.send(builder);
+        delivered.incrementAndGet();
+    }
+
+    private static Set<String> nonNull(Collection<String> values) {
+        List<String> present = new ArrayList<>();
+        for (String value : values) {
+            if (value != null) {
+                present.add(value);
+            }
+        }
+        return Set.copyOf(present);
+    }
+}
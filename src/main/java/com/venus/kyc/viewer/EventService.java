@@ -1,21 +1,28 @@
 package com.venus.kyc.viewer;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
 public class EventService {
     private final CaseEventRepository eventRepository;
+    private final CaseEventBus caseEventBus;
 
-    public EventService(CaseEventRepository eventRepository) {
+    public EventService(CaseEventRepository eventRepository, CaseEventBus caseEventBus) {
         this.eventRepository = eventRepository;
+        this.caseEventBus = caseEventBus;
     }
 
-    @Transactional
+    // Written in the background with the configured durability (ASYNC by default)
     public void logEvent(Long caseId, String eventType, String description, String source) {
-        eventRepository.addEvent(caseId, eventType, description, source);
+        caseEventBus.publish(caseId, eventType, description, source);
+    }
+
+    // SYNC for an event that must commit or roll back with the caller's transaction
+    public void logEvent(Long caseId, String eventType, String description, String source,
+            CaseEventBus.Durability durability) {
+        caseEventBus.publish(caseId, eventType, description, source, durability);
     }
 
     public List<CaseEvent> getEventsForCase(Long caseId) {
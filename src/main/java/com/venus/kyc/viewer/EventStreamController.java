@@ -0,0 +1,77 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/events")
+public class EventStreamController {
+
+    private static final int MAX_WATCHED_CASES = 100;
+
+    private final EventHub eventHub;
+    private final CaseEventBus caseEventBus;
+    private final UserRepository userRepository;
+
+    public EventStreamController(EventHub eventHub, CaseEventBus caseEventBus, UserRepository userRepository) {
+        this.eventHub = eventHub;
+        this.caseEventBus = caseEventBus;
+        this.userRepository = userRepository;
+    }
+
+    // One stream per browser: task changes for the caller plus the case events of the
+    // watched cases. Browsers resend Last-Event-ID when they reconnect on their own;
+    // lastEventId is for a page that reopens the stream to watch other cases.
+    // Watching cases, and so replaying their events, takes the same MANAGE_CASES
+    // authority as reading them through /api/cases.
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam(required = false) List<Long> caseId,
+            @RequestParam(required = false) String lastEventId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            Authentication authentication) throws IOException {
+        Set<Long> caseIds = caseId == null ? Set.of() : Set.copyOf(caseId);
+        if (caseIds.size() > MAX_WATCHED_CASES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_WATCHED_CASES + " cases can be watched");
+        }
+        if (!caseIds.isEmpty() && authentication.getAuthorities().stream()
+                .noneMatch(a -> a.getAuthority().equals("MANAGE_CASES"))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not allowed to watch cases");
+        }
+        String role = userRepository.findByUsername(authentication.getName()).map(User::role).orElse(null);
+        return eventHub.subscribe(authentication.getName(), role, caseIds,
+                eventId(lastEventIdHeader != null ? lastEventIdHeader : lastEventId));
+    }
+
+    @GetMapping("/stats")
+    public EventHub.Stats stats() {
+        return eventHub.stats();
+    }
+
+    @GetMapping("/bus/stats")
+    public CaseEventBus.Stats busStats() {
+        return caseEventBus.stats();
+    }
+
+    // Anything but a plain number starts the stream without a replay
+    private static Long eventId(String value) {
+        try {
+            return value == null || value.isBlank() ? null : Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.venus.kyc.viewer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free histogram of non-negative longs. Values below 16 get a bucket each;
+// above that every power of two is split into 16 buckets, so a percentile is
+// reported as the upper bound of its bucket and is at most 1/16 too high.
+public final class Histogram {
+
+    public record Snapshot(long count, double mean, long p50, long p90, long p99, long max) {
+    }
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(bucket(recorded));
+        count.incrementAndGet();
+        sum.addAndGet(recorded);
+        max.accumulateAndGet(recorded, Math::max);
+    }
+
+    // Not atomic across buckets; good enough for a stats endpoint
+    Snapshot snapshot() {
+        long total = count.get();
+        long largest = max.get();
+        if (total == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0);
+        }
+        return new Snapshot(total, (double) sum.get() / total, percentile(0.50, largest),
+                percentile(0.90, largest), percentile(0.99, largest), largest);
+    }
+
+    private long percentile(double fraction, long largest) {
+        long rank = (long) Math.ceil(fraction * count.get());
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), largest);
+            }
+        }
+        return largest;
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,50 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs "... WHERE key IN (:ids)" queries for the aggregate loaders and counts the
+// statements issued, so the loaders' query-count guarantees can be tested.
+@Component
+public class InListFetcher {
+
+    // SQL Server rejects statements with more than 2100 parameters, so IN lists are
+    // split into chunks of this size.
+    static final int MAX_IN_LIST = 1000;
+
+    private final JdbcClient jdbcClient;
+    private final AtomicLong statementCount = new AtomicLong();
+
+    public InListFetcher(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    // Number of SQL statements issued since startup.
+    public long statementCount() {
+        return statementCount.get();
+    }
+
+    // Rows of sql (which must bind :ids) grouped by keyColumn, one statement per
+    // MAX_IN_LIST ids. Row order within a group follows the query's ORDER BY.
+    <T> Map<Long, List<T>> fetchGrouped(String sql, List<Long> ids, String keyColumn, RowMapper<T> mapper) {
+        Map<Long, List<T>> grouped = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+            statementCount.incrementAndGet();
+            jdbcClient.sql(sql)
+                    .param("ids", chunk)
+                    .query((RowCallbackHandler) rs -> grouped
+                            .computeIfAbsent(rs.getLong(keyColumn), k -> new ArrayList<>())
+                            .add(mapper.mapRow(rs, rs.getRow())));
+        }
+        return grouped;
+    }
+}
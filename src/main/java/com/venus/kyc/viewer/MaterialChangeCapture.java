@@ -0,0 +1,519 @@
+package com.venus.kyc.viewer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+// Records client writes in MaterialChanges. Callers hand over the before and after
+// state of what they wrote; the diff becomes one row per changed column (every
+// non-null column for INSERT and DELETE), keyed by entity name and id. Each batch
+// also updates MaterialChangeRollups.
+//
+// ASYNC (the default) queues the rows once the surrounding transaction commits and
+// a scheduled flusher writes them in JDBC batches, so a client write costs a diff
+// and a queue offer. The queue is bounded: when it is full the writing thread
+// flushes a batch itself instead of dropping rows. Queueing runs between the
+// context's lifecycle start and stop, in a phase that stops after the web server
+// and the scheduler, and stopping writes whatever is still queued; until it starts
+// and once it has stopped, writers flush their rows themselves.
+// COMMIT writes the rows batched inside the caller's transaction just before it
+// commits, for when the audit trail must never lag the data; the rollups follow
+// just after the commit.
+@Component
+public class MaterialChangeCapture implements SmartLifecycle, DisposableBean {
+
+    public enum Durability {
+        ASYNC, COMMIT
+    }
+
+    public record Stats(String durability, int queueDepth, int queueCapacity, long captured, long written,
+            long flushes, long callerFlushes, long failedRows, String lastError, double lastFlushMillis,
+            double maxFlushMillis, double avgFlushMillis, double maxLagMillis) {
+    }
+
+    record Change(LocalDateTime changeDate, long clientId, Long entityId, String entityName, String columnName,
+            String operationType, String oldValue, String newValue, long capturedAtNanos) {
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialChangeCapture.class);
+
+    private static final String INSERT = "INSERT INTO MaterialChanges (ChangeDate, ClientID, EntityID, EntityName, ColumnName, OperationType, OldValue, NewValue) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final List<Column<Client>> CLIENT_COLUMNS = List.of(
+            new Column<>("TitlePrefix", Client::titlePrefix),
+            new Column<>("FirstName", Client::firstName),
+            new Column<>("MiddleName", Client::middleName),
+            new Column<>("LastName", Client::lastName),
+            new Column<>("TitleSuffix", Client::titleSuffix),
+            new Column<>("Citizenship1", Client::citizenship1),
+            new Column<>("Citizenship2", Client::citizenship2),
+            new Column<>("OnboardingDate", Client::onboardingDate),
+            new Column<>("Status", Client::status),
+            new Column<>("NameAtBirth", Client::nameAtBirth),
+            new Column<>("NickName", Client::nickName),
+            new Column<>("Gender", Client::gender),
+            new Column<>("DateOfBirth", Client::dateOfBirth),
+            new Column<>("Language", Client::language),
+            new Column<>("Occupation", Client::occupation),
+            new Column<>("CountryOfTax", Client::countryOfTax),
+            new Column<>("SourceOfFundsCountry", Client::sourceOfFundsCountry),
+            new Column<>("FATCAStatus", Client::fatcaStatus),
+            new Column<>("CRSStatus", Client::crsStatus));
+
+    private static final List<Column<RelatedParty>> RELATED_PARTY_COLUMNS = List.of(
+            new Column<>("RelationType", RelatedParty::relationType),
+            new Column<>("TitlePrefix", RelatedParty::titlePrefix),
+            new Column<>("FirstName", RelatedParty::firstName),
+            new Column<>("MiddleName", RelatedParty::middleName),
+            new Column<>("LastName", RelatedParty::lastName),
+            new Column<>("TitleSuffix", RelatedParty::titleSuffix),
+            new Column<>("Citizenship1", RelatedParty::citizenship1),
+            new Column<>("Citizenship2", RelatedParty::citizenship2),
+            new Column<>("OnboardingDate", RelatedParty::onboardingDate),
+            new Column<>("Status", RelatedParty::status),
+            new Column<>("NameAtBirth", RelatedParty::nameAtBirth),
+            new Column<>("NickName", RelatedParty::nickName),
+            new Column<>("Gender", RelatedParty::gender),
+            new Column<>("DateOfBirth", RelatedParty::dateOfBirth),
+            new Column<>("Language", RelatedParty::language),
+            new Column<>("Occupation", RelatedParty::occupation),
+            new Column<>("CountryOfTax", RelatedParty::countryOfTax),
+            new Column<>("SourceOfFundsCountry", RelatedParty::sourceOfFundsCountry),
+            new Column<>("FATCAStatus", RelatedParty::fatcaStatus),
+            new Column<>("CRSStatus", RelatedParty::crsStatus));
+
+    private static final List<Column<Address>> ADDRESS_COLUMNS = List.of(
+            new Column<>("AddressType", Address::addressType),
+            new Column<>("AddressLine1", Address::addressLine1),
+            new Column<>("AddressLine2", Address::addressLine2),
+            new Column<>("City", Address::city),
+            new Column<>("Zip", Address::zip),
+            new Column<>("Country", Address::country),
+            new Column<>("AddressNumber", Address::addressNumber),
+            new Column<>("AddressSupplement", Address::addressSupplement));
+
+    private static final List<Column<Identifier>> IDENTIFIER_COLUMNS = List.of(
+            new Column<>("IdentifierType", Identifier::identifierType),
+            new Column<>("IdentifierValue", Identifier::identifierValue),
+            new Column<>("IssuingAuthority", Identifier::issuingAuthority),
+            new Column<>("IdentifierNumber", Identifier::identifierNumber));
+
+    private static final List<Column<Account>> ACCOUNT_COLUMNS = List.of(
+            new Column<>("AccountNumber", Account::accountNumber),
+            new Column<>("AccountStatus", Account::accountStatus));
+
+    private static final List<Column<Portfolio>> PORTFOLIO_COLUMNS = List.of(
+            new Column<>("AccountNumber", Portfolio::accountNumber),
+            new Column<>("PortfolioText", Portfolio::portfolioText),
+            new Column<>("OnboardingDate", Portfolio::onboardingDate),
+            new Column<>("OffboardingDate", Portfolio::offboardingDate),
+            new Column<>("Status", Portfolio::status));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final MaterialChangeRollups rollups;
+    private final Durability durability;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final BlockingQueue<Change> queue;
+    private volatile boolean running;
+
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong callerFlushes = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private volatile String lastError;
+
+    public MaterialChangeCapture(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            MaterialChangeRollups rollups,
+            @Value("${kyc.material-changes.durability:ASYNC}") Durability durability,
+            @Value("${kyc.material-changes.queue-capacity:10000}") int queueCapacity,
+            @Value("${kyc.material-changes.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Batches are also written after a caller's commit, which must not join the finished transaction
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rollups = rollups;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    // 'before' is null for a new client, 'after' null for a removed one
+    public void capture(Client before, Client after) {
+        Client client = after != null ? after : before;
+        List<Change> changes = new ArrayList<>();
+        long clientId = client.clientID();
+        diff(changes, clientId, "Client", clientId, before, after, CLIENT_COLUMNS);
+        diffChildren(changes, clientId, "Address", Address::addressID,
+                before == null ? null : before.addresses(), after == null ? null : after.addresses(), ADDRESS_COLUMNS);
+        diffChildren(changes, clientId, "Identifier", Identifier::identifierID,
+                before == null ? null : before.identifiers(), after == null ? null : after.identifiers(),
+                IDENTIFIER_COLUMNS);
+        diffChildren(changes, clientId, "Account", Account::accountID,
+                before == null ? null : before.accounts(), after == null ? null : after.accounts(), ACCOUNT_COLUMNS);
+        diffChildren(changes, clientId, "Portfolio", Portfolio::portfolioID,
+                before == null ? null : before.portfolios(), after == null ? null : after.portfolios(),
+                PORTFOLIO_COLUMNS);
+
+        Map<Long, RelatedParty> beforeParties = byId(before == null ? null : before.relatedParties(),
+                RelatedParty::relatedPartyID);
+        Map<Long, RelatedParty> afterParties = byId(after == null ? null : after.relatedParties(),
+                RelatedParty::relatedPartyID);
+        for (Map.Entry<Long, RelatedParty> entry : afterParties.entrySet()) {
+            diffRelatedParty(changes, clientId, beforeParties.get(entry.getKey()), entry.getValue());
+        }
+        for (Map.Entry<Long, RelatedParty> entry : beforeParties.entrySet()) {
+            if (!afterParties.containsKey(entry.getKey())) {
+                diffRelatedParty(changes, clientId, entry.getValue(), null);
+            }
+        }
+        submit(changes);
+    }
+
+    // Clients written by the bulk import, every row an INSERT. The import doesn't read
+    // back its child rows' ids, so children are recorded as listed instead of matched
+    // by id. relatedPartyIds holds the parties' keys in client order.
+    public void captureImported(List<Client> clients, long[] clientIds, long[] relatedPartyIds) {
+        List<Change> changes = new ArrayList<>();
+        int party = 0;
+        for (int i = 0; i < clients.size(); i++) {
+            Client client = clients.get(i);
+            long clientId = clientIds[i];
+            diff(changes, clientId, "Client", clientId, null, client, CLIENT_COLUMNS);
+            inserted(changes, clientId, "Address", Address::addressID, client.addresses(), ADDRESS_COLUMNS);
+            inserted(changes, clientId, "Identifier", Identifier::identifierID, client.identifiers(),
+                    IDENTIFIER_COLUMNS);
+            inserted(changes, clientId, "Account", Account::accountID, client.accounts(), ACCOUNT_COLUMNS);
+            inserted(changes, clientId, "Portfolio", Portfolio::portfolioID, client.portfolios(), PORTFOLIO_COLUMNS);
+            if (client.relatedParties() == null) {
+                continue;
+            }
+            for (RelatedParty relatedParty : client.relatedParties()) {
+                diff(changes, clientId, "RelatedParty", relatedPartyIds[party++], null, relatedParty,
+                        RELATED_PARTY_COLUMNS);
+                inserted(changes, clientId, "RelatedPartyAddress", Address::addressID, relatedParty.addresses(),
+                        ADDRESS_COLUMNS);
+                inserted(changes, clientId, "RelatedPartyIdentifier", Identifier::identifierID,
+                        relatedParty.identifiers(), IDENTIFIER_COLUMNS);
+            }
+        }
+        submit(changes);
+    }
+
+    public void captureRelatedParty(long clientId, RelatedParty before, RelatedParty after) {
+        List<Change> changes = new ArrayList<>();
+        diffRelatedParty(changes, clientId, before, after);
+        submit(changes);
+    }
+
+    // Writes everything queued so far; also run on a fixed delay and at stop
+    @Scheduled(fixedDelayString = "${kyc.material-changes.flush-interval-ms:200}")
+    public void flush() {
+        while (flushBatch()) {
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // Writers that see the flag cleared flush their own rows, so the queue only
+    // has to be emptied once
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    // Also flushes when a context that failed to start is torn down
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Below the web server's and the scheduler's phases: stopped after both have
+    // finished, so nothing is queued behind the last flush
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    public Stats stats() {
+        long batches = flushes.get();
+        return new Stats(durability.name(), queue.size(), queueCapacity, captured.get(), written.get(), batches,
+                callerFlushes.get(), failedRows.get(), lastError, lastFlushNanos.get() / 1e6,
+                maxFlushNanos.get() / 1e6, batches == 0 ? 0 : flushNanos.get() / 1e6 / batches,
+                maxLagNanos.get() / 1e6);
+    }
+
+    private void submit(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        captured.addAndGet(changes.size());
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (durability == Durability.COMMIT) {
+            if (inTransaction) {
+                pendingForTransaction().addAll(changes);
+            } else {
+                write(changes, false);
+            }
+        } else if (inTransaction) {
+            // Nothing is queued for a write that rolls back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(changes);
+                }
+            });
+        } else {
+            enqueue(changes);
+        }
+    }
+
+    // One list per transaction, written in a single batch as it commits
+    @SuppressWarnings("unchecked")
+    private List<Change> pendingForTransaction() {
+        List<Change> pending = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Change> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(changes, true);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MaterialChangeCapture.this);
+                }
+            });
+            pending = changes;
+        }
+        return pending;
+    }
+
+    private void enqueue(List<Change> changes) {
+        if (!running) {
+            // Not started yet or shutting down; the flusher may not run again
+            write(changes, false);
+            return;
+        }
+        for (Change change : changes) {
+            while (!queue.offer(change)) {
+                // Backpressure: the writer pays for a batch rather than losing rows
+                callerFlushes.incrementAndGet();
+                flushBatch();
+            }
+        }
+    }
+
+    private boolean flushBatch() {
+        List<Change> batch = new ArrayList<>(Math.min(batchSize, queueCapacity));
+        queue.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        write(batch, false);
+        return true;
+    }
+
+    // From the queue the rows and their rollup increments commit together in a short
+    // transaction of their own. A batch that fails is retried a row at a time, so a
+    // bad row only loses itself, and each row lost that way is logged.
+    // Inside the caller's transaction only the rows are written there, and a failure
+    // propagates and rolls the client write back. Their rollup increments follow in
+    // their own transaction once the caller commits, so the hot rollup rows are never
+    // locked for the length of a client write.
+    private void write(List<Change> batch, boolean inTransaction) {
+        Map<MaterialChangeRollups.Key, Long> counts = MaterialChangeRollups.count(batch);
+        long start = System.nanoTime();
+        try {
+            if (inTransaction) {
+                insert(batch);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        updateRollups(counts, batch.size());
+                    }
+                });
+            } else {
+                Lock rollupUpdate = rollups.updateLock();
+                rollupUpdate.lock();
+                try {
+                    newTransaction.executeWithoutResult(status -> {
+                        insert(batch);
+                        rollups.persist(counts);
+                    });
+                    rollups.apply(counts);
+                } finally {
+                    rollupUpdate.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            if (inTransaction) {
+                failedRows.addAndGet(batch.size());
+                throw e;
+            }
+            if (batch.size() > 1) {
+                for (Change change : batch) {
+                    write(List.of(change), false);
+                }
+            } else {
+                failedRows.incrementAndGet();
+                Change change = batch.get(0);
+                log.error("Dropped material change for client {}: {}/{} {} {} '{}' -> '{}' at {}", change.clientId(),
+                        change.entityName(), change.entityId(), change.columnName(), change.operationType(),
+                        change.oldValue(), change.newValue(), change.changeDate(), e);
+            }
+            return;
+        }
+        long end = System.nanoTime();
+        long elapsed = end - start;
+        written.addAndGet(batch.size());
+        flushes.incrementAndGet();
+        flushNanos.addAndGet(elapsed);
+        lastFlushNanos.set(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        long oldest = batch.stream().mapToLong(Change::capturedAtNanos).min().orElse(end);
+        maxLagNanos.accumulateAndGet(end - oldest, Math::max);
+    }
+
+    private void insert(List<Change> batch) {
+        jdbcTemplate.batchUpdate(INSERT, batch, batchSize, (ps, change) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(change.changeDate()));
+            ps.setLong(2, change.clientId());
+            ps.setObject(3, change.entityId());
+            ps.setString(4, change.entityName());
+            ps.setString(5, change.columnName());
+            ps.setString(6, change.operationType());
+            ps.setString(7, change.oldValue());
+            ps.setString(8, change.newValue());
+        });
+    }
+
+    // Runs after the caller's commit, hence a new transaction. The change rows are already committed, so a failure here only
+    // leaves the rollups short; it is logged with the counts it lost.
+    private void updateRollups(Map<MaterialChangeRollups.Key, Long> counts, int rows) {
+        Lock rollupUpdate = rollups.updateLock();
+        rollupUpdate.lock();
+        try {
+            newTransaction.executeWithoutResult(status -> rollups.persist(counts));
+            rollups.apply(counts);
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Material change rollups not updated for {} committed rows: {}", rows, counts, e);
+        } finally {
+            rollupUpdate.unlock();
+        }
+    }
+
+    private static void diffRelatedParty(List<Change> changes, long clientId, RelatedParty before,
+            RelatedParty after) {
+        RelatedParty party = after != null ? after : before;
+        diff(changes, clientId, "RelatedParty", party.relatedPartyID(), before, after, RELATED_PARTY_COLUMNS);
+        diffChildren(changes, clientId, "RelatedPartyAddress", Address::addressID,
+                before == null ? null : before.addresses(), after == null ? null : after.addresses(), ADDRESS_COLUMNS);
+        diffChildren(changes, clientId, "RelatedPartyIdentifier", Identifier::identifierID,
+                before == null ? null : before.identifiers(), after == null ? null : after.identifiers(),
+                IDENTIFIER_COLUMNS);
+    }
+
+    // Children are matched by id; a null list (masked or not loaded) has no rows
+    private static <T> void diffChildren(List<Change> changes, long clientId, String entityName,
+            Function<T, Long> id, List<T> before, List<T> after, List<Column<T>> columns) {
+        Map<Long, T> beforeById = byId(before, id);
+        Map<Long, T> afterById = byId(after, id);
+        for (Map.Entry<Long, T> entry : afterById.entrySet()) {
+            diff(changes, clientId, entityName, entry.getKey(), beforeById.get(entry.getKey()), entry.getValue(),
+                    columns);
+        }
+        for (Map.Entry<Long, T> entry : beforeById.entrySet()) {
+            if (!afterById.containsKey(entry.getKey())) {
+                diff(changes, clientId, entityName, entry.getKey(), entry.getValue(), null, columns);
+            }
+        }
+    }
+
+    private static <T> void inserted(List<Change> changes, long clientId, String entityName, Function<T, Long> id,
+            List<T> rows, List<Column<T>> columns) {
+        if (rows != null) {
+            for (T row : rows) {
+                diff(changes, clientId, entityName, id.apply(row), null, row, columns);
+            }
+        }
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        Map<Long, T> byId = new LinkedHashMap<>();
+        if (entities != null) {
+            for (T entity : entities) {
+                byId.put(id.apply(entity), entity);
+            }
+        }
+        return byId;
+    }
+
+    private static <T> void diff(List<Change> changes, long clientId, String entityName, Long entityId, T before,
+            T after, List<Column<T>> columns) {
+        if (before == null && after == null) {
+            return;
+        }
+        String operation = before == null ? "INSERT" : after == null ? "DELETE" : "UPDATE";
+        LocalDateTime now = LocalDateTime.now();
+        long capturedAt = System.nanoTime();
+        for (Column<T> column : columns) {
+            String oldValue = before == null ? null : text(column.value().apply(before));
+            String newValue = after == null ? null : text(column.value().apply(after));
+            if (!Objects.equals(oldValue, newValue)) {
+                changes.add(new Change(now, clientId, entityId, entityName, column.name(), operation, oldValue,
+                        newValue, capturedAt));
+            }
+        }
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,237 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Material change extract over a date range, newest first. Rows are read through one
+// forward-only result set and written as they arrive, so a year of changes costs
+// the fetch size in memory rather than the whole range. Archived changes are all
+// older than the hot ones (only NULL dates sort lower), so they are streamed from
+// the archive in between, a fetch size at a time.
+@Service
+public class MaterialChangeExportService {
+
+    public enum Format {
+        // A JSON array of MaterialChange, as the endpoint has always returned
+        JSON,
+        NDJSON,
+        CSV,
+        // CSV with a UTF-8 byte order mark, without which Excel reads it as ANSI
+        EXCEL
+    }
+
+    static final String CSV_HEADER = "ChangeID,ChangeDate,ClientID,ClientName,EntityID,EntityName,ColumnName,"
+            + "OperationType,OldValue,NewValue";
+
+    private static final String SQL = "SELECT mc.ChangeID, mc.ChangeDate, mc.ClientID, COALESCE(c.NameAtBirth, c.FirstName || ' ' || c.LastName) AS ClientName, mc.EntityID, mc.EntityName, mc.ColumnName, mc.OperationType, mc.OldValue, mc.NewValue FROM MaterialChanges mc LEFT JOIN Clients c ON mc.ClientID = c.ClientID";
+
+    private interface Sink {
+        void write(MaterialChange change) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MaterialChangeRepository repository;
+    private final int fetchSize;
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public MaterialChangeExportService(JdbcTemplate jdbcTemplate, MaterialChangeRepository repository,
+            @Value("${kyc.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.fetchSize = fetchSize;
+    }
+
+    // Both dates are inclusive and optional. Returns the number of changes written.
+    public long export(Format format, LocalDate startDate, LocalDate endDate, OutputStream out) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return export(connection, format, startDate, endDate, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long export(Connection connection, Format format, LocalDate startDate, LocalDate endDate,
+            OutputStream out) throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder(SQL).append(" WHERE 1=1");
+        if (startDate != null) {
+            sql.append(" AND mc.ChangeDate >= ?");
+        }
+        if (endDate != null) {
+            sql.append(" AND mc.ChangeDate < ?");
+        }
+        sql.append(" ORDER BY mc.ChangeDate DESC, mc.ChangeID DESC");
+
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                ClientExportService.forwardOnlyResultSetType(connection), ResultSet.CONCUR_READ_ONLY)) {
+            int parameter = 1;
+            if (startDate != null) {
+                statement.setTimestamp(parameter++, Timestamp.valueOf(startDate.atStartOfDay()));
+            }
+            if (endDate != null) {
+                statement.setTimestamp(parameter, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            }
+            statement.setFetchSize(fetchSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                Sink sink = switch (format) {
+                    case JSON, NDJSON -> jsonSink(format == Format.NDJSON, out);
+                    case CSV, EXCEL -> csvSink(format == Format.EXCEL, out);
+                };
+                long count = 0;
+                boolean archived = !repository.hasArchived();
+                while (rs.next()) {
+                    MaterialChange change = mapChange(rs);
+                    if (!archived && change.changeDate() == null) {
+                        count += writeArchived(startDate, endDate, sink);
+                        archived = true;
+                    }
+                    sink.write(change);
+                    count++;
+                }
+                if (!archived) {
+                    count += writeArchived(startDate, endDate, sink);
+                }
+                sink.finish();
+                return count;
+            }
+        }
+    }
+
+    private long writeArchived(LocalDate startDate, LocalDate endDate, Sink sink) throws IOException {
+        long[] count = new long[1];
+        try {
+            repository.forEachArchived(startDate == null ? null : startDate.atStartOfDay(),
+                    endDate == null ? null : endDate.plusDays(1).atStartOfDay().minusNanos(1000), fetchSize,
+                    changes -> {
+                        try {
+                            for (MaterialChange change : changes) {
+                                sink.write(change);
+                                count[0]++;
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private Sink jsonSink(boolean ndjson, OutputStream out) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(out);
+        if (ndjson) {
+            json.setRootValueSeparator(new SerializedString("\n"));
+        } else {
+            json.writeStartArray();
+        }
+        return new Sink() {
+            private long count;
+
+            @Override
+            public void write(MaterialChange change) throws IOException {
+                json.writeStartObject();
+                writeNumber(json, "changeID", change.changeID());
+                if (change.changeDate() == null) {
+                    json.writeNullField("changeDate");
+                } else {
+                    json.writeStringField("changeDate", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(change.changeDate()));
+                }
+                writeNumber(json, "clientID", change.clientID());
+                json.writeStringField("clientName", change.clientName());
+                writeNumber(json, "entityID", change.entityID());
+                json.writeStringField("entityName", change.entityName());
+                json.writeStringField("columnName", change.columnName());
+                json.writeStringField("operationType", change.operationType());
+                json.writeStringField("oldValue", change.oldValue());
+                json.writeStringField("newValue", change.newValue());
+                json.writeEndObject();
+                count++;
+            }
+
+            @Override
+            public void finish() throws IOException {
+                if (!ndjson) {
+                    json.writeEndArray();
+                } else if (count > 0) {
+                    json.writeRaw('\n');
+                }
+                json.close();
+            }
+        };
+    }
+
+    private static void writeNumber(JsonGenerator json, String field, Long value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    private static Sink csvSink(boolean excel, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (excel) {
+            writer.write('\uFEFF');
+        }
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        return new Sink() {
+            @Override
+            public void write(MaterialChange change) throws IOException {
+                Object[] values = { change.changeID(), timestamp(change.changeDate()), change.clientID(),
+                        change.clientName(), change.entityID(), change.entityName(), change.columnName(),
+                        change.operationType(), change.oldValue(), change.newValue() };
+                for (int column = 0; column < values.length; column++) {
+                    if (column > 0) {
+                        writer.write(',');
+                    }
+                    if (values[column] != null) {
+                        ClientCsvWriter.writeField(writer, values[column].toString());
+                    }
+                }
+                writer.write("\r\n");
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    private static MaterialChange mapChange(ResultSet rs) throws SQLException {
+        Timestamp changeDate = rs.getTimestamp(2);
+        return new MaterialChange(rs.getLong(1), changeDate == null ? null : changeDate.toLocalDateTime(),
+                rs.getObject(3, Long.class), rs.getString(4), rs.getObject(5, Long.class), rs.getString(6),
+                rs.getString(7), rs.getString(8), rs.getString(9), rs.getString(10));
+    }
+
+    private static String timestamp(LocalDateTime timestamp) {
+        return timestamp == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp);
+    }
+}
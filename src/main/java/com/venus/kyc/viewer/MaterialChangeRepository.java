@@ -1,39 +1,84 @@
 package com.venus.kyc.viewer;
 
+import com.venus.kyc.viewer.archive.ArchiveTable;
+import com.venus.kyc.viewer.archive.ArchivedRow;
+import com.venus.kyc.viewer.archive.AuditArchive;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
+// Reads span both tiers: the MaterialChanges table and the archived changes that
+// AuditArchiver moved out of it. A page is the best 'limit' rows of each tier merged;
+// the archive side keeps only a bounded heap, and when sorting by ChangeDate its
+// scan is narrowed to the time range that can still reach the page, which for the
+// usual newest-first browsing skips the archive altogether.
 @Repository
 public class MaterialChangeRepository {
 
+    private static final String SELECT = "SELECT mc.ChangeID, mc.ChangeDate, mc.ClientID, COALESCE(c.NameAtBirth, c.FirstName || ' ' || c.LastName) AS ClientName, mc.EntityID, mc.EntityName, mc.ColumnName, mc.OperationType, mc.OldValue, mc.NewValue FROM MaterialChanges mc LEFT JOIN Clients c ON mc.ClientID = c.ClientID WHERE 1=1";
+
+    // Sortable columns. Each has a (column, ChangeID) index in schema.sql, so a seek
+    // page is one index range scan in either direction.
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "changeID", "ChangeID",
+            "changeDate", "ChangeDate",
+            "clientID", "ClientID",
+            "entityID", "EntityID",
+            "entityName", "EntityName",
+            "columnName", "ColumnName",
+            "operationType", "OperationType");
+
+    private static final Map<String, Function<MaterialChange, Comparable<?>>> SORT_KEYS = Map.of(
+            "ChangeID", MaterialChange::changeID,
+            "ChangeDate", MaterialChange::changeDate,
+            "ClientID", MaterialChange::clientID,
+            "EntityID", MaterialChange::entityID,
+            "EntityName", MaterialChange::entityName,
+            "ColumnName", MaterialChange::columnName,
+            "OperationType", MaterialChange::operationType);
+
     private final JdbcClient jdbcClient;
+    private final CountCache countCache;
+    private final ArchiveTable archive;
 
-    public MaterialChangeRepository(JdbcClient jdbcClient) {
+    public MaterialChangeRepository(JdbcClient jdbcClient, CountCache countCache, AuditArchive auditArchive) {
         this.jdbcClient = jdbcClient;
+        this.countCache = countCache;
+        this.archive = auditArchive.table(AuditArchive.MATERIAL_CHANGES);
     }
 
     public List<MaterialChange> findAll() {
         return findAllPaginated(0, Integer.MAX_VALUE, null, null, "changeDate", "DESC").content();
     }
 
+    // Cached per date range. Changes are only ever appended, so a cached count is an
+    // underestimate by at most what was captured within the TTL.
     public long countChanges(String startDate, String endDate) {
-        String sql = "SELECT COUNT(*) FROM MaterialChanges WHERE 1=1";
-        if (startDate != null && !startDate.isEmpty()) {
-            sql += " AND ChangeDate >= :startDate";
-        }
-        if (endDate != null && !endDate.isEmpty()) {
-            sql += " AND ChangeDate <= :endDate";
-        }
-
-        var query = jdbcClient.sql(sql);
-        if (startDate != null && !startDate.isEmpty())
-            query.param("startDate", startDate + " 00:00:00");
-        if (endDate != null && !endDate.isEmpty())
-            query.param("endDate", endDate + " 23:59:59");
-
-        return query.query(Long.class).single();
+        return countCache.get("changes:count:" + nullToEmpty(startDate) + ":" + nullToEmpty(endDate), () -> {
+            var query = jdbcClient.sql("SELECT COUNT(*) FROM MaterialChanges mc WHERE 1=1"
+                    + dateFilter(startDate, endDate));
+            bindDates(query, startDate, endDate);
+            long hot = query.query(Long.class).single();
+            return archive.isEmpty() ? hot : hot + archive.count(from(startDate), to(endDate));
+        });
     }
 
     public PaginatedResponse<MaterialChange> findAllPaginated(int page, int size, String startDate, String endDate,
@@ -41,83 +86,322 @@ public class MaterialChangeRepository {
         long totalElements = countChanges(startDate, endDate);
         int totalPages = (int) Math.ceil((double) totalElements / size);
 
-        // Sanitize sort column to prevent SQL injection
-        String sortColumn = "ChangeDate";
-        if (sortBy != null) {
-            sortColumn = switch (sortBy) {
-                case "changeID" -> "ChangeID";
-                case "changeDate" -> "ChangeDate";
-                case "clientID" -> "ClientID";
-                case "entityID" -> "EntityID";
-                case "entityName" -> "EntityName";
-                case "columnName" -> "ColumnName";
-                case "operationType" -> "OperationType";
-                default -> "ChangeDate";
-            };
-        }
+        String sortColumn = SORT_COLUMNS.getOrDefault(sortBy, "ChangeDate");
         String direction = "DESC".equalsIgnoreCase(sortDir) ? "DESC" : "ASC";
 
-        String sql = "SELECT mc.*, COALESCE(c.NameAtBirth, c.FirstName || ' ' || c.LastName) as ClientName FROM MaterialChanges mc LEFT JOIN Clients c ON mc.ClientID = c.ClientID WHERE 1=1";
-        if (startDate != null && !startDate.isEmpty()) {
-            sql += " AND mc.ChangeDate >= :startDate";
+        if (archive.isEmpty()) {
+            var query = jdbcClient.sql(SELECT + dateFilter(startDate, endDate)
+                    + orderBy(sortColumn, direction) + " LIMIT :limit OFFSET :offset")
+                    .param("limit", size)
+                    .param("offset", (long) page * size);
+            bindDates(query, startDate, endDate);
+            List<MaterialChange> changes = query.query(MaterialChangeRepository::mapChange).list();
+            return new PaginatedResponse<>(changes, page, size, totalElements, totalPages);
         }
-        if (endDate != null && !endDate.isEmpty()) {
-            sql += " AND mc.ChangeDate <= :endDate";
+
+        // An offset can't be applied to either tier alone, so both give their first
+        // offset + size rows
+        long offset = (long) page * size;
+        int limit = (int) Math.min(Integer.MAX_VALUE, offset + size);
+        var query = jdbcClient.sql(SELECT + dateFilter(startDate, endDate)
+                + orderBy(sortColumn, direction) + " LIMIT :limit")
+                .param("limit", limit);
+        bindDates(query, startDate, endDate);
+        List<MaterialChange> merged = mergeArchived(query.query(MaterialChangeRepository::mapChange).list(), limit,
+                startDate, endDate, sortColumn, "DESC".equals(direction), null);
+        List<MaterialChange> changes = offset >= merged.size() ? List.of()
+                : merged.subList((int) offset, Math.min(merged.size(), limit));
+        return new PaginatedResponse<>(changes, page, size, totalElements, totalPages);
+    }
+
+    // Keyset page over (sort column, ChangeID) in the requested direction. NULLs sort
+    // lowest, as both H2 and SQL Server order them, and the cursor records whether
+    // its key was NULL so seeking past a run of NULLs works.
+    public PaginatedResponse<MaterialChange> findAllByCursor(String token, int size, String startDate,
+            String endDate, String sortBy, String sortDir, boolean includeTotal) {
+        String sortKey = SORT_COLUMNS.containsKey(sortBy) ? sortBy : "changeDate";
+        boolean descending = "DESC".equalsIgnoreCase(sortDir);
+        String column = SORT_COLUMNS.get(sortKey);
+        // The direction is part of the token's sort order, like the column
+        SeekCursor cursor = SeekCursor.decode(token, sortKey + (descending ? ":desc" : ":asc"));
+        boolean backward = cursor != null && cursor.backward();
+        // Walking forward through a descending page, or back through an ascending
+        // one, reads the index downwards
+        boolean downwards = descending != backward;
+
+        String sql = SELECT + dateFilter(startDate, endDate);
+        if (cursor != null) {
+            sql += " AND " + seekPredicate(column, decodeKey(cursor.key()) == null, downwards);
         }
-        sql += " ORDER BY mc." + sortColumn + " " + direction + " LIMIT :limit OFFSET :offset";
+        sql += orderBy(column, downwards ? "DESC" : "ASC") + " LIMIT :limit";
 
-        var query = jdbcClient.sql(sql)
-                .param("limit", size)
-                .param("offset", page * size);
+        var query = jdbcClient.sql(sql).param("limit", size + 1);
+        bindDates(query, startDate, endDate);
+        if (cursor != null) {
+            query.param("seekId", cursor.id());
+            String key = decodeKey(cursor.key());
+            if (key != null && !column.equals("ChangeID")) {
+                query.param("seekKey", switch (column) {
+                    case "ChangeDate" -> Timestamp.valueOf(LocalDateTime.parse(key));
+                    case "ClientID", "EntityID" -> Long.parseLong(key);
+                    default -> key;
+                });
+            }
+        }
 
-        if (startDate != null && !startDate.isEmpty())
-            query.param("startDate", startDate + " 00:00:00");
-        if (endDate != null && !endDate.isEmpty())
-            query.param("endDate", endDate + " 23:59:59");
+        List<MaterialChange> changes = new ArrayList<>(query.query(MaterialChangeRepository::mapChange).list());
+        if (!archive.isEmpty()) {
+            changes = mergeArchived(changes, size + 1, startDate, endDate, column, downwards, cursor);
+        }
+        boolean more = changes.size() > size;
+        if (more) {
+            changes.remove(changes.size() - 1);
+        }
+        if (backward) {
+            Collections.reverse(changes);
+        }
 
-        List<MaterialChange> changes = query.query((rs, rowNum) -> new MaterialChange(
-                rs.getLong("ChangeID"),
-                rs.getTimestamp("ChangeDate").toLocalDateTime(),
-                rs.getLong("ClientID"),
-                rs.getString("ClientName"),
-                rs.getLong("EntityID"),
-                rs.getString("EntityName"),
-                rs.getString("ColumnName"),
-                rs.getString("OperationType"),
-                rs.getString("OldValue"),
-                rs.getString("NewValue")))
-                .list();
+        String next = null;
+        String prev = null;
+        if (!changes.isEmpty()) {
+            String order = sortKey + (descending ? ":desc" : ":asc");
+            if (backward || more) {
+                next = cursorAt(order, column, changes.get(changes.size() - 1), false);
+            }
+            if (backward ? more : cursor != null) {
+                prev = cursorAt(order, column, changes.get(0), true);
+            }
+        }
+        long totalElements = includeTotal ? countChanges(startDate, endDate) : -1;
+        return PaginatedResponse.ofCursor(changes, size, totalElements, next, prev);
+    }
 
-        return new PaginatedResponse<>(changes, page, size, totalElements, totalPages);
+    // The first 'limit' rows of both tiers in (column, ChangeID) order, given the hot
+    // tier's first 'limit' rows, optionally after a cursor
+    private List<MaterialChange> mergeArchived(List<MaterialChange> hot, int limit, String startDate,
+            String endDate, String column, boolean downwards, SeekCursor cursor) {
+        Comparator<MaterialChange> order = order(column, downwards);
+        LocalDateTime from = from(startDate);
+        LocalDateTime to = to(endDate);
+        MaterialChange seek = null;
+        if (cursor != null) {
+            String key = decodeKey(cursor.key());
+            seek = seekRow(column, key, cursor.id());
+            if (column.equals("ChangeDate")) {
+                if (key == null && downwards) {
+                    // Only NULL dates are left, and archived rows all have one
+                    return hot;
+                }
+                if (key != null) {
+                    LocalDateTime at = LocalDateTime.parse(key);
+                    from = downwards ? from : later(from, at);
+                    to = downwards ? earlier(to, at) : to;
+                }
+            }
+        }
+        // An archived row only makes the page if it sorts before the hot tier's last
+        MaterialChange last = hot.size() >= limit ? hot.get(hot.size() - 1) : null;
+        if (last != null && column.equals("ChangeDate") && last.changeDate() != null) {
+            from = downwards ? later(from, last.changeDate()) : from;
+            to = downwards ? to : earlier(to, last.changeDate());
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return hot;
+        }
+
+        MaterialChange after = seek;
+        Predicate<MaterialChange> wanted = change -> (after == null || order.compare(change, after) > 0)
+                && (last == null || order.compare(change, last) < 0);
+        // Worst row on top, so the heap holds the best 'limit' seen so far
+        PriorityQueue<MaterialChange> best = new PriorityQueue<>(order.reversed());
+        archive.scan(from, to, false, row -> {
+            MaterialChange change = fromArchive(row, null);
+            if (wanted.test(change)) {
+                best.add(change);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        });
+        if (best.isEmpty()) {
+            return hot;
+        }
+        List<MaterialChange> merged = new ArrayList<>(hot);
+        merged.addAll(withClientNames(new ArrayList<>(best)));
+        merged.sort(order);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    // Archived changes between two times (inclusive, null for open), newest first,
+    // handed over in chunks with client names filled in
+    void forEachArchived(LocalDateTime from, LocalDateTime to, int chunkSize, Consumer<List<MaterialChange>> action) {
+        List<MaterialChange> chunk = new ArrayList<>(chunkSize);
+        archive.scan(from, to, true, row -> {
+            chunk.add(fromArchive(row, null));
+            if (chunk.size() >= chunkSize) {
+                action.accept(withClientNames(chunk));
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            action.accept(withClientNames(chunk));
+        }
+    }
+
+    boolean hasArchived() {
+        return !archive.isEmpty();
+    }
+
+    private List<MaterialChange> withClientNames(List<MaterialChange> changes) {
+        Set<Long> ids = new HashSet<>();
+        for (MaterialChange change : changes) {
+            if (change.clientID() != null) {
+                ids.add(change.clientID());
+            }
+        }
+        Map<Long, String> names = new HashMap<>();
+        List<Long> idList = new ArrayList<>(ids);
+        for (int from = 0; from < idList.size(); from += InListFetcher.MAX_IN_LIST) {
+            jdbcClient.sql("SELECT ClientID, COALESCE(NameAtBirth, FirstName || ' ' || LastName) AS ClientName FROM Clients WHERE ClientID IN (:ids)")
+                    .param("ids", idList.subList(from, Math.min(from + InListFetcher.MAX_IN_LIST, idList.size())))
+                    .query((RowCallbackHandler) rs -> names.put(rs.getLong(1), rs.getString(2)));
+        }
+        List<MaterialChange> named = new ArrayList<>(changes.size());
+        for (MaterialChange change : changes) {
+            named.add(new MaterialChange(change.changeID(), change.changeDate(), change.clientID(),
+                    names.get(change.clientID()), change.entityID(), change.entityName(), change.columnName(),
+                    change.operationType(), change.oldValue(), change.newValue()));
+        }
+        return named;
+    }
+
+    // Values as AuditArchiver stores them: EntityID, EntityName, ColumnName,
+    // OperationType, OldValue, NewValue
+    private static MaterialChange fromArchive(ArchivedRow row, String clientName) {
+        return new MaterialChange(row.id(), row.time(), row.key(), clientName, row.longValue(0), row.value(1),
+                row.value(2), row.value(3), row.value(4), row.value(5));
+    }
+
+    // (column, ChangeID) order with NULL lowest, as the database sorts
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparator<MaterialChange> order(String column, boolean downwards) {
+        Function<MaterialChange, Comparable> key = (Function) SORT_KEYS.get(column);
+        Comparator<MaterialChange> order = (a, b) -> {
+            Comparable x = key.apply(a);
+            Comparable y = key.apply(b);
+            int cmp = x == null ? (y == null ? 0 : -1) : y == null ? 1 : x.compareTo(y);
+            return cmp != 0 ? cmp : a.changeID().compareTo(b.changeID());
+        };
+        return downwards ? order.reversed() : order;
+    }
+
+    // A row carrying only the cursor's sort key and id, to compare against
+    private static MaterialChange seekRow(String column, String key, long id) {
+        return new MaterialChange(id,
+                column.equals("ChangeDate") && key != null ? LocalDateTime.parse(key) : null,
+                column.equals("ClientID") && key != null ? Long.valueOf(key) : null, null,
+                column.equals("EntityID") && key != null ? Long.valueOf(key) : null,
+                column.equals("EntityName") ? key : null,
+                column.equals("ColumnName") ? key : null,
+                column.equals("OperationType") ? key : null, null, null);
+    }
+
+    private static LocalDateTime from(String startDate) {
+        return startDate == null || startDate.isEmpty() ? null : LocalDate.parse(startDate).atStartOfDay();
+    }
+
+    private static LocalDateTime to(String endDate) {
+        return endDate == null || endDate.isEmpty() ? null : LocalDate.parse(endDate).atTime(23, 59, 59);
+    }
+
+    private static LocalDateTime later(LocalDateTime bound, LocalDateTime time) {
+        return bound == null || time.isAfter(bound) ? time : bound;
+    }
+
+    private static LocalDateTime earlier(LocalDateTime bound, LocalDateTime time) {
+        return bound == null || time.isBefore(bound) ? time : bound;
+    }
+
+    // Rows strictly after the cursor row in (column, ChangeID) order, NULL lowest.
+    // ChangeID is the primary key and never NULL.
+    private static String seekPredicate(String column, boolean nullKey, boolean downwards) {
+        String cmp = downwards ? "<" : ">";
+        if (column.equals("ChangeID")) {
+            return "mc.ChangeID " + cmp + " :seekId";
+        }
+        String col = "mc." + column;
+        if (nullKey) {
+            return downwards
+                    ? "(" + col + " IS NULL AND mc.ChangeID < :seekId)"
+                    : "(" + col + " IS NOT NULL OR mc.ChangeID > :seekId)";
+        }
+        return "(" + col + " " + cmp + " :seekKey OR (" + col + " = :seekKey AND mc.ChangeID " + cmp + " :seekId)"
+                + (downwards ? " OR " + col + " IS NULL)" : ")");
+    }
+
+    private static String orderBy(String column, String direction) {
+        return column.equals("ChangeID")
+                ? " ORDER BY mc.ChangeID " + direction
+                : " ORDER BY mc." + column + " " + direction + ", mc.ChangeID " + direction;
     }
 
-    public List<MaterialChange> findAllForExport(String startDate, String endDate) {
-        String sql = "SELECT mc.*, COALESCE(c.NameAtBirth, c.FirstName || ' ' || c.LastName) as ClientName FROM MaterialChanges mc LEFT JOIN Clients c ON mc.ClientID = c.ClientID WHERE 1=1";
+    private static String cursorAt(String order, String column, MaterialChange change, boolean backward) {
+        Object key = switch (column) {
+            case "ChangeDate" -> change.changeDate();
+            case "ClientID" -> change.clientID();
+            case "EntityID" -> change.entityID();
+            case "EntityName" -> change.entityName();
+            case "ColumnName" -> change.columnName();
+            case "OperationType" -> change.operationType();
+            default -> "";
+        };
+        return new SeekCursor(order, encodeKey(key), change.changeID(), backward).encode();
+    }
+
+    // SeekCursor keeps keys as text; a leading '=' tells a value (even an empty
+    // string) apart from NULL
+    private static String encodeKey(Object key) {
+        return key == null ? "" : "=" + key;
+    }
+
+    private static String decodeKey(String key) {
+        return key == null || key.isEmpty() ? null : key.substring(1);
+    }
+
+    private static String dateFilter(String startDate, String endDate) {
+        String sql = "";
         if (startDate != null && !startDate.isEmpty()) {
             sql += " AND mc.ChangeDate >= :startDate";
         }
         if (endDate != null && !endDate.isEmpty()) {
             sql += " AND mc.ChangeDate <= :endDate";
         }
-        sql += " ORDER BY mc.ChangeDate DESC";
+        return sql;
+    }
 
-        var query = jdbcClient.sql(sql);
+    private static void bindDates(JdbcClient.StatementSpec query, String startDate, String endDate) {
         if (startDate != null && !startDate.isEmpty())
             query.param("startDate", startDate + " 00:00:00");
         if (endDate != null && !endDate.isEmpty())
             query.param("endDate", endDate + " 23:59:59");
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
 
-        return query.query((rs, rowNum) -> new MaterialChange(
+    private static MaterialChange mapChange(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp changeDate = rs.getTimestamp("ChangeDate");
+        return new MaterialChange(
                 rs.getLong("ChangeID"),
-                rs.getTimestamp("ChangeDate").toLocalDateTime(),
-                rs.getLong("ClientID"),
+                changeDate != null ? changeDate.toLocalDateTime() : null,
+                rs.getObject("ClientID", Long.class),
                 rs.getString("ClientName"),
-                rs.getLong("EntityID"),
+                rs.getObject("EntityID", Long.class),
                 rs.getString("EntityName"),
                 rs.getString("ColumnName"),
                 rs.getString("OperationType"),
                 rs.getString("OldValue"),
-                rs.getString("NewValue")))
-                .list();
+                rs.getString("NewValue"));
     }
 }
@@ -0,0 +1,248 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Daily material change counts per (EntityName, ColumnName, OperationType) for the
+// compliance dashboards. MaterialChangeRollups rows are upserted by
+// MaterialChangeCapture, with the change rows they count or, when those commit with
+// a client write, just after it, and mirrored here once the upsert commits. In
+// memory each group keeps its daily counts in a Fenwick tree, so the total for any
+// range of whole days costs O(log days) per group however long the range is;
+// nothing reads MaterialChanges itself.
+//
+// Like the other in-memory indexes this only sees writes made through this node.
+@Component
+public class MaterialChangeRollups {
+
+    public record Group(String entityName, String columnName, String operationType, long count) {
+    }
+
+    public record Stats(LocalDate from, LocalDate to, long total, Map<String, Long> byEntityName,
+            Map<String, Long> byColumnName, Map<String, Long> byOperationType, List<Group> groups,
+            Map<LocalDate, Long> byDay) {
+    }
+
+    // NULL names are stored as '' so they can be part of the primary key
+    record Key(LocalDate day, String entityName, String columnName, String operationType) {
+
+        GroupKey group() {
+            return new GroupKey(entityName, columnName, operationType);
+        }
+    }
+
+    private record GroupKey(String entityName, String columnName, String operationType) {
+    }
+
+    private static final String UPDATE = "UPDATE MaterialChangeRollups SET ChangeCount = ChangeCount + ? WHERE ChangeDay = ? AND EntityName = ? AND ColumnName = ? AND OperationType = ?";
+    private static final String INSERT = "INSERT INTO MaterialChangeRollups (ChangeDay, EntityName, ColumnName, OperationType, ChangeCount) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Writers hold the shared side from their database update until it is applied
+    // here; load() takes the exclusive side so no commit is counted twice or missed.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by 'this'
+    private final Map<GroupKey, DailyCounts> groups = new HashMap<>();
+
+    public MaterialChangeRollups(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            Map<GroupKey, DailyCounts> loaded = new HashMap<>();
+            jdbcTemplate.query("SELECT ChangeDay, EntityName, ColumnName, OperationType, ChangeCount FROM MaterialChangeRollups",
+                    rs -> {
+                        GroupKey group = new GroupKey(rs.getString(2), rs.getString(3), rs.getString(4));
+                        loaded.computeIfAbsent(group, g -> new DailyCounts())
+                                .add(rs.getDate(1).toLocalDate().toEpochDay(), rs.getLong(5));
+                    });
+            synchronized (this) {
+                groups.clear();
+                groups.putAll(loaded);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Lock updateLock() {
+        return lock.readLock();
+    }
+
+    static Map<Key, Long> count(List<MaterialChangeCapture.Change> changes) {
+        Map<Key, Long> counts = new HashMap<>();
+        for (MaterialChangeCapture.Change change : changes) {
+            Key key = new Key(change.changeDate().toLocalDate(), nullToEmpty(change.entityName()),
+                    nullToEmpty(change.columnName()), nullToEmpty(change.operationType()));
+            counts.merge(key, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    // Runs in the caller's transaction. A key seen for the first time is inserted; if
+    // another writer got there first the insert fails on the primary key and the
+    // increment is retried as an update, which H2 and SQL Server allow mid-transaction.
+    void persist(Map<Key, Long> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Key, Long>> entries = new ArrayList<>(counts.entrySet());
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE, entries, entries.size(), (ps, entry) -> {
+            Key key = entry.getKey();
+            ps.setLong(1, entry.getValue());
+            ps.setDate(2, Date.valueOf(key.day()));
+            ps.setString(3, key.entityName());
+            ps.setString(4, key.columnName());
+            ps.setString(5, key.operationType());
+        });
+        int[] rows = updated.length == 0 ? new int[0] : updated[0];
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] != 0) {
+                continue;
+            }
+            Key key = entries.get(i).getKey();
+            long count = entries.get(i).getValue();
+            try {
+                jdbcTemplate.update(INSERT, Date.valueOf(key.day()), key.entityName(), key.columnName(),
+                        key.operationType(), count);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(UPDATE, count, Date.valueOf(key.day()), key.entityName(), key.columnName(),
+                        key.operationType());
+            }
+        }
+    }
+
+    synchronized void apply(Map<Key, Long> counts) {
+        for (Map.Entry<Key, Long> entry : counts.entrySet()) {
+            groups.computeIfAbsent(entry.getKey().group(), g -> new DailyCounts())
+                    .add(entry.getKey().day().toEpochDay(), entry.getValue());
+        }
+    }
+
+    // Both days inclusive. The per-day breakdown is only built when asked for, since
+    // it is the one part whose size grows with the range.
+    public synchronized Stats stats(LocalDate from, LocalDate to, boolean byDay) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        Map<String, Long> byEntityName = new TreeMap<>();
+        Map<String, Long> byColumnName = new TreeMap<>();
+        Map<String, Long> byOperationType = new TreeMap<>();
+        List<Group> result = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<GroupKey, DailyCounts> entry : groups.entrySet()) {
+            long count = entry.getValue().sum(first, last);
+            if (count == 0) {
+                continue;
+            }
+            GroupKey group = entry.getKey();
+            total += count;
+            byEntityName.merge(group.entityName(), count, Long::sum);
+            byColumnName.merge(group.columnName(), count, Long::sum);
+            byOperationType.merge(group.operationType(), count, Long::sum);
+            result.add(new Group(group.entityName(), group.columnName(), group.operationType(), count));
+        }
+        result.sort(Comparator.comparingLong(Group::count).reversed()
+                .thenComparing(Group::entityName)
+                .thenComparing(Group::columnName)
+                .thenComparing(Group::operationType));
+
+        Map<LocalDate, Long> days = null;
+        if (byDay) {
+            days = new LinkedHashMap<>();
+            for (long day = first; day <= last; day++) {
+                long count = 0;
+                for (DailyCounts counts : groups.values()) {
+                    count += counts.get(day);
+                }
+                days.put(LocalDate.ofEpochDay(day), count);
+            }
+        }
+        return new Stats(from, to, total, byEntityName, byColumnName, byOperationType, result, days);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Counts per epoch day from 'base', with a Fenwick tree over them for range sums.
+    // Grows in either direction by rebuilding, which is rare: days arrive in order.
+    static final class DailyCounts {
+
+        private long base;
+        private long[] daily = new long[0];
+        private long[] tree = new long[1];
+
+        void add(long day, long count) {
+            if (daily.length == 0) {
+                base = day;
+            }
+            if (day < base || day >= base + daily.length) {
+                resize(Math.min(day, base), Math.max(day, base + daily.length - 1));
+            }
+            int index = (int) (day - base);
+            daily[index] += count;
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += count;
+            }
+        }
+
+        long get(long day) {
+            return day < base || day >= base + daily.length ? 0 : daily[(int) (day - base)];
+        }
+
+        long sum(long from, long to) {
+            return prefix(to) - prefix(from - 1);
+        }
+
+        // Total of all days up to and including 'day'
+        private long prefix(long day) {
+            if (day < base || daily.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(day - base, daily.length - 1) + 1;
+            long sum = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        // Room for a year either side of the new range, so steady appends don't rebuild
+        private void resize(long first, long last) {
+            long newBase = first < base || daily.length == 0 ? first - 365 : base;
+            int size = (int) (last - newBase + 1 + 365);
+            long[] resized = new long[size];
+            if (daily.length > 0) {
+                System.arraycopy(daily, 0, resized, (int) (base - newBase), daily.length);
+            }
+            base = newBase;
+            daily = resized;
+            tree = new long[size + 1];
+            for (int i = 1; i <= size; i++) {
+                tree[i] += daily[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+    }
+}
@@ -7,5 +7,23 @@ public record PaginatedResponse<T>(
         int currentPage,
         int pageSize,
         long totalElements,
-        int totalPages) {
+        int totalPages,
+        String nextCursor,
+        String prevCursor) {
+
+    public PaginatedResponse(List<T> content, int currentPage, int pageSize, long totalElements, int totalPages) {
+        this(content, currentPage, pageSize, totalElements, totalPages, null, null);
+    }
+
+    // Cursor-mode pages have no page number; totals are -1 unless requested.
+    public static <T> PaginatedResponse<T> ofCursor(List<T> content, int pageSize, long totalElements,
+            String nextCursor, String prevCursor) {
+        int totalPages = totalElements < 0 ? -1 : (int) Math.ceil((double) totalElements / pageSize);
+        return new PaginatedResponse<>(content, -1, pageSize, totalElements, totalPages, nextCursor, prevCursor);
+    }
+
+    public <R> PaginatedResponse<R> withContent(List<R> newContent) {
+        return new PaginatedResponse<>(newContent, currentPage, pageSize, totalElements, totalPages, nextCursor,
+                prevCursor);
+    }
 }
@@ -0,0 +1,74 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.jdbc.core.DataClassRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Loads related parties with their addresses and identifiers in a fixed number of
+// statements: one for the parties and one each for their addresses and identifiers,
+// per InListFetcher.MAX_IN_LIST keys. The count doesn't grow with the number of
+// parties per client, so up to MAX_IN_LIST clients or parties cost 3 statements.
+@Component
+public class RelatedPartyLoader {
+
+    private static final String PARTY_COLUMNS = "RelatedPartyID, ClientID, RelationType, TitlePrefix, FirstName, MiddleName, LastName, TitleSuffix, Citizenship1, Citizenship2, OnboardingDate, Status, NameAtBirth, NickName, Gender, DateOfBirth, Language, Occupation, CountryOfTax, SourceOfFundsCountry, FATCAStatus, CRSStatus";
+
+    private final InListFetcher fetcher;
+
+    private final RowMapper<Address> addressMapper = new DataClassRowMapper<>(Address.class);
+    private final RowMapper<Identifier> identifierMapper = new DataClassRowMapper<>(Identifier.class);
+
+    public RelatedPartyLoader(InListFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    // Parties of the given clients, keyed by ClientID, ordered by RelatedPartyID.
+    public Map<Long, List<RelatedParty>> loadByClientIds(List<Long> clientIds) {
+        if (clientIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<RelatedParty>> byClient = fetcher.fetchGrouped(
+                "SELECT " + PARTY_COLUMNS + " FROM RelatedParties WHERE ClientID IN (:ids) ORDER BY ClientID, RelatedPartyID",
+                clientIds, "ClientID", ClientRowMappers::relatedParty);
+        attachChildren(byClient.values().stream().flatMap(List::stream).toList());
+        return byClient;
+    }
+
+    // The given parties that exist, in RelatedPartyID order.
+    public List<RelatedParty> loadByIds(List<Long> partyIds) {
+        if (partyIds.isEmpty()) {
+            return List.of();
+        }
+        List<RelatedParty> parties = new ArrayList<>();
+        fetcher.fetchGrouped(
+                "SELECT " + PARTY_COLUMNS + " FROM RelatedParties WHERE RelatedPartyID IN (:ids) ORDER BY RelatedPartyID",
+                partyIds, "RelatedPartyID", ClientRowMappers::relatedParty)
+                .values()
+                .forEach(parties::addAll);
+        parties.sort((a, b) -> Long.compare(a.relatedPartyID(), b.relatedPartyID()));
+        attachChildren(parties);
+        return parties;
+    }
+
+    private void attachChildren(Collection<RelatedParty> parties) {
+        if (parties.isEmpty()) {
+            return;
+        }
+        List<Long> partyIds = parties.stream().map(RelatedParty::relatedPartyID).toList();
+        Map<Long, List<Address>> addresses = fetcher.fetchGrouped(
+                "SELECT RelatedPartyID, AddressID, AddressType, AddressLine1, AddressLine2, City, Zip, Country, AddressNumber, AddressSupplement FROM RelatedPartyAddresses WHERE RelatedPartyID IN (:ids) ORDER BY RelatedPartyID, AddressID",
+                partyIds, "RelatedPartyID", addressMapper);
+        Map<Long, List<Identifier>> identifiers = fetcher.fetchGrouped(
+                "SELECT RelatedPartyID, IdentifierID, IdentifierType, IdentifierValue, IssuingAuthority, IdentifierNumber FROM RelatedPartyIdentifiers WHERE RelatedPartyID IN (:ids) ORDER BY RelatedPartyID, IdentifierID",
+                partyIds, "RelatedPartyID", identifierMapper);
+        for (RelatedParty party : parties) {
+            party.addresses().addAll(addresses.getOrDefault(party.relatedPartyID(), List.of()));
+            party.identifiers().addAll(identifiers.getOrDefault(party.relatedPartyID(), List.of()));
+        }
+    }
+}
@@ -35,6 +35,8 @@ public class SecurityConfig {
                                                 .requestMatchers("/api/permissions/**")
                                                 .hasAuthority("MANAGE_PERMISSIONS")
                                                 .requestMatchers("/api/cases/**").hasAuthority("MANAGE_CASES")
+                                                .requestMatchers("/api/events/stats", "/api/events/bus/stats")
+                                                .hasAuthority("ROLE_ADMIN")
                                                 .anyRequest().authenticated())
                                 .formLogin(form -> form
                                                 .loginPage("/login")
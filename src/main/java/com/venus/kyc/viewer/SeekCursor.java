@@ -0,0 +1,41 @@
+package com.venus.kyc.viewer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset pagination token: the (sort key, id) of the row a page starts after
+// (forward) or before (backward). The sort column is part of the token so a cursor
+// can't be replayed against a different ordering.
+public record SeekCursor(
+        String sortBy,
+        String key,
+        long id,
+        boolean backward) {
+
+    public String encode() {
+        String raw = sortBy + "|" + (backward ? "b" : "f") + "|" + id + "|" + (key != null ? key : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for an empty token (first page).
+    public static SeekCursor decode(String token, String expectedSortBy) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length != 4 || !parts[0].equals(expectedSortBy)) {
+            throw new IllegalArgumentException("Cursor does not match sort order " + expectedSortBy);
+        }
+        try {
+            return new SeekCursor(parts[0], parts[3], Long.parseLong(parts[2]), "b".equals(parts[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.venus.kyc.viewer;
+
+import org.flowable.engine.TaskService;
+import org.flowable.identitylink.api.IdentityLinkInfo;
+import org.flowable.task.api.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Fills TaskInbox from Flowable's open tasks at startup when it is empty: the first
+// start after the table was added, or a fresh database. kyc.task-inbox.resync-on-startup
+// also repairs a populated table, dropping rows of tasks that are gone.
+//
+// Every row is upserted by TaskID, so it is safe while other nodes serve the table and
+// TaskInboxListener writes to it. Tasks are read a page at a time, keyset on the task
+// id, with one Flowable query for the page's tasks and candidates and one Cases query
+// for their case and client.
+@Component
+public class TaskInboxBackfill {
+
+    private static final int PAGE_SIZE = 500;
+    private static final String TASK_TABLE = "ACT_RU_TASK";
+
+    private final TaskService taskService;
+    private final TaskInboxRepository taskInboxRepository;
+    private final CaseRepository caseRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean resync;
+
+    public TaskInboxBackfill(TaskService taskService, TaskInboxRepository taskInboxRepository,
+            CaseRepository caseRepository, JdbcTemplate jdbcTemplate,
+            @Value("${kyc.task-inbox.resync-on-startup:false}") boolean resync) {
+        this.taskService = taskService;
+        this.taskInboxRepository = taskInboxRepository;
+        this.caseRepository = caseRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.resync = resync;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!resync && !taskInboxRepository.isEmpty()) {
+            return;
+        }
+        String after = "";
+        while (true) {
+            List<String> ids = jdbcTemplate.queryForList(
+                    "SELECT ID_ FROM " + TASK_TABLE + " WHERE ID_ > ? ORDER BY ID_ LIMIT " + PAGE_SIZE,
+                    String.class, after);
+            if (ids.isEmpty()) {
+                break;
+            }
+            // Oldest first within the page, so new rows get InboxIDs in creation order
+            List<Task> tasks = new ArrayList<>(taskService.createTaskQuery()
+                    .taskIds(ids)
+                    .includeIdentityLinks()
+                    .list());
+            tasks.sort(Comparator.comparing(Task::getCreateTime, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+            Set<String> processInstanceIds = new LinkedHashSet<>();
+            for (Task task : tasks) {
+                if (task.getProcessInstanceId() != null) {
+                    processInstanceIds.add(task.getProcessInstanceId());
+                }
+            }
+            Map<String, CaseRepository.ProcessLink> links = new HashMap<>();
+            for (CaseRepository.ProcessLink link : caseRepository.findProcessLinks(processInstanceIds)) {
+                links.put(link.processInstanceID(), link);
+            }
+            for (Task task : tasks) {
+                taskInboxRepository.save(entry(task, links.get(task.getProcessInstanceId())));
+            }
+
+            after = ids.get(ids.size() - 1);
+            if (ids.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        if (resync) {
+            taskInboxRepository.deleteMissing(TASK_TABLE);
+        }
+    }
+
+    private static TaskInboxEntry entry(Task task, CaseRepository.ProcessLink link) {
+        String candidateGroup = null;
+        for (IdentityLinkInfo identityLink : task.getIdentityLinks()) {
+            if ("candidate".equals(identityLink.getType()) && identityLink.getGroupId() != null) {
+                candidateGroup = identityLink.getGroupId();
+                break;
+            }
+        }
+        return new TaskInboxEntry(null, task.getId(), task.getName(), task.getTaskDefinitionKey(),
+                link != null ? link.caseID() : null,
+                link != null ? link.clientID() : null,
+                task.getProcessInstanceId(), candidateGroup, task.getAssignee(),
+                task.getCreateTime() != null
+                        ? LocalDateTime.ofInstant(task.getCreateTime().toInstant(), ZoneId.systemDefault())
+                        : null);
+    }
+}
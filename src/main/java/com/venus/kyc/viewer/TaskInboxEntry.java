@@ -0,0 +1,17 @@
+package com.venus.kyc.viewer;
+
+import java.time.LocalDateTime;
+
+// One open workflow or ad-hoc task as listed in the inboxes
+public record TaskInboxEntry(
+        Long inboxID,
+        String taskId,
+        String name,
+        String stage, // Task definition key; null for ad-hoc tasks
+        Long caseId,
+        Long clientID,
+        String processInstanceId,
+        String candidateGroup,
+        String assignee,
+        LocalDateTime createTime) {
+}
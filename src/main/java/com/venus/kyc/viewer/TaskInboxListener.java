@@ -0,0 +1,95 @@
+package com.venus.kyc.viewer;
+
+import org.flowable.common.engine.api.delegate.event.AbstractFlowableEventListener;
+import org.flowable.common.engine.api.delegate.event.FlowableEngineEventType;
+import org.flowable.common.engine.api.delegate.event.FlowableEntityEvent;
+import org.flowable.common.engine.api.delegate.event.FlowableEvent;
+import org.flowable.common.engine.api.delegate.event.FlowableEventListener;
+import org.flowable.identitylink.api.IdentityLink;
+import org.flowable.spring.SpringProcessEngineConfiguration;
+import org.flowable.spring.boot.EngineConfigurationConfigurer;
+import org.flowable.task.service.delegate.DelegateTask;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps TaskInbox in step with Flowable. Runs inside the engine command that creates,
+// assigns, completes or deletes the task, so the row commits or rolls back with the
+// task itself, and a failure here fails the workflow call rather than leaving the
+// inbox wrong. TaskInboxBackfill rebuilds the table from Flowable at startup.
+@Component
+public class TaskInboxListener extends AbstractFlowableEventListener
+        implements EngineConfigurationConfigurer<SpringProcessEngineConfiguration> {
+
+    private final TaskInboxRepository taskInboxRepository;
+
+    public TaskInboxListener(TaskInboxRepository taskInboxRepository) {
+        this.taskInboxRepository = taskInboxRepository;
+    }
+
+    @Override
+    public void configure(SpringProcessEngineConfiguration engineConfiguration) {
+        List<FlowableEventListener> listeners = new ArrayList<>();
+        if (engineConfiguration.getEventListeners() != null) {
+            listeners.addAll(engineConfiguration.getEventListeners());
+        }
+        listeners.add(this);
+        engineConfiguration.setEventListeners(listeners);
+    }
+
+    @Override
+    public void onEvent(FlowableEvent event) {
+        if (!(event instanceof FlowableEntityEvent entityEvent) || !(entityEvent.getEntity() instanceof DelegateTask task)) {
+            return;
+        }
+        if (event.getType() == FlowableEngineEventType.TASK_CREATED
+                || event.getType() == FlowableEngineEventType.TASK_ASSIGNED) {
+            // Candidates and start variables are in place by the time TASK_CREATED fires
+            taskInboxRepository.save(entry(task));
+        } else if (event.getType() == FlowableEngineEventType.TASK_COMPLETED
+                || event.getType() == FlowableEngineEventType.ENTITY_DELETED) {
+            taskInboxRepository.delete(task.getId());
+        }
+    }
+
+    @Override
+    public boolean isFailOnException() {
+        return true;
+    }
+
+    private static TaskInboxEntry entry(DelegateTask task) {
+        String candidateGroup = null;
+        for (IdentityLink candidate : task.getCandidates()) {
+            if (candidate.getGroupId() != null) {
+                candidateGroup = candidate.getGroupId();
+                break;
+            }
+        }
+        // Process variables through the task's execution; ad-hoc tasks have none
+        boolean inProcess = task.getProcessInstanceId() != null;
+        return new TaskInboxEntry(null, task.getId(), task.getName(), task.getTaskDefinitionKey(),
+                inProcess ? toLong(task.getVariable("caseId")) : null,
+                inProcess ? toLong(task.getVariable("clientID")) : null,
+                task.getProcessInstanceId(), candidateGroup, task.getAssignee(),
+                task.getCreateTime() != null
+                        ? LocalDateTime.ofInstant(task.getCreateTime().toInstant(), ZoneId.systemDefault())
+                        : null);
+    }
+
+    static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.valueOf(value.toString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
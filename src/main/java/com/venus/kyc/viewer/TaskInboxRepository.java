@@ -0,0 +1,193 @@
+package com.venus.kyc.viewer;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+// The TaskInbox table: open tasks with the case, client and candidate group they
+// belong to, written by TaskInboxListener and read by the inboxes and the
+// transition lookup instead of Flowable task queries with process variables.
+@Repository
+public class TaskInboxRepository {
+
+    // Inbox pages; null fields don't filter. A user's inbox is the tasks assigned to
+    // them plus the unclaimed tasks of their groups, as in Flowable's own
+    // assignee-or-candidate query.
+    public record Filter(String user, Collection<String> groups, String assignee, String candidateGroup) {
+
+        public static Filter inboxOf(String user, Collection<String> groups) {
+            return new Filter(user, groups, null, null);
+        }
+
+        public static Filter all(String assignee, String candidateGroup) {
+            return new Filter(null, null, assignee, candidateGroup);
+        }
+    }
+
+    private static final String COLUMNS = "InboxID, TaskID, TaskName AS Name, Stage, CaseID, ClientID, ProcessInstanceID, CandidateGroup, Assignee, CreatedDate AS CreateTime";
+    private static final String INSERT = "INSERT INTO TaskInbox (TaskID, TaskName, Stage, CaseID, ClientID, ProcessInstanceID, CandidateGroup, Assignee, CreatedDate) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcClient jdbcClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TaskInboxRepository(JdbcClient jdbcClient, JdbcTemplate jdbcTemplate) {
+        this.jdbcClient = jdbcClient;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Keyset page, newest task first; InboxID follows task creation like CaseID does
+    // for cases, so it is the whole seek key
+    public PaginatedResponse<TaskInboxEntry> findPage(Filter filter, String token, int size) {
+        String order = "inboxID:desc";
+        SeekCursor cursor = SeekCursor.decode(token, order);
+        boolean backward = cursor != null && cursor.backward();
+
+        String sql = "SELECT " + COLUMNS + " FROM TaskInbox WHERE 1=1" + where(filter);
+        if (cursor != null) {
+            sql += " AND InboxID " + (backward ? ">" : "<") + " :seekId";
+        }
+        sql += " ORDER BY InboxID " + (backward ? "ASC" : "DESC") + " LIMIT :limit";
+
+        var query = jdbcClient.sql(sql).param("limit", size + 1);
+        bind(query, filter);
+        if (cursor != null) {
+            query.param("seekId", cursor.id());
+        }
+        List<TaskInboxEntry> tasks = new ArrayList<>(query.query(TaskInboxEntry.class).list());
+        boolean more = tasks.size() > size;
+        if (more) {
+            tasks.remove(tasks.size() - 1);
+        }
+        if (backward) {
+            Collections.reverse(tasks);
+        }
+
+        String next = null;
+        String prev = null;
+        if (!tasks.isEmpty()) {
+            if (backward || more) {
+                next = new SeekCursor(order, "", tasks.get(tasks.size() - 1).inboxID(), false).encode();
+            }
+            if (backward ? more : cursor != null) {
+                prev = new SeekCursor(order, "", tasks.get(0).inboxID(), true).encode();
+            }
+        }
+        return PaginatedResponse.ofCursor(tasks, size, -1, next, prev);
+    }
+
+    // The task of a case that the user may complete, if any
+    public Optional<String> findTaskIdForCase(Long caseId, String user, Collection<String> groups) {
+        Filter filter = Filter.inboxOf(user, groups);
+        var query = jdbcClient.sql("SELECT TaskID FROM TaskInbox WHERE CaseID = :caseId" + where(filter)
+                + " ORDER BY InboxID LIMIT 1")
+                .param("caseId", caseId);
+        bind(query, filter);
+        return query.query(String.class).optional();
+    }
+
+    // Inserts or replaces the task's row; InboxID, and so its place in the list, is kept.
+    // Safe to race with another save of the same task, from the listener or the backfill.
+    public void save(TaskInboxEntry task) {
+        if (update(task) == 0) {
+            try {
+                insertAll(List.of(task));
+            } catch (DuplicateKeyException e) {
+                update(task);
+            }
+        }
+    }
+
+    private int update(TaskInboxEntry task) {
+        return jdbcClient.sql("""
+                UPDATE TaskInbox SET TaskName = :name, Stage = :stage, CaseID = :caseId, ClientID = :clientId,
+                    ProcessInstanceID = :processInstanceId, CandidateGroup = :candidateGroup, Assignee = :assignee,
+                    CreatedDate = :createTime
+                WHERE TaskID = :taskId
+                """)
+                .param("name", task.name())
+                .param("stage", task.stage())
+                .param("caseId", task.caseId())
+                .param("clientId", task.clientID())
+                .param("processInstanceId", task.processInstanceId())
+                .param("candidateGroup", task.candidateGroup())
+                .param("assignee", task.assignee())
+                .param("createTime", task.createTime() != null ? Timestamp.valueOf(task.createTime()) : null)
+                .param("taskId", task.taskId())
+                .update();
+    }
+
+    public void delete(String taskId) {
+        jdbcClient.sql("DELETE FROM TaskInbox WHERE TaskID = :taskId")
+                .param("taskId", taskId)
+                .update();
+    }
+
+    public boolean isEmpty() {
+        return jdbcClient.sql("SELECT CASE WHEN EXISTS (SELECT 1 FROM TaskInbox) THEN 0 ELSE 1 END")
+                .query(Integer.class)
+                .single() == 1;
+    }
+
+    // Rows of tasks that are no longer in Flowable's task table
+    public int deleteMissing(String taskTable) {
+        return jdbcClient.sql("DELETE FROM TaskInbox WHERE NOT EXISTS (SELECT 1 FROM " + taskTable
+                + " t WHERE t.ID_ = TaskInbox.TaskID)")
+                .update();
+    }
+
+    public void insertAll(List<TaskInboxEntry> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, tasks, tasks.size(), (ps, task) -> {
+            ps.setString(1, task.taskId());
+            ps.setString(2, task.name());
+            ps.setString(3, task.stage());
+            ps.setObject(4, task.caseId());
+            ps.setObject(5, task.clientID());
+            ps.setString(6, task.processInstanceId());
+            ps.setString(7, task.candidateGroup());
+            ps.setString(8, task.assignee());
+            ps.setTimestamp(9, task.createTime() != null ? Timestamp.valueOf(task.createTime()) : null);
+        });
+    }
+
+    private static String where(Filter filter) {
+        String sql = "";
+        if (filter.user() != null) {
+            sql += filter.groups() == null || filter.groups().isEmpty()
+                    ? " AND Assignee = :user"
+                    : " AND (Assignee = :user OR (Assignee IS NULL AND CandidateGroup IN (:groups)))";
+        }
+        if (filter.assignee() != null) {
+            sql += " AND Assignee = :assignee";
+        }
+        if (filter.candidateGroup() != null) {
+            sql += " AND CandidateGroup = :candidateGroup";
+        }
+        return sql;
+    }
+
+    private static void bind(JdbcClient.StatementSpec query, Filter filter) {
+        if (filter.user() != null) {
+            query.param("user", filter.user());
+            if (filter.groups() != null && !filter.groups().isEmpty()) {
+                query.param("groups", filter.groups());
+            }
+        }
+        if (filter.assignee() != null) {
+            query.param("assignee", filter.assignee());
+        }
+        if (filter.candidateGroup() != null) {
+            query.param("candidateGroup", filter.candidateGroup());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.venus.kyc.viewer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executors.newVirtualThreadPerTaskExecutor is looked up reflectively so the build
+// can keep targeting Java 17. Before Java 21 tasks go to a pool of daemon threads
+// that runs overflow on the submitting thread.
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static ExecutorService executor(String poolName, int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(threads * 64), task -> {
+                        Thread thread = new Thread(task, poolName + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
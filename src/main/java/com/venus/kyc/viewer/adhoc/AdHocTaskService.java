@@ -1,10 +1,12 @@
 package com.venus.kyc.viewer.adhoc;
 
+import com.venus.kyc.viewer.EventHub;
 import org.flowable.engine.TaskService;
 import org.flowable.task.api.Task;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,10 +17,13 @@ public class AdHocTaskService {
 
     private final TaskService taskService;
     private final org.flowable.engine.IdentityService identityService;
+    private final EventHub eventHub;
 
-    public AdHocTaskService(TaskService taskService, org.flowable.engine.IdentityService identityService) {
+    public AdHocTaskService(TaskService taskService, org.flowable.engine.IdentityService identityService,
+            EventHub eventHub) {
         this.taskService = taskService;
         this.identityService = identityService;
+        this.eventHub = eventHub;
     }
 
     @Transactional
@@ -36,6 +41,7 @@ public class AdHocTaskService {
         variables.put("clientID", clientID); // Optional
 
         taskService.setVariablesLocal(task.getId(), variables);
+        eventHub.taskChanged(task.getId(), null, "created", Arrays.asList(requestor, assignee), List.of());
 
         return task.getId();
     }
@@ -69,6 +75,7 @@ public class AdHocTaskService {
 
         // Re-assign to Owner (Requestor)
         taskService.setAssignee(taskId, task.getOwner());
+        eventHub.taskChanged(taskId, null, "responded", Arrays.asList(task.getOwner(), responder), List.of());
     }
 
     @Transactional
@@ -81,9 +88,12 @@ public class AdHocTaskService {
             throw new IllegalStateException("Only the owner can reassign this task");
         }
 
+        String previousAssignee = task.getAssignee();
         taskService.setVariableLocal(taskId, "status", "OPEN");
         task.setAssignee(newAssignee);
         taskService.saveTask(task);
+        eventHub.taskChanged(taskId, null, "reassigned",
+                Arrays.asList(task.getOwner(), previousAssignee, newAssignee), List.of());
     }
 
     @Transactional
@@ -98,6 +108,7 @@ public class AdHocTaskService {
         }
 
         taskService.complete(taskId);
+        eventHub.taskChanged(taskId, null, "completed", Arrays.asList(task.getOwner(), task.getAssignee()), List.of());
     }
 
     public List<Map<String, Object>> getMyTasks(String username) {
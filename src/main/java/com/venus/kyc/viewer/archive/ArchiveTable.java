@@ -0,0 +1,138 @@
+package com.venus.kyc.viewer.archive;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+// The cold tier of one table: its registered segments, oldest first. Times are
+// inclusive bounds on the tiering column, and null means unbounded.
+public class ArchiveTable {
+
+    private static final Comparator<ArchivedRow> ORDER = Comparator.comparing(ArchivedRow::time)
+            .thenComparingLong(ArchivedRow::id);
+
+    private final String name;
+    // Replaced whole, under the AuditArchive lock, so readers see a consistent set
+    private volatile List<Segment> segments = List.of();
+
+    ArchiveTable(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public long rowCount() {
+        long rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.rowCount();
+        }
+        return rows;
+    }
+
+    // The newest time held, or null while the tier is empty
+    public LocalDateTime maxTime() {
+        long max = Long.MIN_VALUE;
+        for (Segment segment : segments) {
+            max = Math.max(max, segment.maxTime());
+        }
+        return max == Long.MIN_VALUE ? null : SegmentWriter.time(max);
+    }
+
+    // Rows in (time, id) order. Segments normally cover consecutive time ranges and
+    // are read one after another; ones that overlap, because older rows turned up
+    // after a later run, are read together and sorted.
+    public void scan(LocalDateTime from, LocalDateTime to, boolean descending, Consumer<ArchivedRow> action) {
+        long low = from == null ? Long.MIN_VALUE : SegmentWriter.micros(from);
+        long high = to == null ? Long.MAX_VALUE : SegmentWriter.micros(to);
+        List<Segment> candidates = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.rowCount() > 0 && segment.maxTime() >= low && segment.minTime() <= high) {
+                candidates.add(segment);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(Segment::minTime));
+
+        List<List<Segment>> runs = new ArrayList<>();
+        long runEnd = Long.MIN_VALUE;
+        for (Segment segment : candidates) {
+            if (runs.isEmpty() || segment.minTime() > runEnd) {
+                runs.add(new ArrayList<>());
+                runEnd = segment.maxTime();
+            } else {
+                runEnd = Math.max(runEnd, segment.maxTime());
+            }
+            runs.get(runs.size() - 1).add(segment);
+        }
+
+        for (int n = 0; n < runs.size(); n++) {
+            List<Segment> run = runs.get(descending ? runs.size() - 1 - n : n);
+            if (run.size() == 1) {
+                run.get(0).scan(low, high, descending, action);
+                continue;
+            }
+            List<ArchivedRow> rows = new ArrayList<>();
+            for (Segment segment : run) {
+                segment.scan(low, high, false, rows::add);
+            }
+            rows.sort(descending ? ORDER.reversed() : ORDER);
+            rows.forEach(action);
+        }
+    }
+
+    public long count(LocalDateTime from, LocalDateTime to) {
+        long low = from == null ? Long.MIN_VALUE : SegmentWriter.micros(from);
+        long high = to == null ? Long.MAX_VALUE : SegmentWriter.micros(to);
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.count(low, high);
+        }
+        return count;
+    }
+
+    public List<ArchivedRow> findByKey(long key) {
+        List<ArchivedRow> rows = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.findByKey(key, rows::add);
+        }
+        return rows;
+    }
+
+    public Map<Long, ArchivedRow> findByIds(Collection<Long> ids) {
+        Map<Long, ArchivedRow> rows = new HashMap<>();
+        if (ids.isEmpty()) {
+            return rows;
+        }
+        NavigableSet<Long> wanted = new TreeSet<>(ids);
+        for (Segment segment : segments) {
+            segment.findByIds(wanted, rows);
+        }
+        return rows;
+    }
+
+    void add(Segment segment) {
+        List<Segment> added = new ArrayList<>(segments);
+        added.add(segment);
+        segments = List.copyOf(added);
+    }
+
+    void replace(List<Segment> loaded) {
+        segments = List.copyOf(loaded);
+    }
+}
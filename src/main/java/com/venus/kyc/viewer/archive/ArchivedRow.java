@@ -0,0 +1,20 @@
+package com.venus.kyc.viewer.archive;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One row of an archived table. 'time' is the column the table is tiered on and
+// 'key' the indexed lookup column (ClientID, or ScreeningLogID for screening
+// results); both can be looked up without decompressing unrelated blocks. The
+// remaining columns are kept as text in the table's column order.
+public record ArchivedRow(long id, LocalDateTime time, Long key, List<String> values) {
+
+    public String value(int column) {
+        return values.get(column);
+    }
+
+    public Long longValue(int column) {
+        String value = values.get(column);
+        return value == null ? null : Long.valueOf(value);
+    }
+}
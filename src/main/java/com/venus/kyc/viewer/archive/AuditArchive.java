@@ -0,0 +1,131 @@
+package com.venus.kyc.viewer.archive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Cold tier of the audit tables: immutable, compressed segment files on local disk
+// under kyc.archive.dir, one directory per table. A segment only counts once it is
+// listed in ArchiveSegments, which AuditArchiver inserts in the same transaction
+// that removes the rows from the hot table, so each row is in exactly one tier.
+//
+// Like the in-memory indexes this is per node: the segments live on this node's
+// disk, so archiving must only be enabled where there is a single node.
+@Component
+public class AuditArchive {
+
+    public static final String MATERIAL_CHANGES = "MaterialChanges";
+    public static final String SCREENING_LOGS = "ScreeningLogs";
+    // ScreeningLogs keyed by a hash of ExternalRequestID, for status lookups
+    public static final String SCREENING_REQUESTS = "ScreeningRequests";
+    public static final String SCREENING_RESULTS = "ScreeningResults";
+    public static final String RISK_ASSESSMENT_LOGS = "RiskAssessmentLogs";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final Map<String, ArchiveTable> tables = new LinkedHashMap<>();
+
+    public AuditArchive(JdbcTemplate jdbcTemplate, @Value("${kyc.archive.dir:archive}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+        for (String table : List.of(MATERIAL_CHANGES, SCREENING_LOGS, SCREENING_REQUESTS, SCREENING_RESULTS,
+                RISK_ASSESSMENT_LOGS)) {
+            tables.put(table, new ArchiveTable(table));
+        }
+    }
+
+    // A registered segment that can't be opened is archived data gone missing, so
+    // it fails startup rather than serving an incomplete audit trail
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        Map<String, List<Segment>> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT TableName, SegmentName FROM ArchiveSegments ORDER BY SegmentID", rs -> {
+            String table = rs.getString(1);
+            Path file = directory.resolve(table).resolve(rs.getString(2));
+            try {
+                loaded.computeIfAbsent(table, t -> new ArrayList<>()).add(Segment.open(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open archive segment " + file, e);
+            }
+        });
+        for (ArchiveTable table : tables.values()) {
+            table.replace(loaded.getOrDefault(table.name(), List.of()));
+        }
+    }
+
+    public ArchiveTable table(String name) {
+        ArchiveTable table = tables.get(name);
+        if (table == null) {
+            throw new IllegalArgumentException("Unknown archive table: " + name);
+        }
+        return table;
+    }
+
+    public List<ArchiveTable> tables() {
+        return List.copyOf(tables.values());
+    }
+
+    // FNV-1a over the UTF-8 bytes, for indexing text columns by ArchivedRow.key
+    public static long textKey(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    Path segmentFile(String table) throws IOException {
+        Path dir = Files.createDirectories(directory.resolve(table));
+        return dir.resolve(table + "-" + System.currentTimeMillis() + "-"
+                + UUID.randomUUID().toString().substring(0, 8) + ".seg");
+    }
+
+    // Runs in the transaction that removes the rows from the hot table
+    void register(String table, Path file, long rows) {
+        jdbcTemplate.update("INSERT INTO ArchiveSegments (TableName, SegmentName, RowsArchived) VALUES (?, ?, ?)",
+                table, file.getFileName().toString(), rows);
+    }
+
+    // After that transaction commits
+    synchronized void publish(String table, Path file) throws IOException {
+        table(table).add(Segment.open(file));
+    }
+
+    // Segment files left behind by a run that failed before its transaction
+    // committed; their rows are still in the hot table
+    synchronized void removeUnregistered() throws IOException {
+        for (String table : tables.keySet()) {
+            Path dir = directory.resolve(table);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            Set<String> registered = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT SegmentName FROM ArchiveSegments WHERE TableName = ?", String.class, table));
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (!registered.contains(file.getFileName().toString())) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.venus.kyc.viewer.archive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Moves audit rows older than kyc.archive.horizon-days out of the hot tables into
+// AuditArchive segments, oldest first, one segment per batch:
+//
+//   1. read a batch of old rows in (time, id) order
+//   2. write the segment file and force it to disk
+//   3. in one transaction, remove the rows from the hot table and register the
+//      segment in ArchiveSegments
+//   4. open the segment for readers
+//
+// A failure before 3 commits leaves the rows hot and an unregistered file, which
+// the next run deletes. Off by default (kyc.archive.enabled), since the segments
+// are on this node's disk; see AuditArchive.
+//
+// MaterialChanges and ScreeningLogs rows move out entirely, screening results with
+// their log. RiskAssessmentLogs rows are referenced by RiskAssessments, so the row
+// stays with ArchivedAt set and only its request/response payloads move.
+@Component
+public class AuditArchiver {
+
+    // Caps the text held in memory for one segment, whatever the row limit
+    private static final long MAX_SEGMENT_CHARS = 64L * 1024 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditArchive archive;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final int segmentRows;
+
+    public AuditArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            AuditArchive archive,
+            @Value("${kyc.archive.enabled:false}") boolean enabled,
+            @Value("${kyc.archive.horizon-days:365}") int horizonDays,
+            @Value("${kyc.archive.segment-rows:50000}") int segmentRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archive = archive;
+        this.enabled = enabled;
+        this.horizonDays = horizonDays;
+        this.segmentRows = segmentRows;
+    }
+
+    @Scheduled(cron = "${kyc.archive.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            archive(LocalDate.now().minusDays(horizonDays).atStartOfDay());
+        }
+    }
+
+    // Archives everything older than 'before'. Returns the rows moved per table.
+    public synchronized Map<String, Long> archive(LocalDateTime before) {
+        try {
+            archive.removeUnregistered();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Long> moved = new LinkedHashMap<>();
+        moved.put(AuditArchive.MATERIAL_CHANGES, drain(() -> archiveMaterialChanges(before)));
+        moved.put(AuditArchive.SCREENING_LOGS, drain(() -> archiveScreeningLogs(before)));
+        moved.put(AuditArchive.RISK_ASSESSMENT_LOGS, drain(() -> archiveRiskAssessmentLogs(before)));
+        return moved;
+    }
+
+    private interface Batch {
+        int run() throws IOException;
+    }
+
+    private static long drain(Batch batch) {
+        long total = 0;
+        try {
+            for (int rows = batch.run(); rows > 0; rows = batch.run()) {
+                total += rows;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return total;
+    }
+
+    private int archiveMaterialChanges(LocalDateTime before) throws IOException {
+        List<ArchivedRow> rows = jdbcTemplate.query(
+                "SELECT ChangeID, ChangeDate, ClientID, EntityID, EntityName, ColumnName, OperationType, OldValue, NewValue FROM MaterialChanges WHERE ChangeDate < ? ORDER BY ChangeDate, ChangeID LIMIT ?",
+                batch(rs -> new ArchivedRow(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(),
+                        rs.getObject(3, Long.class),
+                        values(rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8),
+                                rs.getString(9)))),
+                Timestamp.valueOf(before), segmentRows);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<ArchivedRow>> segments = Map.of(AuditArchive.MATERIAL_CHANGES, rows);
+        commit(segments, () -> jdbcTemplate.batchUpdate("DELETE FROM MaterialChanges WHERE ChangeID = ?",
+                rows, rows.size(), (ps, row) -> ps.setLong(1, row.id())));
+        return rows.size();
+    }
+
+    private int archiveScreeningLogs(LocalDateTime before) throws IOException {
+        List<ArchivedRow> logs = jdbcTemplate.query(
+                "SELECT LogID, CreatedAt, ClientID, RequestPayload, ResponsePayload, OverallStatus, ExternalRequestID FROM ScreeningLogs WHERE CreatedAt < ? ORDER BY CreatedAt, LogID LIMIT ?",
+                batch(rs -> new ArchivedRow(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(),
+                        rs.getObject(3, Long.class),
+                        values(rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7)))),
+                Timestamp.valueOf(before), segmentRows);
+        if (logs.isEmpty()) {
+            return 0;
+        }
+
+        List<ArchivedRow> requests = new ArrayList<>();
+        Map<Long, LocalDateTime> logTimes = new HashMap<>();
+        for (ArchivedRow log : logs) {
+            String externalId = log.value(3);
+            if (externalId != null) {
+                requests.add(new ArchivedRow(log.id(), log.time(), AuditArchive.textKey(externalId),
+                        values(externalId)));
+            }
+            logTimes.put(log.id(), log.time());
+        }
+        // Results take their log's time, so they sit in the same time order
+        Map<Long, List<ArchivedRow>> resultsByLog = new HashMap<>();
+        List<Long> ids = new ArrayList<>(logTimes.keySet());
+        for (int from = 0; from < ids.size(); from += 1000) {
+            List<Long> chunk = ids.subList(from, Math.min(from + 1000, ids.size()));
+            jdbcTemplate.query("SELECT ResultID, ScreeningLogID, ContextType, Status, AlertStatus, AlertMessage, AlertID FROM ScreeningResults WHERE ScreeningLogID IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY ResultID",
+                    rs -> {
+                        long logId = rs.getLong(2);
+                        resultsByLog.computeIfAbsent(logId, k -> new ArrayList<>())
+                                .add(new ArchivedRow(rs.getLong(1), logTimes.get(logId), logId,
+                                        values(rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6),
+                                                rs.getString(7))));
+                    }, chunk.toArray());
+        }
+        List<ArchivedRow> results = new ArrayList<>();
+        for (ArchivedRow log : logs) {
+            results.addAll(resultsByLog.getOrDefault(log.id(), List.of()));
+        }
+
+        Map<String, List<ArchivedRow>> segments = new LinkedHashMap<>();
+        segments.put(AuditArchive.SCREENING_LOGS, logs);
+        segments.put(AuditArchive.SCREENING_REQUESTS, requests);
+        segments.put(AuditArchive.SCREENING_RESULTS, results);
+        commit(segments, () -> {
+            jdbcTemplate.batchUpdate("DELETE FROM ScreeningResults WHERE ScreeningLogID = ?", logs, logs.size(),
+                    (ps, log) -> ps.setLong(1, log.id()));
+            jdbcTemplate.batchUpdate("DELETE FROM ScreeningLogs WHERE LogID = ?", logs, logs.size(),
+                    (ps, log) -> ps.setLong(1, log.id()));
+        });
+        return logs.size();
+    }
+
+    private int archiveRiskAssessmentLogs(LocalDateTime before) throws IOException {
+        List<ArchivedRow> rows = jdbcTemplate.query(
+                "SELECT LogID, CreatedAt, RequestJSON, ResponseJSON, Status FROM RiskAssessmentLogs WHERE CreatedAt < ? AND ArchivedAt IS NULL ORDER BY CreatedAt, LogID LIMIT ?",
+                batch(rs -> new ArchivedRow(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), null,
+                        values(rs.getString(3), rs.getString(4), rs.getString(5)))),
+                Timestamp.valueOf(before), segmentRows);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<ArchivedRow>> segments = Map.of(AuditArchive.RISK_ASSESSMENT_LOGS, rows);
+        commit(segments, () -> jdbcTemplate.batchUpdate(
+                "UPDATE RiskAssessmentLogs SET RequestJSON = NULL, ResponseJSON = NULL, ArchivedAt = CURRENT_TIMESTAMP WHERE LogID = ?",
+                rows, rows.size(), (ps, row) -> ps.setLong(1, row.id())));
+        return rows.size();
+    }
+
+    private void commit(Map<String, List<ArchivedRow>> segments, Runnable removeHotRows) throws IOException {
+        Map<String, Path> files = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, List<ArchivedRow>> segment : segments.entrySet()) {
+                if (segment.getValue().isEmpty()) {
+                    continue;
+                }
+                Path file = archive.segmentFile(segment.getKey());
+                SegmentWriter.write(file, segment.getValue());
+                files.put(segment.getKey(), file);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                removeHotRows.run();
+                for (Map.Entry<String, Path> file : files.entrySet()) {
+                    archive.register(file.getKey(), file.getValue(), segments.get(file.getKey()).size());
+                }
+            });
+        } catch (RuntimeException | IOException e) {
+            for (Path file : files.values()) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            archive.publish(file.getKey(), file.getValue());
+        }
+    }
+
+    private interface RowReader {
+        ArchivedRow read(ResultSet rs) throws SQLException;
+    }
+
+    // Reads up to the LIMIT, stopping early once the batch holds MAX_SEGMENT_CHARS
+    // of text; what is left stays hot for the next batch
+    private static ResultSetExtractor<List<ArchivedRow>> batch(RowReader reader) {
+        return rs -> {
+            List<ArchivedRow> rows = new ArrayList<>();
+            long chars = 0;
+            while (chars < MAX_SEGMENT_CHARS && rs.next()) {
+                ArchivedRow row = reader.read(rs);
+                for (String value : row.values()) {
+                    chars += value == null ? 0 : value.length();
+                }
+                rows.add(row);
+            }
+            return rows;
+        };
+    }
+
+    private static List<String> values(String... values) {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+}
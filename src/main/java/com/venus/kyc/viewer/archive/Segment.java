@@ -0,0 +1,227 @@
+package com.venus.kyc.viewer.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Read side of a segment written by SegmentWriter. The file is mapped read-only and
+// only the footer is parsed up front; blocks are inflated straight from the mapping
+// when a lookup can't rule them out from the block table or key index. Segments are
+// never modified or deleted once registered, so the mapping lives as long as the
+// process.
+final class Segment {
+
+    private static final int BLOCK_ENTRY_BYTES = 8 + 4 + 4 + 4 + 8 * 4;
+    private static final int KEY_ENTRY_BYTES = 8 + 4;
+
+    private final String name;
+    private final MappedByteBuffer data;
+    private final int blockCount;
+    private final int blockTable;
+    private final int keyCount;
+    private final int keyTable;
+    private final long rowCount;
+    private final long minTime;
+    private final long maxTime;
+
+    private Segment(String name, MappedByteBuffer data) {
+        this.name = name;
+        this.data = data;
+        int size = data.capacity();
+        if (size < 32 || data.getLong(0) != SegmentWriter.MAGIC || data.getLong(size - 8) != SegmentWriter.MAGIC) {
+            throw new IllegalStateException("Not a complete archive segment: " + name);
+        }
+        int footer = (int) data.getLong(size - 16);
+        blockCount = data.getInt(footer);
+        blockTable = footer + 4;
+        int keys = blockTable + blockCount * BLOCK_ENTRY_BYTES;
+        keyCount = data.getInt(keys);
+        keyTable = keys + 4;
+        long rows = 0;
+        for (int i = 0; i < blockCount; i++) {
+            rows += rows(i);
+        }
+        rowCount = rows;
+        minTime = blockCount == 0 ? Long.MAX_VALUE : minTime(0);
+        maxTime = blockCount == 0 ? Long.MIN_VALUE : maxTime(blockCount - 1);
+    }
+
+    static Segment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Segment(file.getFileName().toString(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    long minTime() {
+        return minTime;
+    }
+
+    long maxTime() {
+        return maxTime;
+    }
+
+    // Blocks are in time order, as are the rows within them
+    void scan(long from, long to, boolean descending, Consumer<ArchivedRow> action) {
+        if (from > maxTime || to < minTime) {
+            return;
+        }
+        for (int n = 0; n < blockCount; n++) {
+            int block = descending ? blockCount - 1 - n : n;
+            if (maxTime(block) < from || minTime(block) > to) {
+                continue;
+            }
+            List<ArchivedRow> rows = decode(block);
+            for (int r = 0; r < rows.size(); r++) {
+                ArchivedRow row = rows.get(descending ? rows.size() - 1 - r : r);
+                long time = SegmentWriter.micros(row.time());
+                if (time >= from && time <= to) {
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    long count(long from, long to) {
+        if (from > maxTime || to < minTime) {
+            return 0;
+        }
+        if (from <= minTime && to >= maxTime) {
+            return rowCount;
+        }
+        long count = 0;
+        for (int block = 0; block < blockCount; block++) {
+            if (maxTime(block) < from || minTime(block) > to) {
+                continue;
+            }
+            if (minTime(block) >= from && maxTime(block) <= to) {
+                count += rows(block);
+                continue;
+            }
+            for (ArchivedRow row : decode(block)) {
+                long time = SegmentWriter.micros(row.time());
+                if (time >= from && time <= to) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    void findByKey(long key, Consumer<ArchivedRow> action) {
+        // First index entry for the key; entries for one key are in block order
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (data.getLong(keyTable + mid * KEY_ENTRY_BYTES) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < keyCount && data.getLong(keyTable + i * KEY_ENTRY_BYTES) == key; i++) {
+            for (ArchivedRow row : decode(data.getInt(keyTable + i * KEY_ENTRY_BYTES + 8))) {
+                if (row.key() != null && row.key() == key) {
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    // Each block whose id range holds a wanted id is decoded once
+    void findByIds(NavigableSet<Long> ids, Map<Long, ArchivedRow> found) {
+        for (int block = 0; block < blockCount; block++) {
+            if (ids.subSet(minId(block), true, maxId(block), true).isEmpty()) {
+                continue;
+            }
+            for (ArchivedRow row : decode(block)) {
+                if (ids.contains(row.id())) {
+                    found.put(row.id(), row);
+                }
+            }
+        }
+    }
+
+    private List<ArchivedRow> decode(int block) {
+        int entry = blockTable + block * BLOCK_ENTRY_BYTES;
+        int offset = (int) data.getLong(entry);
+        int compressed = data.getInt(entry + 8);
+        int raw = data.getInt(entry + 12);
+        int count = data.getInt(entry + 16);
+
+        byte[] bytes = new byte[raw];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice(offset, compressed));
+            int read = 0;
+            while (read < raw && !inflater.finished()) {
+                read += inflater.inflate(bytes, read, raw - read);
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt block " + block + " in " + name, e));
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        List<ArchivedRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = in.getLong();
+            long micros = in.getLong();
+            long key = in.getLong();
+            int columns = in.getShort();
+            List<String> values = new ArrayList<>(columns);
+            for (int c = 0; c < columns; c++) {
+                int length = in.getInt();
+                if (length < 0) {
+                    values.add(null);
+                } else {
+                    values.add(new String(bytes, in.position(), length, StandardCharsets.UTF_8));
+                    in.position(in.position() + length);
+                }
+            }
+            rows.add(new ArchivedRow(id, SegmentWriter.time(micros), key == Long.MIN_VALUE ? null : key, values));
+        }
+        return rows;
+    }
+
+    private int rows(int block) {
+        return data.getInt(blockTable + block * BLOCK_ENTRY_BYTES + 16);
+    }
+
+    private long minTime(int block) {
+        return data.getLong(blockTable + block * BLOCK_ENTRY_BYTES + 20);
+    }
+
+    private long maxTime(int block) {
+        return data.getLong(blockTable + block * BLOCK_ENTRY_BYTES + 28);
+    }
+
+    private long minId(int block) {
+        return data.getLong(blockTable + block * BLOCK_ENTRY_BYTES + 36);
+    }
+
+    private long maxId(int block) {
+        return data.getLong(blockTable + block * BLOCK_ENTRY_BYTES + 44);
+    }
+}
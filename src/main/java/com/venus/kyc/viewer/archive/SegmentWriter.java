@@ -0,0 +1,152 @@
+package com.venus.kyc.viewer.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+// Writes an immutable segment file:
+//
+//   "KYCSEG01"
+//   block*                 deflate-compressed rows, BLOCK_ROWS at a time
+//   footer                 block table (offset, sizes, row count, time and id
+//                          ranges), then the (key, block) index sorted by key
+//   footer offset, "KYCSEG01"
+//
+// Rows must arrive ordered by time, so each block covers a narrow time range. The
+// file is written under a temporary name, forced to disk and renamed, so a segment
+// either exists complete or not at all.
+final class SegmentWriter {
+
+    static final long MAGIC = 0x4B59435345473031L; // "KYCSEG01"
+    static final int BLOCK_ROWS = 512;
+
+    private SegmentWriter() {
+    }
+
+    static void write(Path file, List<ArchivedRow> rows) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<long[]> blocks = new ArrayList<>();
+        List<long[]> keys = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeLong(channel, MAGIC);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                for (int from = 0; from < rows.size(); from += BLOCK_ROWS) {
+                    List<ArchivedRow> block = rows.subList(from, Math.min(from + BLOCK_ROWS, rows.size()));
+                    byte[] raw = encode(block);
+                    deflater.reset();
+                    deflater.setInput(raw);
+                    deflater.finish();
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+                    byte[] buffer = new byte[64 * 1024];
+                    while (!deflater.finished()) {
+                        compressed.write(buffer, 0, deflater.deflate(buffer));
+                    }
+                    long offset = channel.position();
+                    channel.write(ByteBuffer.wrap(compressed.toByteArray()));
+
+                    long minId = Long.MAX_VALUE;
+                    long maxId = Long.MIN_VALUE;
+                    for (ArchivedRow row : block) {
+                        minId = Math.min(minId, row.id());
+                        maxId = Math.max(maxId, row.id());
+                        if (row.key() != null) {
+                            keys.add(new long[] { row.key(), blocks.size() });
+                        }
+                    }
+                    blocks.add(new long[] { offset, compressed.size(), raw.length, block.size(),
+                            micros(block.get(0).time()), micros(block.get(block.size() - 1).time()), minId, maxId });
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long footerOffset = channel.position();
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeInt(blocks.size());
+            for (long[] block : blocks) {
+                footer.writeLong(block[0]);
+                footer.writeInt((int) block[1]);
+                footer.writeInt((int) block[2]);
+                footer.writeInt((int) block[3]);
+                for (int i = 4; i < 8; i++) {
+                    footer.writeLong(block[i]);
+                }
+            }
+            keys.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            List<long[]> distinct = new ArrayList<>();
+            for (long[] key : keys) {
+                long[] last = distinct.isEmpty() ? null : distinct.get(distinct.size() - 1);
+                if (last == null || last[0] != key[0] || last[1] != key[1]) {
+                    distinct.add(key);
+                }
+            }
+            footer.writeInt(distinct.size());
+            for (long[] key : distinct) {
+                footer.writeLong(key[0]);
+                footer.writeInt((int) key[1]);
+            }
+            footer.writeLong(footerOffset);
+            footer.writeLong(MAGIC);
+            footer.flush();
+            channel.write(ByteBuffer.wrap(footerBytes.toByteArray()));
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Times are stored as microseconds on the local time line, with no zone applied
+    static long micros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1000;
+    }
+
+    static LocalDateTime time(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC);
+    }
+
+    // Per row: id, time in micros, key (Long.MIN_VALUE for none), then each value as
+    // a length-prefixed UTF-8 string, -1 for NULL. No 64K limit, unlike writeUTF,
+    // since request/response payloads can be large.
+    private static byte[] encode(List<ArchivedRow> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (ArchivedRow row : rows) {
+            out.writeLong(row.id());
+            out.writeLong(micros(row.time()));
+            out.writeLong(row.key() != null ? row.key() : Long.MIN_VALUE);
+            out.writeShort(row.values().size());
+            for (String value : row.values()) {
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeLong(FileChannel channel, long value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(value);
+        buffer.flip();
+        channel.write(buffer);
+    }
+}
@@ -0,0 +1,22 @@
+package com.venus.kyc.viewer.documents;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+
+// Where case document content lives, addressed by the SHA-256 of the bytes. SQL
+// keeps the metadata and the digest; identical uploads share one copy, and stored
+// content never changes, so it can be cached indefinitely.
+public interface DocumentStore {
+
+    record Stored(String contentHash, long contentLength) {
+    }
+
+    // Reads content to the end without holding it in memory
+    Stored store(InputStream content) throws IOException;
+
+    boolean contains(String contentHash);
+
+    // Writes count bytes of the content, starting at position, to out
+    void transferTo(String contentHash, long position, long count, WritableByteChannel out) throws IOException;
+}
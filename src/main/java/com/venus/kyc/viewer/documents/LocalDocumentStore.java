@@ -0,0 +1,110 @@
+package com.venus.kyc.viewer.documents;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+
+// DocumentStore on local disk under kyc.documents.dir, one file per digest in
+// two levels of fan-out directories (ab/cd/abcd...). An upload is written to a
+// temporary file while it is hashed, then renamed into place, or dropped if that
+// content is already stored. Like the audit archive this is per node.
+@Component
+public class LocalDocumentStore implements DocumentStore {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+
+    public LocalDocumentStore(@Value("${kyc.documents.dir:documents}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    @Override
+    public Stored store(InputStream content) throws IOException {
+        Path incoming = Files.createDirectories(directory.resolve("incoming"));
+        Path temp = incoming.resolve(UUID.randomUUID() + ".tmp");
+        MessageDigest digest = sha256();
+        long length = 0;
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_BYTES];
+                for (int read = content.read(buffer); read >= 0; read = content.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                    length += read;
+                }
+                out.force(true);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path file = file(hash);
+            if (!Files.exists(file)) {
+                Files.createDirectories(file.getParent());
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored by a concurrent upload of the same content
+                }
+            }
+            return new Stored(hash, length);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean contains(String contentHash) {
+        return Files.isRegularFile(file(contentHash));
+    }
+
+    // FileChannel.transferTo lets the OS copy straight from the page cache when the
+    // target is a socket or file; for other channels the JDK copies through a buffer
+    @Override
+    public void transferTo(String contentHash, long position, long count, WritableByteChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(file(contentHash), StandardOpenOption.READ)) {
+            long end = position + count;
+            for (long at = position; at < end;) {
+                long sent = in.transferTo(at, end - at, out);
+                if (sent <= 0) {
+                    throw new EOFException("Document " + contentHash + " is shorter than " + end + " bytes");
+                }
+                at += sent;
+            }
+        }
+    }
+
+    private Path file(String contentHash) {
+        String hash = contentHash.toLowerCase(Locale.ROOT);
+        if (hash.length() != 64 || !hash.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+            throw new IllegalArgumentException("Not a SHA-256 content hash: " + contentHash);
+        }
+        return directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
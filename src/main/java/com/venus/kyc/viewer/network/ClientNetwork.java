@@ -0,0 +1,13 @@
+package com.venus.kyc.viewer.network;
+
+import java.util.List;
+
+// Nodes reachable from a root within 'depth' client hops, in breadth-first order.
+// A node's level is the number of other clients crossed to reach it; 'via' is the
+// node it was first reached from (null for the root), so following it back gives
+// a shortest chain to the root.
+public record ClientNetwork(String root, int depth, boolean truncated, List<Node> nodes) {
+
+    public record Node(String id, String type, Long clientID, int level, String via) {
+    }
+}
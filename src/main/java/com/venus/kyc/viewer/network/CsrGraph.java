@@ -0,0 +1,85 @@
+package com.venus.kyc.viewer.network;
+
+import java.util.Arrays;
+
+// Immutable undirected adjacency in compressed sparse row form: the neighbours of
+// node n are targets[offsets[n] .. offsets[n + 1]), sorted and de-duplicated. Two
+// int arrays for the whole graph instead of a list object per node.
+final class CsrGraph {
+
+    static final CsrGraph EMPTY = new CsrGraph(new int[1], new int[0]);
+
+    private final int[] offsets;
+    private final int[] targets;
+
+    private CsrGraph(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    int nodeCount() {
+        return offsets.length - 1;
+    }
+
+    // Each undirected edge is stored once per endpoint
+    int edgeCount() {
+        return targets.length / 2;
+    }
+
+    // Range of node's neighbours in target(); nodes added after the build have none
+    int start(int node) {
+        return node < nodeCount() ? offsets[node] : 0;
+    }
+
+    int end(int node) {
+        return node < nodeCount() ? offsets[node + 1] : 0;
+    }
+
+    int target(int index) {
+        return targets[index];
+    }
+
+    boolean contains(int from, int to) {
+        return Arrays.binarySearch(targets, start(from), end(from), to) >= 0;
+    }
+
+    // Builds the graph from 'edges' undirected edges (from[i], to[i]); duplicates
+    // and self-loops are dropped.
+    static CsrGraph build(int nodeCount, int[] from, int[] to, int edges) {
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i < edges; i++) {
+            if (from[i] != to[i]) {
+                offsets[from[i] + 1]++;
+                offsets[to[i] + 1]++;
+            }
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+        int[] targets = new int[offsets[nodeCount]];
+        int[] fill = Arrays.copyOf(offsets, nodeCount);
+        for (int i = 0; i < edges; i++) {
+            if (from[i] != to[i]) {
+                targets[fill[from[i]]++] = to[i];
+                targets[fill[to[i]]++] = from[i];
+            }
+        }
+
+        // Sort each row and squeeze out duplicates in place
+        int write = 0;
+        int rowStart = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            int rowEnd = offsets[n + 1];
+            Arrays.sort(targets, rowStart, rowEnd);
+            offsets[n] = write;
+            for (int i = rowStart; i < rowEnd; i++) {
+                if (i == rowStart || targets[i] != targets[i - 1]) {
+                    targets[write++] = targets[i];
+                }
+            }
+            rowStart = rowEnd;
+        }
+        offsets[nodeCount] = write;
+        return new CsrGraph(offsets, write == targets.length ? targets : Arrays.copyOf(targets, write));
+    }
+}
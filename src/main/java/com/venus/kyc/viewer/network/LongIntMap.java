@@ -0,0 +1,73 @@
+package com.venus.kyc.viewer.network;
+
+import java.util.Arrays;
+
+// Open-addressing map from long keys to non-negative int values without boxing.
+// Used for ClientID/RelatedPartyID -> node lookups and per-query visited sets.
+final class LongIntMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap() {
+        this(16);
+    }
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    // The value for key, or -1 when absent
+    int get(long key) {
+        int slot = slot(keys, key);
+        return keys[slot] == EMPTY ? -1 : values[slot];
+    }
+
+    void put(long key, int value) {
+        int slot = slot(keys, key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slot(keys, key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        values = new int[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int slot(long[] keys, long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int mask = keys.length - 1;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
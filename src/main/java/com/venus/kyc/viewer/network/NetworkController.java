@@ -0,0 +1,89 @@
+package com.venus.kyc.viewer.network;
+
+import com.venus.kyc.viewer.ClientView;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Ownership network traversals, served from OwnershipGraph. Under /api/clients so
+// the VIEW_CLIENTS rule applies; callers without sensitive data only see the linked
+// clients, since related parties and identifiers are masked for them everywhere else.
+// Looking a network up by identifier needs sensitive data, as it tells which clients
+// hold that identifier.
+@RestController
+@RequestMapping("/api/clients")
+public class NetworkController {
+
+    static final int MAX_DEPTH = 6;
+
+    private final OwnershipGraph graph;
+
+    public NetworkController(OwnershipGraph graph) {
+        this.graph = graph;
+    }
+
+    @GetMapping("/{id}/network")
+    public ResponseEntity<ClientNetwork> getClientNetwork(@PathVariable Long id,
+            @RequestParam(defaultValue = "2") int depth, Authentication authentication) {
+        return respond(() -> graph.clientNetwork(id, depth), depth, authentication);
+    }
+
+    @GetMapping("/related-parties/{id}/network")
+    public ResponseEntity<ClientNetwork> getRelatedPartyNetwork(@PathVariable Long id,
+            @RequestParam(defaultValue = "2") int depth, Authentication authentication) {
+        return respond(() -> graph.relatedPartyNetwork(id, depth), depth, authentication);
+    }
+
+    @GetMapping("/network/identifier")
+    public ResponseEntity<ClientNetwork> getIdentifierNetwork(@RequestParam String type,
+            @RequestParam String value, @RequestParam(defaultValue = "2") int depth,
+            Authentication authentication) {
+        if (!ClientView.canViewSensitiveData(authentication)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Identifier lookup requires VIEW_SENSITIVE_DATA");
+        }
+        return respond(() -> graph.identifierNetwork(type, value, depth), depth, authentication);
+    }
+
+    private ResponseEntity<ClientNetwork> respond(Supplier<Optional<ClientNetwork>> traversal, int depth,
+            Authentication authentication) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "depth must be between 0 and " + MAX_DEPTH);
+        }
+        if (!graph.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Ownership graph is still building");
+        }
+        return traversal.get()
+                .map(network -> ClientView.canViewSensitiveData(authentication) ? network : clientsOnly(network))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Drops related-party and identifier nodes, the root included, pointing each
+    // client's 'via' at the nearest client on its chain instead (null when there is none)
+    private static ClientNetwork clientsOnly(ClientNetwork network) {
+        Map<String, String> visibleVia = new HashMap<>();
+        List<ClientNetwork.Node> clients = new ArrayList<>();
+        for (ClientNetwork.Node node : network.nodes()) {
+            String via = node.via() == null ? null : visibleVia.get(node.via());
+            boolean visible = "CLIENT".equals(node.type());
+            visibleVia.put(node.id(), visible ? node.id() : via);
+            if (visible) {
+                clients.add(new ClientNetwork.Node(node.id(), node.type(), node.clientID(), node.level(), via));
+            }
+        }
+        return new ClientNetwork(network.root(), network.depth(), network.truncated(), clients);
+    }
+}
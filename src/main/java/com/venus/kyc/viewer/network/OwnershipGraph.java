@@ -0,0 +1,414 @@
+package com.venus.kyc.viewer.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+// In-process graph of clients, their related parties and the identifiers both
+// carry, for UBO questions ("which clients share this party or passport", "walk
+// the control chain N levels") without recursive SQL. Edges are client - related
+// party (RelatedParties.ClientID), client - identifier and related party -
+// identifier; identifiers with the same normalised type and value are one node,
+// which is what links a party of one client to another client.
+//
+// The bulk of the edges live in a CsrGraph built once the application is up. Writes
+// go to small per-node delta arrays that are folded into a fresh CsrGraph when they
+// reach an eighth of its size. As with ClientNameIndex, writes that race with the
+// build are replayed on top of it.
+@Component
+public class OwnershipGraph {
+
+    static final int COMPACT_MIN_DELTA_EDGES = 1024;
+
+    private static final byte CLIENT = 0;
+    private static final byte RELATED_PARTY = 1;
+    private static final byte IDENTIFIER = 2;
+
+    private static final long NO_OWNER = Long.MIN_VALUE;
+
+    private static final Logger log = LoggerFactory.getLogger(OwnershipGraph.class);
+
+    private interface Mutation {
+        void apply(State state);
+    }
+
+    private final JdbcClient jdbcClient;
+    private final int maxNodes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private State state;
+    private List<Mutation> pendingDuringBuild;
+
+    public OwnershipGraph(JdbcClient jdbcClient, @Value("${kyc.network.max-nodes:5000}") int maxNodes) {
+        this.jdbcClient = jdbcClient;
+        this.maxNodes = maxNodes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long start = System.currentTimeMillis();
+        State built = new State();
+        IntList from = new IntList();
+        IntList to = new IntList();
+        jdbcClient.sql("SELECT ClientID FROM Clients")
+                .query((RowCallbackHandler) rs -> built.client(rs.getLong(1)));
+        jdbcClient.sql("SELECT RelatedPartyID, ClientID FROM RelatedParties")
+                .query((RowCallbackHandler) rs -> {
+                    long partyId = rs.getLong(1);
+                    long clientId = rs.getLong(2);
+                    if (rs.wasNull()) {
+                        built.party(partyId, NO_OWNER);
+                    } else {
+                        from.add(built.client(clientId));
+                        to.add(built.party(partyId, clientId));
+                    }
+                });
+        jdbcClient.sql("SELECT ClientID, IdentifierType, IdentifierValue FROM ClientIdentifiers WHERE ClientID IS NOT NULL")
+                .query((RowCallbackHandler) rs -> {
+                    String key = identifierKey(rs.getString(2), rs.getString(3));
+                    if (key != null) {
+                        from.add(built.client(rs.getLong(1)));
+                        to.add(built.identifier(key));
+                    }
+                });
+        jdbcClient.sql("SELECT RelatedPartyID, IdentifierType, IdentifierValue FROM RelatedPartyIdentifiers WHERE RelatedPartyID IS NOT NULL")
+                .query((RowCallbackHandler) rs -> {
+                    String key = identifierKey(rs.getString(2), rs.getString(3));
+                    if (key != null) {
+                        from.add(built.party(rs.getLong(1), NO_OWNER));
+                        to.add(built.identifier(key));
+                    }
+                });
+        built.base = CsrGraph.build(built.nodeCount, from.values, to.values, from.size);
+
+        lock.writeLock().lock();
+        try {
+            // Writes that raced with the scans may already be in them; edges are de-duplicated
+            for (Mutation mutation : pendingDuringBuild) {
+                mutation.apply(built);
+            }
+            pendingDuringBuild = null;
+            state = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Ownership graph built: {} nodes, {} edges in {} ms", built.nodeCount, built.base.edgeCount(),
+                System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return state != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addClient(long clientId) {
+        apply(s -> s.client(clientId));
+    }
+
+    public void addRelatedParty(long clientId, long relatedPartyId) {
+        apply(s -> s.addEdge(s.client(clientId), s.party(relatedPartyId, clientId)));
+    }
+
+    public void addClientIdentifier(long clientId, String type, String value) {
+        String key = identifierKey(type, value);
+        if (key != null) {
+            apply(s -> s.addEdge(s.client(clientId), s.identifier(key)));
+        }
+    }
+
+    public void addRelatedPartyIdentifier(long relatedPartyId, String type, String value) {
+        String key = identifierKey(type, value);
+        if (key != null) {
+            apply(s -> s.addEdge(s.party(relatedPartyId, NO_OWNER), s.identifier(key)));
+        }
+    }
+
+    // Empty when the graph isn't built yet or doesn't know the root
+    public Optional<ClientNetwork> clientNetwork(long clientId, int depth) {
+        return traverse(s -> s.clients.get(clientId), depth);
+    }
+
+    public Optional<ClientNetwork> relatedPartyNetwork(long relatedPartyId, int depth) {
+        return traverse(s -> s.parties.get(relatedPartyId), depth);
+    }
+
+    public Optional<ClientNetwork> identifierNetwork(String type, String value, int depth) {
+        String key = identifierKey(type, value);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return traverse(s -> s.identifiers.getOrDefault(key, -1), depth);
+    }
+
+    private Optional<ClientNetwork> traverse(ToIntFunction<State> root, int depth) {
+        lock.readLock().lock();
+        try {
+            if (state == null) {
+                return Optional.empty();
+            }
+            int node = root.applyAsInt(state);
+            return node < 0 ? Optional.empty() : Optional.of(state.traverse(node, depth, maxNodes));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Mutation mutation) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.add(mutation);
+            }
+            if (state != null) {
+                mutation.apply(state);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // TYPE:VALUE with the value's whitespace removed and both upper-cased, so
+    // "ch 123 456" and "CH123456" meet; null for a blank value
+    static String identifierKey(String type, String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder normalised = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalised.append(Character.toUpperCase(c));
+            }
+        }
+        if (normalised.length() == 0) {
+            return null;
+        }
+        String normalisedType = type == null ? "" : type.trim().toUpperCase(Locale.ROOT);
+        return normalisedType + ":" + normalised;
+    }
+
+    private static final class State {
+
+        final LongIntMap clients = new LongIntMap(1024);
+        final LongIntMap parties = new LongIntMap(1024);
+        final Map<String, Integer> identifiers = new HashMap<>();
+        final List<String> identifierKeys = new ArrayList<>();
+
+        // Per node: kind, ClientID / RelatedPartyID / index into identifierKeys, and
+        // for related parties the owning ClientID
+        byte[] kinds = new byte[1024];
+        long[] ids = new long[1024];
+        long[] owners = new long[1024];
+        int nodeCount;
+
+        CsrGraph base = CsrGraph.EMPTY;
+        int[][] delta = new int[1024][];
+        int[] deltaSize = new int[1024];
+        int deltaEdges;
+
+        int client(long clientId) {
+            int node = clients.get(clientId);
+            if (node < 0) {
+                node = newNode(CLIENT, clientId, NO_OWNER);
+                clients.put(clientId, node);
+            }
+            return node;
+        }
+
+        int party(long partyId, long clientId) {
+            int node = parties.get(partyId);
+            if (node < 0) {
+                node = newNode(RELATED_PARTY, partyId, clientId);
+                parties.put(partyId, node);
+            } else if (owners[node] == NO_OWNER) {
+                owners[node] = clientId;
+            }
+            return node;
+        }
+
+        int identifier(String key) {
+            Integer node = identifiers.get(key);
+            if (node == null) {
+                node = newNode(IDENTIFIER, identifierKeys.size(), NO_OWNER);
+                identifierKeys.add(key);
+                identifiers.put(key, node);
+            }
+            return node;
+        }
+
+        private int newNode(byte kind, long id, long owner) {
+            if (nodeCount == kinds.length) {
+                int capacity = kinds.length * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                owners = Arrays.copyOf(owners, capacity);
+                delta = Arrays.copyOf(delta, capacity);
+                deltaSize = Arrays.copyOf(deltaSize, capacity);
+            }
+            kinds[nodeCount] = kind;
+            ids[nodeCount] = id;
+            owners[nodeCount] = owner;
+            return nodeCount++;
+        }
+
+        void addEdge(int a, int b) {
+            if (a == b || base.contains(a, b) || deltaContains(a, b)) {
+                return;
+            }
+            appendDelta(a, b);
+            appendDelta(b, a);
+            deltaEdges++;
+            if (deltaEdges >= Math.max(COMPACT_MIN_DELTA_EDGES, base.edgeCount() / 8)) {
+                compact();
+            }
+        }
+
+        private boolean deltaContains(int a, int b) {
+            // Scan the shorter row; rows are short between compactions
+            int from = deltaSize[a] <= deltaSize[b] ? a : b;
+            int to = from == a ? b : a;
+            for (int i = 0; i < deltaSize[from]; i++) {
+                if (delta[from][i] == to) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void appendDelta(int from, int to) {
+            int[] row = delta[from];
+            if (row == null) {
+                row = delta[from] = new int[4];
+            } else if (deltaSize[from] == row.length) {
+                row = delta[from] = Arrays.copyOf(row, row.length * 2);
+            }
+            row[deltaSize[from]++] = to;
+        }
+
+        private void compact() {
+            IntList from = new IntList();
+            IntList to = new IntList();
+            for (int n = 0; n < nodeCount; n++) {
+                for (int e = base.start(n); e < base.end(n); e++) {
+                    if (base.target(e) > n) {
+                        from.add(n);
+                        to.add(base.target(e));
+                    }
+                }
+                for (int i = 0; i < deltaSize[n]; i++) {
+                    if (delta[n][i] > n) {
+                        from.add(n);
+                        to.add(delta[n][i]);
+                    }
+                }
+            }
+            base = CsrGraph.build(nodeCount, from.values, to.values, from.size);
+            delta = new int[kinds.length][];
+            deltaSize = new int[kinds.length];
+            deltaEdges = 0;
+        }
+
+        // Breadth-first by client hops: moving onto a client costs a level, moving onto
+        // a related party or identifier doesn't, so each level is closed over parties
+        // and identifiers before the next level's clients are expanded.
+        ClientNetwork traverse(int root, int depth, int maxNodes) {
+            LongIntMap reachedFrom = new LongIntMap();
+            List<ClientNetwork.Node> nodes = new ArrayList<>();
+            IntList current = new IntList();
+            IntList next = new IntList();
+            reachedFrom.put(root, root);
+            current.add(root);
+            boolean truncated = false;
+            for (int level = 0; level <= depth && current.size > 0 && !truncated; level++) {
+                for (int i = 0; i < current.size; i++) {
+                    if (nodes.size() == maxNodes) {
+                        truncated = true;
+                        break;
+                    }
+                    int node = current.values[i];
+                    nodes.add(describe(node, level, node == root ? null : id(reachedFrom.get(node))));
+                    for (int e = base.start(node); e < base.end(node); e++) {
+                        reach(base.target(e), node, level < depth, reachedFrom, current, next);
+                    }
+                    for (int d = 0; d < deltaSize[node]; d++) {
+                        reach(delta[node][d], node, level < depth, reachedFrom, current, next);
+                    }
+                }
+                IntList done = current;
+                current = next;
+                next = done;
+                next.size = 0;
+            }
+            return new ClientNetwork(id(root), depth, truncated, nodes);
+        }
+
+        private void reach(int neighbour, int from, boolean clientsAllowed, LongIntMap reachedFrom,
+                IntList current, IntList next) {
+            if (reachedFrom.get(neighbour) >= 0) {
+                return;
+            }
+            if (kinds[neighbour] != CLIENT) {
+                reachedFrom.put(neighbour, from);
+                current.add(neighbour);
+            } else if (clientsAllowed) {
+                reachedFrom.put(neighbour, from);
+                next.add(neighbour);
+            }
+        }
+
+        private ClientNetwork.Node describe(int node, int level, String via) {
+            return switch (kinds[node]) {
+                case CLIENT -> new ClientNetwork.Node(id(node), "CLIENT", ids[node], level, via);
+                case RELATED_PARTY -> new ClientNetwork.Node(id(node), "RELATED_PARTY",
+                        owners[node] == NO_OWNER ? null : owners[node], level, via);
+                default -> new ClientNetwork.Node(id(node), "IDENTIFIER", null, level, via);
+            };
+        }
+
+        private String id(int node) {
+            return switch (kinds[node]) {
+                case CLIENT -> "client:" + ids[node];
+                case RELATED_PARTY -> "party:" + ids[node];
+                default -> "identifier:" + identifierKeys.get((int) ids[node]);
+            };
+        }
+    }
+
+    private static final class IntList {
+
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.venus.kyc.viewer.risk;
 
+import com.venus.kyc.viewer.archive.ArchivedRow;
+import com.venus.kyc.viewer.archive.AuditArchive;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class RiskAssessmentRepository {
 
     private final JdbcClient jdbcClient;
+    private final AuditArchive archive;
 
-    public RiskAssessmentRepository(JdbcClient jdbcClient) {
+    public RiskAssessmentRepository(JdbcClient jdbcClient, AuditArchive archive) {
         this.jdbcClient = jdbcClient;
+        this.archive = archive;
     }
 
     public Long saveLog(RiskAssessmentLog log) {
@@ -66,10 +73,33 @@ public class RiskAssessmentRepository {
                 .update();
     }
 
+    // Archived logs keep their row here with ArchivedAt set; the payloads are read
+    // back from the archive
     public List<RiskAssessmentLog> findAllLogs() {
-        return jdbcClient.sql("SELECT * FROM RiskAssessmentLogs")
-                .query(RiskAssessmentLog.class)
+        List<Long> archived = new ArrayList<>();
+        List<RiskAssessmentLog> logs = jdbcClient.sql("SELECT LogID, RequestJSON, ResponseJSON, Status, CreatedAt, ArchivedAt FROM RiskAssessmentLogs")
+                .query((rs, rowNum) -> {
+                    if (rs.getTimestamp("ArchivedAt") != null) {
+                        archived.add(rs.getLong("LogID"));
+                    }
+                    Timestamp createdAt = rs.getTimestamp("CreatedAt");
+                    return new RiskAssessmentLog(rs.getLong("LogID"), rs.getString("RequestJSON"),
+                            rs.getString("ResponseJSON"), rs.getString("Status"),
+                            createdAt != null ? createdAt.toLocalDateTime() : null);
+                })
                 .list();
+        if (archived.isEmpty()) {
+            return logs;
+        }
+        Map<Long, ArchivedRow> payloads = archive.table(AuditArchive.RISK_ASSESSMENT_LOGS).findByIds(archived);
+        return logs.stream()
+                .map(log -> {
+                    ArchivedRow row = payloads.get(log.logID());
+                    return row == null ? log
+                            : new RiskAssessmentLog(log.logID(), row.value(0), row.value(1), log.status(),
+                                    log.createdAt());
+                })
+                .toList();
     }
 
     public List<RiskAssessment> findAllAssessments() {
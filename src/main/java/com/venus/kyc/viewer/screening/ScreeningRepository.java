@@ -1,11 +1,15 @@
 package com.venus.kyc.viewer.screening;
 
+import com.venus.kyc.viewer.archive.ArchivedRow;
+import com.venus.kyc.viewer.archive.AuditArchive;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -13,9 +17,11 @@ import java.util.Map;
 public class ScreeningRepository {
 
     private final JdbcClient jdbcClient;
+    private final AuditArchive archive;
 
-    public ScreeningRepository(JdbcClient jdbcClient) {
+    public ScreeningRepository(JdbcClient jdbcClient, AuditArchive archive) {
         this.jdbcClient = jdbcClient;
+        this.archive = archive;
     }
 
     public Long saveLog(ScreeningLog log) {
@@ -77,24 +83,60 @@ public class ScreeningRepository {
         jdbcClient.sql(sql).params(logId).update();
     }
 
+    // Hot and archived logs, newest first
     public List<ScreeningLog> findLogsByClientId(Long clientId) {
-        return jdbcClient.sql("SELECT * FROM ScreeningLogs WHERE ClientID = ? ORDER BY CreatedAt DESC")
+        List<ScreeningLog> logs = new ArrayList<>(jdbcClient.sql("SELECT * FROM ScreeningLogs WHERE ClientID = ? ORDER BY CreatedAt DESC")
                 .params(clientId)
                 .query(ScreeningLog.class)
-                .list();
+                .list());
+        List<ArchivedRow> archived = archive.table(AuditArchive.SCREENING_LOGS).findByKey(clientId);
+        if (!archived.isEmpty()) {
+            archived.forEach(row -> logs.add(archivedLog(row)));
+            logs.sort(Comparator.comparing(ScreeningLog::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .reversed());
+        }
+        return logs;
     }
 
+    // Archived logs are found through their ExternalRequestID hash; they can be read
+    // but no longer updated
     public ScreeningLog findLogByExternalId(String externalId) {
-        return jdbcClient.sql("SELECT * FROM ScreeningLogs WHERE ExternalRequestID = ?")
+        ScreeningLog log = jdbcClient.sql("SELECT * FROM ScreeningLogs WHERE ExternalRequestID = ?")
                 .params(externalId)
                 .query(ScreeningLog.class)
                 .optional().orElse(null);
+        if (log != null || externalId == null) {
+            return log;
+        }
+        for (ArchivedRow request : archive.table(AuditArchive.SCREENING_REQUESTS)
+                .findByKey(AuditArchive.textKey(externalId))) {
+            if (externalId.equals(request.value(0))) {
+                ArchivedRow row = archive.table(AuditArchive.SCREENING_LOGS).findByIds(List.of(request.id()))
+                        .get(request.id());
+                return row == null ? null : archivedLog(row);
+            }
+        }
+        return null;
     }
 
     public List<ScreeningResult> findResultsByLogId(Long logId) {
-        return jdbcClient.sql("SELECT * FROM ScreeningResults WHERE ScreeningLogID = ?")
+        List<ScreeningResult> results = jdbcClient.sql("SELECT * FROM ScreeningResults WHERE ScreeningLogID = ?")
                 .params(logId)
                 .query(ScreeningResult.class)
                 .list();
+        if (!results.isEmpty()) {
+            return results;
+        }
+        return archive.table(AuditArchive.SCREENING_RESULTS).findByKey(logId).stream()
+                .map(row -> new ScreeningResult(row.id(), row.key(), row.value(0), row.value(1), row.value(2),
+                        row.value(3), row.value(4)))
+                .toList();
+    }
+
+    // Values as AuditArchiver stores them: RequestPayload, ResponsePayload,
+    // OverallStatus, ExternalRequestID
+    private static ScreeningLog archivedLog(ArchivedRow row) {
+        return new ScreeningLog(row.id(), row.key(), row.value(0), row.value(1), row.value(2), row.value(3),
+                row.time());
     }
 }
@@ -0,0 +1,126 @@
+package com.venus.kyc.viewer.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// In-process name indexes over Clients and RelatedParties, keyed by ClientID: a
+// trigram index for substring search and a phonetic index for fuzzy search. Built
+// once the application is up and kept current by ClientRepository on every write
+// that adds a name. Until the first build completes, callers fall back to SQL.
+@Component
+public class ClientNameIndex {
+
+    // A client's own names rank above names of its related parties
+    static final int CLIENT_NAME_WEIGHT = 2;
+    static final int RELATED_PARTY_NAME_WEIGHT = 1;
+
+    private record PendingName(long clientId, String name, int weight) {
+    }
+
+    private record Indexes(TrigramIndex trigrams, PhoneticIndex phonetic) {
+
+        void add(long clientId, String name, int weight) {
+            if (name != null && !name.isBlank()) {
+                trigrams.add(clientId, name, weight);
+                phonetic.add(clientId, name, weight);
+            }
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ClientNameIndex.class);
+
+    private final JdbcClient jdbcClient;
+    private final double fuzzyMinScore;
+    private volatile Indexes indexes;
+    private List<PendingName> pendingDuringBuild;
+
+    public ClientNameIndex(JdbcClient jdbcClient,
+            @Value("${kyc.search.fuzzy-min-score:0.75}") double fuzzyMinScore) {
+        this.jdbcClient = jdbcClient;
+        this.fuzzyMinScore = fuzzyMinScore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            pendingDuringBuild = new ArrayList<>();
+        }
+        long start = System.currentTimeMillis();
+        Indexes index = new Indexes(new TrigramIndex(), new PhoneticIndex());
+        jdbcClient.sql("SELECT ClientID, FirstName, MiddleName, LastName FROM Clients ORDER BY ClientID")
+                .query((RowCallbackHandler) rs -> addNames(index, rs.getLong("ClientID"), CLIENT_NAME_WEIGHT,
+                        rs.getString("FirstName"), rs.getString("MiddleName"), rs.getString("LastName")));
+        jdbcClient.sql("SELECT ClientID, FirstName, MiddleName, LastName FROM RelatedParties ORDER BY ClientID")
+                .query((RowCallbackHandler) rs -> addNames(index, rs.getLong("ClientID"),
+                        RELATED_PARTY_NAME_WEIGHT,
+                        rs.getString("FirstName"), rs.getString("MiddleName"), rs.getString("LastName")));
+
+        synchronized (this) {
+            // Writes that raced with the scan may or may not be in it; re-adding is idempotent
+            // for ranking purposes since a document's best entry wins.
+            for (PendingName pending : pendingDuringBuild) {
+                index.add(pending.clientId(), pending.name(), pending.weight());
+            }
+            pendingDuringBuild = null;
+            indexes = index;
+        }
+        log.info("Client name index built: {} clients in {} ms", index.trigrams().documentCount(),
+                System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return indexes != null;
+    }
+
+    public void indexClient(long clientId, String firstName, String middleName, String lastName) {
+        index(clientId, CLIENT_NAME_WEIGHT, firstName, middleName, lastName);
+    }
+
+    public void indexRelatedParty(long clientId, String firstName, String middleName, String lastName) {
+        index(clientId, RELATED_PARTY_NAME_WEIGHT, firstName, middleName, lastName);
+    }
+
+    // Ranked ClientIDs whose client or related-party names contain the query, or
+    // null when the index can't answer (not built yet, or query shorter than a
+    // trigram) and the caller should use SQL instead.
+    public long[] search(String query) {
+        Indexes index = indexes;
+        return index != null ? index.trigrams().search(query) : null;
+    }
+
+    // ClientIDs whose names sound like the query, with Jaro-Winkler scores, best
+    // first; null until the index is built.
+    public PhoneticIndex.Match fuzzySearch(String query) {
+        Indexes index = indexes;
+        return index != null ? index.phonetic().search(query, fuzzyMinScore) : null;
+    }
+
+    private synchronized void index(long clientId, int weight, String... names) {
+        for (String name : names) {
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.add(new PendingName(clientId, name, weight));
+            }
+            if (indexes != null) {
+                indexes.add(clientId, name, weight);
+            }
+        }
+    }
+
+    private static void addNames(Indexes index, long clientId, int weight, String... names) {
+        for (String name : names) {
+            index.add(clientId, name, weight);
+        }
+    }
+}
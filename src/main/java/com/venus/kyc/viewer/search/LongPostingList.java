@@ -0,0 +1,81 @@
+package com.venus.kyc.viewer.search;
+
+import java.util.Arrays;
+
+// Sorted, de-duplicated list of document ids backed by a primitive array. Ids
+// normally arrive in ascending order (bulk build, new inserts), so add() is an
+// append in the common case.
+final class LongPostingList {
+
+    private long[] ids;
+    private int size;
+
+    LongPostingList() {
+        this.ids = new long[4];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    void add(long id) {
+        if (size == 0 || id > ids[size - 1]) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    // Index of the first element >= id, searching from 'from'.
+    int lowerBound(long id, int from) {
+        int pos = Arrays.binarySearch(ids, from, size, id);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // Intersection of all lists, walking the shortest and probing the others.
+    static long[] intersect(LongPostingList[] lists) {
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        LongPostingList smallest = lists[0];
+        long[] out = new long[smallest.size];
+        int[] cursors = new int[lists.length];
+        int count = 0;
+        outer: for (int i = 0; i < smallest.size; i++) {
+            long id = smallest.ids[i];
+            for (int l = 1; l < lists.length; l++) {
+                int pos = lists[l].lowerBound(id, cursors[l]);
+                cursors[l] = pos;
+                if (pos == lists[l].size) {
+                    break outer;
+                }
+                if (lists[l].ids[pos] != id) {
+                    continue outer;
+                }
+            }
+            out[count++] = id;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.venus.kyc.viewer.search;
+
+import org.apache.commons.codec.language.ColognePhonetic;
+import org.apache.commons.codec.language.DoubleMetaphone;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Fuzzy name index. Every name token is blocked under its Cologne phonetic code
+// (tuned for German names) and its Double Metaphone primary and alternate codes,
+// so "Meier", "Mayer" and "Maier" share a block. A query only looks at documents
+// sharing a block with every query token, then re-ranks them by Jaro-Winkler
+// similarity of the best-matching tokens. The first query token's blocks are merged
+// into the candidate list and later tokens only filter it, probing their posting
+// lists in place.
+public class PhoneticIndex {
+
+    public record Match(long[] ids, double[] scores) {
+    }
+
+    private record Token(String text, int weight) {
+    }
+
+    private record Scored(long id, double score, int weight) {
+    }
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private final ColognePhonetic cologne = new ColognePhonetic();
+    private final DoubleMetaphone metaphone = new DoubleMetaphone();
+    private final Map<String, LongPostingList> blocks = new HashMap<>();
+    private final Map<Long, List<Token>> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(long docId, String name, int weight) {
+        List<String> tokens = tokens(name);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Token> docTokens = documents.computeIfAbsent(docId, k -> new ArrayList<>(3));
+            for (String token : tokens) {
+                docTokens.add(new Token(token, weight));
+                for (String code : codes(token)) {
+                    blocks.computeIfAbsent(code, k -> new LongPostingList()).add(docId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Documents scoring at least minScore, best first. A document's score is the mean,
+    // over query tokens, of the best Jaro-Winkler similarity against its tokens.
+    public Match search(String query, double minScore) {
+        List<String> queryTokens = tokens(query);
+        if (queryTokens.isEmpty()) {
+            return new Match(new long[0], new double[0]);
+        }
+        List<Scored> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long[] candidates = null;
+            for (String token : queryTokens) {
+                List<LongPostingList> block = block(token);
+                candidates = candidates == null ? union(block) : retain(candidates, block);
+                if (candidates.length == 0) {
+                    break;
+                }
+            }
+            for (long candidate : candidates) {
+                List<Token> docTokens = documents.get(candidate);
+                double total = 0;
+                int weight = 0;
+                for (String queryToken : queryTokens) {
+                    // Of equally similar tokens the heavier one counts
+                    double best = 0;
+                    int bestWeight = 0;
+                    for (Token docToken : docTokens) {
+                        double similarity = JaroWinkler.similarity(queryToken, docToken.text());
+                        if (similarity > best
+                                || similarity == best && similarity > 0 && docToken.weight() > bestWeight) {
+                            best = similarity;
+                            bestWeight = docToken.weight();
+                        }
+                    }
+                    total += best;
+                    weight = Math.max(weight, bestWeight);
+                }
+                double score = total / queryTokens.size();
+                if (score >= minScore) {
+                    hits.add(new Scored(candidate, score, weight));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort((a, b) -> a.score() != b.score() ? Double.compare(b.score(), a.score())
+                : a.weight() != b.weight() ? Integer.compare(b.weight(), a.weight())
+                        : Long.compare(a.id(), b.id()));
+        long[] ids = new long[hits.size()];
+        double[] scores = new double[hits.size()];
+        for (int i = 0; i < hits.size(); i++) {
+            ids[i] = hits.get(i).id();
+            scores[i] = hits.get(i).score();
+        }
+        return new Match(ids, scores);
+    }
+
+    // The posting lists of every code of the token; a document is in the token's
+    // block if it is in any of them
+    private List<LongPostingList> block(String token) {
+        List<LongPostingList> lists = new ArrayList<>(3);
+        for (String code : codes(token)) {
+            LongPostingList list = blocks.get(code);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        return lists;
+    }
+
+    private Set<String> codes(String token) {
+        Set<String> codes = new LinkedHashSet<>(3);
+        String cologneCode = cologne.colognePhonetic(token);
+        if (!cologneCode.isEmpty()) {
+            codes.add("K:" + cologneCode);
+        }
+        String primary = metaphone.doubleMetaphone(token, false);
+        if (primary != null && !primary.isEmpty()) {
+            codes.add("M:" + primary);
+        }
+        String alternate = metaphone.doubleMetaphone(token, true);
+        if (alternate != null && !alternate.isEmpty()) {
+            codes.add("M:" + alternate);
+        }
+        return codes;
+    }
+
+    // Lower case with diacritics folded (umlauts lose their marks, sharp s becomes "ss") so both encoders
+    // and the similarity measure see plain letters.
+    static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = Normalizer.normalize(text.toLowerCase(Locale.ROOT).replace("\u00df", "ss"), Normalizer.Form.NFD);
+        folded = COMBINING_MARKS.matcher(folded).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(folded)) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Merges the lists into one sorted, distinct id array
+    private static long[] union(List<LongPostingList> lists) {
+        int total = 0;
+        for (LongPostingList list : lists) {
+            total += list.size();
+        }
+        long[] out = new long[total];
+        int[] cursors = new int[lists.size()];
+        int n = 0;
+        while (true) {
+            long next = Long.MAX_VALUE;
+            boolean more = false;
+            for (int l = 0; l < lists.size(); l++) {
+                if (cursors[l] < lists.get(l).size()) {
+                    next = Math.min(next, lists.get(l).get(cursors[l]));
+                    more = true;
+                }
+            }
+            if (!more) {
+                break;
+            }
+            out[n++] = next;
+            for (int l = 0; l < lists.size(); l++) {
+                if (cursors[l] < lists.get(l).size() && lists.get(l).get(cursors[l]) == next) {
+                    cursors[l]++;
+                }
+            }
+        }
+        return n == total ? out : Arrays.copyOf(out, n);
+    }
+
+    // The candidates found in any of the lists. Candidates are ascending, so each
+    // list is searched onwards from where the previous candidate left it.
+    private static long[] retain(long[] candidates, List<LongPostingList> lists) {
+        long[] out = new long[candidates.length];
+        int[] cursors = new int[lists.size()];
+        int n = 0;
+        for (long id : candidates) {
+            for (int l = 0; l < lists.size(); l++) {
+                LongPostingList list = lists.get(l);
+                int pos = list.lowerBound(id, cursors[l]);
+                cursors[l] = pos;
+                if (pos < list.size() && list.get(pos) == id) {
+                    out[n++] = id;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
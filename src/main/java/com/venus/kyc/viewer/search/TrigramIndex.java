@@ -0,0 +1,152 @@
+package com.venus.kyc.viewer.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index from character trigrams to document ids, answering
+// case-insensitive substring queries of three or more characters. Each document
+// keeps its texts so candidates from the posting intersection can be verified
+// and ranked.
+public class TrigramIndex {
+
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private static final int ID_BITS = 48;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int MAX_SCORE = 8 * 127;
+
+    private record Entry(String text, int weight) {
+    }
+
+    private final Map<Long, LongPostingList> postings = new HashMap<>();
+    private final Map<Long, List<Entry>> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Adds a text to a document. Weight lets callers rank some texts (e.g. the
+    // client's own name) above others (e.g. a related party's name).
+    public void add(long docId, String text, int weight) {
+        if (docId < 0 || docId > ID_MASK || weight < 1 || weight > 127) {
+            throw new IllegalArgumentException("Unsupported id or weight: " + docId + ", " + weight);
+        }
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            documents.computeIfAbsent(docId, k -> new ArrayList<>(3)).add(new Entry(normalized, weight));
+            for (long trigram : trigrams(normalized)) {
+                postings.computeIfAbsent(trigram, k -> new LongPostingList()).add(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of documents with a text containing the query, best match first. Returns
+    // null if the query is too short to be answered from trigrams.
+    public long[] search(String query) {
+        String q = normalize(query);
+        if (q.length() < MIN_QUERY_LENGTH) {
+            return null;
+        }
+        Set<Long> grams = trigrams(q);
+        lock.readLock().lock();
+        try {
+            LongPostingList[] lists = new LongPostingList[grams.size()];
+            int i = 0;
+            for (long gram : grams) {
+                LongPostingList list = postings.get(gram);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists[i++] = list;
+            }
+            long[] candidates = LongPostingList.intersect(lists);
+
+            long[] ids = new long[candidates.length];
+            int[] scores = new int[candidates.length];
+            int matches = 0;
+            for (long candidate : candidates) {
+                int score = score(documents.get(candidate), q);
+                if (score > 0) {
+                    ids[matches] = candidate;
+                    scores[matches] = score;
+                    matches++;
+                }
+            }
+            return rank(ids, scores, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + MIN_QUERY_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    // Exact field match beats prefix, prefix beats word start, word start beats
+    // any other substring; the best entry of the document wins.
+    private static int score(List<Entry> entries, String q) {
+        int best = 0;
+        for (Entry entry : entries) {
+            int pos = entry.text().indexOf(q);
+            if (pos < 0) {
+                continue;
+            }
+            int quality;
+            if (pos == 0 && entry.text().length() == q.length()) {
+                quality = 8;
+            } else if (pos == 0) {
+                quality = 4;
+            } else if (entry.text().charAt(pos - 1) == ' ' || entry.text().charAt(pos - 1) == '-') {
+                quality = 2;
+            } else {
+                quality = 1;
+            }
+            best = Math.max(best, quality * entry.weight());
+        }
+        return best;
+    }
+
+    // Sorts by score descending, then id ascending, using one primitive sort over
+    // keys that pack the inverted score above the id.
+    private static long[] rank(long[] ids, int[] scores, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) (MAX_SCORE - scores[i]) << ID_BITS) | ids[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            keys[i] &= ID_MASK;
+        }
+        return keys;
+    }
+}
@@ -41,6 +41,13 @@ INSERT INTO MaterialChanges (ChangeDate, ClientID, EntityID, EntityName, ColumnN
 ('2025-01-12 09:15:00', 2, 2, 'Client', 'LastName', 'UPDATE', 'Smith', 'Smith-Jones'),
 ('2025-01-13 14:20:00', 3, 3, 'Identifier', 'IDValue', 'UPDATE', 'A1234568', 'A9999999');
 
+-- Seed rows bypass MaterialChangeCapture, so roll them up here
+INSERT INTO MaterialChangeRollups (ChangeDay, EntityName, ColumnName, OperationType, ChangeCount)
+SELECT CAST(ChangeDate AS DATE), COALESCE(EntityName, ''), COALESCE(ColumnName, ''), COALESCE(OperationType, ''), COUNT(*)
+FROM MaterialChanges
+WHERE ChangeDate IS NOT NULL
+GROUP BY CAST(ChangeDate AS DATE), COALESCE(EntityName, ''), COALESCE(ColumnName, ''), COALESCE(OperationType, '');
+
 -- Role Permissions
 INSERT INTO RolePermissions (RoleName, Permission) VALUES 
 ('ADMIN', 'VIEW_CLIENTS'),
@@ -80,6 +87,10 @@ INSERT INTO Cases (ClientID, Reason, AssignedTo, Status) VALUES
 (1, 'New Onboarding', 'analyst', 'KYC_ANALYST'),
 (2, 'Periodic Review', 'reviewer', 'KYC_REVIEWER');
 
+-- Seed cases bypass CaseRepository.create, so copy their client names here
+UPDATE Cases SET ClientName = (SELECT FirstName || ' ' || LastName FROM Clients WHERE Clients.ClientID = Cases.ClientID)
+WHERE ClientName IS NULL;
+
 INSERT INTO CaseComments (CaseID, UserID, CommentText, Role) VALUES
 (1, 'analyst', 'Starting onboarding for Acme Corp.', 'KYC_ANALYST'),
 (2, 'analyst', 'Reviewing Globex Inc documents.', 'KYC_ANALYST'),
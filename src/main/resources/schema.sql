@@ -18,9 +18,15 @@ CREATE TABLE IF NOT EXISTS Clients (
     CountryOfTax VARCHAR(100),
     SourceOfFundsCountry VARCHAR(100),
     FATCAStatus VARCHAR(50),
-    CRSStatus VARCHAR(50)
+    CRSStatus VARCHAR(50),
+    -- Aggregate version for ETags, see EntityVersions
+    Version BIGINT DEFAULT 0 NOT NULL
 );
 
+-- Keyset pagination: one index per cursor sort column, ClientID as tiebreaker
+CREATE INDEX IF NOT EXISTS IX_Clients_FirstName_ClientID ON Clients(FirstName, ClientID);
+CREATE INDEX IF NOT EXISTS IX_Clients_OnboardingDate_ClientID ON Clients(OnboardingDate, ClientID);
+
 CREATE TABLE IF NOT EXISTS ClientAddresses (
     AddressID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     ClientID BIGINT,
@@ -116,6 +122,27 @@ CREATE TABLE IF NOT EXISTS MaterialChanges (
     FOREIGN KEY (ClientID) REFERENCES Clients(ClientID)
 );
 
+-- Keyset pagination of the audit browser: one index per sortable column, ChangeID
+-- as tiebreaker. The ChangeDate one also serves the date-range filter and counts.
+CREATE INDEX IF NOT EXISTS IX_MaterialChanges_ChangeDate_ChangeID ON MaterialChanges(ChangeDate, ChangeID);
+CREATE INDEX IF NOT EXISTS IX_MaterialChanges_ClientID_ChangeID ON MaterialChanges(ClientID, ChangeID);
+CREATE INDEX IF NOT EXISTS IX_MaterialChanges_EntityID_ChangeID ON MaterialChanges(EntityID, ChangeID);
+CREATE INDEX IF NOT EXISTS IX_MaterialChanges_EntityName_ChangeID ON MaterialChanges(EntityName, ChangeID);
+CREATE INDEX IF NOT EXISTS IX_MaterialChanges_ColumnName_ChangeID ON MaterialChanges(ColumnName, ChangeID);
+CREATE INDEX IF NOT EXISTS IX_MaterialChanges_OperationType_ChangeID ON MaterialChanges(OperationType, ChangeID);
+
+-- Daily change counts per (EntityName, ColumnName, OperationType), maintained by
+-- MaterialChangeCapture in the same transaction as the MaterialChanges rows. NULL
+-- names are stored as ''.
+CREATE TABLE IF NOT EXISTS MaterialChangeRollups (
+    ChangeDay DATE NOT NULL,
+    EntityName VARCHAR(255) NOT NULL,
+    ColumnName VARCHAR(255) NOT NULL,
+    OperationType VARCHAR(50) NOT NULL,
+    ChangeCount BIGINT NOT NULL,
+    PRIMARY KEY (ChangeDay, EntityName, ColumnName, OperationType)
+);
+
 CREATE TABLE IF NOT EXISTS RolePermissions (
     RoleName VARCHAR(50) NOT NULL,
     Permission VARCHAR(100) NOT NULL,
@@ -125,13 +152,26 @@ CREATE TABLE IF NOT EXISTS RolePermissions (
 CREATE TABLE IF NOT EXISTS Cases (
     CaseID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     ClientID BIGINT NOT NULL,
+    -- Client's name when the case was created, so the case list needn't join Clients
+    ClientName VARCHAR(255),
     CreatedDate TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     Reason VARCHAR(255),
     AssignedTo VARCHAR(50),
     Status VARCHAR(50) NOT NULL,
+    -- Aggregate version for ETags, see EntityVersions
+    Version BIGINT DEFAULT 0 NOT NULL,
+    -- The case's Flowable process; the process carries the CaseID as its business key
+    ProcessInstanceID VARCHAR(64),
     FOREIGN KEY (ClientID) REFERENCES Clients(ClientID)
 );
 
+-- Case list filters, each ordered by the CaseID seek key
+CREATE INDEX IF NOT EXISTS IX_Cases_Status_CaseID ON Cases(Status, CaseID);
+CREATE INDEX IF NOT EXISTS IX_Cases_AssignedTo_CaseID ON Cases(AssignedTo, CaseID);
+CREATE INDEX IF NOT EXISTS IX_Cases_ClientID_CaseID ON Cases(ClientID, CaseID);
+CREATE INDEX IF NOT EXISTS IX_Cases_CreatedDate_CaseID ON Cases(CreatedDate, CaseID);
+CREATE INDEX IF NOT EXISTS IX_Cases_ProcessInstanceID ON Cases(ProcessInstanceID);
+
 CREATE TABLE IF NOT EXISTS CaseComments (
     CommentID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     CaseID BIGINT NOT NULL,
@@ -142,6 +182,9 @@ CREATE TABLE IF NOT EXISTS CaseComments (
     FOREIGN KEY (CaseID) REFERENCES Cases(CaseID)
 );
 
+-- Per-case reads of the case workspace (SQL Server does not index foreign keys)
+CREATE INDEX IF NOT EXISTS IX_CaseComments_CaseID ON CaseComments(CaseID, CommentDate);
+
 CREATE TABLE IF NOT EXISTS CaseDocuments (
     DocumentID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     CaseID BIGINT NOT NULL,
@@ -150,11 +193,17 @@ CREATE TABLE IF NOT EXISTS CaseDocuments (
     MimeType VARCHAR(100),
     UploadedBy VARCHAR(50),
     Comment TEXT,
+    -- SHA-256 of the content in the DocumentStore
+    ContentHash VARCHAR(64),
+    ContentLength BIGINT,
+    -- Content uploaded before the DocumentStore, moved there on first download
     Data BLOB,
     UploadDate TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (CaseID) REFERENCES Cases(CaseID)
 );
 
+CREATE INDEX IF NOT EXISTS IX_CaseDocuments_CaseID ON CaseDocuments(CaseID);
+
 CREATE TABLE IF NOT EXISTS Accounts (
     AccountID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     ClientID BIGINT NOT NULL,
@@ -209,9 +258,13 @@ CREATE TABLE IF NOT EXISTS RiskAssessmentLogs (
     RequestJSON CLOB,
     ResponseJSON CLOB,
     Status VARCHAR(50),
-    CreatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    CreatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Set when AuditArchiver moved RequestJSON/ResponseJSON to the archive
+    ArchivedAt TIMESTAMP
 );
 
+CREATE INDEX IF NOT EXISTS IX_RiskAssessmentLogs_CreatedAt ON RiskAssessmentLogs(CreatedAt, LogID);
+
 CREATE TABLE IF NOT EXISTS RiskAssessments (
     AssessmentID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     LogID BIGINT,
@@ -225,6 +278,8 @@ CREATE TABLE IF NOT EXISTS RiskAssessments (
     FOREIGN KEY (LogID) REFERENCES RiskAssessmentLogs(LogID)
 );
 
+CREATE INDEX IF NOT EXISTS IX_RiskAssessments_RecordID ON RiskAssessments(RecordID, CreatedAt);
+
 CREATE TABLE IF NOT EXISTS RiskAssessmentDetails (
     DetailID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     AssessmentID BIGINT,
@@ -247,6 +302,8 @@ CREATE TABLE IF NOT EXISTS CaseEvents (
     FOREIGN KEY (CaseID) REFERENCES Cases(CaseID)
 );
 
+CREATE INDEX IF NOT EXISTS IX_CaseEvents_CaseID ON CaseEvents(CaseID, EventDate);
+
 CREATE TABLE IF NOT EXISTS ScreeningLogs (
     LogID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     ClientID BIGINT,
@@ -269,3 +326,51 @@ CREATE TABLE IF NOT EXISTS ScreeningResults (
     FOREIGN KEY (ScreeningLogID) REFERENCES ScreeningLogs(LogID)
 );
 
+CREATE INDEX IF NOT EXISTS IX_ScreeningLogs_CreatedAt ON ScreeningLogs(CreatedAt, LogID);
+CREATE INDEX IF NOT EXISTS IX_ScreeningLogs_ClientID ON ScreeningLogs(ClientID);
+CREATE INDEX IF NOT EXISTS IX_ScreeningResults_ScreeningLogID ON ScreeningResults(ScreeningLogID);
+
+-- Archive segment files (see AuditArchive). A segment is registered in the same
+-- transaction that removes its rows from the hot table; files not listed here are
+-- leftovers of a failed run.
+CREATE TABLE IF NOT EXISTS ArchiveSegments (
+    SegmentID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    TableName VARCHAR(100) NOT NULL,
+    SegmentName VARCHAR(255) NOT NULL,
+    RowsArchived BIGINT NOT NULL,
+    CreatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+
+-- Bulk client import progress. RecordsCommitted advances in the same transaction as
+-- each imported chunk, so a restarted job resumes exactly after the last commit.
+CREATE TABLE IF NOT EXISTS ClientImportJobs (
+    JobID VARCHAR(64) PRIMARY KEY,
+    Format VARCHAR(10) NOT NULL,
+    Status VARCHAR(20) NOT NULL, -- RUNNING, COMPLETED, FAILED
+    RecordsCommitted BIGINT NOT NULL DEFAULT 0,
+    RowsCommitted BIGINT NOT NULL DEFAULT 0,
+    StartedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UpdatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Error VARCHAR(1000)
+);
+
+-- Open workflow tasks, one row per Flowable task, kept by TaskInboxListener in the
+-- same transaction as the task change so inbox reads don't join Flowable's variable
+-- and identity link tables. InboxID follows task creation and is the seek key.
+CREATE TABLE IF NOT EXISTS TaskInbox (
+    InboxID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    TaskID VARCHAR(64) NOT NULL UNIQUE,
+    TaskName VARCHAR(255),
+    Stage VARCHAR(255), -- task definition key; NULL for ad-hoc tasks
+    CaseID BIGINT,
+    ClientID BIGINT,
+    ProcessInstanceID VARCHAR(64),
+    CandidateGroup VARCHAR(255),
+    Assignee VARCHAR(255),
+    CreatedDate TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS IX_TaskInbox_Assignee_InboxID ON TaskInbox(Assignee, InboxID);
+CREATE INDEX IF NOT EXISTS IX_TaskInbox_CandidateGroup_Assignee ON TaskInbox(CandidateGroup, Assignee, InboxID);
+CREATE INDEX IF NOT EXISTS IX_TaskInbox_CaseID ON TaskInbox(CaseID);
@@ -0,0 +1,37 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteRangeTest {
+
+	@Test
+	void rangesAreClippedToTheContent() {
+		assertEquals(new ByteRange(0, 99), ByteRange.parse("bytes=0-99", 1000));
+		assertEquals(new ByteRange(500, 999), ByteRange.parse("bytes=500-", 1000));
+		assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=900-5000", 1000));
+		assertEquals(new ByteRange(800, 999), ByteRange.parse("bytes=-200", 1000));
+		assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=-5000", 1000));
+		assertEquals(100, ByteRange.parse("BYTES=0-99", 1000).length());
+	}
+
+	@Test
+	void headersThatDontParseOrAskForSeveralRangesGetTheWholeContent() {
+		assertNull(ByteRange.parse(null, 1000));
+		assertNull(ByteRange.parse("items=0-10", 1000));
+		assertNull(ByteRange.parse("bytes=10-5", 1000));
+		assertNull(ByteRange.parse("bytes=+1-5", 1000));
+		assertNull(ByteRange.parse("bytes=-", 1000));
+		assertNull(ByteRange.parse("bytes=0-10, 20-30", 1000));
+	}
+
+	@Test
+	void rangesOutsideTheContentAreUnsatisfiable() {
+		assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=1000-", 1000));
+		assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=-0", 1000));
+		assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=-10", 0));
+	}
+}
@@ -0,0 +1,131 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CaseStatisticsTest {
+
+	@Test
+	void countsFollowCasesThroughTheWorkflow() {
+		CaseStatistics statistics = new CaseStatistics(null);
+		LocalDate today = LocalDate.now();
+		LocalDate lastMonth = today.minusDays(40);
+
+		statistics.track(() -> new CaseStatistics.Change(null, new CaseStatistics.State("KYC_ANALYST", null, today)));
+		statistics.track(() -> new CaseStatistics.Change(null, new CaseStatistics.State("KYC_ANALYST", null, lastMonth)));
+		statistics.track(() -> new CaseStatistics.Change(
+				new CaseStatistics.State("KYC_ANALYST", null, lastMonth),
+				new CaseStatistics.State("KYC_ANALYST", "alice", lastMonth)));
+		statistics.track(() -> new CaseStatistics.Change(
+				new CaseStatistics.State("KYC_ANALYST", null, today),
+				new CaseStatistics.State("APPROVED", null, today)));
+
+		CaseStatistics.Stats stats = statistics.stats();
+		assertEquals(2, stats.total());
+		assertEquals(1, stats.open());
+		assertEquals(Map.of("KYC_ANALYST", 1L, "APPROVED", 1L), stats.byStatus());
+		assertEquals(Map.of("alice", 1L), stats.byAssignee());
+		assertEquals(Map.of(), stats.byCandidateGroup());
+		assertEquals(0L, stats.byAge().get("under 1 day"));
+		assertEquals(1L, stats.byAge().get("over 30 days"));
+	}
+
+	@Test
+	void reconcileWaitsOutWritesThatHaveNotCommitted() {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		try {
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+			jdbcTemplate.update("INSERT INTO Clients (ClientID, FirstName, OnboardingDate, Status) VALUES (1, 'Anna', DATE '2024-01-01', 'ACTIVE')");
+			CaseStatistics statistics = new CaseStatistics(jdbcTemplate);
+
+			// A write whose transaction is still open: the rebuild must not swap in
+			TransactionSynchronizationManager.initSynchronization();
+			try {
+				statistics.track(() -> {
+					jdbcTemplate.update("INSERT INTO Cases (ClientID, Status) VALUES (1, 'KYC_ANALYST')");
+					return new CaseStatistics.Change(null, new CaseStatistics.State("KYC_ANALYST", null, LocalDate.now()));
+				});
+				statistics.reconcile();
+				assertNull(statistics.stats().reconciledAt());
+
+				for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+					synchronization.afterCommit();
+					synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+				}
+			} finally {
+				TransactionSynchronizationManager.clearSynchronization();
+			}
+
+			statistics.reconcile();
+			assertNotNull(statistics.stats().reconciledAt());
+			assertEquals(Map.of("KYC_ANALYST", 1L), statistics.stats().byStatus());
+		} finally {
+			database.shutdown();
+		}
+	}
+
+	@Test
+	void reconcileStopsGivingWayAfterRepeatedlySkippedRuns() {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		try {
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+			jdbcTemplate.update("INSERT INTO Clients (ClientID, FirstName, OnboardingDate, Status) VALUES (1, 'Anna', DATE '2024-01-01', 'ACTIVE')");
+			CaseStatistics statistics = new CaseStatistics(jdbcTemplate);
+
+			// A write that stays in flight across several runs, as under steady load
+			TransactionSynchronizationManager.initSynchronization();
+			try {
+				statistics.track(() -> {
+					jdbcTemplate.update("INSERT INTO Cases (ClientID, Status) VALUES (1, 'KYC_ANALYST')");
+					return new CaseStatistics.Change(null, new CaseStatistics.State("KYC_ANALYST", null, LocalDate.now()));
+				});
+				for (int run = 0; run < CaseStatistics.MAX_SKIPPED_RUNS; run++) {
+					statistics.reconcile();
+				}
+				assertNull(statistics.stats().reconciledAt());
+				assertEquals(CaseStatistics.MAX_SKIPPED_RUNS, statistics.stats().skippedRuns());
+
+				statistics.reconcile();
+				assertNotNull(statistics.stats().reconciledAt());
+				assertEquals(Map.of("KYC_ANALYST", 1L), statistics.stats().byStatus());
+
+				// The racing write is counted on top of a rebuild that already saw it
+				for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+					synchronization.afterCommit();
+					synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+				}
+			} finally {
+				TransactionSynchronizationManager.clearSynchronization();
+			}
+			assertEquals(Map.of("KYC_ANALYST", 2L), statistics.stats().byStatus());
+
+			// The next quiet run repairs it
+			statistics.reconcile();
+			assertEquals(Map.of("KYC_ANALYST", 1L), statistics.stats().byStatus());
+			assertEquals(2, statistics.stats().lastCorrection());
+			assertEquals(CaseStatistics.MAX_SKIPPED_RUNS, statistics.stats().skippedRuns());
+		} finally {
+			database.shutdown();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientCacheTest {
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		ClientCache cache = new ClientCache(10, 60);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Optional<Client>>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return cache.get(1L, id -> {
+						loads.incrementAndGet();
+						sleep(200);
+						return Optional.of(client(id));
+					});
+				}));
+			}
+			start.countDown();
+			for (Future<Optional<Client>> result : results) {
+				assertTrue(result.get().isPresent());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, loads.get());
+		assertEquals(7, cache.stats().sharedLoads());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedAndReloadsAfterInvalidate() {
+		ClientCache cache = new ClientCache(2, 60);
+		AtomicInteger loads = new AtomicInteger();
+		for (long id = 1; id <= 3; id++) {
+			cache.get(id, this::load);
+		}
+		assertEquals(1, cache.stats().evictions());
+
+		cache.get(3L, id -> {
+			loads.incrementAndGet();
+			return Optional.of(client(id));
+		});
+		assertEquals(0, loads.get());
+
+		cache.invalidate(3L);
+		cache.get(3L, id -> {
+			loads.incrementAndGet();
+			return Optional.of(client(id));
+		});
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void cachedAggregatesAreUnmodifiable() {
+		ClientCache cache = new ClientCache(10, 60);
+		Client client = cache.get(1L, this::load).orElseThrow();
+		assertThrows(UnsupportedOperationException.class, () -> client.addresses().clear());
+	}
+
+	private Optional<Client> load(Long id) {
+		return Optional.of(client(id));
+	}
+
+	private static Client client(Long id) {
+		return new Client(id, null, "Anna", null, "Meier", null, "CH", null, null, "ACTIVE", null, null, null, null,
+				null, null, null, null, null, null, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+				new ArrayList<>(), new ArrayList<>());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
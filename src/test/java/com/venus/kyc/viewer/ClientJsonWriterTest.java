@@ -0,0 +1,85 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientJsonWriterTest {
+
+	// The mapper Spring MVC serializes records with
+	private final JsonMapper mapper = JsonMapper.builder().build();
+
+	@Test
+	void writesWhatJacksonWouldForAFullyPopulatedClient() throws Exception {
+		Client client = client();
+
+		assertEquals(mapper.readTree(mapper.writeValueAsString(client)), mapper.readTree(write(client, true)));
+	}
+
+	@Test
+	void writesNullsAsJacksonDoes() throws Exception {
+		Client client = new Client(8L, null, "Hans", null, null, null, null, null, null, null, null, null, null,
+				null, null, null, null, null, null, null, null, null, null, null, null);
+
+		assertEquals(mapper.readTree(mapper.writeValueAsString(client)), mapper.readTree(write(client, true)));
+	}
+
+	@Test
+	void maskedClientDiffersOnlyInItsChildCollections() throws Exception {
+		Client client = client();
+		Client masked = new Client(client.clientID(), client.titlePrefix(), client.firstName(), client.middleName(),
+				client.lastName(), client.titleSuffix(), client.citizenship1(), client.citizenship2(),
+				client.onboardingDate(), client.status(), client.nameAtBirth(), client.nickName(), client.gender(),
+				client.dateOfBirth(), client.language(), client.occupation(), client.countryOfTax(),
+				client.sourceOfFundsCountry(), client.fatcaStatus(), client.crsStatus(), null, null, null, null, null);
+
+		assertEquals(mapper.readTree(mapper.writeValueAsString(masked)), mapper.readTree(write(client, false)));
+	}
+
+	@Test
+	void fieldsComeInRecordComponentOrder() throws Exception {
+		JsonNode expected = mapper.readTree(mapper.writeValueAsString(client()));
+		JsonNode actual = mapper.readTree(write(client(), true));
+
+		assertEquals(names(expected), names(actual));
+		assertEquals(names(expected.get("relatedParties").get(0)), names(actual.get("relatedParties").get(0)));
+	}
+
+	private static String write(Client client, boolean includeSensitive) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator json = new JsonFactory().createGenerator(out)) {
+			ClientJsonWriter.write(json, client, includeSensitive);
+		}
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> names(JsonNode node) {
+		return new ArrayList<>(node.propertyNames());
+	}
+
+	private static Client client() {
+		List<Address> addresses = List.of(
+				new Address(1L, "RESIDENTIAL", "Bahnhofstrasse 1", "c/o Muster", "Zürich", "8001", "CH", "1", "Top 3"),
+				new Address(2L, "POSTAL", "Postfach", "Fach 12", "Bern", "3001", "CH", "12", "-"));
+		List<Identifier> identifiers = List.of(new Identifier(3L, "PASSPORT", "X1234567", "CH", "P-1"));
+		RelatedParty party = new RelatedParty(4L, 7L, "UBO", "Dr.", "Eva", "Maria", "Muster", "PhD", "CH", "DE",
+				LocalDate.of(2023, 5, 6), "ACTIVE", "Keller", "Evi", "F", LocalDate.of(1970, 2, 3), "de", "Lawyer",
+				"CH", "DE", "EXEMPT", "REPORTABLE", addresses.subList(0, 1), identifiers);
+		return new Client(7L, "Prof.", "Anna", "Luisa", "Muster \"Jr\"", "MBA", "CH", "AT", LocalDate.of(2024, 1, 2),
+				"ACTIVE", "Frei", "Ann", "F", LocalDate.of(1980, 12, 31), "de", "Engineer", "CH", "AT",
+				"NON_US", "NON_REPORTABLE", addresses, identifiers, List.of(party),
+				List.of(new Account(5L, "ACC1", "OPEN"), new Account(6L, "ACC2", "CLOSED")),
+				List.of(new Portfolio(8L, 7L, "ACC1", "Growth\nmandate", LocalDate.of(2024, 2, 1),
+						LocalDate.of(2025, 3, 1), "CLOSED")));
+	}
+}
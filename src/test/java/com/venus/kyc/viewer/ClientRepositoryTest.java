@@ -0,0 +1,231 @@
+package com.venus.kyc.viewer;
+
+import com.venus.kyc.viewer.network.OwnershipGraph;
+import com.venus.kyc.viewer.search.ClientNameIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClientRepositoryTest {
+
+	private EmbeddedDatabase database;
+	private JdbcClient jdbcClient;
+
+	@BeforeEach
+	void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcClient = JdbcClient.create(database);
+		insertClient(1, "Anna", "Muster");
+		insertClient(2, "Hans", "Keller");
+		insertClient(3, "ANNETTE", "Frei");
+		insertClient(4, "Peter", "50%_Holding");
+		insertClient(5, "Zoe", "Stanley");
+		jdbcClient.sql("INSERT INTO RelatedParties (ClientID, FirstName, LastName) VALUES (2, 'Annabelle', 'Meier')").update();
+	}
+
+	@AfterEach
+	void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void sqlFallbackMatchesTheSameClientsAsTheIndex() {
+		ClientRepository sql = repository(false);
+		ClientRepository indexed = repository(true);
+
+		for (String query : List.of("ann", "ANN", " Ann ", "meier", "muster", "%_h", "50%", "xyz")) {
+			List<Long> expected = sorted(indexed.searchByName(query));
+			assertEquals(expected, sorted(sql.searchByName(query)), query);
+			assertEquals(expected.size(), sql.countSearchClients(query), query);
+		}
+		assertEquals(List.of(1L, 2L, 3L), sorted(indexed.searchByName("ann")));
+		assertEquals(List.of(4L), sorted(indexed.searchByName("%_h")));
+	}
+
+	@Test
+	void shortQueriesAreCaseInsensitiveAndIncludeRelatedParties() {
+		ClientRepository repository = repository(true);
+
+		// Anna, Hans and his related party Annabelle, ANNETTE, Stanley
+		assertEquals(List.of(1L, 2L, 3L, 5L), sorted(repository.searchByName("AN")));
+		// Wildcards are taken literally
+		assertEquals(List.of(4L), sorted(repository.searchByName("_h")));
+		assertEquals(List.of(4L), sorted(repository.searchByName("%")));
+	}
+
+	@Test
+	void sortedSearchMatchesTheSameClientsAsTheIndex() {
+		ClientRepository repository = repository(true);
+
+		for (String sortBy : List.of("firstName", "onboardingDate")) {
+			PaginatedResponse<Client> page = repository.searchByNameCursor("ann", null, 10, sortBy, true, true);
+			assertEquals(List.of(1L, 2L, 3L), sorted(page.content()), sortBy);
+			assertEquals(3, page.totalElements(), sortBy);
+		}
+	}
+
+	@Test
+	void seekPagesWalkForwardAndBackThroughTiedKeys() {
+		// Repeated first names and onboarding dates, so pages split inside a tie
+		insertClient(6, "Anna", "Brun", LocalDate.of(2023, 6, 1));
+		insertClient(7, "Anna", "Graf", LocalDate.of(2024, 1, 1));
+		insertClient(8, "Hans", "Ott", LocalDate.of(2023, 6, 1));
+		insertClient(9, "Anna", "Vogt", LocalDate.of(2023, 6, 1));
+		insertClient(10, "Zoe", "Roth", LocalDate.of(2025, 2, 2));
+		ClientRepository repository = repository(false);
+
+		List<Client> all = repository.findAllByCursor(null, 100, "clientID", false, true).content();
+		assertEquals(10, all.size());
+		assertPagesInOrder(repository, "clientID", all.stream().map(Client::clientID).sorted().toList());
+		assertPagesInOrder(repository, "firstName", order(all, Comparator.comparing(Client::firstName)));
+		assertPagesInOrder(repository, "onboardingDate", order(all, Comparator.comparing(Client::onboardingDate)));
+	}
+
+	@Test
+	void indexedSearchPagesWalkForwardAndBack() {
+		insertClient(6, "Annika", "Brun", LocalDate.of(2023, 6, 1));
+		insertClient(7, "Hanna", "Graf", LocalDate.of(2024, 1, 1));
+		ClientRepository repository = repository(true);
+
+		// Anna, Hans (related party Annabelle), ANNETTE, Annika, Hanna
+		List<Long> expected = List.of(1L, 2L, 3L, 6L, 7L);
+		List<Long> forward = new ArrayList<>();
+		List<String> prevCursors = new ArrayList<>();
+		String cursor = null;
+		do {
+			PaginatedResponse<Client> page = repository.searchByNameCursor("ann", cursor, 2, "clientID", false, true);
+			assertEquals(expected.size(), page.totalElements());
+			forward.addAll(ids(page.content()));
+			prevCursors.add(page.prevCursor());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertEquals(expected, forward);
+		assertNull(prevCursors.get(0));
+
+		PaginatedResponse<Client> back = repository.searchByNameCursor("ann", prevCursors.get(2), 2, "clientID", false,
+				true);
+		assertEquals(List.of(3L, 6L), ids(back.content()));
+		back = repository.searchByNameCursor("ann", back.prevCursor(), 2, "clientID", false, true);
+		assertEquals(List.of(1L, 2L), ids(back.content()));
+		assertNull(back.prevCursor());
+	}
+
+	@Test
+	void aCursorIsRejectedUnderAnotherSortOrder() {
+		ClientRepository repository = repository(true);
+		String next = repository.findAllByCursor(null, 2, "firstName", false, true).nextCursor();
+
+		assertThrows(IllegalArgumentException.class,
+				() -> repository.findAllByCursor(next, 2, "onboardingDate", false, true));
+		assertThrows(IllegalArgumentException.class,
+				() -> repository.findSummariesByCursor(next, 2, "clientID", false));
+		assertThrows(IllegalArgumentException.class,
+				() -> repository.searchByNameCursor("ann", next, 2, "clientID", false, true));
+	}
+
+	@Test
+	void malformedOrMismatchedCursorsAreBadRequests() {
+		ClientController controller = new ClientController(repository(true), null, null, null, null, null, null,
+				null, null);
+		TestingAuthenticationToken admin = new TestingAuthenticationToken("admin", null, "ROLE_ADMIN");
+		String byFirstName = new SeekCursor("firstName", "Anna", 1, false).encode();
+
+		for (String cursor : List.of("not a cursor!", byFirstName)) {
+			ResponseStatusException list = assertThrows(ResponseStatusException.class,
+					() -> controller.getAllClients(0, 2, cursor, "clientID", false, "full", admin));
+			assertEquals(400, list.getStatusCode().value());
+			ResponseStatusException search = assertThrows(ResponseStatusException.class,
+					() -> controller.searchClients("ann", "substring", 0, 2, cursor, "onboardingDate", false,
+							"summary", admin));
+			assertEquals(400, search.getStatusCode().value());
+		}
+	}
+
+	// Pages of three forward to the end, then back to the start through the prev cursors
+	private static void assertPagesInOrder(ClientRepository repository, String sortBy, List<Long> expected) {
+		List<List<Long>> pages = new ArrayList<>();
+		String cursor = null;
+		String prev = null;
+		do {
+			PaginatedResponse<Client> page = repository.findAllByCursor(cursor, 3, sortBy, true, true);
+			assertEquals(expected.size(), page.totalElements(), sortBy);
+			assertEquals(pages.isEmpty(), page.prevCursor() == null, sortBy);
+			pages.add(ids(page.content()));
+			prev = page.prevCursor();
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertEquals(expected, pages.stream().flatMap(List::stream).toList(), sortBy);
+
+		for (int p = pages.size() - 2; p >= 0; p--) {
+			PaginatedResponse<Client> page = repository.findAllByCursor(prev, 3, sortBy, false, true);
+			assertEquals(pages.get(p), ids(page.content()), sortBy);
+			assertEquals(-1, page.totalElements(), sortBy);
+			prev = page.prevCursor();
+		}
+		assertNull(prev, sortBy);
+	}
+
+	private static List<Long> order(List<Client> clients, Comparator<Client> byKey) {
+		List<Client> sorted = new ArrayList<>(clients);
+		sorted.sort(byKey.thenComparing(Client::clientID));
+		return ids(sorted);
+	}
+
+	private static List<Long> ids(List<Client> clients) {
+		return clients.stream().map(Client::clientID).toList();
+	}
+
+	private ClientRepository repository(boolean indexed) {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		InListFetcher fetcher = new InListFetcher(jdbcClient);
+		RelatedPartyLoader relatedPartyLoader = new RelatedPartyLoader(fetcher);
+		ClientNameIndex nameIndex = new ClientNameIndex(jdbcClient, 0.75);
+		if (indexed) {
+			nameIndex.rebuild();
+		}
+		MaterialChangeCapture changeCapture = new MaterialChangeCapture(jdbcTemplate,
+				new DataSourceTransactionManager(database), new MaterialChangeRollups(jdbcTemplate),
+				MaterialChangeCapture.Durability.COMMIT, 100, 100);
+		return new ClientRepository(jdbcClient, new ClientAggregateLoader(fetcher, relatedPartyLoader),
+				relatedPartyLoader, new CountCache(60), new ClientCache(100, 60), nameIndex,
+				new OwnershipGraph(jdbcClient, 5000), new EntityVersions(jdbcClient), changeCapture);
+	}
+
+	private void insertClient(long id, String firstName, String lastName) {
+		insertClient(id, firstName, lastName, LocalDate.of(2024, 1, 1));
+	}
+
+	private void insertClient(long id, String firstName, String lastName, LocalDate onboardingDate) {
+		jdbcClient.sql("INSERT INTO Clients (ClientID, FirstName, LastName, OnboardingDate, Status) VALUES (:id, :first, :last, :onboarded, 'ACTIVE')")
+				.param("id", id)
+				.param("first", firstName)
+				.param("last", lastName)
+				.param("onboarded", onboardingDate)
+				.update();
+	}
+
+	private static List<Long> sorted(List<Client> clients) {
+		return clients.stream().map(Client::clientID).sorted().toList();
+	}
+}
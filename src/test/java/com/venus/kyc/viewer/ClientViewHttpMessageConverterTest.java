@@ -0,0 +1,67 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientViewHttpMessageConverterTest {
+
+	private final ClientViewHttpMessageConverter converter = new ClientViewHttpMessageConverter();
+
+	@Test
+	void maskedPageLeavesChildCollectionsOut() throws Exception {
+		JsonNode page = write(new ClientView<>(new PaginatedResponse<>(List.of(client()), 0, 10, 1, 1), false));
+
+		JsonNode client = page.get("content").get(0);
+		assertEquals(7, client.get("clientID").asLong());
+		assertEquals("2024-01-02", client.get("onboardingDate").asText());
+		for (String field : List.of("addresses", "identifiers", "relatedParties", "accounts", "portfolios")) {
+			assertTrue(client.get(field).isNull(), field);
+		}
+		assertEquals(1, page.get("totalElements").asLong());
+		assertTrue(page.get("nextCursor").isNull());
+	}
+
+	@Test
+	void sensitiveViewWritesEverything() throws Exception {
+		JsonNode client = write(new ClientView<>(client(), true));
+
+		assertEquals("P1", client.get("identifiers").get(0).get("identifierValue").asText());
+		assertEquals("Zurich", client.get("relatedParties").get(0).get("addresses").get(0).get("city").asText());
+		assertEquals("ACC1", client.get("accounts").get(0).get("accountNumber").asText());
+	}
+
+	@Test
+	void sensitiveDataFollowsThePermission() {
+		assertTrue(ClientView.canViewSensitiveData(new TestingAuthenticationToken("a", null, "ROLE_ADMIN")));
+		assertTrue(ClientView.canViewSensitiveData(
+				new TestingAuthenticationToken("b", null, "ROLE_USER", ClientView.VIEW_SENSITIVE_DATA)));
+		assertFalse(ClientView.canViewSensitiveData(new TestingAuthenticationToken("c", null, "ROLE_USER")));
+	}
+
+	private JsonNode write(ClientView<?> view) throws Exception {
+		MockHttpOutputMessage message = new MockHttpOutputMessage();
+		converter.write(view, MediaType.APPLICATION_JSON, message);
+		return new ObjectMapper().readTree(message.getBodyAsBytes());
+	}
+
+	private static Client client() {
+		List<Address> addresses = List.of(new Address(1L, "RESIDENTIAL", "Main 1", null, "Zurich", "8001", "CH", null, null));
+		List<Identifier> identifiers = List.of(new Identifier(1L, "PASSPORT", "P1", "CH", null));
+		RelatedParty party = new RelatedParty(2L, 7L, "UBO", null, "Party", null, "Owner", null, "CH", null, null,
+				"ACTIVE", null, null, null, null, null, null, null, null, null, null, addresses, identifiers);
+		return new Client(7L, null, "Anna", null, "Muster", null, "CH", null, LocalDate.of(2024, 1, 2), "ACTIVE",
+				null, null, null, null, null, null, null, null, null, null, addresses, identifiers, List.of(party),
+				List.of(new Account(1L, "ACC1", "OPEN")), List.of());
+	}
+}
@@ -0,0 +1,61 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConditionalGetTest {
+
+	@Test
+	void matchingTagIsAnsweredWithoutBuildingTheBody() {
+		String etag = ConditionalGet.etag("client", 7L, 3);
+		AtomicInteger loads = new AtomicInteger();
+
+		ResponseEntity<String> response = ConditionalGet.respond(request(etag), etag, () -> {
+			loads.incrementAndGet();
+			return "body";
+		});
+
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertEquals(etag, response.getHeaders().getETag());
+		assertNull(response.getBody());
+		assertEquals(0, loads.get());
+	}
+
+	@Test
+	void staleTagGetsTheBodyAndTheNewTag() {
+		String etag = ConditionalGet.etag("client", 7L, 4);
+
+		ResponseEntity<String> response = ConditionalGet.respond(request(ConditionalGet.etag("client", 7L, 3)),
+				etag, () -> "body");
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(etag, response.getHeaders().getETag());
+		assertEquals("body", response.getBody());
+		assertEquals("no-cache, private", response.getHeaders().getCacheControl());
+	}
+
+	@Test
+	void missingBodyIsNotFound() {
+		ResponseEntity<String> response = ConditionalGet.respond(request(null), ConditionalGet.etag("case", 1L, 0),
+				() -> null);
+
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+	}
+
+	private static ServletWebRequest request(String ifNoneMatch) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/clients/7");
+		if (ifNoneMatch != null) {
+			request.addHeader("If-None-Match", ifNoneMatch);
+		}
+		return new ServletWebRequest(request, new MockHttpServletResponse());
+	}
+}
@@ -0,0 +1,33 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+	@Test
+	void percentilesAreWithinABucketOfTheTruth() {
+		Histogram histogram = new Histogram();
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value);
+		}
+
+		Histogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(1000, snapshot.count());
+		assertEquals(500.5, snapshot.mean(), 1e-9);
+		assertEquals(1000, snapshot.max());
+		assertTrue(snapshot.p50() >= 500 && snapshot.p50() <= 500 * 17 / 16, "p50 " + snapshot.p50());
+		assertTrue(snapshot.p99() >= 990 && snapshot.p99() <= 1000, "p99 " + snapshot.p99());
+	}
+
+	@Test
+	void everyValueFallsInsideItsBucket() {
+		for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789, Long.MAX_VALUE }) {
+			int bucket = Histogram.bucket(value);
+			assertTrue(value <= Histogram.upperBound(bucket), "value " + value);
+			assertTrue(bucket == 0 || value > Histogram.upperBound(bucket - 1), "value " + value);
+		}
+	}
+}
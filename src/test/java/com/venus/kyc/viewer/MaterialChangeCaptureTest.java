@@ -0,0 +1,210 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MaterialChangeCaptureTest {
+
+	private EmbeddedDatabase database;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactions;
+	private MaterialChangeRollups rollups;
+
+	@BeforeEach
+	void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.update("INSERT INTO Clients (ClientID, FirstName, OnboardingDate, Status) VALUES (1, 'Anna', DATE '2024-01-01', 'ACTIVE')");
+		transactions = new TransactionTemplate(new DataSourceTransactionManager(database));
+		rollups = new MaterialChangeRollups(jdbcTemplate);
+	}
+
+	@AfterEach
+	void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void diffRecordsOnlyChangedColumnsAndChildren() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.ASYNC, 100);
+		Address home = new Address(5L, "HOME", "Main 1", null, "Zurich", "8001", "CH", null, null);
+		Address moved = new Address(5L, "HOME", "Main 2", null, "Zurich", "8001", "CH", null, null);
+		Identifier passport = new Identifier(6L, "PASSPORT", "P1", null, null);
+
+		capture.capture(client("PENDING", List.of(home), List.of(passport)), client("ACTIVE", List.of(moved), List.of()));
+		assertEquals(0, count());
+		capture.flush();
+
+		assertEquals(List.of(
+				"Client/1 Status UPDATE PENDING -> ACTIVE",
+				"Address/5 AddressLine1 UPDATE Main 1 -> Main 2",
+				"Identifier/6 IdentifierType DELETE PASSPORT -> null",
+				"Identifier/6 IdentifierValue DELETE P1 -> null"), rows());
+		assertEquals(4, capture.stats().written());
+		assertEquals(0, capture.stats().queueDepth());
+	}
+
+	@Test
+	void fullQueueIsFlushedByTheWriter() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.ASYNC, 2);
+
+		capture.capture(null, client("ACTIVE", null, null));
+
+		// FirstName, OnboardingDate and Status: the third row does not fit
+		assertEquals(2, count());
+		assertEquals(1, capture.stats().callerFlushes());
+		capture.flush();
+		assertEquals(3, count());
+	}
+
+	@Test
+	void asyncRowsAreQueuedOnlyAfterCommit() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.ASYNC, 100);
+
+		transactions.executeWithoutResult(status -> {
+			capture.capture(client("PENDING", null, null), client("ACTIVE", null, null));
+			status.setRollbackOnly();
+		});
+		assertEquals(0, capture.stats().queueDepth());
+
+		transactions.executeWithoutResult(status -> capture.capture(client("PENDING", null, null),
+				client("ACTIVE", null, null)));
+		assertEquals(1, capture.stats().queueDepth());
+		capture.flush();
+		assertEquals(1, count());
+	}
+
+	@Test
+	void failedBatchIsRetriedRowByRow() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.ASYNC, 100);
+
+		// Client 2 doesn't exist, so its rows break the foreign key; the batch size is 2
+		capture.captureImported(List.of(client("ACTIVE", null, null), client("ACTIVE", null, null)),
+				new long[] { 1, 2 }, new long[0]);
+		capture.flush();
+
+		assertEquals(List.of(
+				"Client/1 FirstName INSERT null -> Anna",
+				"Client/1 OnboardingDate INSERT null -> 2024-01-01",
+				"Client/1 Status INSERT null -> ACTIVE"), rows());
+		assertEquals(3, capture.stats().written());
+		assertEquals(3, capture.stats().failedRows());
+		LocalDate today = LocalDate.now();
+		assertEquals(3, rollups.stats(today, today, false).total());
+	}
+
+	@Test
+	void stopFlushesTheQueueAndLaterRowsAreWrittenDirectly() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.ASYNC, 100);
+
+		capture.capture(client("PENDING", null, null), client("ACTIVE", null, null));
+		assertEquals(0, count());
+		capture.stop();
+		assertEquals(1, count());
+
+		transactions.executeWithoutResult(status -> capture.capture(client("ACTIVE", null, null),
+				client("CLOSED", null, null)));
+		assertEquals(2, count());
+		assertEquals(0, capture.stats().queueDepth());
+	}
+
+	@Test
+	void commitDurabilityWritesInsideTheTransaction() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.COMMIT, 100);
+
+		transactions.executeWithoutResult(status -> {
+			capture.capture(client("PENDING", null, null), client("ACTIVE", null, null));
+			capture.capture(client("ACTIVE", null, null), client("CLOSED", null, null));
+			assertEquals(0, count());
+		});
+
+		assertEquals(2, count());
+		assertEquals(1, capture.stats().flushes());
+		assertEquals(0, capture.stats().queueDepth());
+	}
+
+	@Test
+	void rollupsCountCommittedChangesOnly() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.COMMIT, 100);
+
+		transactions.executeWithoutResult(status -> {
+			capture.capture(client("PENDING", null, null), client("ACTIVE", null, null));
+			status.setRollbackOnly();
+		});
+		capture.capture(client("PENDING", null, null), client("ACTIVE", null, null));
+		capture.capture(null, client("ACTIVE", null, null));
+
+		LocalDate today = LocalDate.now();
+		MaterialChangeRollups.Stats stats = rollups.stats(today, today, true);
+		assertEquals(4, stats.total());
+		assertEquals(Map.of("INSERT", 3L, "UPDATE", 1L), stats.byOperationType());
+		assertEquals(3L, stats.byColumnName().get("Status"));
+		assertEquals(Map.of(today, 4L), stats.byDay());
+		assertEquals(0, rollups.stats(today.plusDays(1), today.plusDays(30), false).total());
+
+		// What was persisted reloads to the same figures
+		MaterialChangeRollups reloaded = new MaterialChangeRollups(jdbcTemplate);
+		reloaded.load();
+		assertEquals(stats.groups(), reloaded.stats(today.minusYears(1), today, false).groups());
+	}
+
+	@Test
+	void importedChildrenWithoutIdsAreAllRecorded() {
+		MaterialChangeCapture capture = capture(MaterialChangeCapture.Durability.COMMIT, 100);
+		Address home = new Address(null, "HOME", null, null, null, null, null, null, null);
+		Address work = new Address(null, "WORK", null, null, null, null, null, null, null);
+
+		capture.captureImported(List.of(client("ACTIVE", List.of(home, work), null)), new long[] { 1 }, new long[0]);
+
+		assertEquals(List.of(
+				"Client/1 FirstName INSERT null -> Anna",
+				"Client/1 OnboardingDate INSERT null -> 2024-01-01",
+				"Client/1 Status INSERT null -> ACTIVE",
+				"Address/null AddressType INSERT null -> HOME",
+				"Address/null AddressType INSERT null -> WORK"), rows());
+	}
+
+	private MaterialChangeCapture capture(MaterialChangeCapture.Durability durability, int capacity) {
+		MaterialChangeCapture capture = new MaterialChangeCapture(jdbcTemplate,
+				new DataSourceTransactionManager(database), rollups, durability, capacity, 2);
+		capture.start();
+		return capture;
+	}
+
+	private long count() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM MaterialChanges", Long.class);
+	}
+
+	private List<String> rows() {
+		return jdbcTemplate.queryForList("SELECT EntityName, EntityID, ColumnName, OperationType, CAST(OldValue AS VARCHAR(255)) AS OldValue, CAST(NewValue AS VARCHAR(255)) AS NewValue FROM MaterialChanges ORDER BY ChangeID").stream()
+				.map(MaterialChangeCaptureTest::describe)
+				.toList();
+	}
+
+	private static String describe(Map<String, Object> row) {
+		return row.get("ENTITYNAME") + "/" + row.get("ENTITYID") + " " + row.get("COLUMNNAME") + " "
+				+ row.get("OPERATIONTYPE") + " " + row.get("OLDVALUE") + " -> " + row.get("NEWVALUE");
+	}
+
+	private static Client client(String status, List<Address> addresses, List<Identifier> identifiers) {
+		return new Client(1L, null, "Anna", null, null, null, null, null, LocalDate.of(2024, 1, 1), status, null,
+				null, null, null, null, null, null, null, null, null, addresses, identifiers, null, null, null);
+	}
+}
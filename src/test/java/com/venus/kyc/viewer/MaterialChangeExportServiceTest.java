@@ -0,0 +1,109 @@
+package com.venus.kyc.viewer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venus.kyc.viewer.archive.AuditArchive;
+import com.venus.kyc.viewer.archive.AuditArchiver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MaterialChangeExportServiceTest {
+
+	@TempDir
+	Path archiveDir;
+
+	private EmbeddedDatabase database;
+	private JdbcTemplate jdbcTemplate;
+	private AuditArchive archive;
+	private MaterialChangeExportService service;
+
+	@BeforeEach
+	void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.update("INSERT INTO Clients (ClientID, FirstName, LastName, OnboardingDate, Status) VALUES (1, 'Anna', 'Muster', DATE '2024-01-01', 'ACTIVE')");
+		jdbcTemplate.update("INSERT INTO MaterialChanges (ChangeDate, ClientID, EntityID, EntityName, ColumnName, OperationType, OldValue, NewValue) VALUES "
+				+ "(TIMESTAMP '2025-01-10 10:00:00', 1, 1, 'Client', 'Status', 'UPDATE', 'PENDING', 'ACTIVE'), "
+				+ "(TIMESTAMP '2025-01-11 23:59:59.5', 1, 5, 'Address', 'AddressLine1', 'UPDATE', 'Main 1', 'Main \"2\", rear'), "
+				+ "(TIMESTAMP '2025-01-12 00:00:00', NULL, NULL, 'Client', 'Status', 'DELETE', 'ACTIVE', NULL)");
+		archive = new AuditArchive(jdbcTemplate, archiveDir.toString());
+		service = new MaterialChangeExportService(jdbcTemplate,
+				new MaterialChangeRepository(JdbcClient.create(database), new CountCache(60), archive), 2);
+	}
+
+	@AfterEach
+	void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void excelCsvHasBomAndQuotesValues() {
+		String csv = export(MaterialChangeExportService.Format.EXCEL, null, LocalDate.of(2025, 1, 11));
+
+		assertEquals("\uFEFF" + MaterialChangeExportService.CSV_HEADER + "\r\n"
+				+ "2,2025-01-11T23:59:59.5,1,Anna Muster,5,Address,AddressLine1,UPDATE,Main 1,\"Main \"\"2\"\", rear\"\r\n"
+				+ "1,2025-01-10T10:00:00,1,Anna Muster,1,Client,Status,UPDATE,PENDING,ACTIVE\r\n", csv);
+	}
+
+	@Test
+	void jsonArrayKeepsTheMaterialChangeShape() throws Exception {
+		JsonNode changes = new ObjectMapper().readTree(
+				export(MaterialChangeExportService.Format.JSON, LocalDate.of(2025, 1, 11), null));
+
+		assertEquals(2, changes.size());
+		assertEquals(3, changes.get(0).get("changeID").asLong());
+		assertEquals("2025-01-12T00:00:00", changes.get(0).get("changeDate").asText());
+		assertEquals(true, changes.get(0).get("clientID").isNull());
+		assertEquals("Main \"2\", rear", changes.get(1).get("newValue").asText());
+	}
+
+	@Test
+	void ndjsonWritesOneChangePerLine() {
+		String ndjson = export(MaterialChangeExportService.Format.NDJSON, null, null);
+
+		assertEquals(3, ndjson.split("\n").length);
+		assertEquals(true, ndjson.endsWith("}\n"));
+	}
+
+	@Test
+	void archivedChangesAreExportedInPlace() {
+		String before = export(MaterialChangeExportService.Format.CSV, null, null);
+		String range = export(MaterialChangeExportService.Format.NDJSON, LocalDate.of(2025, 1, 11), null);
+		jdbcTemplate.update("INSERT INTO MaterialChanges (ChangeDate, ClientID, EntityName) VALUES (NULL, 1, 'Client')");
+		String withNullDate = export(MaterialChangeExportService.Format.CSV, null, null);
+
+		new AuditArchiver(jdbcTemplate, new DataSourceTransactionManager(database), archive, true, 365, 1000)
+				.archive(LocalDateTime.parse("2025-01-12T00:00:00"));
+
+		assertEquals(2, archive.table(AuditArchive.MATERIAL_CHANGES).rowCount());
+		assertEquals(withNullDate, export(MaterialChangeExportService.Format.CSV, null, null));
+		assertEquals(range, export(MaterialChangeExportService.Format.NDJSON, LocalDate.of(2025, 1, 11), null));
+		assertEquals(true, withNullDate.startsWith(before));
+	}
+
+	private String export(MaterialChangeExportService.Format format, LocalDate start, LocalDate end) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.export(format, start, end, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+}
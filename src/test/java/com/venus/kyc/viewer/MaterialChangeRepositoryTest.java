@@ -0,0 +1,174 @@
+package com.venus.kyc.viewer;
+
+import com.venus.kyc.viewer.archive.AuditArchive;
+import com.venus.kyc.viewer.archive.AuditArchiver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MaterialChangeRepositoryTest {
+
+	private static final List<String> SORTS = List.of("changeID", "changeDate", "clientID", "entityID", "entityName",
+			"columnName", "operationType");
+
+	@TempDir
+	Path archiveDir;
+
+	private EmbeddedDatabase database;
+	private JdbcClient jdbcClient;
+	private AuditArchive archive;
+	private MaterialChangeRepository repository;
+
+	// 23 changes with repeated and NULL values in every sortable column
+	@BeforeEach
+	void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcClient = JdbcClient.create(database);
+		for (long clientId = 1; clientId <= 3; clientId++) {
+			jdbcClient.sql("INSERT INTO Clients (ClientID, FirstName, OnboardingDate, Status) VALUES (:id, 'Client', DATE '2024-01-01', 'ACTIVE')")
+					.param("id", clientId)
+					.update();
+		}
+		for (int i = 0; i < 23; i++) {
+			jdbcClient.sql("INSERT INTO MaterialChanges (ChangeDate, ClientID, EntityID, EntityName, ColumnName, OperationType) VALUES (:date, :clientId, :entityId, :entity, :column, :operation)")
+					.param("date", i % 5 == 0 ? null : "2025-01-" + (10 + i % 4) + " 10:00:00")
+					.param("clientId", i % 4 == 0 ? null : (long) (i % 3 + 1))
+					.param("entityId", i % 6 == 0 ? null : (long) (i % 2))
+					.param("entity", i % 7 == 0 ? null : (i % 2 == 0 ? "Client" : "Address"))
+					.param("column", i % 3 == 0 ? "" : "Status")
+					.param("operation", i % 8 == 0 ? null : "UPDATE")
+					.update();
+		}
+		archive = new AuditArchive(new JdbcTemplate(database), archiveDir.toString());
+		repository = new MaterialChangeRepository(jdbcClient, new CountCache(60), archive);
+	}
+
+	@AfterEach
+	void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void cursorPagesMatchOffsetOrderForEverySortColumn() {
+		for (String sortBy : SORTS) {
+			for (String sortDir : List.of("ASC", "DESC")) {
+				List<Long> expected = ids(repository.findAllPaginated(0, 100, null, null, sortBy, sortDir).content());
+				assertCursorPages(expected, sortBy, sortDir);
+			}
+		}
+	}
+
+	@Test
+	void archivedChangesKeepTheirPlaceInEveryOrder() {
+		Map<String, List<Long>> expected = new HashMap<>();
+		for (String sortBy : SORTS) {
+			for (String sortDir : List.of("ASC", "DESC")) {
+				expected.put(sortBy + sortDir,
+						ids(repository.findAllPaginated(0, 100, null, null, sortBy, sortDir).content()));
+			}
+		}
+		long range = repository.countChanges("2025-01-11", "2025-01-12");
+
+		// Three rows a segment, so the archived days span several segments
+		Map<String, Long> moved = new AuditArchiver(new JdbcTemplate(database),
+				new DataSourceTransactionManager(database), archive, true, 365, 3)
+				.archive(LocalDateTime.parse("2025-01-12T00:00:00"));
+		assertEquals(9, moved.get(AuditArchive.MATERIAL_CHANGES));
+		assertEquals(9, archive.table(AuditArchive.MATERIAL_CHANGES).rowCount());
+		assertEquals(0, jdbcClient.sql("SELECT COUNT(*) FROM MaterialChanges WHERE ChangeDate < TIMESTAMP '2025-01-12 00:00:00'")
+				.query(Long.class).single());
+
+		MaterialChangeRepository tiered = new MaterialChangeRepository(jdbcClient, new CountCache(60), archive);
+		assertEquals(range, tiered.countChanges("2025-01-11", "2025-01-12"));
+		assertEquals(23, tiered.countChanges(null, null));
+		repository = tiered;
+		for (String sortBy : SORTS) {
+			for (String sortDir : List.of("ASC", "DESC")) {
+				List<Long> ids = expected.get(sortBy + sortDir);
+				assertEquals(ids, ids(repository.findAllPaginated(0, 100, null, null, sortBy, sortDir).content()));
+				assertEquals(ids.subList(8, 12),
+						ids(repository.findAllPaginated(2, 4, null, null, sortBy, sortDir).content()));
+				assertCursorPages(ids, sortBy, sortDir);
+			}
+		}
+	}
+
+	private void assertCursorPages(List<Long> expected, String sortBy, String sortDir) {
+		List<Long> forward = new ArrayList<>();
+		List<String> cursors = new ArrayList<>();
+		String cursor = "";
+		while (cursor != null) {
+			cursors.add(cursor);
+			PaginatedResponse<MaterialChange> page = repository.findAllByCursor(cursor, 4, null, null, sortBy,
+					sortDir, false);
+			forward.addAll(ids(page.content()));
+			cursor = page.nextCursor();
+		}
+		assertEquals(expected, forward, sortBy + " " + sortDir);
+
+		// And back again from the last page
+		PaginatedResponse<MaterialChange> page = repository.findAllByCursor(cursors.get(cursors.size() - 1), 4,
+				null, null, sortBy, sortDir, false);
+		List<Long> backward = new ArrayList<>();
+		while (page.prevCursor() != null) {
+			page = repository.findAllByCursor(page.prevCursor(), 4, null, null, sortBy, sortDir, false);
+			List<Long> ids = new ArrayList<>(ids(page.content()));
+			Collections.reverse(ids);
+			backward.addAll(ids);
+		}
+		List<Long> reversed = new ArrayList<>(expected.subList(0, expected.size() - lastPageSize(expected)));
+		Collections.reverse(reversed);
+		assertEquals(reversed, backward, sortBy + " " + sortDir + " backwards");
+	}
+
+	@Test
+	void countIsCachedPerDateRange() {
+		assertEquals(23, repository.findAllByCursor("", 4, null, null, "changeDate", "DESC", true).totalElements());
+		assertEquals(4, repository.countChanges("2025-01-10", "2025-01-10"));
+
+		jdbcClient.sql("INSERT INTO MaterialChanges (ChangeDate, ClientID) VALUES (TIMESTAMP '2025-01-10 12:00:00', 1)").update();
+		assertEquals(4, repository.countChanges("2025-01-10", "2025-01-10"));
+		assertEquals(10, repository.countChanges("2025-01-10", "2025-01-11"));
+	}
+
+	@Test
+	void cursorIsTiedToItsSortOrder() {
+		PaginatedResponse<MaterialChange> first = repository.findAllByCursor("", 4, null, null, "changeDate", "DESC",
+				false);
+
+		assertNull(first.prevCursor());
+		assertThrows(IllegalArgumentException.class, () -> repository.findAllByCursor(first.nextCursor(), 4, null,
+				null, "changeDate", "ASC", false));
+	}
+
+	private static int lastPageSize(List<Long> all) {
+		return all.size() % 4 == 0 ? 4 : all.size() % 4;
+	}
+
+	private static List<Long> ids(List<MaterialChange> changes) {
+		return changes.stream().map(MaterialChange::changeID).toList();
+	}
+}
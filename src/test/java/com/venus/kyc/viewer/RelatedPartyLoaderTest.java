@@ -0,0 +1,122 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The loaders promise a fixed number of statements however many related parties a
+// client has; these tests pin that down against the real schema.
+class RelatedPartyLoaderTest {
+
+	private static final int SIGNATORIES = 40;
+
+	private static EmbeddedDatabase database;
+	private static JdbcClient jdbcClient;
+
+	@BeforeAll
+	static void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcClient = JdbcClient.create(database);
+
+		for (long clientId = 1; clientId <= 3; clientId++) {
+			jdbcClient.sql("INSERT INTO Clients (ClientID, FirstName, LastName, OnboardingDate, Status) VALUES (:id, 'Client', :last, DATE '2024-01-01', 'ACTIVE')")
+					.param("id", clientId)
+					.param("last", "Corp" + clientId)
+					.update();
+		}
+		// Client 1: a corporate with many signatories, each with addresses and identifiers.
+		// Client 2: a single party without children. Client 3: no parties.
+		for (long partyId = 100; partyId < 100 + SIGNATORIES; partyId++) {
+			insertParty(partyId, 1);
+			for (int i = 0; i < 2; i++) {
+				jdbcClient.sql("INSERT INTO RelatedPartyAddresses (RelatedPartyID, AddressType, City) VALUES (:id, 'HOME', 'Zurich')")
+						.param("id", partyId)
+						.update();
+			}
+			for (int i = 0; i < 3; i++) {
+				jdbcClient.sql("INSERT INTO RelatedPartyIdentifiers (RelatedPartyID, IdentifierType, IdentifierValue) VALUES (:id, 'PASSPORT', 'X')")
+						.param("id", partyId)
+						.update();
+			}
+		}
+		insertParty(500, 2);
+	}
+
+	@AfterAll
+	static void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void loadByClientIdsUsesThreeStatementsRegardlessOfPartyCount() {
+		InListFetcher fetcher = new InListFetcher(jdbcClient);
+		RelatedPartyLoader loader = new RelatedPartyLoader(fetcher);
+
+		Map<Long, List<RelatedParty>> parties = loader.loadByClientIds(List.of(1L, 2L, 3L));
+
+		assertEquals(3, fetcher.statementCount());
+		assertEquals(SIGNATORIES, parties.get(1L).size());
+		for (RelatedParty party : parties.get(1L)) {
+			assertEquals(2, party.addresses().size());
+			assertEquals(3, party.identifiers().size());
+		}
+		assertEquals(1, parties.get(2L).size());
+		assertTrue(parties.get(2L).get(0).addresses().isEmpty());
+		assertFalse(parties.containsKey(3L));
+	}
+
+	@Test
+	void loadByIdsUsesThreeStatements() {
+		InListFetcher fetcher = new InListFetcher(jdbcClient);
+		RelatedPartyLoader loader = new RelatedPartyLoader(fetcher);
+
+		List<RelatedParty> parties = loader.loadByIds(List.of(101L, 100L, 999L));
+
+		assertEquals(3, fetcher.statementCount());
+		assertEquals(List.of(100L, 101L), parties.stream().map(RelatedParty::relatedPartyID).toList());
+		assertEquals(2, parties.get(0).addresses().size());
+		assertEquals(3, parties.get(0).identifiers().size());
+	}
+
+	@Test
+	void clientAggregateUsesSevenStatementsForAPage() {
+		InListFetcher fetcher = new InListFetcher(jdbcClient);
+		ClientAggregateLoader loader = new ClientAggregateLoader(fetcher, new RelatedPartyLoader(fetcher));
+		List<Client> clients = new ArrayList<>();
+		for (long clientId = 1; clientId <= 3; clientId++) {
+			clients.add(new Client(clientId, null, "Client", null, "Corp" + clientId, null, null, null, null,
+					"ACTIVE", null, null, null, null, null, null, null, null, null, null, new ArrayList<>(),
+					new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+		}
+
+		loader.loadChildren(clients);
+
+		// Four client child tables plus parties, party addresses and party identifiers
+		assertEquals(7, fetcher.statementCount());
+		assertEquals(SIGNATORIES, clients.get(0).relatedParties().size());
+	}
+
+	private static void insertParty(long partyId, long clientId) {
+		jdbcClient.sql("INSERT INTO RelatedParties (RelatedPartyID, ClientID, RelationType, FirstName, LastName) VALUES (:id, :clientId, 'SIGNATORY', 'Signatory', :last)")
+				.param("id", partyId)
+				.param("clientId", clientId)
+				.param("last", "No" + partyId)
+				.update();
+	}
+}
@@ -0,0 +1,69 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+	@Test
+	void offersFailOnlyWhileTheBufferIsFull() {
+		RingBuffer<Integer> ring = new RingBuffer<>(3);
+		assertEquals(4, ring.capacity());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(ring.offer(i));
+		}
+		assertFalse(ring.offer(4));
+
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(2, ring.drainTo(drained, 2));
+		assertTrue(ring.offer(4));
+		assertTrue(ring.offer(5));
+		assertEquals(4, ring.drainTo(drained, 10));
+		assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+		assertEquals(0, ring.size());
+	}
+
+	@Test
+	void concurrentProducersLoseNothing() throws Exception {
+		RingBuffer<Long> ring = new RingBuffer<>(64);
+		int producers = 4;
+		int perProducer = 50_000;
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			long base = (long) p * perProducer;
+			Thread thread = new Thread(() -> {
+				for (long i = 0; i < perProducer; i++) {
+					while (!ring.offer(base + i)) {
+						Thread.yield();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		Set<Long> seen = new HashSet<>();
+		List<Long> batch = new ArrayList<>();
+		while (seen.size() < producers * perProducer) {
+			batch.clear();
+			if (ring.drainTo(batch, 100) == 0) {
+				Thread.yield();
+			}
+			for (Long value : batch) {
+				assertTrue(seen.add(value));
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, ring.size());
+	}
+}
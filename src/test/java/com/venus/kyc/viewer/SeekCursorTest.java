@@ -0,0 +1,49 @@
+package com.venus.kyc.viewer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SeekCursorTest {
+
+	@Test
+	void roundTripsThroughItsToken() {
+		SeekCursor cursor = new SeekCursor("firstName", "Anna|Maria", 42, true);
+
+		assertEquals(cursor, SeekCursor.decode(cursor.encode(), "firstName"));
+		assertEquals(new SeekCursor("clientID", "", 7, false),
+				SeekCursor.decode(new SeekCursor("clientID", null, 7, false).encode(), "clientID"));
+	}
+
+	@Test
+	void anEmptyTokenIsTheFirstPage() {
+		assertNull(SeekCursor.decode(null, "clientID"));
+		assertNull(SeekCursor.decode("", "clientID"));
+		assertNull(SeekCursor.decode("  ", "clientID"));
+	}
+
+	@Test
+	void aCursorOnlyFitsTheOrderingItCameFrom() {
+		String token = new SeekCursor("firstName", "Anna", 1, false).encode();
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> SeekCursor.decode(token, "onboardingDate"));
+		assertEquals("Cursor does not match sort order onboardingDate", e.getMessage());
+	}
+
+	@Test
+	void malformedTokensAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode("not a cursor!", "clientID"));
+		assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode(encode("clientID|f|7"), "clientID"));
+		assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode(encode("clientID|f|x|"), "clientID"));
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
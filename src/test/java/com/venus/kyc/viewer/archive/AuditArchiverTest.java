@@ -0,0 +1,191 @@
+package com.venus.kyc.viewer.archive;
+
+import com.venus.kyc.viewer.CountCache;
+import com.venus.kyc.viewer.MaterialChange;
+import com.venus.kyc.viewer.MaterialChangeRepository;
+import com.venus.kyc.viewer.screening.ScreeningLog;
+import com.venus.kyc.viewer.screening.ScreeningRepository;
+import com.venus.kyc.viewer.screening.ScreeningResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditArchiverTest {
+
+	private static final LocalDateTime CUTOFF = LocalDateTime.parse("2024-01-01T00:00:00");
+
+	@TempDir
+	Path archiveDir;
+
+	private EmbeddedDatabase database;
+	private JdbcTemplate jdbcTemplate;
+	private AuditArchive archive;
+	private AuditArchiver archiver;
+
+	// Per table, rows on both sides of CUTOFF
+	@BeforeEach
+	void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.update("INSERT INTO Clients (ClientID, FirstName, OnboardingDate, Status) VALUES (1, 'Anna', DATE '2020-01-01', 'ACTIVE')");
+		String change = "INSERT INTO MaterialChanges (ChangeID, ChangeDate, ClientID, EntityID, EntityName, ColumnName, OperationType, OldValue, NewValue) VALUES (?, ?, 1, 1, 'Client', 'Status', 'UPDATE', ?, ?)";
+		jdbcTemplate.update(change, 1, "2023-05-01 10:00:00", "PENDING", "ACTIVE");
+		jdbcTemplate.update(change, 2, "2023-05-02 10:00:00", "ACTIVE", "BLOCKED");
+		jdbcTemplate.update(change, 3, "2023-05-03 10:00:00", "BLOCKED", "ACTIVE");
+		jdbcTemplate.update(change, 4, "2025-06-01 10:00:00", "ACTIVE", "CLOSED");
+		jdbcTemplate.update(change, 5, "2025-06-02 10:00:00", "CLOSED", "ACTIVE");
+
+		String log = "INSERT INTO ScreeningLogs (LogID, ClientID, RequestPayload, ResponsePayload, OverallStatus, ExternalRequestID, CreatedAt) VALUES (?, 1, ?, ?, ?, ?, ?)";
+		jdbcTemplate.update(log, 1, "{\"request\":1}", "{\"response\":1}", "HIT", "EXT-1", "2023-03-01 09:00:00");
+		jdbcTemplate.update(log, 2, "{\"request\":2}", null, "NO_HIT", null, "2023-04-01 09:00:00");
+		jdbcTemplate.update(log, 3, "{\"request\":3}", "{\"response\":3}", "NO_HIT", "EXT-3", "2025-02-01 09:00:00");
+		String result = "INSERT INTO ScreeningResults (ResultID, ScreeningLogID, ContextType, Status, AlertStatus, AlertMessage, AlertID) VALUES (?, ?, ?, ?, ?, ?, ?)";
+		jdbcTemplate.update(result, 1, 1, "PEP", "HIT", "OPEN", "Possible match", "A-1");
+		jdbcTemplate.update(result, 2, 1, "SAN", "NO_HIT", null, null, null);
+		jdbcTemplate.update(result, 3, 3, "PEP", "NO_HIT", null, null, null);
+
+		jdbcTemplate.update("INSERT INTO RiskAssessmentLogs (LogID, RequestJSON, ResponseJSON, Status, CreatedAt) VALUES (1, '{\"risk\":\"request\"}', '{\"risk\":\"response\"}', 'OK', TIMESTAMP '2023-02-01 08:00:00')");
+
+		archive = new AuditArchive(jdbcTemplate, archiveDir.toString());
+		archiver = new AuditArchiver(jdbcTemplate, new DataSourceTransactionManager(database), archive, true, 365, 2);
+	}
+
+	@AfterEach
+	void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void archivePassMovesOldRowsOutOfTheHotTables() {
+		Map<String, Long> moved = archiver.archive(CUTOFF);
+
+		assertEquals(Map.of(AuditArchive.MATERIAL_CHANGES, 3L, AuditArchive.SCREENING_LOGS, 2L,
+				AuditArchive.RISK_ASSESSMENT_LOGS, 1L), moved);
+		assertEquals(List.of(4L, 5L), jdbcTemplate.queryForList("SELECT ChangeID FROM MaterialChanges ORDER BY ChangeID", Long.class));
+		assertEquals(List.of(3L), jdbcTemplate.queryForList("SELECT LogID FROM ScreeningLogs", Long.class));
+		assertEquals(List.of(3L), jdbcTemplate.queryForList("SELECT ResultID FROM ScreeningResults", Long.class));
+		// Referenced by RiskAssessments, so the row stays and only its payloads move
+		Map<String, Object> risk = jdbcTemplate.queryForMap("SELECT RequestJSON, ResponseJSON, ArchivedAt FROM RiskAssessmentLogs WHERE LogID = 1");
+		assertNull(risk.get("REQUESTJSON"));
+		assertNull(risk.get("RESPONSEJSON"));
+		assertNotNull(risk.get("ARCHIVEDAT"));
+
+		assertEquals(3, archive.table(AuditArchive.MATERIAL_CHANGES).rowCount());
+		// Two rows a segment
+		assertEquals(2, archive.table(AuditArchive.MATERIAL_CHANGES).segmentCount());
+		assertEquals(1, archive.table(AuditArchive.SCREENING_REQUESTS).rowCount());
+		assertEquals(2, archive.table(AuditArchive.SCREENING_RESULTS).rowCount());
+		ArchivedRow payloads = archive.table(AuditArchive.RISK_ASSESSMENT_LOGS).findByIds(List.of(1L)).get(1L);
+		assertEquals(List.of("{\"risk\":\"request\"}", "{\"risk\":\"response\"}", "OK"), payloads.values());
+
+		// A second pass finds nothing left to move
+		assertEquals(Map.of(AuditArchive.MATERIAL_CHANGES, 0L, AuditArchive.SCREENING_LOGS, 0L,
+				AuditArchive.RISK_ASSESSMENT_LOGS, 0L), archiver.archive(CUTOFF));
+	}
+
+	@Test
+	void archivedChangesAreReadBackThroughTheRepository() {
+		archiver.archive(CUTOFF);
+
+		MaterialChangeRepository repository = new MaterialChangeRepository(JdbcClient.create(database),
+				new CountCache(60), archive);
+		assertEquals(5, repository.countChanges(null, null));
+		List<MaterialChange> changes = repository.findAll();
+		assertEquals(List.of(5L, 4L, 3L, 2L, 1L), changes.stream().map(MaterialChange::changeID).toList());
+		MaterialChange first = changes.get(4);
+		assertEquals(LocalDateTime.parse("2023-05-01T10:00:00"), first.changeDate());
+		assertEquals(1L, first.clientID());
+		assertEquals("Status", first.columnName());
+		assertEquals("PENDING", first.oldValue());
+		assertEquals("ACTIVE", first.newValue());
+	}
+
+	@Test
+	void archivedScreeningsAreReadBackThroughTheRepository() {
+		archiver.archive(CUTOFF);
+
+		ScreeningRepository repository = new ScreeningRepository(JdbcClient.create(database), archive);
+		assertEquals(List.of(3L, 2L, 1L),
+				repository.findLogsByClientId(1L).stream().map(ScreeningLog::logID).toList());
+
+		ScreeningLog archived = repository.findLogByExternalId("EXT-1");
+		assertEquals(new ScreeningLog(1L, 1L, "{\"request\":1}", "{\"response\":1}", "HIT", "EXT-1",
+				LocalDateTime.parse("2023-03-01T09:00:00")), archived);
+		assertEquals(3L, repository.findLogByExternalId("EXT-3").logID());
+		assertNull(repository.findLogByExternalId("EXT-2"));
+
+		assertEquals(List.of(
+				new ScreeningResult(1L, 1L, "PEP", "HIT", "OPEN", "Possible match", "A-1"),
+				new ScreeningResult(2L, 1L, "SAN", "NO_HIT", null, null, null)), repository.findResultsByLogId(1L));
+		assertEquals(List.of(3L),
+				repository.findResultsByLogId(3L).stream().map(ScreeningResult::resultID).toList());
+	}
+
+	@Test
+	void registeredSegmentsAreReloaded() {
+		archiver.archive(CUTOFF);
+
+		AuditArchive reloaded = new AuditArchive(jdbcTemplate, archiveDir.toString());
+		reloaded.load();
+		for (ArchiveTable table : archive.tables()) {
+			assertEquals(table.rowCount(), reloaded.table(table.name()).rowCount(), table.name());
+			assertEquals(table.segmentCount(), reloaded.table(table.name()).segmentCount(), table.name());
+		}
+	}
+
+	@Test
+	void removeUnregisteredDeletesOnlyOrphanedFiles() throws Exception {
+		archiver.archive(CUTOFF);
+		Set<Path> registered = new HashSet<>();
+		jdbcTemplate.query("SELECT TableName, SegmentName FROM ArchiveSegments",
+				(RowCallbackHandler) rs -> registered.add(archiveDir.resolve(rs.getString(1)).resolve(rs.getString(2))));
+		assertFalse(registered.isEmpty());
+
+		// Left by runs that failed before their transaction committed
+		Path orphan = Files.writeString(archiveDir.resolve(AuditArchive.MATERIAL_CHANGES).resolve("orphan.seg"), "x");
+		Path partial = Files.writeString(archiveDir.resolve(AuditArchive.SCREENING_LOGS).resolve("partial.seg.tmp"), "x");
+		archive.removeUnregistered();
+
+		assertFalse(Files.exists(orphan));
+		assertFalse(Files.exists(partial));
+		Set<Path> remaining = new HashSet<>();
+		for (ArchiveTable table : archive.tables()) {
+			Path dir = archiveDir.resolve(table.name());
+			if (Files.isDirectory(dir)) {
+				try (var files = Files.list(dir)) {
+					files.forEach(remaining::add);
+				}
+			}
+		}
+		assertEquals(registered, remaining);
+		for (Path file : registered) {
+			assertTrue(Files.size(file) > 0, file.toString());
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.venus.kyc.viewer.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentTest {
+
+	private static final LocalDateTime START = LocalDateTime.parse("2024-03-01T08:00:00.123456");
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rowsRoundTripAcrossBlocks() throws Exception {
+		List<ArchivedRow> rows = rows(1200);
+		Segment segment = write(rows);
+
+		assertEquals(1200, segment.rowCount());
+		assertEquals(SegmentWriter.micros(START), segment.minTime());
+		assertEquals(SegmentWriter.micros(rows.get(1199).time()), segment.maxTime());
+
+		List<ArchivedRow> ascending = new ArrayList<>();
+		segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, false, ascending::add);
+		assertEquals(rows, ascending);
+
+		List<ArchivedRow> descending = new ArrayList<>();
+		segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, true, descending::add);
+		Collections.reverse(descending);
+		assertEquals(rows, descending);
+	}
+
+	@Test
+	void scanAndCountHonourInclusiveTimeBounds() throws Exception {
+		List<ArchivedRow> rows = rows(1200);
+		Segment segment = write(rows);
+		// Straddles the first block boundary (512 rows a block)
+		long from = SegmentWriter.micros(rows.get(500).time());
+		long to = SegmentWriter.micros(rows.get(700).time());
+
+		List<ArchivedRow> scanned = new ArrayList<>();
+		segment.scan(from, to, false, scanned::add);
+		assertEquals(rows.subList(500, 701), scanned);
+		assertEquals(201, segment.count(from, to));
+		assertEquals(1200, segment.count(Long.MIN_VALUE, Long.MAX_VALUE));
+		assertEquals(0, segment.count(Long.MIN_VALUE, segment.minTime() - 1));
+		assertEquals(1, segment.count(segment.maxTime(), Long.MAX_VALUE));
+	}
+
+	@Test
+	void findByKeyReturnsEveryRowWithTheKeyInOrder() throws Exception {
+		List<ArchivedRow> rows = rows(1200);
+		Segment segment = write(rows);
+
+		List<ArchivedRow> found = new ArrayList<>();
+		segment.findByKey(3, found::add);
+		assertFalse(found.isEmpty());
+		assertEquals(rows.stream().filter(row -> row.key() != null && row.key() == 3).toList(), found);
+
+		List<ArchivedRow> missing = new ArrayList<>();
+		segment.findByKey(42, missing::add);
+		assertTrue(missing.isEmpty());
+	}
+
+	@Test
+	void findByIdsDecodesOnlyTheBlocksHoldingThem() throws Exception {
+		List<ArchivedRow> rows = rows(1200);
+		Segment segment = write(rows);
+
+		Map<Long, ArchivedRow> found = new HashMap<>();
+		segment.findByIds(new TreeSet<>(List.of(1000L, 1600L, 2199L, 9999L)), found);
+		assertEquals(Map.of(1000L, rows.get(0), 1600L, rows.get(600), 2199L, rows.get(1199)), found);
+	}
+
+	@Test
+	void valuesKeepNullsAndLargeText() throws Exception {
+		String large = "ü".repeat(100_000);
+		List<ArchivedRow> rows = List.of(
+				new ArchivedRow(1, START, null, List.of()),
+				new ArchivedRow(2, START.plusNanos(1000), 7L, Arrays.asList(null, "", large)));
+		Segment segment = write(rows);
+
+		List<ArchivedRow> scanned = new ArrayList<>();
+		segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, false, scanned::add);
+		assertEquals(rows, scanned);
+	}
+
+	@Test
+	void emptySegmentHoldsNothing() throws Exception {
+		Segment segment = write(List.of());
+
+		assertEquals(0, segment.rowCount());
+		assertEquals(0, segment.count(Long.MIN_VALUE, Long.MAX_VALUE));
+		List<ArchivedRow> scanned = new ArrayList<>();
+		segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, false, scanned::add);
+		assertTrue(scanned.isEmpty());
+	}
+
+	@Test
+	void segmentIsWrittenUnderATemporaryNameAndRenamed() throws Exception {
+		write(rows(10));
+
+		try (var files = Files.list(dir)) {
+			assertEquals(List.of("test.seg"), files.map(file -> file.getFileName().toString()).toList());
+		}
+		assertFalse(Files.exists(dir.resolve("test.seg.tmp")));
+	}
+
+	private Segment write(List<ArchivedRow> rows) throws Exception {
+		Path file = dir.resolve("test.seg");
+		SegmentWriter.write(file, rows);
+		return Segment.open(file);
+	}
+
+	// One row a second from START, ids from 1000; every tenth row has no key and the
+	// rest are keyed id % 9
+	private static List<ArchivedRow> rows(int count) {
+		List<ArchivedRow> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			long id = 1000 + i;
+			rows.add(new ArchivedRow(id, START.plusSeconds(i), i % 10 == 0 ? null : id % 9,
+					Arrays.asList("value " + i, i % 3 == 0 ? null : "Zürich", Long.toString(id))));
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,67 @@
+package com.venus.kyc.viewer.documents;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalDocumentStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void identicalContentIsStoredOnce() throws Exception {
+		LocalDocumentStore store = new LocalDocumentStore(directory.toString());
+		byte[] content = new byte[200_000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+
+		DocumentStore.Stored first = store.store(new ByteArrayInputStream(content));
+		DocumentStore.Stored second = store.store(new ByteArrayInputStream(content));
+		DocumentStore.Stored other = store.store(new ByteArrayInputStream("other".getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(first, second);
+		assertEquals(content.length, first.contentLength());
+		assertEquals("d9298a10d1b0735837dc4bd85dac641b0f3cef27a47e5d53a54f2f3f5b2fcffa", other.contentHash());
+		assertTrue(store.contains(first.contentHash()));
+		try (Stream<Path> files = Files.walk(directory)) {
+			assertEquals(2, files.filter(Files::isRegularFile).count());
+		}
+	}
+
+	@Test
+	void transfersAnyPartOfTheContent() throws Exception {
+		LocalDocumentStore store = new LocalDocumentStore(directory.toString());
+		byte[] content = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+		String hash = store.store(new ByteArrayInputStream(content)).contentHash();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		store.transferTo(hash, 10, 4, Channels.newChannel(out));
+		assertArrayEquals("abcd".getBytes(StandardCharsets.UTF_8), out.toByteArray());
+
+		assertThrows(java.io.EOFException.class,
+				() -> store.transferTo(hash, 10, 20, Channels.newChannel(new ByteArrayOutputStream())));
+	}
+
+	@Test
+	void onlyHashesNameStoredFiles() {
+		LocalDocumentStore store = new LocalDocumentStore(directory.toString());
+
+		assertFalse(store.contains("0".repeat(64)));
+		assertThrows(IllegalArgumentException.class, () -> store.contains("../../etc/passwd"));
+	}
+}
@@ -0,0 +1,146 @@
+package com.venus.kyc.viewer.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OwnershipGraphTest {
+
+	private EmbeddedDatabase database;
+	private JdbcClient jdbcClient;
+	private OwnershipGraph graph;
+
+	// Control chain: client 1 has party 10 holding passport P1; client 2 holds P1
+	// itself and has party 20 with passport P2, which client 3's party 30 also holds.
+	// Client 4 is unrelated.
+	@BeforeEach
+	void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcClient = JdbcClient.create(database);
+		for (long clientId = 1; clientId <= 4; clientId++) {
+			jdbcClient.sql("INSERT INTO Clients (ClientID, FirstName, OnboardingDate, Status) VALUES (:id, 'Client', DATE '2024-01-01', 'ACTIVE')")
+					.param("id", clientId)
+					.update();
+		}
+		insertParty(10, 1, "P1");
+		jdbcClient.sql("INSERT INTO ClientIdentifiers (ClientID, IdentifierType, IdentifierValue) VALUES (2, 'passport', 'p 1')").update();
+		insertParty(20, 2, "P2");
+		insertParty(30, 3, "P2");
+		graph = new OwnershipGraph(jdbcClient, 5000);
+		graph.rebuild();
+	}
+
+	@AfterEach
+	void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void levelsCountClientHops() {
+		ClientNetwork network = graph.clientNetwork(1, 6).orElseThrow();
+
+		Map<String, Integer> levels = levels(network);
+		assertEquals(0, levels.get("client:1"));
+		assertEquals(0, levels.get("party:10"));
+		assertEquals(0, levels.get("identifier:PASSPORT:P1"));
+		assertEquals(1, levels.get("client:2"));
+		assertEquals(1, levels.get("party:30"));
+		assertEquals(2, levels.get("client:3"));
+		assertFalse(levels.containsKey("client:4"));
+		assertFalse(network.truncated());
+	}
+
+	@Test
+	void depthStopsAtClientBoundary() {
+		Map<String, Integer> levels = levels(graph.clientNetwork(1, 1).orElseThrow());
+
+		assertTrue(levels.containsKey("client:2"));
+		assertTrue(levels.containsKey("party:30"));
+		assertFalse(levels.containsKey("client:3"));
+	}
+
+	@Test
+	void viaLeadsBackToTheRoot() {
+		ClientNetwork network = graph.clientNetwork(3, 6).orElseThrow();
+		Map<String, String> via = network.nodes().stream()
+				.filter(n -> n.via() != null)
+				.collect(Collectors.toMap(ClientNetwork.Node::id, ClientNetwork.Node::via));
+
+		List<String> chain = new ArrayList<>();
+		for (String node = "client:1"; via.containsKey(node); node = via.get(node)) {
+			chain.add(via.get(node));
+		}
+		assertEquals(List.of("party:10", "identifier:PASSPORT:P1", "client:2", "party:20",
+				"identifier:PASSPORT:P2", "party:30", "client:3"), chain);
+	}
+
+	@Test
+	void identifierLookupFindsEveryHolder() {
+		ClientNetwork network = graph.identifierNetwork("Passport", "P2", 0).orElseThrow();
+
+		assertEquals(List.of("identifier:PASSPORT:P2", "party:20", "party:30"), network.nodes().stream()
+				.map(ClientNetwork.Node::id).sorted().toList());
+		assertTrue(graph.identifierNetwork("PASSPORT", "NOPE", 2).isEmpty());
+	}
+
+	@Test
+	void incrementalEdgesSurviveCompaction() {
+		// Link client 4 through a new party, then add enough edges to force compactions
+		graph.addRelatedParty(4, 40);
+		graph.addRelatedPartyIdentifier(40, "PASSPORT", "P1");
+		for (long partyId = 1000; partyId < 1000 + 3 * OwnershipGraph.COMPACT_MIN_DELTA_EDGES; partyId++) {
+			graph.addRelatedParty(partyId % 3 + 5, partyId);
+		}
+		graph.addRelatedParty(4, 40);
+
+		Map<String, Integer> levels = levels(graph.clientNetwork(4, 2).orElseThrow());
+		assertEquals(0, levels.get("party:40"));
+		assertEquals(1, levels.get("client:1"));
+		assertEquals(1, levels.get("client:2"));
+		assertEquals(2, levels.get("client:3"));
+		assertEquals(OwnershipGraph.COMPACT_MIN_DELTA_EDGES + 1,
+				graph.clientNetwork(5, 0).orElseThrow().nodes().size());
+	}
+
+	@Test
+	void resultsAreCappedAtMaxNodes() {
+		OwnershipGraph small = new OwnershipGraph(jdbcClient, 3);
+		small.rebuild();
+
+		ClientNetwork network = small.clientNetwork(1, 6).orElseThrow();
+		assertEquals(3, network.nodes().size());
+		assertTrue(network.truncated());
+	}
+
+	private static Map<String, Integer> levels(ClientNetwork network) {
+		return network.nodes().stream().collect(Collectors.toMap(ClientNetwork.Node::id, ClientNetwork.Node::level));
+	}
+
+	private void insertParty(long partyId, long clientId, String passport) {
+		jdbcClient.sql("INSERT INTO RelatedParties (RelatedPartyID, ClientID, FirstName) VALUES (:id, :clientId, 'Party')")
+				.param("id", partyId)
+				.param("clientId", clientId)
+				.update();
+		jdbcClient.sql("INSERT INTO RelatedPartyIdentifiers (RelatedPartyID, IdentifierType, IdentifierValue) VALUES (:id, 'PASSPORT', :value)")
+				.param("id", partyId)
+				.param("value", passport)
+				.update();
+	}
+}
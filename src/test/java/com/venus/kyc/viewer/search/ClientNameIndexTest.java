@@ -0,0 +1,81 @@
+package com.venus.kyc.viewer.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientNameIndexTest {
+
+	private EmbeddedDatabase database;
+	private JdbcClient jdbcClient;
+	private ClientNameIndex index;
+
+	@BeforeEach
+	void createDatabase() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcClient = JdbcClient.create(database);
+		insertClient(1, "Anna", "Muster");
+		insertClient(2, "Hans", "Keller");
+		insertClient(3, "Peter", "Frei");
+		jdbcClient.sql("INSERT INTO RelatedParties (ClientID, FirstName, LastName) VALUES (3, 'Eva', 'Muster')").update();
+		index = new ClientNameIndex(jdbcClient, 0.75);
+	}
+
+	@AfterEach
+	void shutdown() {
+		database.shutdown();
+	}
+
+	@Test
+	void callersFallBackToSqlUntilTheIndexIsBuilt() {
+		assertFalse(index.isReady());
+		assertNull(index.search("muster"));
+		assertNull(index.fuzzySearch("muster"));
+
+		index.rebuild();
+
+		assertTrue(index.isReady());
+		assertNull(index.search("mu"));
+	}
+
+	@Test
+	void clientNamesRankAboveRelatedPartyNames() {
+		index.rebuild();
+
+		assertArrayEquals(new long[] { 1, 3 }, index.search("MUSTER"));
+	}
+
+	@Test
+	void relatedPartiesAddedAfterTheBuildAreFound() {
+		index.rebuild();
+		assertArrayEquals(new long[0], index.search("zellweger"));
+
+		index.indexRelatedParty(2, "Ursula", null, "Zellweger");
+		index.indexClient(4, "Marco", null, "Zellweger");
+
+		// The new client's own name ranks above client 2's related party
+		assertArrayEquals(new long[] { 4, 2 }, index.search("zellweger"));
+		assertArrayEquals(new long[] { 2 }, index.search("ursula"));
+	}
+
+	private void insertClient(long id, String firstName, String lastName) {
+		jdbcClient.sql("INSERT INTO Clients (ClientID, FirstName, LastName, OnboardingDate, Status) VALUES (:id, :first, :last, DATE '2024-01-01', 'ACTIVE')")
+				.param("id", id)
+				.param("first", firstName)
+				.param("last", lastName)
+				.update();
+	}
+}
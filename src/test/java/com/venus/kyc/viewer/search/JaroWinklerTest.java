@@ -0,0 +1,43 @@
+package com.venus.kyc.viewer.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JaroWinklerTest {
+
+	private static final double DELTA = 1e-4;
+
+	// Reference values from Winkler's paper and the usual test pairs
+	@Test
+	void matchesKnownValues() {
+		assertEquals(0.9611, JaroWinkler.similarity("martha", "marhta"), DELTA);
+		assertEquals(0.8400, JaroWinkler.similarity("dwayne", "duane"), DELTA);
+		assertEquals(0.8133, JaroWinkler.similarity("dixon", "dicksonx"), DELTA);
+		assertEquals(0.8324, JaroWinkler.similarity("jones", "johnson"), DELTA);
+	}
+
+	@Test
+	void identicalAndDisjointStrings() {
+		assertEquals(1.0, JaroWinkler.similarity("meier", "meier"));
+		assertEquals(0.0, JaroWinkler.similarity("abc", "xyz"));
+		assertEquals(0.0, JaroWinkler.similarity("", "meier"));
+		assertEquals(0.0, JaroWinkler.similarity("meier", ""));
+	}
+
+	@Test
+	void isSymmetric() {
+		for (String[] pair : new String[][] { { "meier", "mayer" }, { "martha", "marhta" }, { "dixon", "dicksonx" },
+				{ "mueller", "muller" } }) {
+			assertEquals(JaroWinkler.similarity(pair[0], pair[1]), JaroWinkler.similarity(pair[1], pair[0]), DELTA);
+		}
+	}
+
+	@Test
+	void commonPrefixRaisesTheScore() {
+		// Same Jaro similarity (one substitution in five); Meyer shares two leading letters, Maier one
+		assertEquals(0.8933, JaroWinkler.similarity("meier", "meyer"), DELTA);
+		assertEquals(0.8800, JaroWinkler.similarity("meier", "maier"), DELTA);
+		assertEquals(0.7600, JaroWinkler.similarity("meier", "mayer"), DELTA);
+	}
+}
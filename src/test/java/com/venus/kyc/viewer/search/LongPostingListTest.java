@@ -0,0 +1,75 @@
+package com.venus.kyc.viewer.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongPostingListTest {
+
+	@Test
+	void addKeepsIdsSortedAndDistinct() {
+		LongPostingList list = list(5, 1, 9, 5, 3, 9, 1, 7);
+
+		assertArrayEquals(new long[] { 1, 3, 5, 7, 9 }, list.toArray());
+		assertEquals(5, list.size());
+		assertEquals(7, list.get(3));
+	}
+
+	@Test
+	void addGrowsPastTheInitialCapacity() {
+		LongPostingList list = new LongPostingList();
+		for (long id = 1000; id > 0; id--) {
+			list.add(id);
+		}
+
+		assertEquals(1000, list.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i + 1, list.get(i));
+		}
+	}
+
+	@Test
+	void lowerBoundFindsTheFirstIdNotBelow() {
+		LongPostingList list = list(2, 4, 6, 8);
+
+		assertEquals(0, list.lowerBound(1, 0));
+		assertEquals(1, list.lowerBound(4, 0));
+		assertEquals(2, list.lowerBound(5, 0));
+		assertEquals(4, list.lowerBound(9, 0));
+		// The search starts at 'from'
+		assertEquals(3, list.lowerBound(2, 3));
+	}
+
+	@Test
+	void intersectKeepsIdsInEveryList() {
+		LongPostingList a = list(1, 2, 3, 5, 8, 13, 21, 34);
+		LongPostingList b = list(2, 3, 5, 7, 11, 13, 34, 55);
+		LongPostingList c = list(3, 13, 34);
+
+		assertArrayEquals(new long[] { 3, 13, 34 }, LongPostingList.intersect(new LongPostingList[] { a, b, c }));
+		assertArrayEquals(new long[] { 2, 3, 5, 13, 34 }, LongPostingList.intersect(new LongPostingList[] { a, b }));
+	}
+
+	@Test
+	void intersectOfASingleListIsTheList() {
+		assertArrayEquals(new long[] { 4, 6 }, LongPostingList.intersect(new LongPostingList[] { list(6, 4) }));
+	}
+
+	@Test
+	void intersectOfDisjointOrEmptyListsIsEmpty() {
+		assertArrayEquals(new long[0], LongPostingList.intersect(new LongPostingList[] { list(1, 3, 5), list(2, 4, 6) }));
+		assertArrayEquals(new long[0], LongPostingList.intersect(new LongPostingList[] { list(1, 3, 5), list() }));
+		// A list that runs out ends the walk early
+		assertArrayEquals(new long[] { 1 },
+				LongPostingList.intersect(new LongPostingList[] { list(1, 2, 3, 4, 5, 6), list(0, 1) }));
+	}
+
+	private static LongPostingList list(long... ids) {
+		LongPostingList list = new LongPostingList();
+		for (long id : ids) {
+			list.add(id);
+		}
+		return list;
+	}
+}
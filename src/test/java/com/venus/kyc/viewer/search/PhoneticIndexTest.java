@@ -0,0 +1,164 @@
+package com.venus.kyc.viewer.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhoneticIndexTest {
+
+	private static final double DELTA = 1e-4;
+
+	@Test
+	void spellingsOfOneNameShareABlockAndRankBySimilarity() {
+		PhoneticIndex index = new PhoneticIndex();
+		index.add(1, "Meier", 1);
+		index.add(2, "Mayer", 1);
+		index.add(3, "Maier", 1);
+		index.add(4, "Meyer", 1);
+		index.add(5, "Schmidt", 1);
+
+		PhoneticIndex.Match match = index.search("Meier", 0.75);
+
+		assertArrayEquals(new long[] { 1, 4, 3, 2 }, match.ids());
+		assertArrayEquals(new double[] { 1.0, 0.8933, 0.88, 0.76 }, match.scores(), DELTA);
+		assertArrayEquals(new long[] { 4, 1, 2, 3 }, index.search("meyer", 0.75).ids());
+	}
+
+	@Test
+	void minScoreCutsOffWeakerMatches() {
+		PhoneticIndex index = new PhoneticIndex();
+		index.add(1, "Meier", 1);
+		index.add(2, "Mayer", 1);
+		index.add(3, "Maier", 1);
+
+		assertArrayEquals(new long[] { 1, 3, 2 }, index.search("Meier", 0.75).ids());
+		assertArrayEquals(new long[] { 1, 3 }, index.search("Meier", 0.8).ids());
+		assertArrayEquals(new long[] { 1 }, index.search("Meier", 1.0).ids());
+	}
+
+	@Test
+	void diacriticsAndSharpSAreFolded() {
+		PhoneticIndex index = new PhoneticIndex();
+		index.add(1, "Müller", 1);
+		index.add(2, "Strauß", 1);
+
+		assertEquals(1.0, index.search("MULLER", 0.75).scores()[0]);
+		assertArrayEquals(new long[] { 1 }, index.search("Muller", 0.75).ids());
+		assertArrayEquals(new long[] { 2 }, index.search("strauss", 0.75).ids());
+	}
+
+	@Test
+	void everyQueryTokenMustMatchAndScoresAreAveraged() {
+		PhoneticIndex index = new PhoneticIndex();
+		index.add(1, "Hans Peter Meier", 1);
+		index.add(2, "Hans Keller", 1);
+
+		PhoneticIndex.Match both = index.search("meier hans", 0.75);
+		assertArrayEquals(new long[] { 1 }, both.ids());
+		assertEquals(1.0, both.scores()[0], DELTA);
+		assertArrayEquals(new long[] { 1, 2 }, index.search("hans", 0.75).ids());
+		// Mayer scores 0.76 and Hans 1.0
+		assertEquals(0.88, index.search("Hans Mayer", 0.75).scores()[0], DELTA);
+	}
+
+	@Test
+	void tiesGoToTheHeavierNameThenTheLowerId() {
+		PhoneticIndex index = new PhoneticIndex();
+		index.add(1, "Meier", 1);
+		// A heavier token that is only an interim best doesn't lend its weight
+		index.add(2, "Mayr", 2);
+		index.add(2, "Meier", 1);
+		index.add(3, "Meier", 2);
+		index.add(0, "Meier", 1);
+
+		PhoneticIndex.Match match = index.search("meier", 0.75);
+		assertArrayEquals(new long[] { 3, 0, 1, 2 }, match.ids());
+		assertArrayEquals(new double[] { 1.0, 1.0, 1.0, 1.0 }, match.scores(), DELTA);
+	}
+
+	@Test
+	void queriesWithoutUsableTokensMatchNothing() {
+		PhoneticIndex index = new PhoneticIndex();
+		index.add(1, "Meier", 1);
+
+		assertEquals(0, index.search(null, 0.75).ids().length);
+		assertEquals(0, index.search("  - ", 0.75).ids().length);
+		assertEquals(0, index.search("m", 0.75).ids().length);
+		assertEquals(0, index.search("Schmidt", 0.75).ids().length);
+	}
+
+	// Readers and writers share the index, as the search endpoint and client writes do.
+	// Every answer must stay well-formed, and searches must keep finishing promptly.
+	@Test
+	void searchesStayCorrectAndPromptWhileNamesAreAdded() {
+		String[] names = { "Meier", "Mayer", "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Wagner",
+				"Becker", "Hoffmann" };
+		PhoneticIndex index = new PhoneticIndex();
+		for (int i = 0; i < 20_000; i++) {
+			index.add(i, names[i % names.length] + " " + names[i / names.length % names.length], 1);
+		}
+		int readers = 6;
+		int writers = 2;
+		int searchesPerReader = 200;
+		int addsPerWriter = 5_000;
+		AtomicLong slowestNanos = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(readers + writers);
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+			for (int w = 0; w < writers; w++) {
+				long firstId = 100_000 + w * addsPerWriter;
+				tasks.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < addsPerWriter; i++) {
+						index.add(firstId + i, "Maier " + names[i % names.length], 1);
+					}
+					return null;
+				}));
+			}
+			for (int r = 0; r < readers; r++) {
+				String query = r % 2 == 0 ? "Meier" : "Meier Weber";
+				tasks.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < searchesPerReader; i++) {
+						long began = System.nanoTime();
+						PhoneticIndex.Match match = index.search(query, 0.75);
+						slowestNanos.accumulateAndGet(System.nanoTime() - began, Math::max);
+						assertEquals(match.ids().length, match.scores().length);
+						assertTrue(match.ids().length > 0);
+						for (int m = 1; m < match.scores().length; m++) {
+							assertTrue(match.scores()[m - 1] >= match.scores()[m]);
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+				for (Future<?> task : tasks) {
+					task.get();
+				}
+			});
+		} finally {
+			pool.shutdownNow();
+		}
+
+		// A generous bound; it catches a search blocked behind the writers, not a slow machine
+		assertTrue(slowestNanos.get() < TimeUnit.SECONDS.toNanos(2), "slowest search " + slowestNanos.get() + " ns");
+		// Every added Maier is found
+		assertEquals(writers * addsPerWriter, index.search("Maier", 1.0).ids().length);
+	}
+}
@@ -0,0 +1,105 @@
+package com.venus.kyc.viewer.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrigramIndexTest {
+
+	@Test
+	void queriesShorterThanATrigramAreNotAnswered() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(1, "Anna", 1);
+
+		assertNull(index.search("an"));
+		assertNull(index.search("  an  "));
+		assertNull(index.search(null));
+	}
+
+	@Test
+	void searchIsACaseInsensitiveSubstringMatch() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(1, "Johanna", 1);
+		index.add(2, "HANNAH", 1);
+		index.add(3, "Hans", 1);
+
+		assertArrayEquals(new long[] { 2, 1 }, index.search("hAnNa"));
+		assertArrayEquals(new long[] { 2, 3, 1 }, index.search(" HAN "));
+		assertArrayEquals(new long[0], index.search("xyz"));
+	}
+
+	@Test
+	void candidatesWithEveryTrigramButNoSubstringAreDropped() {
+		TrigramIndex index = new TrigramIndex();
+		// Holds "abc" and "bcd" but not "abcd"
+		index.add(1, "abcxbcd", 1);
+		index.add(2, "xabcdx", 1);
+
+		assertArrayEquals(new long[] { 2 }, index.search("abcd"));
+	}
+
+	@Test
+	void exactBeatsPrefixBeatsWordStartBeatsSubstring() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(4, "Bergmann", 1);
+		index.add(3, "Anna Mann", 1);
+		index.add(2, "Manning", 1);
+		index.add(1, "Mann", 1);
+		index.add(5, "Hoff-Mann", 1);
+
+		// Word start after a space or a hyphen ranks the same; ties go by id
+		assertArrayEquals(new long[] { 1, 2, 3, 5, 4 }, index.search("mann"));
+	}
+
+	@Test
+	void weightRanksADocumentsOwnNamesAboveOthers() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(1, "Peter Muster", ClientNameIndex.RELATED_PARTY_NAME_WEIGHT);
+		index.add(2, "Muster", ClientNameIndex.CLIENT_NAME_WEIGHT);
+		index.add(3, "Muster", ClientNameIndex.RELATED_PARTY_NAME_WEIGHT);
+		index.add(4, "Muster AG", ClientNameIndex.CLIENT_NAME_WEIGHT);
+
+		// Exact x2 (16); exact x1 and prefix x2 tie at 8 and go by id; word start x1 (2)
+		assertArrayEquals(new long[] { 2, 3, 4, 1 }, index.search("muster"));
+	}
+
+	@Test
+	void aDocumentsBestTextDecidesItsRank() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(1, "Schneider", 2);
+		index.add(1, "Anna", 2);
+		index.add(2, "Annabelle", 2);
+
+		assertArrayEquals(new long[] { 1, 2 }, index.search("anna"));
+		assertEquals(2, index.documentCount());
+	}
+
+	@Test
+	void textsAddedLaterAreFound() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(7, "Meier", 2);
+		assertArrayEquals(new long[0], index.search("keller"));
+
+		index.add(3, "Keller", 1);
+		index.add(7, "Keller-Meier", 1);
+
+		assertArrayEquals(new long[] { 3, 7 }, index.search("keller"));
+		assertArrayEquals(new long[] { 7 }, index.search("meier"));
+	}
+
+	@Test
+	void blankTextsAreIgnoredAndBadIdsOrWeightsRejected() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(1, "   ", 1);
+		index.add(2, null, 1);
+
+		assertEquals(0, index.documentCount());
+		assertThrows(IllegalArgumentException.class, () -> index.add(-1, "Anna", 1));
+		assertThrows(IllegalArgumentException.class, () -> index.add(1L << 48, "Anna", 1));
+		assertThrows(IllegalArgumentException.class, () -> index.add(1, "Anna", 0));
+		assertThrows(IllegalArgumentException.class, () -> index.add(1, "Anna", 128));
+	}
+}